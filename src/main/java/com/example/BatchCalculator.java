@@ -0,0 +1,304 @@
+package com.example;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * BatchCalculator - 命令行批处理：逐行读入表达式或方程，按输入顺序输出结果
+ *
+ * 特性：
+ *  - 每行一个任务：含 '=' 的行按方程（组）求解，方程组各式用 ';' 分隔；其余按表达式计算
+ *  - 读取、计算、写出三段流水线：读线程把行按块提交到线程池，主线程按提交顺序取回结果写出，
+ *    在途的块数有上限，输入再大也不会把整个文件读进内存
+ *  - 结果经缓冲写到标准输出，每行输入对应一行输出（多行结果以 " | " 连接）；空行原样保留，
+ *    以 # 开头的注释行原样输出
+ *  - 各行相互独立（不支持 ans），输出与线程数无关；每行有独立的计算预算，超出时输出部分结果
+ *  - -p 位数 时表达式行按该位数的高精度计算（方程仍为双精度），同样受单行预算约束
+ *  - 结束时在标准错误输出行数、吞吐量（ops/s）与单行延迟 p50/p99
+ *
+ * 命令行：
+ *  java -cp casio-calculator-standalone.jar com.example.BatchCalculator [-j 线程数] [-t 单行超时毫秒] [-p 位数] [-e] [文件]
+ *  不给文件或文件为 - 时读标准输入；-e 在结果前回显输入（以制表符分隔）
+ */
+public class BatchCalculator {
+
+    /** 每个任务处理的行数，摊薄线程池调度开销 */
+    private static final int CHUNK_LINES = 64;
+    /** 每个工作线程允许在途（已提交未写出）的块数 */
+    private static final int IN_FLIGHT_PER_THREAD = 4;
+    private static final int OUTPUT_BUFFER = 1 << 16;
+    public static final long DEFAULT_LINE_TIMEOUT_MILLIS = 10_000;
+
+    private final int threads;
+    private final long lineTimeoutMillis;
+    private final boolean echo;
+    /** 表达式的有效位数，0 表示双精度 */
+    private final int precision;
+    /** 求解器只通过会话记录结果；不保留历史，批处理不会因行数增长占用内存 */
+    private final CalculatorEngine engine = new CalculatorEngine(new CalculatorSession("batch", 0));
+
+    public BatchCalculator(int threads, long lineTimeoutMillis, boolean echo) {
+        this(threads, lineTimeoutMillis, echo, 0);
+    }
+
+    /**
+     * @param precision 表达式行的有效位数，0 表示双精度
+     */
+    public BatchCalculator(int threads, long lineTimeoutMillis, boolean echo, int precision) {
+        if (threads < 1) throw new IllegalArgumentException("线程数必须大于 0");
+        if (lineTimeoutMillis < 1) throw new IllegalArgumentException("超时必须大于 0");
+        if (precision != 0) PrecisionEvaluator.checkDigits(precision);
+        this.threads = threads;
+        this.lineTimeoutMillis = lineTimeoutMillis;
+        this.echo = echo;
+        this.precision = precision;
+    }
+
+    /** 运行统计 */
+    public static final class Summary {
+        public final long lines;
+        public final long failures;
+        public final double seconds;
+        /** 每个计算行的耗时，纳秒，已排序 */
+        private final long[] latencies;
+
+        Summary(long lines, long failures, double seconds, long[] latencies) {
+            this.lines = lines;
+            this.failures = failures;
+            this.seconds = seconds;
+            this.latencies = latencies;
+        }
+
+        public double throughput() {
+            return seconds > 0 ? lines / seconds : Double.NaN;
+        }
+
+        /** 单行延迟的 p 分位数，毫秒 */
+        public double percentile(double p) {
+            if (latencies.length == 0) return Double.NaN;
+            int idx = (int) Math.ceil(p / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(idx, latencies.length - 1))] / 1e6;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "共 %d 行（失败 %d），用时 %.3f s，吞吐 %.0f ops/s%n延迟 p50 %.3f ms | p99 %.3f ms | 最大 %.3f ms",
+                    lines, failures, seconds, throughput(), percentile(50), percentile(99),
+                    latencies.length == 0 ? Double.NaN : latencies[latencies.length - 1] / 1e6);
+        }
+    }
+
+    /** 一块行的计算结果 */
+    private static final class Chunk {
+        final String[] output;
+        /** 计算行的耗时；空行与注释行为 -1 */
+        final long[] nanos;
+        int failures;
+
+        Chunk(int size) {
+            output = new String[size];
+            nanos = new long[size];
+        }
+    }
+
+    /**
+     * 处理 in 的全部行，结果写到 out（调用方负责关闭两者）
+     */
+    public Summary run(Reader in, Writer out) throws IOException, InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "batch-worker");
+            t.setDaemon(true);
+            return t;
+        });
+        // 队列有界：写出跟不上时读线程阻塞在 put 上，形成背压
+        BlockingQueue<Future<Chunk>> pending = new ArrayBlockingQueue<>(threads * IN_FLIGHT_PER_THREAD);
+        Future<Chunk> endOfInput = CompletableFuture.completedFuture(null);
+        IOException[] readError = new IOException[1];
+
+        BufferedReader reader = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in, OUTPUT_BUFFER);
+        Thread producer = new Thread(() -> {
+            try {
+                List<String> block = new ArrayList<>(CHUNK_LINES);
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    block.add(line);
+                    if (block.size() == CHUNK_LINES) {
+                        pending.put(submit(pool, block));
+                        block = new ArrayList<>(CHUNK_LINES);
+                    }
+                }
+                if (!block.isEmpty()) pending.put(submit(pool, block));
+            } catch (IOException e) {
+                readError[0] = e;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                try {
+                    pending.put(endOfInput);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, "batch-reader");
+
+        long start = System.nanoTime();
+        long lines = 0;
+        long failures = 0;
+        long[] latencies = new long[1024];
+        int latencyCount = 0;
+        producer.start();
+        try {
+            Future<Chunk> next;
+            while ((next = pending.take()) != endOfInput) {
+                Chunk chunk;
+                try {
+                    chunk = next.get();
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("批处理任务异常", e.getCause());
+                }
+                for (int i = 0; i < chunk.output.length; i++) {
+                    out.write(chunk.output[i]);
+                    out.write('\n');
+                    if (chunk.nanos[i] < 0) continue;
+                    if (latencyCount == latencies.length) latencies = Arrays.copyOf(latencies, latencyCount * 2);
+                    latencies[latencyCount++] = chunk.nanos[i];
+                    lines++;
+                }
+                failures += chunk.failures;
+            }
+            out.flush();
+        } finally {
+            producer.interrupt();
+            pool.shutdownNow();
+        }
+        producer.join();
+        if (readError[0] != null) throw readError[0];
+
+        double seconds = (System.nanoTime() - start) / 1e9;
+        long[] sorted = Arrays.copyOf(latencies, latencyCount);
+        Arrays.sort(sorted);
+        return new Summary(lines, failures, seconds, sorted);
+    }
+
+    private Future<Chunk> submit(ExecutorService pool, List<String> block) {
+        return pool.submit(() -> {
+            Chunk chunk = new Chunk(block.size());
+            for (int i = 0; i < block.size(); i++) {
+                String line = block.get(i);
+                String trimmed = line.trim();
+                if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                    chunk.output[i] = line;
+                    chunk.nanos[i] = -1;
+                    continue;
+                }
+                long t0 = System.nanoTime();
+                String result;
+                try {
+                    result = evaluateLine(trimmed);
+                } catch (Exception e) {
+                    result = "错误: " + e.getMessage();
+                    chunk.failures++;
+                }
+                chunk.nanos[i] = System.nanoTime() - t0;
+                result = result.trim().replace("\r", "").replace("\n", " | ");
+                chunk.output[i] = echo ? trimmed + "\t" + result : result;
+            }
+            return chunk;
+        });
+    }
+
+    /**
+     * 单行：含 '=' 为方程（组），否则为表达式；方程与高精度表达式在同样的单行预算内计算
+     */
+    String evaluateLine(String line) throws Exception {
+        if (line.indexOf('=') >= 0) {
+            ComputeBudget budget = ComputeBudget.of(Duration.ofMillis(lineTimeoutMillis), 0);
+            return engine.solveEquation(line, budget);
+        }
+        if (precision > 0) {
+            ComputeBudget budget = ComputeBudget.of(Duration.ofMillis(lineTimeoutMillis), 0);
+            try {
+                BigDecimal value = PrecisionEvaluator.evaluate(line, Collections.emptyMap(), precision, budget);
+                return PrecisionEvaluator.format(value, precision);
+            } catch (ComputeBudget.ExhaustedException ee) {
+                return "计算中止：计算" + ee.status.description();
+            }
+        }
+        return CalculatorEngine.formatResult(CalculatorEngine.evaluate(line, Collections.emptyMap()));
+    }
+
+    /* ------------------ 命令行入口 ------------------ */
+
+    public static void main(String[] args) {
+        int threads = Runtime.getRuntime().availableProcessors();
+        long timeout = DEFAULT_LINE_TIMEOUT_MILLIS;
+        boolean echo = false;
+        int precision = 0;
+        String file = null;
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case "-j":
+                        threads = Integer.parseInt(args[++i]);
+                        break;
+                    case "-t":
+                        timeout = Long.parseLong(args[++i]);
+                        break;
+                    case "-p":
+                        precision = Integer.parseInt(args[++i]);
+                        break;
+                    case "-e":
+                        echo = true;
+                        break;
+                    default:
+                        if (file != null) throw new IllegalArgumentException("多余的参数: " + args[i]);
+                        file = args[i];
+                }
+            }
+        } catch (RuntimeException e) {
+            System.err.println("用法: BatchCalculator [-j 线程数] [-t 单行超时毫秒] [-p 位数] [-e] [文件]");
+            System.exit(2);
+            return;
+        }
+
+        try (InputStream input = file == null || file.equals("-") ? System.in : new FileInputStream(file)) {
+            Reader in = new InputStreamReader(input, StandardCharsets.UTF_8);
+            // 不关闭 System.out，run 结束时已刷新
+            Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8), OUTPUT_BUFFER);
+            Summary summary = new BatchCalculator(threads, timeout, echo, precision).run(in, out);
+            System.err.println(summary);
+        } catch (IllegalArgumentException e) {
+            System.err.println("参数错误: " + e.getMessage());
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("读写失败: " + e.getMessage());
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.exit(130);
+        }
+    }
+}
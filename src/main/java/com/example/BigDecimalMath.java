@@ -0,0 +1,561 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.function.IntFunction;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * BigDecimalMath - 任意精度的初等函数与常数
+ *
+ * 特性：
+ *  - 结果按调用方给出的 MathContext 舍入；内部多保留 GUARD 位，结果的最后一位之前都是正确数字
+ *  - π（Chudnovsky 级数）、e、ln2、ln10（atanh 级数）用二分拆分（binary splitting）以整数运算求和，
+ *    按已算出的最高精度缓存，低精度请求直接由缓存舍入得到
+ *  - exp：x = k·ln10 + r，r 连续减半后用泰勒级数，再平方还原；log：以双精度初值做 Halley 迭代，
+ *    每步有效位数约增至三倍
+ *  - 级数与约化循环用二进制定点的 BigInteger 运算，舍入只是移位，避免 BigDecimal 每步按十进制舍入的除法
+ *  - sin / cos / tan：用缓存的 π 做区间约化，三倍角公式缩小自变量后求和；atan 用半角公式约化
+ *  - 结果接近 0（如 sin(π 的近似值)、log(0.999…)）时按损失的位数提高精度重算，保证相对精度
+ *  - 可传入 ComputeBudget：级数求和、二分拆分与约化循环每一步检查一次，预算用尽或线程被中断时
+ *    抛出 ComputeBudget.ExhaustedException；不带预算的重载不限时间
+ *  - 三角函数的自变量不超过 10^MAX_REDUCTION_EXPONENT：约化需要与自变量整数部分同样多位的 π
+ *  - 无状态，常数缓存可被多个线程同时读取与更新
+ */
+public final class BigDecimalMath {
+
+    /** 内部运算额外保留的位数 */
+    private static final int GUARD = 10;
+    /** exp 的自变量上限，超过时结果的指数超出 BigDecimal 的范围 */
+    private static final BigDecimal EXP_LIMIT = new BigDecimal("4.9e9");
+    /** 三角函数自变量的十进制指数上限，约化所需 π 的位数与之相当 */
+    public static final int MAX_REDUCTION_EXPONENT = 10_000;
+    private static final BigInteger CHUDNOVSKY_C3_OVER_24 = BigInteger.valueOf(640320).pow(3).divide(BigInteger.valueOf(24));
+    private static final BigDecimal TWO = BigDecimal.valueOf(2);
+    private static final BigDecimal THREE = BigDecimal.valueOf(3);
+    private static final BigDecimal FOUR = BigDecimal.valueOf(4);
+
+    private static final Constant PI = new Constant(BigDecimalMath::computePi);
+    private static final Constant E = new Constant(BigDecimalMath::computeE);
+    private static final Constant LN2 = new Constant((d, budget) -> atanhInverse(3, d, budget).multiply(TWO));
+    /** ln10 = 3·ln2 + ln(1.25)，ln(1.25) = 2·atanh(1/9) */
+    private static final Constant LN10 = new Constant((d, budget) -> ln2(new MathContext(d), budget).multiply(THREE)
+            .add(atanhInverse(9, d, budget).multiply(TWO)));
+
+    private BigDecimalMath() {}
+
+    /** 按位数计算一个常数 */
+    private interface Series {
+        BigDecimal compute(int digits, ComputeBudget budget);
+    }
+
+    /** 按精度缓存的常数；只保留算过的最高精度，中途因预算停止的计算不写入缓存 */
+    private static final class Constant {
+        private final Series compute;
+        private volatile Cached cached;
+
+        Constant(Series compute) {
+            this.compute = compute;
+        }
+
+        BigDecimal get(MathContext mc, ComputeBudget budget) {
+            Cached c = cached;
+            if (c == null || c.digits < mc.getPrecision()) {
+                // 并发时可能重复计算，结果相同，保留精度高的一份即可
+                int digits = mc.getPrecision() + GUARD;
+                c = new Cached(digits, compute.compute(digits, budget).round(new MathContext(digits)));
+                Cached old = cached;
+                if (old == null || old.digits < digits) cached = c;
+            }
+            return c.value.round(mc);
+        }
+    }
+
+    private static final class Cached {
+        final int digits;
+        final BigDecimal value;
+
+        Cached(int digits, BigDecimal value) {
+            this.digits = digits;
+            this.value = value;
+        }
+    }
+
+    /* ------------------ 常数 ------------------ */
+
+    public static BigDecimal pi(MathContext mc) {
+        return pi(mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal pi(MathContext mc, ComputeBudget budget) {
+        return PI.get(mc, budget);
+    }
+
+    public static BigDecimal e(MathContext mc) {
+        return e(mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal e(MathContext mc, ComputeBudget budget) {
+        return E.get(mc, budget);
+    }
+
+    public static BigDecimal ln2(MathContext mc) {
+        return ln2(mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal ln2(MathContext mc, ComputeBudget budget) {
+        return LN2.get(mc, budget);
+    }
+
+    public static BigDecimal ln10(MathContext mc) {
+        return ln10(mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal ln10(MathContext mc, ComputeBudget budget) {
+        return LN10.get(mc, budget);
+    }
+
+    /**
+     * Chudnovsky：1/π = 12 Σ (-1)^k (6k)! (13591409 + 545140134k) / ((3k)! (k!)^3 640320^(3k+3/2))，
+     * 每项约 14 位
+     */
+    private static BigDecimal computePi(int digits, ComputeBudget budget) {
+        MathContext mc = new MathContext(digits + GUARD);
+        BigInteger[] pqt = chudnovsky(0, digits / 14 + 2, budget);
+        BigDecimal numerator = new BigDecimal(pqt[1].multiply(BigInteger.valueOf(426880)))
+                .multiply(sqrt(BigDecimal.valueOf(10005), mc), mc);
+        return numerator.divide(new BigDecimal(pqt[2]), mc);
+    }
+
+    /** 区间 [a, b) 的 P、Q、T */
+    private static BigInteger[] chudnovsky(long a, long b, ComputeBudget budget) {
+        budget.checkpoint();
+        if (b - a == 1) {
+            BigInteger p, q;
+            if (a == 0) {
+                p = q = BigInteger.ONE;
+            } else {
+                p = BigInteger.valueOf(6 * a - 5).multiply(BigInteger.valueOf(2 * a - 1)).multiply(BigInteger.valueOf(6 * a - 1));
+                q = BigInteger.valueOf(a).pow(3).multiply(CHUDNOVSKY_C3_OVER_24);
+            }
+            BigInteger t = p.multiply(BigInteger.valueOf(13591409 + 545140134L * a));
+            return new BigInteger[]{p, q, (a & 1) == 1 ? t.negate() : t};
+        }
+        long m = (a + b) >>> 1;
+        BigInteger[] l = chudnovsky(a, m, budget);
+        BigInteger[] r = chudnovsky(m, b, budget);
+        return new BigInteger[]{
+                l[0].multiply(r[0]),
+                l[1].multiply(r[1]),
+                r[1].multiply(l[2]).add(l[0].multiply(r[2]))
+        };
+    }
+
+    /** e = Σ 1/n!，取 n! > 10^digits 项 */
+    private static BigDecimal computeE(int digits, ComputeBudget budget) {
+        long n = 2;
+        double log10Factorial = 0;
+        while (log10Factorial < digits + GUARD) log10Factorial += Math.log10(++n);
+        return sumSeries(n, k -> k == 0 ? 1 : k, k -> 1, digits, budget);
+    }
+
+    /** atanh(1/k) = Σ 1/((2n+1) k^(2n+1)) */
+    private static BigDecimal atanhInverse(long k, int digits, ComputeBudget budget) {
+        long terms = (long) ((digits + GUARD) / (2 * Math.log10(k))) + 2;
+        return sumSeries(terms, n -> n == 0 ? k : k * k, n -> 2 * n + 1, digits, budget);
+    }
+
+    /**
+     * 二分拆分求 S = Σ_{n<terms} (1 / b(n)) · Π_{j≤n} 1/q(j)，全程整数运算，最后只做一次除法
+     */
+    private static BigDecimal sumSeries(long terms, LongUnaryOperator q, LongUnaryOperator b, int digits, ComputeBudget budget) {
+        BigInteger[] qbt = splitSeries(0, terms, q, b, budget);
+        return new BigDecimal(qbt[2]).divide(new BigDecimal(qbt[1].multiply(qbt[0])), new MathContext(digits + GUARD));
+    }
+
+    /** 区间 [lo, hi) 的 Q、B、T，部分和 = T / (B·Q) */
+    private static BigInteger[] splitSeries(long lo, long hi, LongUnaryOperator q, LongUnaryOperator b, ComputeBudget budget) {
+        budget.checkpoint();
+        if (hi - lo == 1) {
+            return new BigInteger[]{BigInteger.valueOf(q.applyAsLong(lo)), BigInteger.valueOf(b.applyAsLong(lo)), BigInteger.ONE};
+        }
+        long m = (lo + hi) >>> 1;
+        BigInteger[] l = splitSeries(lo, m, q, b, budget);
+        BigInteger[] r = splitSeries(m, hi, q, b, budget);
+        return new BigInteger[]{
+                l[0].multiply(r[0]),
+                l[1].multiply(r[1]),
+                r[1].multiply(r[0]).multiply(l[2]).add(l[1].multiply(r[2]))
+        };
+    }
+
+    /* ------------------ 指数与对数 ------------------ */
+
+    public static BigDecimal exp(BigDecimal x, MathContext mc) {
+        return exp(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal exp(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        if (x.signum() == 0) return BigDecimal.ONE.round(mc);
+        if (x.abs().compareTo(EXP_LIMIT) > 0) throw new ArithmeticException("结果超出范围");
+        // x = k·ln10 + r，0 ≤ r < ln10（近似即可），exp(x) = 10^k · exp(r)
+        long k = (long) Math.floor(x.doubleValue() / Math.log(10));
+        int wp = mc.getPrecision() + GUARD;
+        BigDecimal r = x;
+        if (k != 0) {
+            BigDecimal ln10 = ln10(new MathContext(wp + digitsOf(k)), budget);
+            r = x.subtract(ln10.multiply(BigDecimal.valueOf(k)));
+        }
+        return expReduced(r, wp, budget).scaleByPowerOfTen((int) k).round(mc);
+    }
+
+    /** |r| 不大于约 3 时的 exp：r / 2^j 求泰勒级数，再平方 j 次；全程为二进制定点整数运算 */
+    private static BigDecimal expReduced(BigDecimal r, int wp, ComputeBudget budget) {
+        int j = (int) Math.sqrt(wp * 3.33) + 2;
+        // 平方 j 次把相对误差放大 2^j 倍，多留 j 位
+        int bits = bitsFor(wp) + j;
+        BigInteger one = BigInteger.ONE.shiftLeft(bits);
+        BigInteger y = toFixed(r, bits).shiftRight(j);
+        BigInteger sum = one;
+        BigInteger term = one;
+        for (long n = 1; term.signum() != 0; n++) {
+            budget.checkpoint();
+            term = term.multiply(y).shiftRight(bits).divide(BigInteger.valueOf(n));
+            sum = sum.add(term);
+        }
+        for (int i = 0; i < j; i++) {
+            budget.checkpoint();
+            sum = sum.multiply(sum).shiftRight(bits);
+        }
+        return fromFixed(sum, bits, wp);
+    }
+
+    public static BigDecimal log(BigDecimal x, MathContext mc) {
+        return log(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal log(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        if (x.signum() <= 0) throw new ArithmeticException("对数的真数必须为正");
+        // x = m·10^k，m ∈ [1, 10)，log x = log m + k·ln10
+        int k = exponent(x);
+        BigDecimal m = x.movePointLeft(k);
+        int magnitude = digitsOf(k) + 1;
+        return accurateNearZero(mc, magnitude, wp -> {
+            BigDecimal y = logHalley(m, wp, budget);
+            return k == 0 ? y : y.add(ln10(new MathContext(wp), budget).multiply(BigDecimal.valueOf(k)));
+        });
+    }
+
+    /** m ∈ [1, 10)：y ← y + 2(m − e^y)/(m + e^y)，从双精度初值出发，每步精度约乘 3 */
+    private static BigDecimal logHalley(BigDecimal m, int wp, ComputeBudget budget) {
+        BigDecimal y = new BigDecimal(Math.log(m.doubleValue()));
+        int precision = 15;
+        while (true) {
+            precision = Math.min(precision * 3, wp);
+            MathContext mc = new MathContext(precision + 2);
+            BigDecimal ey = expReduced(y, precision + 2, budget);
+            BigDecimal correction = m.subtract(ey).multiply(TWO).divide(m.add(ey), mc);
+            y = y.add(correction, mc);
+            if (precision == wp) return y;
+        }
+    }
+
+    public static BigDecimal sqrt(BigDecimal x, MathContext mc) {
+        if (x.signum() < 0) throw new ArithmeticException("负数不能开平方");
+        if (x.signum() == 0) return BigDecimal.ZERO;
+        // x·10^(2e) 取整后有约 2(精度+2) 位，整数平方根即为 √x·10^e
+        int e = (2 * (mc.getPrecision() + 2) - exponent(x)) / 2 + 1;
+        BigInteger n = x.movePointRight(2 * e).setScale(0, RoundingMode.FLOOR).toBigInteger();
+        return new BigDecimal(sqrtFloor(n), e).round(mc);
+    }
+
+    /**
+     * x^y；y 为整数时直接连乘，否则 x 须为正，按 exp(y·log x) 计算
+     */
+    public static BigDecimal pow(BigDecimal x, BigDecimal y, MathContext mc) {
+        return pow(x, y, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal pow(BigDecimal x, BigDecimal y, MathContext mc, ComputeBudget budget) {
+        if (y.signum() == 0) return BigDecimal.ONE.round(mc);
+        if (isInteger(y) && y.abs().compareTo(BigDecimal.valueOf(999_999_999)) <= 0) {
+            if (x.signum() == 0 && y.signum() < 0) throw new ArithmeticException("除数为零");
+            return x.pow(y.intValueExact(), mc);
+        }
+        if (x.signum() < 0) throw new ArithmeticException("负数的非整数次幂无定义");
+        if (x.signum() == 0) return BigDecimal.ZERO;
+        // exp 把自变量的绝对误差变成结果的相对误差：按 |y·log x| 的量级补足 log 的精度
+        double scale = Math.abs(y.doubleValue()) * (Math.abs(exponent(x)) + 1) * Math.log(10);
+        int extra = Double.isFinite(scale) ? Math.max(0, (int) Math.log10(scale + 1) + 1) : 0;
+        MathContext wide = new MathContext(mc.getPrecision() + GUARD + extra);
+        return exp(y.multiply(log(x, wide, budget), wide), mc, budget);
+    }
+
+    /* ------------------ 三角函数 ------------------ */
+
+    public static BigDecimal sin(BigDecimal x, MathContext mc) {
+        return sin(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal sin(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        if (x.signum() == 0) return BigDecimal.ZERO;
+        if (negligibleSquare(x, mc)) return x.round(mc);
+        checkReduction(x);
+        return accurateNearZero(mc, Math.max(0, exponent(x) + 1), wp -> sinOf(x, wp, budget));
+    }
+
+    public static BigDecimal cos(BigDecimal x, MathContext mc) {
+        return cos(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal cos(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        if (x.signum() == 0) return BigDecimal.ONE.round(mc);
+        checkReduction(x);
+        int magnitude = Math.max(0, exponent(x) + 1);
+        return accurateNearZero(mc, magnitude, wp -> {
+            BigDecimal halfPi = pi(new MathContext(wp + magnitude + 2), budget).divide(TWO);
+            return sinOf(halfPi.subtract(x), wp, budget);
+        });
+    }
+
+    public static BigDecimal tan(BigDecimal x, MathContext mc) {
+        return tan(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal tan(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        MathContext wide = new MathContext(mc.getPrecision() + 2);
+        return sin(x, wide, budget).divide(cos(x, wide, budget), mc);
+    }
+
+    /** 自变量过大时约化需要的 π 位数与自变量的整数位数相当，直接拒绝 */
+    private static void checkReduction(BigDecimal x) {
+        if (exponent(x) > MAX_REDUCTION_EXPONENT) {
+            throw new ArithmeticException("三角函数的自变量过大（超过 10^" + MAX_REDUCTION_EXPONENT + "）");
+        }
+    }
+
+    /** 约化到 [-π/2, π/2]：sin x = (-1)^k sin(x − kπ) */
+    private static BigDecimal sinOf(BigDecimal x, int wp, ComputeBudget budget) {
+        MathContext mc = new MathContext(wp);
+        BigDecimal pi = pi(new MathContext(wp + Math.max(0, exponent(x) + 1) + 2), budget);
+        BigInteger k = x.divide(pi, new MathContext(Math.max(1, exponent(x) + 3))).setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+        BigDecimal r = x.subtract(pi.multiply(new BigDecimal(k)));
+        BigDecimal s = sinReduced(r.round(mc), wp, budget);
+        return k.testBit(0) ? s.negate() : s;
+    }
+
+    /** |r| ≤ 约 2：r / 3^j 求泰勒级数，再用 sin 3t = 3 sin t − 4 sin³t 还原；定点整数运算 */
+    private static BigDecimal sinReduced(BigDecimal r, int wp, ComputeBudget budget) {
+        int j = (int) Math.sqrt(wp) + 1;
+        // 三倍角每步把误差放大约 3 倍，每步多留 2 位
+        int bits = bitsFor(wp) + 2 * j;
+        BigInteger y = toFixed(r, bits).divide(BigInteger.valueOf(3).pow(j));
+        BigInteger y2 = y.multiply(y).shiftRight(bits);
+        BigInteger sum = y;
+        BigInteger term = y;
+        for (long n = 1; term.signum() != 0; n++) {
+            budget.checkpoint();
+            term = term.multiply(y2).shiftRight(bits).divide(BigInteger.valueOf(-(2 * n) * (2 * n + 1)));
+            sum = sum.add(term);
+        }
+        BigInteger three = BigInteger.valueOf(3);
+        for (int i = 0; i < j; i++) {
+            budget.checkpoint();
+            BigInteger cube = sum.multiply(sum).shiftRight(bits).multiply(sum).shiftRight(bits);
+            sum = sum.multiply(three).subtract(cube.shiftLeft(2));
+        }
+        return fromFixed(sum, bits, wp);
+    }
+
+    public static BigDecimal atan(BigDecimal x, MathContext mc) {
+        return atan(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal atan(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        if (x.signum() == 0) return BigDecimal.ZERO;
+        if (negligibleSquare(x, mc)) return x.round(mc);
+        int wp = mc.getPrecision() + GUARD;
+        MathContext wide = new MathContext(wp);
+        if (x.abs().compareTo(BigDecimal.ONE) > 0) {
+            // atan x = ±π/2 − atan(1/x)
+            BigDecimal halfPi = pi(wide, budget).divide(TWO, wide);
+            BigDecimal inner = atanReduced(BigDecimal.ONE.divide(x, wide), wp, budget);
+            return (x.signum() > 0 ? halfPi : halfPi.negate()).subtract(inner).round(mc);
+        }
+        // |x| 很小时定点运算的绝对误差相对于结果变大，按结果量级补足位数
+        return accurateNearZero(mc, 0, p -> atanReduced(x, p, budget));
+    }
+
+    /** |x| ≤ 1：atan x = 2 atan(x / (1 + √(1 + x²)))，减半 j 次后求泰勒级数；定点整数运算 */
+    private static BigDecimal atanReduced(BigDecimal x, int wp, ComputeBudget budget) {
+        int j = (int) Math.sqrt(wp / 8.0) + 1;
+        int bits = bitsFor(wp) + j;
+        BigInteger one = BigInteger.ONE.shiftLeft(bits);
+        BigInteger y = toFixed(x, bits);
+        for (int i = 0; i < j; i++) {
+            budget.checkpoint();
+            BigInteger root = sqrtFloor(one.add(y.multiply(y).shiftRight(bits)).shiftLeft(bits));
+            y = y.shiftLeft(bits).divide(one.add(root));
+        }
+        BigInteger y2 = y.multiply(y).shiftRight(bits);
+        BigInteger power = y;
+        BigInteger sum = y;
+        for (long n = 1; ; n++) {
+            budget.checkpoint();
+            power = power.multiply(y2).shiftRight(bits).negate();
+            BigInteger term = power.divide(BigInteger.valueOf(2 * n + 1));
+            if (term.signum() == 0) break;
+            sum = sum.add(term);
+        }
+        return fromFixed(sum.shiftLeft(j), bits, wp);
+    }
+
+    public static BigDecimal asin(BigDecimal x, MathContext mc) {
+        return asin(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal asin(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        int cmp = x.abs().compareTo(BigDecimal.ONE);
+        if (cmp > 0) throw new ArithmeticException("asin 的自变量须在 [-1, 1] 内");
+        MathContext wide = new MathContext(mc.getPrecision() + GUARD);
+        if (cmp == 0) return pi(wide, budget).divide(TWO).multiply(BigDecimal.valueOf(x.signum())).round(mc);
+        // asin x = atan(x / √(1 − x²))，1 − x² 精确计算
+        BigDecimal root = sqrt(BigDecimal.ONE.subtract(x.multiply(x)), wide);
+        return atan(x.divide(root, wide), mc, budget);
+    }
+
+    public static BigDecimal acos(BigDecimal x, MathContext mc) {
+        return acos(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal acos(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        if (x.abs().compareTo(BigDecimal.ONE) > 0) throw new ArithmeticException("acos 的自变量须在 [-1, 1] 内");
+        if (x.compareTo(BigDecimal.ONE.negate()) == 0) return pi(mc, budget);
+        // acos x = 2 atan(√((1 − x) / (1 + x)))，x 接近 1 时没有相消
+        MathContext wide = new MathContext(mc.getPrecision() + GUARD);
+        BigDecimal t = sqrt(BigDecimal.ONE.subtract(x).divide(BigDecimal.ONE.add(x), wide), wide);
+        return atan(t, wide, budget).multiply(TWO).round(mc);
+    }
+
+    /* ------------------ 双曲函数 ------------------ */
+
+    public static BigDecimal sinh(BigDecimal x, MathContext mc) {
+        return sinh(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal sinh(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        if (x.signum() == 0) return BigDecimal.ZERO;
+        if (negligibleSquare(x, mc)) return x.round(mc);
+        return accurateNearZero(mc, 0, wp -> {
+            MathContext wide = new MathContext(wp);
+            BigDecimal ex = exp(x, wide, budget);
+            return ex.subtract(BigDecimal.ONE.divide(ex, wide)).divide(TWO, wide);
+        });
+    }
+
+    public static BigDecimal cosh(BigDecimal x, MathContext mc) {
+        return cosh(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal cosh(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        MathContext wide = new MathContext(mc.getPrecision() + GUARD);
+        BigDecimal ex = exp(x, wide, budget);
+        return ex.add(BigDecimal.ONE.divide(ex, wide)).divide(TWO, mc);
+    }
+
+    public static BigDecimal tanh(BigDecimal x, MathContext mc) {
+        return tanh(x, mc, ComputeBudget.unlimited());
+    }
+
+    public static BigDecimal tanh(BigDecimal x, MathContext mc, ComputeBudget budget) {
+        if (x.signum() == 0) return BigDecimal.ZERO;
+        if (negligibleSquare(x, mc)) return x.round(mc);
+        // |x| 很大时 e^(2x) 溢出，而 tanh 已与 ±1 相差不到 10^-精度
+        if (x.abs().compareTo(BigDecimal.valueOf(2L * (mc.getPrecision() + GUARD))) > 0) {
+            return BigDecimal.valueOf(x.signum()).round(mc);
+        }
+        return accurateNearZero(mc, 0, wp -> {
+            MathContext wide = new MathContext(wp);
+            BigDecimal e2x = exp(x.multiply(TWO), wide, budget);
+            return e2x.subtract(BigDecimal.ONE).divide(e2x.add(BigDecimal.ONE), wide);
+        });
+    }
+
+    /* ------------------ 辅助 ------------------ */
+
+    /**
+     * 结果比运算中的中间量小得多时，固定精度下绝对误差不变、相对误差随之放大。
+     * 先以 精度 + GUARD + magnitude 位计算，按结果的量级估计损失的位数后提高精度重算，
+     * 直到结果的有效数字足够；对非零有理数自变量，这些函数的值不会恰好为 0，循环必然结束
+     */
+    private static BigDecimal accurateNearZero(MathContext mc, int magnitude, IntFunction<BigDecimal> f) {
+        int wp = mc.getPrecision() + GUARD + magnitude;
+        BigDecimal r = f.apply(wp);
+        for (int attempt = 0; attempt < 4 && r.signum() != 0; attempt++) {
+            int lost = -exponent(r);
+            if (lost <= 0) break;
+            int needed = mc.getPrecision() + GUARD + magnitude + lost;
+            if (needed <= wp) break;
+            wp = needed;
+            r = f.apply(wp);
+        }
+        return r.round(mc);
+    }
+
+    /**
+     * ⌊√n⌋：先求高半部分的平方根，再做一次牛顿迭代使有效位数翻倍，最后逐一修正；
+     * 比 BigInteger.sqrt 快得多（后者每步都做全长除法）
+     */
+    static BigInteger sqrtFloor(BigInteger n) {
+        int len = n.bitLength();
+        BigInteger s;
+        if (len <= 52) {
+            s = BigInteger.valueOf((long) Math.sqrt(n.doubleValue()));
+        } else {
+            int k = len / 4;
+            s = sqrtFloor(n.shiftRight(2 * k)).shiftLeft(k);
+            s = s.add(n.divide(s)).shiftRight(1);
+        }
+        while (s.multiply(s).compareTo(n) > 0) s = s.subtract(BigInteger.ONE);
+        while (s.add(BigInteger.ONE).pow(2).compareTo(n) <= 0) s = s.add(BigInteger.ONE);
+        return s;
+    }
+
+    /** wp 位十进制有效数字对应的二进制定点位数，另留 16 位 */
+    private static int bitsFor(int wp) {
+        return (int) (wp * 3.3219280948873623) + 16;
+    }
+
+    /** x·2^bits 取整 */
+    private static BigInteger toFixed(BigDecimal x, int bits) {
+        return x.multiply(new BigDecimal(BigInteger.ONE.shiftLeft(bits))).setScale(0, RoundingMode.HALF_EVEN).toBigInteger();
+    }
+
+    /** v / 2^bits，舍入到 wp 位有效数字 */
+    private static BigDecimal fromFixed(BigInteger v, int bits, int wp) {
+        return new BigDecimal(v).divide(new BigDecimal(BigInteger.ONE.shiftLeft(bits)), new MathContext(wp));
+    }
+
+    /**
+     * x² 小于 10^-(精度+1)：此时 sin、atan、sinh、tanh 与 x 的相对差不到最后一位，
+     * 直接返回 x，也避免自变量在定点表示下下溢为 0
+     */
+    private static boolean negligibleSquare(BigDecimal x, MathContext mc) {
+        return 2L * (exponent(x) + 1) < -(mc.getPrecision() + 1L);
+    }
+
+    /** 科学计数法的十进制指数：x = m·10^k，1 ≤ |m| < 10 */
+    static int exponent(BigDecimal x) {
+        return x.precision() - x.scale() - 1;
+    }
+
+    static boolean isInteger(BigDecimal x) {
+        return x.signum() == 0 || x.scale() <= 0 || x.stripTrailingZeros().scale() <= 0;
+    }
+
+    private static int digitsOf(long k) {
+        return k == 0 ? 0 : (int) Math.log10(Math.abs((double) k)) + 1;
+    }
+}
@@ -2,8 +2,14 @@ package com.example;
 
 import net.objecthunter.exp4j.Expression;
 import net.objecthunter.exp4j.ExpressionBuilder;
+import org.ejml.data.Complex_F64;
+import org.ejml.simple.SimpleEVD;
 import org.ejml.simple.SimpleMatrix;
+import org.ejml.simple.SimpleSVD;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.math.BigDecimal;
 import java.util.*;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -17,41 +23,149 @@ import java.util.regex.Pattern;
  *  - 支持多种数值方法
  *
  * 功能：
- *  - 普通表达式计算（exp4j）
+ *  - 普通表达式计算（exp4j）；可选的任意精度模式（PrecisionEvaluator）
  *  - 单方程数值求根
  *  - 线性方程组解析与求解
  *  - **非线性方程组数值求解**（新增）
  *  - 任意大小矩阵运算
+ *
+ * 线程安全：
+ *  - 求值与求解都是无状态的静态代码，记忆寄存器、ANS、历史与变量保存在 CalculatorSession 中
+ *  - 引擎只持有自己会话的 final 引用，同一会话的多个请求线程可共享一个引擎；
+ *    多会话场景由 SessionRegistry 按会话 ID 分发
  */
 public class CalculatorEngine {
 
-    private double memory = 0;
-    private String lastAnswer = "0";
+    private final CalculatorSession session;
 
-    public CalculatorEngine() {}
+    public CalculatorEngine() {
+        this(new CalculatorSession("local"));
+    }
+
+    public CalculatorEngine(CalculatorSession session) {
+        if (session == null) throw new IllegalArgumentException("会话不能为空");
+        this.session = session;
+    }
+
+    public CalculatorSession getSession() {
+        return session;
+    }
 
     /* ------------------ 普通表达式计算 ------------------ */
 
+    /** 变量赋值 a = 3 或函数定义 f(x, y) = ...（整行匹配） */
+    private static final Pattern DEFINITION = Pattern.compile(
+            "\\s*([a-zA-Z_][a-zA-Z0-9_]*)\\s*(?:\\(([^()]*)\\))?\\s*=\\s*(\\S.*)", Pattern.DOTALL);
+
+    /**
+     * 计算表达式，或定义会话变量与函数：
+     *  - a = 3、b = a * 2：立即求值右侧并保存为变量
+     *  - f(x) = x^2 + a：保存为函数，之后的表达式可直接调用 f(2)
+     * 表达式使用会话中的变量、函数与 ans，编译结果在会话内缓存；
+     * 会话设置了精度（CalculatorSession.setPrecision）时按高精度计算
+     */
     public String calculate(String expression) throws Exception {
+        return calculate(expression, session.getPrecision());
+    }
+
+    /**
+     * 同 calculate(expression)，精度由调用方给出：digits 为 0 时用双精度，否则按 digits 位有效数字计算。
+     * 高精度模式下变量按其双精度值的最短十进制表示参与运算，ans 保留上次高精度结果的全部位数；
+     * 变量与函数的定义仍按双精度处理，表达式中不能调用用户函数
+     */
+    public String calculate(String expression, int digits) throws Exception {
+        return calculate(expression, digits, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 同上，高精度计算在 budget 内进行（双精度求值不计入预算）
+     * @throws ComputeBudget.ExhaustedException 高精度计算中预算用尽，ans 不变
+     */
+    public String calculate(String expression, int digits, ComputeBudget budget) throws Exception {
+        if (expression == null || expression.trim().isEmpty()) {
+            throw new IllegalArgumentException("表达式不能为空");
+        }
+        Matcher def = DEFINITION.matcher(expression);
+        if (def.matches()) return define(expression, def.group(1), def.group(2), def.group(3));
+        if (digits != 0) return calculatePrecise(expression, digits, budget);
+
+        double result = evaluateInSession(expression);
+        String answer = formatResult(result);
+        session.recordAnswer(expression, answer, result);
+        return answer;
+    }
+
+    private String define(String input, String name, String params, String body) throws Exception {
+        if (params == null) {
+            CalculatorSession.checkVariableName(name);
+            double value = evaluateInSession(body);
+            session.setVariable(name, value);
+            String answer = name + " = " + formatResult(value);
+            session.recordAnswer(input, answer, value);
+            return answer;
+        }
+        List<String> names = new ArrayList<>();
+        if (!params.trim().isEmpty()) {
+            for (String p : params.split(",", -1)) names.add(p.trim());
+        }
+        session.defineFunction(name, names, body);
+        String answer = name + "(" + String.join(", ", names) + ") = " + body.trim();
+        session.recordAnswer(input, answer, Double.NaN);
+        return answer;
+    }
+
+    private String calculatePrecise(String expression, int digits, ComputeBudget budget) throws Exception {
+        PrecisionEvaluator.checkDigits(digits);
+        Map<String, BigDecimal> variables = new HashMap<>();
+        for (Map.Entry<String, Double> v : session.variables().entrySet()) {
+            variables.put(v.getKey(), BigDecimal.valueOf(v.getValue()));
+        }
+        variables.put(CalculatorSession.ANS, session.getLastExactValue());
+        BigDecimal result;
+        try {
+            result = PrecisionEvaluator.evaluate(expression, variables, digits, budget);
+        } catch (ArithmeticException | IllegalArgumentException e) {
+            throw new Exception("计算错误: " + e.getMessage());
+        }
+        // result 带保护位，ans 记录它本身，只有显示的文本舍入到 digits 位
+        String answer = PrecisionEvaluator.format(result, digits);
+        session.recordAnswer(expression, answer, result);
+        return answer;
+    }
+
+    private double evaluateInSession(String expression) throws Exception {
+        double result;
+        try {
+            result = session.evaluate(preprocessExpression(expression));
+        } catch (Exception e) {
+            throw new Exception("计算错误: " + e.getMessage());
+        }
+        if (Double.isNaN(result)) throw new Exception("计算错误: 结果未定义");
+        if (Double.isInfinite(result)) throw new Exception("计算错误: 结果为无穷大");
+        return result;
+    }
+
+    /**
+     * 无状态求值：变量（含 ans）由调用方给出
+     */
+    public static double evaluate(String expression, Map<String, Double> variables) throws Exception {
         if (expression == null || expression.trim().isEmpty()) {
             throw new IllegalArgumentException("表达式不能为空");
         }
         expression = preprocessExpression(expression);
         try {
-            Expression exp = new ExpressionBuilder(expression).build();
-            double result = exp.evaluate();
+            Expression exp = new ExpressionBuilder(expression).variables(variables.keySet()).build();
+            double result = exp.setVariables(variables).evaluate();
 
             if (Double.isNaN(result)) throw new ArithmeticException("结果未定义");
             if (Double.isInfinite(result)) throw new ArithmeticException("结果为无穷大");
-
-            lastAnswer = formatResult(result);
-            return lastAnswer;
+            return result;
         } catch (Exception e) {
             throw new Exception("计算错误: " + e.getMessage());
         }
     }
 
-    private String preprocessExpression(String expr) {
+    static String preprocessExpression(String expr) {
         if (expr == null) return "";
         
         expr = expr.replace("×", "*");
@@ -61,8 +175,8 @@ public class CalculatorEngine {
         expr = expr.replace("(−)", "(-1)");
         expr = expr.replace(" ", "");
         
-        // 安全的 'e' 常数替换
-        expr = expr.replaceAll("(?<![a-zA-Z])e(?![a-zA-Z0-9])", String.valueOf(Math.E));
+        // 安全的 'e' 常数替换；紧跟在数字后的 e（科学计数法 1e-3、隐式乘法 2e）交给 exp4j 处理
+        expr = expr.replaceAll("(?<![a-zA-Z0-9._])e(?![a-zA-Z0-9_])", String.valueOf(Math.E));
         
         return expr;
     }
@@ -76,6 +190,14 @@ public class CalculatorEngine {
      * - 非线性方程组：牛顿-拉夫森法
      */
     public String solveEquation(String input) {
+        return solveEquation(input, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 在计算预算内求解方程；预算用尽或被取消时返回已得到的部分结果并注明原因，
+     * 部分结果不写入 ANS 与历史记录
+     */
+    public String solveEquation(String input, ComputeBudget budget) {
         if (input == null || input.trim().isEmpty()) return "方程不能为空";
 
         String trimmed = input.trim();
@@ -94,20 +216,29 @@ public class CalculatorEngine {
                 // 检测是否为线性方程组
                 if (isLinearSystem(eqs)) {
                     // 线性方程组 - 使用高斯消元
-                    Map<String, Double> sol = LinearSolver.solveLinearSystemFromStrings(eqs);
+                    Map<String, Double> sol = LinearSolver.solveLinearSystemFromStrings(eqs, budget);
                     StringBuilder sb = new StringBuilder();
                     sb.append("线性方程组解：\n");
                     sol.forEach((k, v) -> sb.append(String.format("%s = %s%n", k, formatResult(v))));
-                    lastAnswer = sb.toString();
+                    session.recordAnswer(input, sb.toString(), Double.NaN);
                     return sb.toString();
                 } else {
-                    // 非线性方程组 - 使用牛顿法
-                    Map<String, Double> sol = NonlinearSolver.solveNonlinearSystem(eqs);
+                    // 非线性方程组 - 牛顿法；失败或方程数与未知数不等时用 Levenberg–Marquardt
+                    NonlinearSolver.Solution sol = NonlinearSolver.solve(eqs, null, budget);
                     StringBuilder sb = new StringBuilder();
-                    sb.append("非线性方程组数值解：\n");
-                    sol.forEach((k, v) -> sb.append(String.format("%s ≈ %s%n", k, formatResult(v))));
+                    if (sol.status != ComputeBudget.Status.COMPLETED) {
+                        sb.append(partialNote(sol.status)).append("目前残差最小的点：\n");
+                        sol.values.forEach((k, v) -> sb.append(String.format("%s ≈ %s%n", k, formatResult(v))));
+                        sb.append(String.format(Locale.ROOT, "残差 ‖F‖ = %.6g%n", sol.residual));
+                        return sb.toString();
+                    }
+                    sb.append(sol.leastSquares ? "非线性方程组最小二乘解：\n" : "非线性方程组数值解：\n");
+                    sol.values.forEach((k, v) -> sb.append(String.format("%s ≈ %s%n", k, formatResult(v))));
+                    if (sol.leastSquares) {
+                        sb.append(String.format(Locale.ROOT, "残差 ‖F‖ = %.6g%n", sol.residual));
+                    }
                     sb.append("\n(数值解，可能存在误差)");
-                    lastAnswer = sb.toString();
+                    session.recordAnswer(input, sb.toString(), Double.NaN);
                     return sb.toString();
                 }
             } else {
@@ -121,15 +252,45 @@ public class CalculatorEngine {
                 String right = parts[1].trim();
 
                 String exprTemplate = "(" + left + ")-(" + right + ")";
-                Double root = findRootForSingleVariable(exprTemplate, "x", -1000, 1000);
-                if (root == null) {
+                // 多项式方程：直接求全部实根与复根，不依赖搜索区间
+                Polynomial poly = Polynomial.parse(exprTemplate, "x");
+                if (poly != null) {
+                    Complex_F64[] roots = poly.roots(budget);
+                    String out = polynomialRootsToString(poly, roots);
+                    if (!budget.isCompleted()) return partialNote(budget.status()) + out;
+                    if (roots.length > 0) {
+                        session.recordAnswer(input, out, roots.length == 1 ? roots[0].real : Double.NaN);
+                    }
+                    return out;
+                }
+                List<Double> roots = RootFinder.findAllRoots(exprTemplate, "x", -1000, 1000, budget);
+                if (!budget.isCompleted()) {
+                    String found = roots.isEmpty() ? "未找到实根\n" : String.format("已找到 %d 个实根：%n", roots.size());
+                    StringBuilder sb = new StringBuilder(partialNote(budget.status())).append(found);
+                    for (int i = 0; i < roots.size(); i++) {
+                        sb.append(String.format("x%d ≈ %s%n", i + 1, formatResult(roots.get(i))));
+                    }
+                    return sb.toString();
+                }
+                if (roots.isEmpty()) {
                     return "在搜索区间内未找到实根";
+                }
+                String out;
+                if (roots.size() == 1) {
+                    out = "解: x ≈ " + formatResult(roots.get(0));
                 } else {
-                    String out = "解: x ≈ " + formatResult(root);
-                    lastAnswer = out;
-                    return out;
+                    StringBuilder sb = new StringBuilder();
+                    sb.append(String.format("共 %d 个实根：%n", roots.size()));
+                    for (int i = 0; i < roots.size(); i++) {
+                        sb.append(String.format("x%d ≈ %s%n", i + 1, formatResult(roots.get(i))));
+                    }
+                    out = sb.toString();
                 }
+                session.recordAnswer(input, out, roots.size() == 1 ? roots.get(0) : Double.NaN);
+                return out;
             }
+        } catch (ComputeBudget.ExhaustedException ee) {
+            return "求解中止：计算" + ee.status.description();
         } catch (IllegalArgumentException iae) {
             return "解析错误: " + iae.getMessage();
         } catch (Exception ex) {
@@ -137,6 +298,27 @@ public class CalculatorEngine {
         }
     }
 
+    private static String partialNote(ComputeBudget.Status status) {
+        return "（计算" + status.description() + "，以下为部分结果）\n";
+    }
+
+    /**
+     * 多项式方程的全部根：实根在前，复根按共轭对输出
+     */
+    private static String polynomialRootsToString(Polynomial poly, Complex_F64[] roots) {
+        if (poly.degree() == 0) {
+            return poly.isZero() ? "方程对任意 x 成立" : "方程无解";
+        }
+        if (roots.length == 1) return "解: x ≈ " + formatResult(roots[0].real);
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%d 次多项式方程，共 %d 个根（含重根）：%n", poly.degree(), roots.length));
+        for (int i = 0; i < roots.length; i++) {
+            sb.append(String.format("x%d ≈ %s%n", i + 1, complexToString(roots[i])));
+        }
+        return sb.toString();
+    }
+
     /**
      * 检测是否为线性方程组
      */
@@ -163,67 +345,6 @@ public class CalculatorEngine {
         return cnt;
     }
 
-    private Double findRootForSingleVariable(String expressionTemplate, String varName, double min, double max) {
-        int steps = 400;
-        double step = (max - min) / steps;
-        Double prevX = null;
-        Double prevY = null;
-
-        for (int i = 0; i <= steps; i++) {
-            double x = min + i * step;
-            double y;
-            try {
-                Expression exp = new ExpressionBuilder(expressionTemplate)
-                        .variable(varName)
-                        .build()
-                        .setVariable(varName, x);
-                y = exp.evaluate();
-                if (Double.isNaN(y) || Double.isInfinite(y)) {
-                    prevX = x;
-                    prevY = y;
-                    continue;
-                }
-            } catch (Exception e) {
-                return null;
-            }
-
-            if (prevY != null && !Double.isNaN(prevY) && !Double.isInfinite(prevY)) {
-                if (prevY == 0.0) return prevX;
-                if (y == 0.0) return x;
-                if (prevY * y < 0.0) {
-                    double a = prevX, b = x;
-                    double fa = prevY, fb = y;
-                    for (int iter = 0; iter < 60; iter++) {
-                        double mid = 0.5 * (a + b);
-                        double fmid;
-                        try {
-                            Expression emid = new ExpressionBuilder(expressionTemplate)
-                                    .variable(varName)
-                                    .build()
-                                    .setVariable(varName, mid);
-                            fmid = emid.evaluate();
-                        } catch (Exception e) {
-                            break;
-                        }
-                        if (Double.isNaN(fmid) || Double.isInfinite(fmid)) break;
-                        if (Math.abs(fmid) < 1e-10) return mid;
-                        if (fa * fmid <= 0) {
-                            b = mid;
-                            fb = fmid;
-                        } else {
-                            a = mid;
-                            fa = fmid;
-                        }
-                    }
-                    return 0.5 * (a + b);
-                }
-            }
-            prevX = x;
-            prevY = y;
-        }
-        return null;
-    }
-
     /* ------------------ 非线性方程组求解器 ------------------ */
 
     /**
@@ -235,20 +356,86 @@ public class CalculatorEngine {
         private static final int MAX_ITERATIONS = 100;  // 最大迭代次数
         private static final double DELTA = 1e-6;  // 数值微分步长
 
+        /** 求解方式 */
+        public enum Mode {
+            /** 阻尼牛顿法：每次迭代重新计算完整雅可比矩阵 */
+            NEWTON,
+            /** Broyden 拟牛顿法：秩 1 更新雅可比逆矩阵，只偶尔重新计算 */
+            BROYDEN,
+            /** Levenberg–Marquardt：信赖域式阻尼，适用于近奇异雅可比与超定（最小二乘）方程组 */
+            LEVENBERG_MARQUARDT
+        }
+
+        /** 求解结果 */
+        public static class Solution {
+            public final Map<String, Double> values;
+            public final Mode mode;
+            /** ‖F(x)‖₂ */
+            public final double residual;
+            /** 函数向量 F 的求值次数（含数值微分） */
+            public final int evaluations;
+            /** 方程数多于未知数时为最小二乘解 */
+            public final boolean leastSquares;
+            /** 不为 COMPLETED 时预算已用尽，values 为目前残差最小的点，未必满足方程 */
+            public final ComputeBudget.Status status;
+
+            Solution(Map<String, Double> values, Mode mode, double residual, int evaluations, boolean leastSquares,
+                     ComputeBudget.Status status) {
+                this.values = values;
+                this.mode = mode;
+                this.residual = residual;
+                this.evaluations = evaluations;
+                this.leastSquares = leastSquares;
+                this.status = status;
+            }
+        }
+
+        /** Broyden 法连续多少次迭代后强制重新计算雅可比矩阵 */
+        private static final int BROYDEN_REFRESH = 20;
+
+        /** 多组初始值（按未知数个数截取，不足的补 1） */
+        private static final double[][] INITIAL_GUESSES = {
+            {1.0, 1.0, 1.0},      // [1, 1, 1, ...]
+            {0.5, 0.5, 0.5},      // [0.5, 0.5, ...]
+            {2.0, 2.0, 2.0},      // [2, 2, ...]
+            {-1.0, -1.0, -1.0},   // [-1, -1, ...]
+            {0.1, 0.1, 0.1},      // [0.1, 0.1, ...]
+            {5.0, 5.0, 5.0},      // [5, 5, ...]
+            {3.0, 4.0, 5.0},      // 渐进值
+            {-2.0, 3.0, -1.0}     // 混合正负
+        };
+
         /**
          * 求解非线性方程组（增强版 - 多初始值尝试）
          * @param equations 方程数组，如 ["x^2 + y^2 = 25", "x*y = 12"]
          * @return 变量名 -> 值的映射
          */
         public static Map<String, Double> solveNonlinearSystem(String[] equations) {
+            return solve(equations, null).values;
+        }
+
+        /**
+         * 按指定方式求解非线性方程组
+         * @param mode 为 null 时自动选择：方程数等于未知数时先用牛顿法，失败后改用 LM；
+         *             方程数不等于未知数时直接用 LM 求最小二乘解
+         */
+        public static Solution solve(String[] equations, Mode mode) {
+            return solve(equations, mode, ComputeBudget.unlimited());
+        }
+
+        /**
+         * 在计算预算内求解；预算用尽时不抛异常，返回残差最小的点并在 status 中注明原因
+         */
+        public static Solution solve(String[] equations, Mode mode, ComputeBudget budget) {
             // 1. 解析方程，提取变量
             List<String> variables = extractVariables(equations);
             int n = variables.size();
-            
+            int m = equations.length;
+
             if (n == 0) throw new IllegalArgumentException("未检测到未知数");
-            if (equations.length != n) {
+            if (m != n && mode != null && mode != Mode.LEVENBERG_MARQUARDT) {
                 throw new IllegalArgumentException(
-                    String.format("方程数 (%d) 与未知数数 (%d) 不一致", equations.length, n));
+                    String.format("方程数 (%d) 与未知数数 (%d) 不一致，请使用 Levenberg–Marquardt 最小二乘模式", m, n));
             }
 
             // 2. 构建函数表达式 f(x) = 0
@@ -260,44 +447,67 @@ public class CalculatorEngine {
                 functions.add("(" + parts[0].trim() + ")-(" + parts[1].trim() + ")");
             }
 
-            // 3. 尝试多组初始值
-            double[][] initialGuesses = {
-                {1.0, 1.0, 1.0},      // [1, 1, 1, ...]
-                {0.5, 0.5, 0.5},      // [0.5, 0.5, ...]
-                {2.0, 2.0, 2.0},      // [2, 2, ...]
-                {-1.0, -1.0, -1.0},   // [-1, -1, ...]
-                {0.1, 0.1, 0.1},      // [0.1, 0.1, ...]
-                {5.0, 5.0, 5.0},      // [5, 5, ...]
-                {3.0, 4.0, 5.0},      // 渐进值
-                {-2.0, 3.0, -1.0}     // 混合正负
-            };
+            if (mode == null) {
+                if (m != n) return solveWith(functions, variables, Mode.LEVENBERG_MARQUARDT, budget);
+                try {
+                    return solveWith(functions, variables, Mode.NEWTON, budget);
+                } catch (RuntimeException e) {
+                    // 牛顿法在近奇异雅可比处失败时，LM 仍能继续下降
+                    return solveWith(functions, variables, Mode.LEVENBERG_MARQUARDT, budget);
+                }
+            }
+            return solveWith(functions, variables, mode, budget);
+        }
 
+        private static Solution solveWith(List<String> functions, List<String> variables, Mode mode,
+                                          ComputeBudget budget) {
+            int n = variables.size();
+            boolean leastSquares = functions.size() > n;
+            SystemFunction system = new SystemFunction(functions, variables, budget);
+
+            // 3. 尝试多组初始值
             Exception lastException = null;
-            
-            for (double[] guess : initialGuesses) {
+
+            for (double[] guess : INITIAL_GUESSES) {
                 try {
                     double[] x0 = new double[n];
                     for (int i = 0; i < n; i++) {
                         x0[i] = i < guess.length ? guess[i] : 1.0;
                     }
-                    
-                    // 4. 牛顿迭代
-                    double[] solution = newtonRaphson(functions, variables, x0);
-                    
-                    // 5. 验证解的有效性
-                    if (verifySolution(functions, variables, solution)) {
+
+                    // 4. 迭代求解
+                    double[] solution;
+                    switch (mode) {
+                        case BROYDEN:
+                            solution = broyden(system, x0);
+                            break;
+                        case LEVENBERG_MARQUARDT:
+                            solution = levenbergMarquardt(system, x0);
+                            break;
+                        default:
+                            solution = newtonRaphson(system, x0);
+                    }
+
+                    // 5. 验证解的有效性（最小二乘解不要求残差为 0）
+                    double[] F = system.value(solution);
+                    double residual = norm2(F);
+                    if (Double.isFinite(residual) && (leastSquares || verifySolution(F))) {
                         Map<String, Double> result = new LinkedHashMap<>();
                         for (int i = 0; i < n; i++) {
                             result.put(variables.get(i), solution[i]);
                         }
-                        return result;
+                        return new Solution(result, mode, residual, system.evaluations, leastSquares,
+                                ComputeBudget.Status.COMPLETED);
                     }
+                } catch (ComputeBudget.ExhaustedException e) {
+                    // 预算用尽：不再尝试其余初始值，交回目前最好的点
+                    return system.partialSolution(mode, leastSquares, e.status);
                 } catch (Exception e) {
                     lastException = e;
                     // 继续尝试下一组初始值
                 }
             }
-            
+
             // 所有初始值都失败
             if (lastException != null) {
                 throw new RuntimeException("所有初始值尝试均失败，最后错误: " + lastException.getMessage());
@@ -305,14 +515,11 @@ public class CalculatorEngine {
                 throw new RuntimeException("无法找到有效的数值解");
             }
         }
-        
+
         /**
          * 验证解的正确性
          */
-        private static boolean verifySolution(List<String> functions, 
-                                             List<String> variables, 
-                                             double[] x) {
-            double[] F = evaluateFunctions(functions, variables, x);
+        private static boolean verifySolution(double[] F) {
             double residual = 0;
             for (double v : F) {
                 if (Double.isNaN(v) || Double.isInfinite(v)) return false;
@@ -358,15 +565,13 @@ public class CalculatorEngine {
          * @param x0 初始猜测
          * @return 数值解
          */
-        private static double[] newtonRaphson(List<String> functions, 
-                                             List<String> variables, 
-                                             double[] x0) {
+        private static double[] newtonRaphson(SystemFunction system, double[] x0) {
             int n = x0.length;
             double[] x = Arrays.copyOf(x0, n);
 
             for (int iter = 0; iter < MAX_ITERATIONS; iter++) {
                 // 计算 F(x)
-                double[] F = evaluateFunctions(functions, variables, x);
+                double[] F = system.value(x);
                 
                 // 检查收敛
                 double norm = 0;
@@ -378,29 +583,24 @@ public class CalculatorEngine {
                 }
                 norm = Math.sqrt(norm);
                 
-                if (norm < EPSILON) {
-                    System.out.println("收敛于迭代 " + iter + "，残差: " + norm);
-                    return x;
-                }
+                if (norm < EPSILON) return x;
 
                 // 计算雅可比矩阵 J
-                double[][] J = computeJacobian(functions, variables, x);
+                double[][] J = system.centralJacobian(x);
                 
-                // 检查雅可比矩阵的条件数（判断是否接近奇异）
-                double det = computeDeterminant(J);
-                if (Math.abs(det) < 1e-12) {
-                    throw new RuntimeException("雅可比矩阵接近奇异 (det=" + det + ")，尝试其他初始值");
+                // 只做一次 LU 分解：既用来判断是否接近奇异，也用来求步长
+                LuFactorization lu = new LuFactorization(J);
+                if (lu.isSingular()) {
+                    throw new RuntimeException("雅可比矩阵接近奇异 (rcond=" + lu.rcond() + ")，尝试其他初始值");
                 }
                 
                 // 求解线性系统 J * delta = -F（使用异常捕获）
                 double[] delta;
                 try {
-                    SimpleMatrix Jmatrix = new SimpleMatrix(J);
-                    SimpleMatrix Fvector = new SimpleMatrix(n, 1, true, F);
-                    SimpleMatrix deltaMatrix = Jmatrix.solve(Fvector.negative());
-                    delta = new double[n];
+                    double[] negF = new double[n];
+                    for (int i = 0; i < n; i++) negF[i] = -F[i];
+                    delta = lu.solve(negF);
                     for (int i = 0; i < n; i++) {
-                        delta[i] = deltaMatrix.get(i, 0);
                         if (Double.isNaN(delta[i]) || Double.isInfinite(delta[i])) {
                             throw new RuntimeException("求解步长包含 NaN 或无穷大");
                         }
@@ -420,7 +620,7 @@ public class CalculatorEngine {
                         xNew[i] = x[i] + alpha * delta[i];
                     }
                     
-                    double[] FNew = evaluateFunctions(functions, variables, xNew);
+                    double[] FNew = system.value(xNew);
                     normNew = 0;
                     boolean valid = true;
                     for (double v : FNew) {
@@ -451,169 +651,518 @@ public class CalculatorEngine {
         }
         
         /**
-         * 计算行列式（用于判断矩阵是否奇异）
+         * Broyden 拟牛顿法（"好" Broyden，直接更新雅可比逆矩阵 H ≈ J⁻¹）
+         * 只在开始、线搜索失败或每 BROYDEN_REFRESH 次迭代时计算完整雅可比矩阵，
+         * 其余迭代每步只需一次 F 求值
          */
-        private static double computeDeterminant(double[][] matrix) {
-            try {
-                SimpleMatrix m = new SimpleMatrix(matrix);
-                return m.determinant();
-            } catch (Exception e) {
-                return 0.0;
+        private static double[] broyden(SystemFunction system, double[] x0) {
+            int n = x0.length;
+            double[] x = Arrays.copyOf(x0, n);
+            double[] F = system.value(x);
+            double norm = requireFinite(F);
+            double[][] H = null;
+            int sinceRefresh = 0;
+
+            for (int iter = 0; iter < MAX_ITERATIONS * 2; iter++) {
+                if (norm < EPSILON) return x;
+                if (H == null || sinceRefresh >= BROYDEN_REFRESH) {
+                    LuFactorization lu = new LuFactorization(system.jacobian(x, F));
+                    if (lu.isSingular()) {
+                        throw new RuntimeException("雅可比矩阵接近奇异 (rcond=" + lu.rcond() + ")，尝试其他初始值");
+                    }
+                    H = lu.inverse();
+                    sinceRefresh = 0;
+                }
+
+                // 拟牛顿方向 d = -H F
+                double[] d = new double[n];
+                for (int i = 0; i < n; i++) {
+                    double v = 0;
+                    for (int j = 0; j < n; j++) v -= H[i][j] * F[j];
+                    d[i] = v;
+                }
+
+                // 回溯线搜索
+                double alpha = 1.0;
+                double[] xNew = new double[n];
+                double[] FNew = null;
+                double normNew = Double.POSITIVE_INFINITY;
+                for (int backtrack = 0; backtrack < 8; backtrack++) {
+                    for (int i = 0; i < n; i++) xNew[i] = x[i] + alpha * d[i];
+                    FNew = system.value(xNew);
+                    normNew = norm2(FNew);
+                    if (Double.isFinite(normNew) && normNew < norm) break;
+                    alpha *= 0.5;
+                }
+                if (!(normNew < norm)) {
+                    // 近似雅可比已失效：下一轮重新计算；刚重新计算过仍失败则放弃
+                    if (sinceRefresh == 0) throw new RuntimeException("Broyden 迭代无法继续下降");
+                    H = null;
+                    continue;
+                }
+
+                // 秩 1 更新：H += (s - H y) sᵀ H / (sᵀ H y)
+                double[] s = new double[n];
+                double[] y = new double[n];
+                for (int i = 0; i < n; i++) {
+                    s[i] = xNew[i] - x[i];
+                    y[i] = FNew[i] - F[i];
+                }
+                double[] Hy = multiply(H, y);
+                double[] sH = new double[n];
+                for (int j = 0; j < n; j++) {
+                    double v = 0;
+                    for (int i = 0; i < n; i++) v += s[i] * H[i][j];
+                    sH[j] = v;
+                }
+                double denom = 0;
+                for (int i = 0; i < n; i++) denom += s[i] * Hy[i];
+                if (Math.abs(denom) < 1e-14 * norm2(s) * norm2(Hy) || denom == 0) {
+                    H = null;
+                } else {
+                    for (int i = 0; i < n; i++) {
+                        double c = (s[i] - Hy[i]) / denom;
+                        for (int j = 0; j < n; j++) H[i][j] += c * sH[j];
+                    }
+                    sinceRefresh++;
+                }
+
+                x = xNew.clone();
+                F = FNew;
+                norm = normNew;
             }
+            throw new RuntimeException("Broyden 法未收敛（达到最大迭代次数 " + MAX_ITERATIONS * 2 + "）");
         }
 
         /**
-         * 计算函数值 F(x)
+         * Levenberg–Marquardt 法：求 min ½‖F(x)‖²，F 可为 m×n（m ≥ n 时为最小二乘）
+         * 解 (JᵀJ + λ·diag(JᵀJ)) δ = -JᵀF，按实际下降与预测下降之比调整 λ（Nielsen 策略），
+         * 雅可比矩阵近奇异时 λ 增大，步长自动退化为梯度方向的小步，不会中断
          */
-        private static double[] evaluateFunctions(List<String> functions, 
-                                                 List<String> variables, 
-                                                 double[] x) {
-            double[] result = new double[functions.size()];
-            for (int i = 0; i < functions.size(); i++) {
-                result[i] = evaluateFunction(functions.get(i), variables, x);
+        private static double[] levenbergMarquardt(SystemFunction system, double[] x0) {
+            int n = x0.length;
+            double[] x = Arrays.copyOf(x0, n);
+            double[] F = system.value(x);
+            double cost = sumSquares(F);
+            if (!Double.isFinite(cost)) throw new RuntimeException("函数值包含 NaN 或无穷大，可能初始值不合适");
+
+            double[][] J = system.jacobian(x, F);
+            double[][] A = normalMatrix(J);
+            double[] g = gradient(J, F);
+            double lambda = 1e-3;
+            double nu = 2.0;
+
+            for (int iter = 0; iter < MAX_ITERATIONS * 5; iter++) {
+                if (Math.sqrt(cost) < EPSILON || normInf(g) < 1e-14) return x;
+
+                double[][] M = new double[n][n];
+                for (int i = 0; i < n; i++) {
+                    M[i] = Arrays.copyOf(A[i], n);
+                    M[i][i] += lambda * Math.max(A[i][i], 1e-12);
+                }
+                LuFactorization lu = new LuFactorization(M);
+                if (lu.isSingular()) {
+                    lambda *= nu;
+                    nu *= 2;
+                    continue;
+                }
+                double[] negG = new double[n];
+                for (int i = 0; i < n; i++) negG[i] = -g[i];
+                double[] delta = lu.solve(negG);
+
+                double stepNorm = norm2(delta);
+                if (stepNorm <= 1e-15 * (norm2(x) + 1e-15)) return x;
+
+                double[] xNew = new double[n];
+                for (int i = 0; i < n; i++) xNew[i] = x[i] + delta[i];
+                double[] FNew = system.value(xNew);
+                double costNew = sumSquares(FNew);
+
+                // 预测下降量 = δᵀ(λ·diag·δ - g)
+                double predicted = 0;
+                for (int i = 0; i < n; i++) {
+                    predicted += delta[i] * (lambda * Math.max(A[i][i], 1e-12) * delta[i] - g[i]);
+                }
+                double rho = (Double.isFinite(costNew) && predicted > 0) ? (cost - costNew) / predicted : -1;
+
+                if (rho > 0) {
+                    x = xNew;
+                    F = FNew;
+                    boolean stalled = cost - costNew <= 1e-15 * cost;
+                    cost = costNew;
+                    if (stalled) return x;
+                    J = system.jacobian(x, F);
+                    A = normalMatrix(J);
+                    g = gradient(J, F);
+                    double t = 2 * rho - 1;
+                    lambda *= Math.max(1.0 / 3.0, 1 - t * t * t);
+                    nu = 2.0;
+                } else {
+                    lambda *= nu;
+                    nu *= 2;
+                    if (lambda > 1e16) return x;
+                }
             }
-            return result;
+            return x;
         }
 
-        /**
-         * 计算单个函数值
-         */
-        private static double evaluateFunction(String function, 
-                                              List<String> variables, 
-                                              double[] x) {
-            try {
-                ExpressionBuilder builder = new ExpressionBuilder(function);
-                for (String var : variables) {
-                    builder.variable(var);
-                }
-                Expression exp = builder.build();
-                for (int i = 0; i < variables.size(); i++) {
-                    exp.setVariable(variables.get(i), x[i]);
+        /** JᵀJ */
+        private static double[][] normalMatrix(double[][] J) {
+            int m = J.length;
+            int n = J[0].length;
+            double[][] A = new double[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = i; j < n; j++) {
+                    double s = 0;
+                    for (int k = 0; k < m; k++) s += J[k][i] * J[k][j];
+                    A[i][j] = s;
+                    A[j][i] = s;
                 }
-                return exp.evaluate();
-            } catch (Exception e) {
-                throw new RuntimeException("函数求值错误: " + function + " -> " + e.getMessage());
             }
+            return A;
+        }
+
+        /** JᵀF */
+        private static double[] gradient(double[][] J, double[] F) {
+            int n = J[0].length;
+            double[] g = new double[n];
+            for (int k = 0; k < J.length; k++) {
+                for (int i = 0; i < n; i++) g[i] += J[k][i] * F[k];
+            }
+            return g;
+        }
+
+        private static double[] multiply(double[][] H, double[] v) {
+            double[] r = new double[H.length];
+            for (int i = 0; i < H.length; i++) {
+                double s = 0;
+                for (int j = 0; j < v.length; j++) s += H[i][j] * v[j];
+                r[i] = s;
+            }
+            return r;
+        }
+
+        private static double requireFinite(double[] F) {
+            double norm = norm2(F);
+            if (!Double.isFinite(norm)) throw new RuntimeException("函数值包含 NaN 或无穷大，可能初始值不合适");
+            return norm;
+        }
+
+        private static double sumSquares(double[] v) {
+            double s = 0;
+            for (double d : v) s += d * d;
+            return s;
+        }
+
+        private static double norm2(double[] v) {
+            return Math.sqrt(sumSquares(v));
+        }
+
+        private static double normInf(double[] v) {
+            double max = 0;
+            for (double d : v) max = Math.max(max, Math.abs(d));
+            return max;
         }
 
         /**
-         * 计算雅可比矩阵（数值微分）
-         * J[i][j] = ∂f_i/∂x_j
+         * 预编译的方程组 F(x)，统计求值次数；雅可比矩阵可用中心差分（牛顿法）或前向差分（Broyden、LM）
+         * 每次求值先向计算预算计数，预算用尽时抛出 ExhaustedException；同时记下残差最小的点，
+         * 作为预算用尽时的部分结果
          */
-        private static double[][] computeJacobian(List<String> functions, 
-                                                 List<String> variables, 
-                                                 double[] x) {
-            int m = functions.size();
-            int n = x.length;
-            double[][] J = new double[m][n];
-
-            for (int i = 0; i < m; i++) {
-                for (int j = 0; j < n; j++) {
-                    // 数值微分: f'(x) ≈ [f(x+h) - f(x-h)] / (2h)
-                    double[] xPlus = Arrays.copyOf(x, n);
-                    double[] xMinus = Arrays.copyOf(x, n);
-                    xPlus[j] += DELTA;
-                    xMinus[j] -= DELTA;
+        private static class SystemFunction {
+            private final List<String> variables;
+            private final Expression[] expressions;
+            private final ComputeBudget budget;
+            int evaluations;
+            private double[] bestX;
+            private double bestResidual = Double.POSITIVE_INFINITY;
+
+            SystemFunction(List<String> functions, List<String> variables, ComputeBudget budget) {
+                this.variables = variables;
+                this.budget = budget;
+                this.expressions = new Expression[functions.size()];
+                for (int i = 0; i < expressions.length; i++) {
+                    try {
+                        expressions[i] = new ExpressionBuilder(functions.get(i))
+                                .variables(new HashSet<>(variables)).build();
+                    } catch (Exception e) {
+                        throw new IllegalArgumentException("函数解析错误: " + functions.get(i) + " -> " + e.getMessage());
+                    }
+                }
+            }
 
-                    double fPlus = evaluateFunction(functions.get(i), variables, xPlus);
-                    double fMinus = evaluateFunction(functions.get(i), variables, xMinus);
+            double[] value(double[] x) {
+                budget.charge(1);
+                evaluations++;
+                double[] F = new double[expressions.length];
+                for (int i = 0; i < expressions.length; i++) {
+                    Expression e = expressions[i];
+                    for (int j = 0; j < x.length; j++) e.setVariable(variables.get(j), x[j]);
+                    try {
+                        F[i] = e.evaluate();
+                    } catch (ArithmeticException ex) {
+                        F[i] = Double.NaN;
+                    }
+                }
+                double residual = norm2(F);
+                if (residual < bestResidual) {
+                    bestResidual = residual;
+                    bestX = x.clone();
+                }
+                return F;
+            }
+
+            /** 预算用尽时的结果：目前残差最小的点，一个有效点都没有时各未知数为 NaN */
+            Solution partialSolution(Mode mode, boolean leastSquares, ComputeBudget.Status status) {
+                Map<String, Double> result = new LinkedHashMap<>();
+                for (int i = 0; i < variables.size(); i++) {
+                    result.put(variables.get(i), bestX == null ? Double.NaN : bestX[i]);
+                }
+                return new Solution(result, mode, bestX == null ? Double.NaN : bestResidual,
+                        evaluations, leastSquares, status);
+            }
 
-                    J[i][j] = (fPlus - fMinus) / (2 * DELTA);
+            /**
+             * 中心差分雅可比矩阵：J[i][j] ≈ [f_i(x+h·e_j) - f_i(x-h·e_j)] / (2h)
+             */
+            double[][] centralJacobian(double[] x) {
+                int m = expressions.length;
+                int n = x.length;
+                double[][] J = new double[m][n];
+                double[] xh = Arrays.copyOf(x, n);
+                for (int j = 0; j < n; j++) {
+                    xh[j] = x[j] + DELTA;
+                    double[] fPlus = value(xh);
+                    xh[j] = x[j] - DELTA;
+                    double[] fMinus = value(xh);
+                    xh[j] = x[j];
+                    for (int i = 0; i < m; i++) J[i][j] = (fPlus[i] - fMinus[i]) / (2 * DELTA);
                 }
+                return J;
             }
 
-            return J;
+            /**
+             * 前向差分雅可比矩阵，复用已知的 F(x)，只需 n 次求值
+             */
+            double[][] jacobian(double[] x, double[] F) {
+                int m = expressions.length;
+                int n = x.length;
+                double[][] J = new double[m][n];
+                double[] xh = Arrays.copyOf(x, n);
+                for (int j = 0; j < n; j++) {
+                    double h = Math.sqrt(Math.ulp(1.0)) * Math.max(Math.abs(x[j]), 1.0);
+                    xh[j] = x[j] + h;
+                    double[] Fh = value(xh);
+                    xh[j] = x[j];
+                    for (int i = 0; i < m; i++) J[i][j] = (Fh[i] - F[i]) / h;
+                }
+                return J;
+            }
         }
     }
 
     /* ------------------ 矩阵解析与运算 ------------------ */
 
-    public static double[][] parseMatrixFromString(String text) {
-        if (text == null) throw new IllegalArgumentException("矩阵输入为空");
-        String[] rows = Arrays.stream(text.split("[;\\n\\r]+"))
-                .map(String::trim)
-                .filter(s -> !s.isEmpty())
-                .toArray(String[]::new);
-        if (rows.length == 0) throw new IllegalArgumentException("无法解析矩阵：无行");
-
-        List<double[]> data = new ArrayList<>();
-        int cols = -1;
-        for (String row : rows) {
-            String[] parts = row.split("[,\\s]+");
-            List<Double> nums = new ArrayList<>();
-            for (String p : parts) {
-                if (p == null || p.trim().isEmpty()) continue;
-                try {
-                    nums.add(Double.parseDouble(p.trim()));
-                } catch (NumberFormatException e) {
-                    throw new IllegalArgumentException("矩阵元素格式错误: " + p);
-                }
-            }
-            if (nums.isEmpty()) continue;
-            if (cols == -1) cols = nums.size();
-            if (nums.size() != cols) throw new IllegalArgumentException("矩阵每行列数不一致");
-            double[] arr = nums.stream().mapToDouble(Double::doubleValue).toArray();
-            data.add(arr);
-        }
-        if (data.isEmpty()) throw new IllegalArgumentException("矩阵无有效数据");
-        
-        double[][] mat = new double[data.size()][cols];
-        for (int i = 0; i < data.size(); i++) mat[i] = data.get(i);
-        return mat;
+    /**
+     * 从字符串或任意字符序列（如文本框文档的 Segment）解析矩阵，单遍扫描、无正则与装箱
+     */
+    public static double[][] parseMatrixFromString(CharSequence text) {
+        return MatrixTextParser.parse(text);
+    }
+
+    /**
+     * 从 Reader（如矩阵文本文件）解析矩阵，与文本框共用同一扫描器
+     */
+    public static double[][] parseMatrix(Reader reader) throws IOException {
+        return MatrixTextParser.parse(reader);
     }
 
     public static String performMatrixOperation(String operation, double[][] Aarray, double[][] Barray) {
+        return performMatrixOperation(operation, Aarray, Barray, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 在计算预算内进行矩阵运算：LU 分解、消元、乘法按步检查预算；
+     * SVD、特征值、QR、Cholesky 由 EJML 一次完成，只在开始前检查。预算用尽时返回中止说明
+     */
+    public static String performMatrixOperation(String operation, double[][] Aarray, double[][] Barray,
+                                                ComputeBudget budget) {
         try {
+            budget.checkpoint();
             SimpleMatrix A = new SimpleMatrix(Aarray);
             SimpleMatrix B = (Barray == null) ? null : new SimpleMatrix(Barray);
 
             switch (operation) {
                 case "A + B":
                     if (B == null) return "需要矩阵 B";
-                    if (A.numRows() != B.numRows() || A.numCols() != B.numCols())
+                    if (A.getNumRows() != B.getNumRows() || A.getNumCols() != B.getNumCols())
                         return "矩阵维度不匹配";
                     return matrixToString(A.plus(B));
                 case "A - B":
                     if (B == null) return "需要矩阵 B";
-                    if (A.numRows() != B.numRows() || A.numCols() != B.numCols())
+                    if (A.getNumRows() != B.getNumRows() || A.getNumCols() != B.getNumCols())
                         return "矩阵维度不匹配";
                     return matrixToString(A.minus(B));
                 case "A * B":
                 case "A × B":
                     if (B == null) return "需要矩阵 B";
-                    if (A.numCols() != B.numRows()) return "矩阵维度不兼容，无法相乘";
-                    return matrixToString(A.mult(B));
+                    if (A.getNumCols() != B.getNumRows()) return "矩阵维度不兼容，无法相乘";
+                    // 按规模自动选择单线程或并行乘法内核
+                    return matrixToString(MatrixMultiplier.multiply(A, B, budget));
                 case "det(A)":
                 case "det":
-                    if (A.numRows() != A.numCols()) return "行列式仅对方阵定义";
-                    return String.format("det(A) = %s", formatResult(A.determinant()));
+                    if (A.getNumRows() != A.getNumCols()) return "行列式仅对方阵定义";
+                    return String.format("det(A) = %s", formatResult(DecompositionCache.of(Aarray).lu(budget).determinant()));
                 case "A^-1":
-                case "A⁻¹":
-                    if (A.numRows() != A.numCols()) return "仅方阵有逆矩阵";
-                    if (Math.abs(A.determinant()) < 1e-10) return "矩阵奇异，无逆矩阵";
-                    SimpleMatrix inv = A.invert();
-                    return matrixToString(inv);
+                case "A⁻¹": {
+                    if (A.getNumRows() != A.getNumCols()) return "仅方阵有逆矩阵";
+                    // 一次 LU 分解同时给出条件数估计与逆矩阵（分解结果按矩阵内容缓存）
+                    LuFactorization lu = DecompositionCache.of(Aarray).lu(budget);
+                    if (lu.isSingular()) return "矩阵奇异，无逆矩阵";
+                    return matrixToString(new SimpleMatrix(lu.inverse(budget)));
+                }
                 case "A^T":
                 case "Aᵀ":
-                    return matrixToString(A.transpose());
+                    // 分块转置，避免逐列跨行访问
+                    return matrixToString(new SimpleMatrix(TiledMatrixEngine.transpose(Aarray)));
+                case "eig(A)":
+                    if (A.getNumRows() != A.getNumCols()) return "特征值仅对方阵定义";
+                    return eigenToString(DecompositionCache.of(Aarray).eig());
+                case "svd(A)": {
+                    SimpleSVD<SimpleMatrix> svd = DecompositionCache.of(Aarray).svd();
+                    return "奇异值: " + vectorToString(svd.getSingularValues()) + "\n"
+                            + "U =\n" + matrixToString(svd.getU())
+                            + "Σ =\n" + matrixToString(svd.getW())
+                            + "V =\n" + matrixToString(svd.getV());
+                }
+                case "qr(A)": {
+                    SimpleMatrix[] qr = DecompositionCache.of(Aarray).qr();
+                    return "Q =\n" + matrixToString(qr[0]) + "R =\n" + matrixToString(qr[1]);
+                }
+                case "chol(A)": {
+                    if (A.getNumRows() != A.getNumCols()) return "Cholesky 分解仅对方阵定义";
+                    SimpleMatrix L = DecompositionCache.of(Aarray).cholesky();
+                    if (L == null) return "矩阵不是对称正定矩阵，无法进行 Cholesky 分解";
+                    return "L =\n" + matrixToString(L);
+                }
+                case "rank(A)":
+                    return String.format("rank(A) = %d", DecompositionCache.of(Aarray).svd().rank());
+                case "pinv(A)":
+                    return matrixToString(pseudoInverse(DecompositionCache.of(Aarray).svd(), budget));
+                case "solve AX=B": {
+                    if (B == null) return "需要矩阵 B";
+                    if (A.getNumRows() != B.getNumRows()) return "矩阵维度不匹配：A 与 B 的行数必须相同";
+                    DecompositionCache.Entry entry = DecompositionCache.of(Aarray);
+                    if (A.getNumRows() == A.getNumCols()) {
+                        LuFactorization lu = entry.lu(budget);
+                        if (lu.isSingular()) return "矩阵 A 奇异，方程组无唯一解";
+                        return "X =\n" + matrixToString(new SimpleMatrix(lu.solve(Barray, budget)));
+                    }
+                    // 非方阵：最小二乘解 X = A⁺B
+                    SimpleMatrix X = MatrixMultiplier.multiply(pseudoInverse(entry.svd(), budget), B, budget);
+                    return "X（最小二乘解）=\n" + matrixToString(X);
+                }
                 case "Parse A from Text":
                 case "Parse B from Text":
                     return "请在文本框中输入矩阵后点击其他运算按钮";
                 default:
+                    Matcher pm = MATRIX_POWER_PATTERN.matcher(operation);
+                    if (pm.matches()) {
+                        if (A.getNumRows() != A.getNumCols()) return "矩阵乘方仅对方阵定义";
+                        return matrixToString(matrixPower(Aarray, Long.parseLong(pm.group(1)), budget));
+                    }
                     return "未知矩阵操作: " + operation;
             }
+        } catch (ComputeBudget.ExhaustedException e) {
+            return "矩阵运算中止：计算" + e.status.description();
         } catch (Exception e) {
             return "矩阵运算错误: " + e.getMessage();
         }
     }
 
+    private static final Pattern MATRIX_POWER_PATTERN = Pattern.compile("A\\^\\(?(-?\\d+)\\)?");
+
+    /**
+     * 矩阵整数次幂（反复平方法，O(n³·log k)）；负指数先求逆
+     */
+    private static SimpleMatrix matrixPower(double[][] Aarray, long k, ComputeBudget budget) {
+        int n = Aarray.length;
+        SimpleMatrix base;
+        if (k < 0) {
+            LuFactorization lu = DecompositionCache.of(Aarray).lu(budget);
+            if (lu.isSingular()) throw new ArithmeticException("矩阵奇异，不能求负整数次幂");
+            base = new SimpleMatrix(lu.inverse(budget));
+            k = -k;
+        } else {
+            base = new SimpleMatrix(Aarray);
+        }
+        SimpleMatrix result = SimpleMatrix.identity(n);
+        while (k > 0) {
+            if ((k & 1) == 1) result = MatrixMultiplier.multiply(result, base, budget);
+            k >>= 1;
+            if (k > 0) base = MatrixMultiplier.multiply(base, base, budget);
+        }
+        return result;
+    }
+
+    /**
+     * 由 SVD 计算伪逆 A⁺ = V·Σ⁺·Uᵀ，过小的奇异值视为 0
+     */
+    private static SimpleMatrix pseudoInverse(SimpleSVD<SimpleMatrix> svd, ComputeBudget budget) {
+        SimpleMatrix U = svd.getU();
+        SimpleMatrix W = svd.getW();
+        SimpleMatrix V = svd.getV();
+        double[] sv = svd.getSingularValues();
+        double max = 0;
+        for (double v : sv) max = Math.max(max, v);
+        double tol = Math.max(U.getNumRows(), V.getNumRows()) * max * Math.ulp(1.0);
+
+        SimpleMatrix Winv = new SimpleMatrix(W.getNumCols(), W.getNumRows());
+        for (int i = 0; i < Math.min(W.getNumRows(), W.getNumCols()); i++) {
+            double s = W.get(i, i);
+            if (s > tol) Winv.set(i, i, 1.0 / s);
+        }
+        return MatrixMultiplier.multiply(MatrixMultiplier.multiply(V, Winv, budget), U.transpose(), budget);
+    }
+
+    private static String eigenToString(SimpleEVD<SimpleMatrix> evd) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < evd.getNumberOfEigenvalues(); i++) {
+            Complex_F64 lambda = evd.getEigenvalue(i);
+            sb.append(String.format("λ%d = %s", i + 1, complexToString(lambda)));
+            SimpleMatrix v = lambda.isReal() ? evd.getEigenVector(i) : null;
+            if (v != null) {
+                double[] vec = new double[v.getNumElements()];
+                for (int j = 0; j < vec.length; j++) vec[j] = v.get(j);
+                sb.append("  v").append(i + 1).append(" = ").append(vectorToString(vec));
+            }
+            sb.append("\n");
+        }
+        return sb.toString();
+    }
+
+    private static String complexToString(Complex_F64 c) {
+        if (Math.abs(c.imaginary) < 1e-10) return formatResult(c.real);
+        String sign = c.imaginary < 0 ? " - " : " + ";
+        return formatResult(c.real) + sign + formatResult(Math.abs(c.imaginary)) + "i";
+    }
+
+    private static String vectorToString(double[] v) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < v.length; i++) {
+            sb.append(formatResult(v[i]));
+            if (i < v.length - 1) sb.append(", ");
+        }
+        return sb.append("]").toString();
+    }
+
     private static String matrixToString(SimpleMatrix m) {
         StringBuilder sb = new StringBuilder();
-        for (int i = 0; i < m.numRows(); i++) {
+        for (int i = 0; i < m.getNumRows(); i++) {
             sb.append("[");
-            for (int j = 0; j < m.numCols(); j++) {
+            for (int j = 0; j < m.getNumCols(); j++) {
                 sb.append(formatResult(m.get(i, j)));
-                if (j < m.numCols() - 1) sb.append(", ");
+                if (j < m.getNumCols() - 1) sb.append(", ");
             }
             sb.append("]\n");
         }
@@ -626,9 +1175,18 @@ public class CalculatorEngine {
 
         private static final Pattern TERM_PATTERN = Pattern.compile("([+-]?\\s*(?:\\d+(?:\\.\\d+)?|\\.\\d+)?\\s*)([a-zA-Z]\\w*)?");
 
+        /** 未知数个数达到该值时先尝试迭代解法，可通过系统属性 calculator.linear.iterativeThreshold 调整 */
+        private static final int ITERATIVE_THRESHOLD = Integer.getInteger("calculator.linear.iterativeThreshold", 200);
+        /** 未知数个数达到该值时直接法改用单精度分解 + 双精度修正，可通过 calculator.linear.mixedThreshold 调整 */
+        private static final int MIXED_PRECISION_THRESHOLD = Integer.getInteger("calculator.linear.mixedThreshold", 64);
+
         public static Map<String, Double> solveLinearSystemFromStrings(String[] equations) {
+            return solveLinearSystemFromStrings(equations, ComputeBudget.unlimited());
+        }
+
+        public static Map<String, Double> solveLinearSystemFromStrings(String[] equations, ComputeBudget budget) {
             LinearSystem sys = parseLinearSystem(equations);
-            double[] x = solveByGaussian(sys.A, sys.b);
+            double[] x = solve(sys.A, sys.b, budget);
             Map<String, Double> result = new LinkedHashMap<>();
             for (int i = 0; i < sys.variables.size(); ++i) {
                 result.put(sys.variables.get(i), x[i]);
@@ -796,7 +1354,40 @@ public class CalculatorEngine {
             return total;
         }
 
+        /**
+         * 小规模方程组直接高斯消元；大规模时先用预条件 Krylov 迭代（CG / BiCGSTAB + ILU(0)），
+         * 未收敛或预条件构造失败时改用直接法：中等以上规模用单精度分解 + 双精度迭代修正
+         * （过于病态时其内部自动退回双精度 LU），其余用高斯消元
+         */
+        public static double[] solve(double[][] A, double[] b) {
+            return solve(A, b, ComputeBudget.unlimited());
+        }
+
+        /**
+         * 在计算预算内求解：迭代法每次迭代计入一次求值，直接法每消去一列检查一次；
+         * 预算用尽时抛出 ComputeBudget.ExhaustedException（不会因迭代被截停而改走直接法）
+         */
+        public static double[] solve(double[][] A, double[] b, ComputeBudget budget) {
+            if (b.length >= ITERATIVE_THRESHOLD) {
+                try {
+                    IterativeSolver.Result r = IterativeSolver.solve(A, b,
+                            new IterativeSolver.Options().tolerance(1e-12).maxIterations(Math.max(1000, 2 * b.length))
+                                    .budget(budget));
+                    if (r.converged) return r.x;
+                } catch (ArithmeticException ignored) {
+                    // ILU(0) 遇到零主元，改用直接法
+                }
+                budget.checkpoint();
+            }
+            if (b.length >= MIXED_PRECISION_THRESHOLD) return MixedPrecisionSolver.solve(A, b, budget).x;
+            return solveByGaussian(A, b, budget);
+        }
+
         public static double[] solveByGaussian(double[][] Aorig, double[] borig) {
+            return solveByGaussian(Aorig, borig, ComputeBudget.unlimited());
+        }
+
+        public static double[] solveByGaussian(double[][] Aorig, double[] borig, ComputeBudget budget) {
             int n = borig.length;
             if (Aorig.length != n) throw new IllegalArgumentException("A 的行数必须等于 b 的长度");
 
@@ -809,6 +1400,7 @@ public class CalculatorEngine {
             }
 
             for (int k = 0; k < n; ++k) {
+                budget.checkpoint();
                 int maxRow = k;
                 double maxVal = Math.abs(A[k][k]);
                 for (int i = k + 1; i < n; ++i) {
@@ -841,7 +1433,7 @@ public class CalculatorEngine {
 
     /* ------------------ 辅助函数 ------------------ */
 
-    private static String formatResult(double result) {
+    static String formatResult(double result) {
         if (Math.abs(result - Math.round(result)) < 1e-10) {
             return String.valueOf((long) Math.round(result));
         }
@@ -849,12 +1441,12 @@ public class CalculatorEngine {
         return s;
     }
 
-    public void memoryClear() { memory = 0; }
-    public double memoryRecall() { return memory; }
-    public void memoryAdd(double value) { memory += value; }
-    public void memorySubtract(double value) { memory -= value; }
-    public void memoryStore(double value) { memory = value; }
-    public double getMemory() { return memory; }
-    public String getLastAnswer() { return lastAnswer; }
+    public void memoryClear() { session.memoryClear(); }
+    public double memoryRecall() { return session.memoryRecall(); }
+    public void memoryAdd(double value) { session.memoryAdd(value); }
+    public void memorySubtract(double value) { session.memorySubtract(value); }
+    public void memoryStore(double value) { session.memoryStore(value); }
+    public double getMemory() { return session.getMemory(); }
+    public String getLastAnswer() { return session.getLastAnswer(); }
 
 }
\ No newline at end of file
@@ -0,0 +1,259 @@
+package com.example;
+
+import net.objecthunter.exp4j.function.Functions;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.regex.Pattern;
+
+/**
+ * CalculatorSession - 单个会话的可变状态
+ *
+ * 特性：
+ *  - 保存记忆寄存器（M）、上次结果（ANS）、历史记录、用户变量与用户函数；求值与求解逻辑在
+ *    CalculatorEngine 中，引擎本身不再持有可变字段
+ *  - 变量与函数放在 SessionEnvironment 中：函数只编译一次，编译过的表达式按依赖图缓存与失效
+ *  - 每个会话带一张 Worksheet（命名单元格，修改后增量重算）
+ *  - 可切换到高精度模式（setPrecision），此时表达式按给定位数计算，ans 保留全部位数
+ *  - 所有方法都可被多个线程同时调用：M 用 CAS 更新，上次结果整体原子替换，历史记录为有界的并发双端队列，
+ *    求值路径不加锁，只有定义变量或函数时短暂持锁
+ *  - 记录最近访问时间，供 SessionRegistry 淘汰空闲会话
+ */
+public final class CalculatorSession {
+
+    /** 每个会话默认保留的历史条数 */
+    public static final int DEFAULT_HISTORY_LIMIT = 100;
+    /** 表达式中引用上次数值结果的变量名 */
+    public static final String ANS = "ans";
+
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private final String id;
+    private final int historyLimit;
+
+    private final AtomicLong memoryBits = new AtomicLong(Double.doubleToLongBits(0.0));
+    private final AtomicReference<Answer> last = new AtomicReference<>(new Answer("0", 0, null));
+    /** 高精度模式的有效位数，0 表示使用双精度 */
+    private volatile int precision;
+    private final SessionEnvironment environment = new SessionEnvironment();
+    private final Worksheet worksheet = new Worksheet();
+    private final ConcurrentLinkedDeque<HistoryEntry> history = new ConcurrentLinkedDeque<>();
+    private final AtomicInteger historySize = new AtomicInteger();
+    private volatile long lastAccess = System.nanoTime();
+
+    public CalculatorSession(String id) {
+        this(id, DEFAULT_HISTORY_LIMIT);
+    }
+
+    public CalculatorSession(String id, int historyLimit) {
+        if (id == null) throw new IllegalArgumentException("会话 ID 不能为空");
+        if (historyLimit < 0) throw new IllegalArgumentException("历史条数不能为负");
+        this.id = id;
+        this.historyLimit = historyLimit;
+    }
+
+    /** 一条历史记录 */
+    public static final class HistoryEntry {
+        public final String input;
+        public final String output;
+        public final long timestamp;
+
+        HistoryEntry(String input, String output, long timestamp) {
+            this.input = input;
+            this.output = output;
+            this.timestamp = timestamp;
+        }
+
+        @Override
+        public String toString() {
+            return input + " → " + output;
+        }
+    }
+
+    /**
+     * 上次结果：显示文本、数值与高精度值作为一个整体发布，
+     * 同一会话上并发的双精度与高精度计算不会让 ans 的两种形式来自不同的计算
+     */
+    private static final class Answer {
+        final String text;
+        final double value;
+        /** 高精度模式下 ans 的完整值；来自双精度计算时为 null */
+        final BigDecimal exact;
+
+        Answer(String text, double value, BigDecimal exact) {
+            this.text = text;
+            this.value = value;
+            this.exact = exact;
+        }
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    /* ------------------ 结果与历史 ------------------ */
+
+    /**
+     * 记录一次成功的计算或求解
+     * @param value 数值结果；结果不是单个数（如方程组的解）时传 NaN，ANS 的数值保持不变
+     */
+    public void recordAnswer(String input, String answer, double value) {
+        record(input, answer, value, null);
+    }
+
+    /** 记录高精度模式的结果，ans 保留全部位数 */
+    public void recordAnswer(String input, String answer, BigDecimal value) {
+        record(input, answer, value.doubleValue(), value);
+    }
+
+    private void record(String input, String answer, double value, BigDecimal exact) {
+        last.updateAndGet(a -> Double.isNaN(value) ? new Answer(answer, a.value, a.exact) : new Answer(answer, value, exact));
+        if (historyLimit == 0) return;
+        history.addLast(new HistoryEntry(input, answer, System.currentTimeMillis()));
+        // 超出上限时从队首丢弃；并发写入时短暂超出几条无妨
+        if (historySize.incrementAndGet() > historyLimit && history.pollFirst() != null) {
+            historySize.decrementAndGet();
+        }
+    }
+
+    public String getLastAnswer() {
+        return last.get().text;
+    }
+
+    /** 上次数值结果，表达式中以 ans 引用 */
+    public double getLastValue() {
+        return last.get().value;
+    }
+
+    /** 上次数值结果的高精度形式：来自高精度模式时为完整值，否则为 double 的最短十进制表示 */
+    public BigDecimal getLastExactValue() {
+        Answer a = last.get();
+        return a.exact != null ? a.exact : BigDecimal.valueOf(a.value);
+    }
+
+    /* ------------------ 计算精度 ------------------ */
+
+    /** 高精度模式的有效位数，0 表示双精度 */
+    public int getPrecision() {
+        return precision;
+    }
+
+    /**
+     * 设置之后 calculate 的表达式按 digits 位有效数字计算；传 0 恢复双精度
+     */
+    public void setPrecision(int digits) {
+        if (digits != 0) PrecisionEvaluator.checkDigits(digits);
+        precision = digits;
+    }
+
+    /** 历史记录快照，按时间先后排列 */
+    public List<HistoryEntry> history() {
+        return Collections.unmodifiableList(new ArrayList<>(history));
+    }
+
+    public void clearHistory() {
+        while (history.pollFirst() != null) {
+            historySize.decrementAndGet();
+        }
+    }
+
+    /* ------------------ 记忆寄存器 ------------------ */
+
+    public void memoryClear() { memoryStore(0); }
+    public double memoryRecall() { return getMemory(); }
+    public void memoryAdd(double value) { updateMemory(value); }
+    public void memorySubtract(double value) { updateMemory(-value); }
+    public void memoryStore(double value) { memoryBits.set(Double.doubleToLongBits(value)); }
+    public double getMemory() { return Double.longBitsToDouble(memoryBits.get()); }
+
+    private void updateMemory(double delta) {
+        memoryBits.accumulateAndGet(0L, (bits, ignored) ->
+                Double.doubleToLongBits(Double.longBitsToDouble(bits) + delta));
+    }
+
+    /* ------------------ 变量与函数 ------------------ */
+
+    /**
+     * 设置用户变量；变量名须为标识符，且不能与内置函数、常数、ans 或已定义的用户函数重名
+     */
+    public void setVariable(String name, double value) {
+        checkVariableName(name);
+        environment.setVariable(name, value);
+    }
+
+    public Double getVariable(String name) {
+        return environment.getVariable(name);
+    }
+
+    public boolean removeVariable(String name) {
+        return environment.removeVariable(name);
+    }
+
+    /** 变量表快照（按名称排序），不含 ans */
+    public Map<String, Double> variables() {
+        return environment.variables();
+    }
+
+    /**
+     * 定义或重新定义用户函数，如 defineFunction("f", ["x"], "x^2 + a")
+     * 函数体可引用参数、已定义的变量与函数；之后修改这些变量，函数随之使用新值
+     */
+    public void defineFunction(String name, List<String> params, String body) {
+        checkVariableName(name);
+        if (body == null || body.trim().isEmpty()) throw new IllegalArgumentException("函数体不能为空");
+        environment.defineFunction(name, params, body, CalculatorEngine.preprocessExpression(body));
+    }
+
+    public boolean removeFunction(String name) {
+        return environment.removeFunction(name);
+    }
+
+    /** 函数定义快照：函数名 → "f(x) = 体"，按名称排序 */
+    public Map<String, String> functions() {
+        return environment.functions();
+    }
+
+    /**
+     * 用会话的变量、函数与 ans 求值（表达式需已预处理），编译结果按会话缓存
+     */
+    double evaluate(String expression) {
+        return environment.evaluate(expression, last.get().value);
+    }
+
+    SessionEnvironment environment() {
+        return environment;
+    }
+
+    /** 会话的工作表 */
+    public Worksheet worksheet() {
+        return worksheet;
+    }
+
+    static void checkVariableName(String name) {
+        if (name == null || !IDENTIFIER.matcher(name).matches()) {
+            throw new IllegalArgumentException("变量名无效: " + name);
+        }
+        if (name.equals(ANS) || name.equals("e") || name.equals("pi") || name.equals("x")
+                || Functions.getBuiltinFunction(name) != null) {
+            throw new IllegalArgumentException("变量名与保留名称冲突: " + name);
+        }
+    }
+
+    /* ------------------ 空闲淘汰 ------------------ */
+
+    void touch() {
+        lastAccess = System.nanoTime();
+    }
+
+    /** 距最近一次访问经过的纳秒数 */
+    long idleNanos() {
+        return System.nanoTime() - lastAccess;
+    }
+}
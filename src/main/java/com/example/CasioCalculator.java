@@ -2,17 +2,23 @@ package com.example;
 
 import javax.swing.*;
 import javax.swing.border.*;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.text.BadLocationException;
+import javax.swing.text.Document;
+import javax.swing.text.Segment;
 import java.awt.*;
+import java.awt.datatransfer.DataFlavor;
 import java.awt.event.*;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
  * CasioCalculator - 增强版 UI
  *
  * 特性：
- *  - 动态矩阵输入：用户可指定行列数（NxM）生成 JTextField 网格；
- *    支持从网格读取矩阵或直接粘贴多行文本解析矩阵字符串（parseMatrixFromString）。
+ *  - 动态矩阵输入：用户可指定行列数（NxM），矩阵在 JTable 中编辑（数据存于 MatrixTableModel，
+ *    只渲染可见单元格），可 Ctrl+V 整块粘贴，或直接粘贴多行文本解析矩阵字符串（parseMatrixFromString）。
  *  - 方程面板：多行输入，支持分号或换行分隔方程组，自动识别并求解多元线性方程组或单方程。
  *  - 增强函数绘图：支持复合函数快捷输入和常用函数模板
  *  - 保留普通计算、函数绘图模块（调用 CalculatorEngine 与 GraphPlotter）。
@@ -21,9 +27,8 @@ import java.util.List;
  */
 public class CasioCalculator extends JFrame {
 
-    static {
-        setupWindowsChineseFont();
-    }
+    /** 矩阵行列数上限，与表格模型一致 */
+    private static final int MAX_MATRIX_SIZE = MatrixTableModel.MAX_SIZE;
 
     private final CalculatorEngine engine;
 
@@ -31,11 +36,11 @@ public class CasioCalculator extends JFrame {
     private JTextArea display;
     private JLabel statusLabel;
 
-    // 动态矩阵 A/B 的容器（使用 List 以支持动态大小）
-    private JPanel matrixAContainer;
-    private JPanel matrixBContainer;
-    private List<List<JTextField>> matrixAFields = new ArrayList<>();
-    private List<List<JTextField>> matrixBFields = new ArrayList<>();
+    // 动态矩阵 A/B 的表格与数据模型（模型直接保存 double 数组）
+    private final MatrixTableModel matrixAModel = new MatrixTableModel(3, 3);
+    private final MatrixTableModel matrixBModel = new MatrixTableModel(3, 3);
+    private JTable matrixATable;
+    private JTable matrixBTable;
     private JTextField matrixARowsField;
     private JTextField matrixAColsField;
     private JTextField matrixBRowsField;
@@ -244,9 +249,8 @@ public class CasioCalculator extends JFrame {
         left.setBorder(new TitledBorder(new LineBorder(Color.GRAY, 2), "矩阵 A", TitledBorder.LEFT, TitledBorder.TOP,
                 new Font("Microsoft YaHei UI", Font.BOLD, 14), Color.WHITE));
         left.add(createMatrixControlPanel(true), BorderLayout.NORTH);
-        matrixAContainer = new JPanel();
-        matrixAContainer.setBackground(new Color(55, 55, 55));
-        left.add(new JScrollPane(matrixAContainer), BorderLayout.CENTER);
+        matrixATable = createMatrixTable(matrixAModel);
+        left.add(createMatrixScrollPane(matrixATable), BorderLayout.CENTER);
 
         // 右侧：矩阵 B 控件
         JPanel right = new JPanel(new BorderLayout(6, 6));
@@ -254,17 +258,17 @@ public class CasioCalculator extends JFrame {
         right.setBorder(new TitledBorder(new LineBorder(Color.GRAY, 2), "矩阵 B", TitledBorder.LEFT, TitledBorder.TOP,
                 new Font("Microsoft YaHei UI", Font.BOLD, 14), Color.WHITE));
         right.add(createMatrixControlPanel(false), BorderLayout.NORTH);
-        matrixBContainer = new JPanel();
-        matrixBContainer.setBackground(new Color(55, 55, 55));
-        right.add(new JScrollPane(matrixBContainer), BorderLayout.CENTER);
+        matrixBTable = createMatrixTable(matrixBModel);
+        right.add(createMatrixScrollPane(matrixBTable), BorderLayout.CENTER);
 
         top.add(left);
         top.add(right);
 
         // 操作按钮区
-        JPanel ops = new JPanel(new GridLayout(2, 4, 8, 8));
+        JPanel ops = new JPanel(new GridLayout(4, 4, 8, 8));
         ops.setBackground(new Color(36, 36, 36));
-        String[] opsList = {"A + B", "A - B", "A * B", "det(A)", "A^-1", "A^T", "Parse A from Text", "Parse B from Text"};
+        String[] opsList = {"A + B", "A - B", "A * B", "det(A)", "A^-1", "A^T", "Parse A from Text", "Parse B from Text",
+                "eig(A)", "svd(A)", "qr(A)", "chol(A)", "rank(A)", "pinv(A)", "A^n", "solve AX=B"};
         for (String op : opsList) {
             JButton btn = new JButton(op);
             btn.setFont(new Font("Microsoft YaHei UI", Font.PLAIN, 13));
@@ -275,10 +279,6 @@ public class CasioCalculator extends JFrame {
         panel.add(top, BorderLayout.CENTER);
         panel.add(ops, BorderLayout.SOUTH);
 
-        // 初始化默认矩阵（3x3）
-        buildMatrixGrid(true, 3, 3);
-        buildMatrixGrid(false, 3, 3);
-
         return panel;
     }
 
@@ -330,76 +330,133 @@ public class CasioCalculator extends JFrame {
     private int parsePositiveInt(String s, int defaultVal) {
         try {
             int v = Integer.parseInt(s.trim());
-            return Math.max(1, Math.min(v, 200));
+            return Math.max(1, Math.min(v, MAX_MATRIX_SIZE));
         } catch (Exception ex) {
             return defaultVal;
         }
     }
 
-    private void buildMatrixGrid(boolean isA, int rows, int cols) {
-        JPanel container = isA ? matrixAContainer : matrixBContainer;
-        container.removeAll();
-        container.setLayout(new BorderLayout());
-
-        JPanel grid = new JPanel(new GridLayout(rows, cols, 6, 6));
-        grid.setBackground(new Color(70, 70, 70));
-        List<List<JTextField>> targetList = new ArrayList<>();
-
-        for (int i = 0; i < rows; i++) {
-            List<JTextField> rowList = new ArrayList<>();
-            for (int j = 0; j < cols; j++) {
-                JTextField tf = new JTextField("0");
-                tf.setHorizontalAlignment(JTextField.CENTER);
-                tf.setFont(new Font("Consolas", Font.PLAIN, 13));
-                tf.setBackground(new Color(60, 60, 60));
-                tf.setForeground(Color.WHITE);
-                grid.add(tf);
-                rowList.add(tf);
+    private JTable createMatrixTable(MatrixTableModel model) {
+        JTable table = new JTable(model);
+        table.setFont(new Font("Consolas", Font.PLAIN, 13));
+        table.setRowHeight(24);
+        table.setBackground(new Color(60, 60, 60));
+        table.setForeground(Color.WHITE);
+        table.setGridColor(new Color(90, 90, 90));
+        table.setSelectionBackground(new Color(90, 110, 140));
+        table.setCellSelectionEnabled(true);
+        // 不自动压缩列宽，列多时水平滚动，只绘制可见区域
+        table.setAutoResizeMode(JTable.AUTO_RESIZE_OFF);
+        table.putClientProperty("terminateEditOnFocusLost", Boolean.TRUE);
+        table.getTableHeader().setReorderingAllowed(false);
+
+        DefaultTableCellRenderer renderer = new DefaultTableCellRenderer();
+        renderer.setHorizontalAlignment(JLabel.CENTER);
+        table.setDefaultRenderer(Double.class, renderer);
+
+        // Ctrl+V：剪贴板文本整块写入模型，从当前选中单元格开始
+        table.getInputMap(JComponent.WHEN_FOCUSED).put(
+                KeyStroke.getKeyStroke(KeyEvent.VK_V, Toolkit.getDefaultToolkit().getMenuShortcutKeyMaskEx()), "pasteMatrix");
+        table.getActionMap().put("pasteMatrix", new AbstractAction() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                pasteIntoTable(table, model);
             }
-            targetList.add(rowList);
+        });
+        return table;
+    }
+
+    private JScrollPane createMatrixScrollPane(JTable table) {
+        JScrollPane scroll = new JScrollPane(table);
+        scroll.getViewport().setBackground(new Color(55, 55, 55));
+        return scroll;
+    }
+
+    private void pasteIntoTable(JTable table, MatrixTableModel model) {
+        try {
+            String text = (String) Toolkit.getDefaultToolkit().getSystemClipboard().getData(DataFlavor.stringFlavor);
+            stopEditing(table);
+            int row = Math.max(0, table.getSelectedRow());
+            int col = Math.max(0, table.getSelectedColumn());
+            model.paste(text, row, col);
+            syncSizeFields(model == matrixAModel);
+        } catch (Exception ex) {
+            display.setText("粘贴失败: " + ex.getMessage());
         }
+    }
 
-        container.add(grid, BorderLayout.CENTER);
-        container.revalidate();
-        container.repaint();
+    private void buildMatrixGrid(boolean isA, int rows, int cols) {
+        JTable table = isA ? matrixATable : matrixBTable;
+        MatrixTableModel model = isA ? matrixAModel : matrixBModel;
+        stopEditing(table);
+        model.resize(rows, cols);
+        syncSizeFields(isA);
+    }
 
+    private void syncSizeFields(boolean isA) {
+        MatrixTableModel model = isA ? matrixAModel : matrixBModel;
         if (isA) {
-            matrixAFields = targetList;
-            matrixARowsField.setText(String.valueOf(rows));
-            matrixAColsField.setText(String.valueOf(cols));
+            matrixARowsField.setText(String.valueOf(model.getRowCount()));
+            matrixAColsField.setText(String.valueOf(model.getColumnCount()));
         } else {
-            matrixBFields = targetList;
-            matrixBRowsField.setText(String.valueOf(rows));
-            matrixBColsField.setText(String.valueOf(cols));
+            matrixBRowsField.setText(String.valueOf(model.getRowCount()));
+            matrixBColsField.setText(String.valueOf(model.getColumnCount()));
         }
     }
 
+    private static void stopEditing(JTable table) {
+        if (table != null && table.isEditing()) table.getCellEditor().stopCellEditing();
+    }
+
     private void handleMatrixAction(String op) {
         try {
+            if (op.startsWith("Parse ")) {
+                // 文本框中的矩阵整体载入表格模型
+                boolean isA = op.equals("Parse A from Text");
+                JTextArea area = isA ? matrixATextArea : matrixBTextArea;
+                if (isBlank(area)) {
+                    display.setText("请先在文本框中输入矩阵");
+                    return;
+                }
+                MatrixTableModel model = isA ? matrixAModel : matrixBModel;
+                stopEditing(isA ? matrixATable : matrixBTable);
+                model.setMatrix(parseTextArea(area));
+                syncSizeFields(isA);
+                display.setText(String.format("已载入矩阵 %s（%d×%d）", isA ? "A" : "B",
+                        model.getRowCount(), model.getColumnCount()));
+                return;
+            }
+
             double[][] A = null;
             double[][] B = null;
-            if (matrixATextArea != null && !matrixATextArea.getText().trim().isEmpty()) {
+            if (!isBlank(matrixATextArea)) {
                 try {
-                    A = CalculatorEngine.parseMatrixFromString(matrixATextArea.getText());
+                    A = parseTextArea(matrixATextArea);
                 } catch (Exception ex) {
-                    A = readMatrixFromGrid(matrixAFields);
+                    A = readMatrixFromGrid(matrixATable);
                 }
             } else {
-                A = readMatrixFromGrid(matrixAFields);
+                A = readMatrixFromGrid(matrixATable);
             }
 
             if (op.contains("B") || op.contains("*")) {
-                if (matrixBTextArea != null && !matrixBTextArea.getText().trim().isEmpty()) {
+                if (!isBlank(matrixBTextArea)) {
                     try {
-                        B = CalculatorEngine.parseMatrixFromString(matrixBTextArea.getText());
+                        B = parseTextArea(matrixBTextArea);
                     } catch (Exception ex) {
-                        B = readMatrixFromGrid(matrixBFields);
+                        B = readMatrixFromGrid(matrixBTable);
                     }
                 } else {
-                    B = readMatrixFromGrid(matrixBFields);
+                    B = readMatrixFromGrid(matrixBTable);
                 }
             }
 
+            if (op.equals("A^n")) {
+                String n = JOptionPane.showInputDialog(this, "请输入整数指数 n（可为负数）:", "矩阵乘方", JOptionPane.QUESTION_MESSAGE);
+                if (n == null || n.trim().isEmpty()) return;
+                op = "A^" + n.trim();
+            }
+
             String result = CalculatorEngine.performMatrixOperation(op, A, B);
             display.setText(result);
 
@@ -410,21 +467,34 @@ public class CasioCalculator extends JFrame {
         }
     }
 
-    private double[][] readMatrixFromGrid(List<List<JTextField>> gridFields) {
-        if (gridFields == null || gridFields.size() == 0) throw new IllegalArgumentException("矩阵未初始化");
-        int rows = gridFields.size();
-        int cols = gridFields.get(0).size();
-        double[][] m = new double[rows][cols];
-        for (int i = 0; i < rows; i++) {
-            List<JTextField> row = gridFields.get(i);
-            if (row.size() != cols) throw new IllegalArgumentException("矩阵列数不一致");
-            for (int j = 0; j < cols; j++) {
-                String s = row.get(j).getText().trim();
-                if (s.isEmpty()) s = "0";
-                m[i][j] = Double.parseDouble(s);
-            }
+    private static boolean isBlank(JTextArea area) {
+        if (area == null) return true;
+        Document doc = area.getDocument();
+        Segment segment = new Segment();
+        try {
+            doc.getText(0, doc.getLength(), segment);
+        } catch (BadLocationException e) {
+            return true;
         }
-        return m;
+        for (int i = 0; i < segment.length(); i++) {
+            if (!Character.isWhitespace(segment.charAt(i))) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 直接在文本框文档的字符段上解析，不复制出 String
+     */
+    private static double[][] parseTextArea(JTextArea area) throws BadLocationException {
+        Document doc = area.getDocument();
+        Segment segment = new Segment();
+        doc.getText(0, doc.getLength(), segment);
+        return CalculatorEngine.parseMatrixFromString(segment);
+    }
+
+    private double[][] readMatrixFromGrid(JTable table) {
+        stopEditing(table);
+        return ((MatrixTableModel) table.getModel()).toArray();
     }
 
     /* ------------------ 方程求解面板 ------------------ */
@@ -454,6 +524,11 @@ public class CasioCalculator extends JFrame {
         solveBtn.setFont(new Font("Microsoft YaHei UI", Font.BOLD, 14));
         solveBtn.setPreferredSize(new Dimension(140, 44));
         solveBtn.addActionListener(e -> solveEquationsAction());
+        JButton plotEqBtn = new JButton("绘制曲线");
+        plotEqBtn.setFont(new Font("Microsoft YaHei UI", Font.BOLD, 14));
+        plotEqBtn.setPreferredSize(new Dimension(140, 44));
+        plotEqBtn.addActionListener(e -> plotEquationsAction());
+        south.add(plotEqBtn);
         south.add(solveBtn);
 
         p.add(inputPane, BorderLayout.CENTER);
@@ -472,6 +547,32 @@ public class CasioCalculator extends JFrame {
         display.setText(out);
     }
 
+    /**
+     * 把方程组中的每个方程作为隐函数曲线 F(x,y)=0 绘制，交点即为方程组的解
+     */
+    private void plotEquationsAction() {
+        String input = equationsTextArea.getText();
+        if (input == null || input.trim().isEmpty()) {
+            display.setText("方程输入为空");
+            return;
+        }
+        List<String> eqs = new ArrayList<>();
+        for (String part : input.split("[;\\n\\r]+")) {
+            if (part.contains("=")) eqs.add(part.trim());
+        }
+        if (eqs.isEmpty()) {
+            display.setText("方程必须包含等号 (=)");
+            return;
+        }
+        try {
+            GraphPlotter gp = new GraphPlotter(GraphPlotter.PlotMode.IMPLICIT, eqs);
+            gp.setVisible(true);
+            display.setText("已打开隐函数绘图窗口: " + String.join("; ", eqs));
+        } catch (Exception ex) {
+            display.setText("绘图错误: " + ex.getMessage());
+        }
+    }
+
     /* ------------------ 函数绘图 ------------------ */
 
     private JPanel createGraphPanel() {
@@ -496,6 +597,15 @@ public class CasioCalculator extends JFrame {
 
         input.add(funcField, BorderLayout.CENTER);
 
+        String[] modeNames = {"y = f(x)", "隐函数 F(x,y) = 0", "热力图 f(x,y)", "参数方程 x(t); y(t)", "极坐标 r(θ)"};
+        GraphPlotter.PlotMode[] modes = {
+            GraphPlotter.PlotMode.FUNCTION, GraphPlotter.PlotMode.IMPLICIT, GraphPlotter.PlotMode.HEATMAP,
+            GraphPlotter.PlotMode.PARAMETRIC, GraphPlotter.PlotMode.POLAR
+        };
+        JComboBox<String> modeBox = new JComboBox<>(modeNames);
+        modeBox.setFont(new Font("Microsoft YaHei UI", Font.PLAIN, 13));
+        input.add(modeBox, BorderLayout.EAST);
+
         JPanel quickPanel = new JPanel(new BorderLayout(8, 8));
         quickPanel.setBackground(new Color(36, 36, 36));
 
@@ -562,9 +672,14 @@ public class CasioCalculator extends JFrame {
                 return;
             }
             try {
-                GraphPlotter gp = new GraphPlotter(f);
+                // 用 ; 分隔多个函数，叠加绘制在同一图表中
+                List<String> funcs = new ArrayList<>();
+                for (String part : f.split(";")) {
+                    if (!part.trim().isEmpty()) funcs.add(part.trim());
+                }
+                GraphPlotter gp = new GraphPlotter(modes[modeBox.getSelectedIndex()], funcs);
                 gp.setVisible(true);
-                display.setText("已打开绘图窗口: y = " + f);
+                display.setText("已打开绘图窗口: " + modeNames[modeBox.getSelectedIndex()] + " | " + f);
             } catch (Exception ex) {
                 display.setText("绘图错误: " + ex.getMessage());
             }
@@ -632,6 +747,11 @@ public class CasioCalculator extends JFrame {
             "  支持括号嵌套\n\n" +
             "【提示】\n" +
             "  • 绘图窗口可调整 X 范围和步长\n" +
+            "  • 用 ; 分隔多个函数可叠加绘制，如 sin(x); cos(x)\n" +
+            "  • 隐函数模式: x^2 + y^2 = 25; x*y = 12\n" +
+            "  • 热力图模式: sin(x)*cos(y)\n" +
+            "  • 参数方程模式: cos(3*t); sin(2*t)\n" +
+            "  • 极坐标模式: 1 + cos(θ)\n" +
             "  • 使用鼠标滚轮可缩放图形\n" +
             "  • 自动处理无效值（如 log(0)）\n" +
             "═══════════════════════════════════════";
@@ -656,6 +776,12 @@ public class CasioCalculator extends JFrame {
     /* ------------------ 启动 ------------------ */
 
     public static void main(String[] args) {
+        // java -jar casio-calculator-standalone.jar --batch [...]：不启动界面，转入命令行批处理
+        if (args.length > 0 && args[0].equals("--batch")) {
+            BatchCalculator.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        setupWindowsChineseFont();
         SwingUtilities.invokeLater(() -> {
             try {
                 UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -0,0 +1,156 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * ComputeBudget - 单次计算的预算与取消令牌
+ *
+ * 特性：
+ *  - 同时限制墙钟时间（截止时刻）与函数求值次数，任一项用尽或被取消后令牌永久处于停止状态，
+ *    status() 记录最先触发的原因
+ *  - 求解器与采样循环在求值前调用 spend / charge，检查只有一次原子加法与一次 nanoTime，
+ *    逐点采样等热点按批计数，开销可忽略；矩阵分解、消元等没有“求值”的循环每一步调用 checkpoint，
+ *    只受时间与取消约束
+ *  - 线程被中断（如计算服务超时后中断工作线程）视为取消，但不清除中断标志
+ *  - 可被多个并行任务共享：任一任务发现预算用尽，其余任务在下一次检查时随之停止
+ *  - 预算用尽时各求解器返回已得到的部分结果，调用方用 status() 判断结果是否完整
+ */
+public final class ComputeBudget {
+
+    /** 计算结束的原因 */
+    public enum Status {
+        COMPLETED("完成"),
+        CANCELLED("已取消"),
+        DEADLINE_EXCEEDED("超出时间预算"),
+        EVALUATION_LIMIT("超出求值次数预算");
+
+        private final String description;
+
+        Status(String description) {
+            this.description = description;
+        }
+
+        public String description() {
+            return description;
+        }
+    }
+
+    /**
+     * 预算用尽时由 charge 抛出，供深层递归（如区间细分、数值微分）一次性退出；
+     * 不记录调用栈，抛出代价很低
+     */
+    public static final class ExhaustedException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        public final Status status;
+
+        ExhaustedException(Status status) {
+            super("计算预算用尽: " + status.description(), null, false, false);
+            this.status = status;
+        }
+    }
+
+    private static final long NO_DEADLINE = Long.MAX_VALUE;
+
+    private final long deadline;
+    private final long maxEvaluations;
+    private final AtomicLong evaluations = new AtomicLong();
+    private final AtomicReference<Status> stopped = new AtomicReference<>();
+
+    private ComputeBudget(long deadline, long maxEvaluations) {
+        this.deadline = deadline;
+        this.maxEvaluations = maxEvaluations;
+    }
+
+    /** 不限时间与次数，只能被取消或中断 */
+    public static ComputeBudget unlimited() {
+        return new ComputeBudget(NO_DEADLINE, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param wallTime 允许的墙钟时间，null 表示不限
+     * @param maxEvaluations 允许的函数求值次数，不大于 0 表示不限
+     */
+    public static ComputeBudget of(Duration wallTime, long maxEvaluations) {
+        long deadline = NO_DEADLINE;
+        if (wallTime != null) {
+            if (wallTime.isNegative()) throw new IllegalArgumentException("时间预算不能为负");
+            deadline = System.nanoTime() + wallTime.toNanos();
+        }
+        return new ComputeBudget(deadline, maxEvaluations > 0 ? maxEvaluations : Long.MAX_VALUE);
+    }
+
+    /**
+     * 以 System.nanoTime() 时刻为截止时间
+     * @param maxEvaluations 不大于 0 表示不限
+     */
+    public static ComputeBudget until(long deadlineNanos, long maxEvaluations) {
+        return new ComputeBudget(deadlineNanos, maxEvaluations > 0 ? maxEvaluations : Long.MAX_VALUE);
+    }
+
+    /** 取消计算；进行中的循环在下一次检查时停止 */
+    public void cancel() {
+        stop(Status.CANCELLED);
+    }
+
+    /**
+     * 计入 n 次求值并检查预算
+     * @return 预算仍有剩余时为 true；为 false 时调用方应停止并返回部分结果
+     */
+    public boolean spend(long n) {
+        if (stopped.get() != null) return false;
+        if (evaluations.addAndGet(n) > maxEvaluations) return stop(Status.EVALUATION_LIMIT);
+        return check();
+    }
+
+    /**
+     * 与 spend 相同，但预算用尽时抛出 ExhaustedException
+     */
+    public void charge(long n) {
+        if (!spend(n)) throw new ExhaustedException(status());
+    }
+
+    /**
+     * 只检查时间与取消，不计求值次数
+     * @return 预算已用尽时为 true
+     */
+    public boolean exhausted() {
+        return stopped.get() != null || !check();
+    }
+
+    /**
+     * 与 exhausted 相同，但预算用尽时抛出 ExhaustedException
+     */
+    public void checkpoint() {
+        if (exhausted()) throw new ExhaustedException(status());
+    }
+
+    /** 计算结束的原因；预算未用尽时为 COMPLETED */
+    public Status status() {
+        Status s = stopped.get();
+        return s == null ? Status.COMPLETED : s;
+    }
+
+    public boolean isCompleted() {
+        return stopped.get() == null;
+    }
+
+    /** 已计入的求值次数 */
+    public long evaluations() {
+        return evaluations.get();
+    }
+
+    private boolean check() {
+        if (Thread.currentThread().isInterrupted()) return stop(Status.CANCELLED);
+        if (deadline != NO_DEADLINE && System.nanoTime() - deadline > 0) return stop(Status.DEADLINE_EXCEEDED);
+        return true;
+    }
+
+    /** 只保留最先触发的原因；总是返回 false 便于直接 return */
+    private boolean stop(Status status) {
+        stopped.compareAndSet(null, status);
+        return false;
+    }
+}
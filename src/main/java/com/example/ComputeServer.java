@@ -0,0 +1,474 @@
+package com.example;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ComputeServer - 无界面的 HTTP/JSON 计算服务
+ *
+ * 特性：
+ *  - 基于 JDK 自带的 com.sun.net.httpserver：请求的读写在虚拟线程上，计算在 maxConcurrent 个平台线程的
+ *    固定线程池上，CPU 密集的计算不会占满虚拟线程的载体线程而让 503、504 响应发不出去
+ *  - 接口（均为 POST，请求与响应体都是 JSON）：
+ *      /calculate  {"session": "s1", "expression": "sin(pi/6)*2"}，可选 "precision": 50 按 50 位有效数字计算
+ *      /solve      {"session": "s1", "equation": "x^2 = 4"}
+ *      /matrix     {"operation": "A * B", "a": [[1,2],[3,4]], "b": "5 6; 7 8"}
+ *      /plot       {"functions": ["sin(x)"], "xMin": -10, "xMax": 10, "step": 0.01}
+ *      /worksheet  {"session": "s1", "cells": {"a": "2", "b": "a^2 + 1"}, "remove": ["c"]}
+ *    以及 GET /health 返回当前并发与排队数
+ *  - 背压：同时计算的请求数不超过 maxConcurrent，另有 queueCapacity 个请求可排队等待；
+ *    两者都满时立即返回 503 与 Retry-After，而不是无限堆积
+ *  - 每个请求有超时（含排队时间），超时返回 504 并中断计算；计算真正结束前仍占用名额，
+ *    不会因超时而让实际负载超过上限
+ *  - 求解、矩阵运算、绘图、高精度计算与工作表在 ComputeBudget 内进行：预算截止时刻比超时早 1/10，
+ *    可选字段 maxEvaluations 限制函数求值次数（矩阵分解与消元、高精度级数与工作表重算只受时间约束）；
+ *    预算用尽时仍返回 200 与部分结果或中止说明，status 字段注明原因
+ *  - session 字段选择 SessionRegistry 中的会话（ANS、记忆、变量各自独立），空闲会话定期淘汰
+ *
+ * 命令行：
+ *  java -cp casio-calculator-standalone.jar com.example.ComputeServer [端口] [并发上限] [队列长度] [超时毫秒]
+ */
+public class ComputeServer {
+
+    public static final int DEFAULT_PORT = 8080;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 10_000;
+    /** 请求体大小上限 */
+    private static final int MAX_BODY_BYTES = 8 << 20;
+    /** 绘图采样点数上限（所有函数合计） */
+    private static final long MAX_PLOT_POINTS = 2_000_000;
+    private static final Duration SESSION_IDLE = Duration.ofMinutes(30);
+    /** 计算预算截止时刻提前于请求超时的比例，留出整理部分结果与写响应的时间 */
+    private static final int BUDGET_MARGIN_DIVISOR = 10;
+
+    private final int maxConcurrent;
+    private final int queueCapacity;
+    private final long timeoutMillis;
+
+    /** 在系统中（排队 + 计算中）的请求名额 */
+    private final Semaphore admission;
+    private final SessionRegistry sessions = new SessionRegistry();
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    private final HttpServer server;
+    private final ExecutorService requestExecutor;
+    /** 计算线程池：maxConcurrent 个平台线程，其余请求在队列中按到达顺序等待 */
+    private final ThreadPoolExecutor computeExecutor;
+    private final ScheduledExecutorService housekeeping;
+
+    public ComputeServer(int port, int maxConcurrent, int queueCapacity, long timeoutMillis) throws IOException {
+        if (maxConcurrent < 1) throw new IllegalArgumentException("并发上限必须大于 0");
+        if (queueCapacity < 0) throw new IllegalArgumentException("队列长度不能为负");
+        if (timeoutMillis < 1) throw new IllegalArgumentException("超时必须大于 0");
+        this.maxConcurrent = maxConcurrent;
+        this.queueCapacity = queueCapacity;
+        this.timeoutMillis = timeoutMillis;
+        this.admission = new Semaphore(maxConcurrent + queueCapacity);
+        this.computeExecutor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), Thread.ofPlatform().name("compute-", 1).daemon().factory());
+
+        this.server = HttpServer.create(new InetSocketAddress(port), 0);
+        this.requestExecutor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(requestExecutor);
+        server.createContext("/calculate", post(this::calculate));
+        server.createContext("/solve", post(this::solve));
+        server.createContext("/matrix", post(this::matrix));
+        server.createContext("/plot", post(this::plot));
+        server.createContext("/worksheet", post(this::worksheet));
+        server.createContext("/health", this::health);
+        server.createContext("/", exchange -> send(exchange, 404, error("未知接口: " + exchange.getRequestURI().getPath())));
+
+        this.housekeeping = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "session-eviction");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public ComputeServer start() {
+        server.start();
+        long period = Math.max(1, SESSION_IDLE.toMinutes() / 6);
+        housekeeping.scheduleAtFixedRate(() -> sessions.evictIdle(SESSION_IDLE), period, period, TimeUnit.MINUTES);
+        return this;
+    }
+
+    /**
+     * 停止接收新连接，最多等待 delaySeconds 秒让进行中的请求完成
+     */
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        housekeeping.shutdownNow();
+        computeExecutor.shutdownNow();
+        requestExecutor.shutdownNow();
+    }
+
+    /** 实际监听的端口（构造时传 0 则由系统分配） */
+    public int port() {
+        return server.getAddress().getPort();
+    }
+
+    public SessionRegistry sessions() {
+        return sessions;
+    }
+
+    /* ------------------ 接口实现 ------------------ */
+
+    /** 单个接口：请求 JSON → 响应 JSON */
+    private interface Endpoint {
+        Map<String, Object> handle(Map<String, Object> request, ComputeBudget budget) throws Exception;
+    }
+
+    private Map<String, Object> calculate(Map<String, Object> req, ComputeBudget budget) throws Exception {
+        CalculatorEngine engine = sessions.engine(string(req, "session", "default"));
+        String expression = requireString(req, "expression");
+        String answer;
+        try {
+            answer = req.containsKey("precision")
+                    ? engine.calculate(expression, (int) number(req, "precision", 0), budget)
+                    : engine.calculate(expression);
+        } catch (ComputeBudget.ExhaustedException ee) {
+            Map<String, Object> res = new LinkedHashMap<>();
+            res.put("result", "计算中止：计算" + ee.status.description());
+            res.put("status", ee.status.name());
+            return res;
+        } catch (IllegalArgumentException e) {
+            throw e;
+        } catch (Exception e) {
+            // calculate 对表达式错误抛出普通 Exception，属于客户端错误
+            throw new IllegalArgumentException(e.getMessage());
+        }
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("result", answer);
+        res.put("value", engine.getSession().getLastValue());
+        res.put("status", budget.status().name());
+        return res;
+    }
+
+    private Map<String, Object> solve(Map<String, Object> req, ComputeBudget budget) {
+        CalculatorEngine engine = sessions.engine(string(req, "session", "default"));
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("result", engine.solveEquation(requireString(req, "equation"), budget));
+        res.put("status", budget.status().name());
+        return res;
+    }
+
+    private Map<String, Object> matrix(Map<String, Object> req, ComputeBudget budget) {
+        String op = requireString(req, "operation");
+        double[][] a = matrixField(req, "a");
+        double[][] b = req.containsKey("b") ? matrixField(req, "b") : null;
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("result", CalculatorEngine.performMatrixOperation(op, a, b, budget));
+        res.put("status", budget.status().name());
+        return res;
+    }
+
+    private Map<String, Object> plot(Map<String, Object> req, ComputeBudget budget) {
+        Object fs = req.get("functions");
+        List<String> functions = new ArrayList<>();
+        if (fs instanceof String) {
+            for (String f : ((String) fs).split(";")) {
+                if (!f.trim().isEmpty()) functions.add(FunctionSampler.preprocess(f));
+            }
+        } else if (fs instanceof List) {
+            for (Object f : (List<?>) fs) functions.add(FunctionSampler.preprocess(String.valueOf(f)));
+        }
+        if (functions.isEmpty()) throw new IllegalArgumentException("缺少 functions");
+
+        double xMin = number(req, "xMin", -10);
+        double xMax = number(req, "xMax", 10);
+        double step = number(req, "step", 0.01);
+        if (!(xMin < xMax) || !(step > 0)) throw new IllegalArgumentException("绘图范围或步长无效");
+        double points = Math.floor((xMax - xMin) / step) + 1;
+        if (points * functions.size() > MAX_PLOT_POINTS) {
+            throw new IllegalArgumentException("采样点过多，上限为 " + MAX_PLOT_POINTS);
+        }
+
+        double[] xs = FunctionSampler.grid(xMin, xMax, step);
+        double[][] ys = FunctionSampler.sampleAll(functions, "x", xs, budget);
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("functions", functions);
+        res.put("x", xs);
+        res.put("y", ys);
+        res.put("status", budget.status().name());
+        return res;
+    }
+
+    private Map<String, Object> worksheet(Map<String, Object> req, ComputeBudget budget) {
+        Worksheet sheet = sessions.session(string(req, "session", "default")).worksheet();
+        Object cells = req.get("cells");
+        Object remove = req.get("remove");
+        if (cells != null && !(cells instanceof Map)) throw new IllegalArgumentException("cells 必须是对象");
+        if (remove != null && !(remove instanceof List)) throw new IllegalArgumentException("remove 必须是数组");
+
+        int evaluated = 0;
+        Set<String> changed = new TreeSet<>();
+        String aborted = null;
+        try {
+            if (remove != null) {
+                for (Object name : (List<?>) remove) {
+                    Worksheet.Recalculation r = sheet.remove(String.valueOf(name), budget);
+                    if (r == null) continue;
+                    changed.addAll(r.changed);
+                    evaluated += r.evaluated;
+                }
+            }
+            if (cells != null) {
+                Map<String, String> formulas = new LinkedHashMap<>();
+                for (Map.Entry<?, ?> e : ((Map<?, ?>) cells).entrySet()) {
+                    formulas.put(String.valueOf(e.getKey()), String.valueOf(e.getValue()));
+                }
+                if (!formulas.isEmpty()) {
+                    Worksheet.Recalculation r = sheet.setAll(formulas, budget);
+                    changed.addAll(r.changed);
+                    evaluated += r.evaluated;
+                }
+            }
+        } catch (ComputeBudget.ExhaustedException ee) {
+            // 中止的那一步已回滚，之前完成的删除保留
+            aborted = "工作表重算中止：计算" + ee.status.description() + "，该项及之后的修改未生效";
+        }
+        Map<String, Object> res = new LinkedHashMap<>();
+        if (aborted != null) res.put("result", aborted);
+        res.put("values", new LinkedHashMap<String, Object>(sheet.values()));
+        res.put("errors", new LinkedHashMap<String, Object>(sheet.errors()));
+        res.put("changed", new ArrayList<>(changed));
+        res.put("evaluated", evaluated);
+        res.put("status", budget.status().name());
+        return res;
+    }
+
+    private void health(HttpExchange exchange) throws IOException {
+        Map<String, Object> res = new LinkedHashMap<>();
+        int inSystem = maxConcurrent + queueCapacity - admission.availablePermits();
+        int active = computeExecutor.getActiveCount();
+        res.put("status", "ok");
+        res.put("active", active);
+        res.put("queued", Math.max(0, inSystem - active));
+        res.put("maxConcurrent", maxConcurrent);
+        res.put("queueCapacity", queueCapacity);
+        res.put("sessions", sessions.size());
+        res.put("completed", completed.get());
+        res.put("rejected", rejected.get());
+        res.put("timedOut", timedOut.get());
+        send(exchange, 200, res);
+    }
+
+    /* ------------------ 准入、超时与响应 ------------------ */
+
+    private HttpHandler post(Endpoint endpoint) {
+        return exchange -> {
+            try {
+                if (!"POST".equalsIgnoreCase(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().set("Allow", "POST");
+                    send(exchange, 405, error("只支持 POST"));
+                    return;
+                }
+                Map<String, Object> request;
+                try {
+                    request = Json.parseObject(readBody(exchange));
+                } catch (IllegalArgumentException e) {
+                    send(exchange, 400, error(e.getMessage()));
+                    return;
+                }
+                dispatch(exchange, endpoint, request);
+            } finally {
+                exchange.close();
+            }
+        };
+    }
+
+    private void dispatch(HttpExchange exchange, Endpoint endpoint, Map<String, Object> request) throws IOException {
+        long maxEvaluations;
+        try {
+            maxEvaluations = (long) number(request, "maxEvaluations", 0);
+        } catch (IllegalArgumentException e) {
+            send(exchange, 400, error(e.getMessage()));
+            return;
+        }
+        if (!admission.tryAcquire()) {
+            rejected.incrementAndGet();
+            exchange.getResponseHeaders().set("Retry-After", "1");
+            send(exchange, 503, error("服务繁忙，请稍后重试"));
+            return;
+        }
+        long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        long deadline = System.nanoTime() + timeoutNanos;
+        ComputeBudget budget = ComputeBudget.until(deadline - timeoutNanos / BUDGET_MARGIN_DIVISOR, maxEvaluations);
+        CompletableFuture<Map<String, Object>> result = new CompletableFuture<>();
+        // 计算交给计算线程池：超时后请求线程立即返回，计算结束时才归还名额；
+        // claimed 决定由谁归还名额，排队期间超时的任务不再执行
+        AtomicBoolean claimed = new AtomicBoolean();
+        Future<?> worker;
+        try {
+            worker = computeExecutor.submit(() -> {
+                if (!claimed.compareAndSet(false, true)) return;
+                try {
+                    result.complete(endpoint.handle(request, budget));
+                } catch (Throwable t) {
+                    result.completeExceptionally(t);
+                } finally {
+                    admission.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            admission.release();
+            send(exchange, 503, error("服务正在停止"));
+            return;
+        }
+
+        try {
+            Map<String, Object> response = result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            completed.incrementAndGet();
+            send(exchange, 200, response);
+        } catch (TimeoutException e) {
+            timedOut.incrementAndGet();
+            abandon(claimed, worker, budget);
+            send(exchange, 504, error("计算超时（" + timeoutMillis + " ms）"));
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IllegalArgumentException || cause instanceof ArithmeticException) {
+                send(exchange, 400, error(cause.getMessage()));
+            } else {
+                send(exchange, 500, error("内部错误: " + cause));
+            }
+        } catch (InterruptedException e) {
+            abandon(claimed, worker, budget);
+            Thread.currentThread().interrupt();
+            send(exchange, 503, error("服务正在停止"));
+        }
+    }
+
+    /**
+     * 放弃一个请求的计算：还在排队时直接归还名额并撤出队列，已开始时取消预算并中断计算线程
+     */
+    private void abandon(AtomicBoolean claimed, Future<?> worker, ComputeBudget budget) {
+        if (claimed.compareAndSet(false, true)) {
+            worker.cancel(false);
+            computeExecutor.remove((Runnable) worker);
+            admission.release();
+            return;
+        }
+        // 中断只对计算线程本身可见，并行求根、采样的 ForkJoin 任务靠取消令牌停止
+        budget.cancel();
+        worker.cancel(true);
+    }
+
+    private static String readBody(HttpExchange exchange) throws IOException {
+        try (InputStream in = exchange.getRequestBody()) {
+            byte[] body = in.readNBytes(MAX_BODY_BYTES + 1);
+            if (body.length > MAX_BODY_BYTES) throw new IllegalArgumentException("请求体过大");
+            return new String(body, StandardCharsets.UTF_8);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, Map<String, Object> body) throws IOException {
+        byte[] bytes = Json.write(body).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static Map<String, Object> error(String message) {
+        Map<String, Object> res = new LinkedHashMap<>();
+        res.put("error", message);
+        return res;
+    }
+
+    /* ------------------ 请求字段 ------------------ */
+
+    private static String requireString(Map<String, Object> req, String key) {
+        Object v = req.get(key);
+        if (!(v instanceof String) || ((String) v).trim().isEmpty()) {
+            throw new IllegalArgumentException("缺少字段 " + key);
+        }
+        return (String) v;
+    }
+
+    private static String string(Map<String, Object> req, String key, String def) {
+        Object v = req.get(key);
+        return v == null ? def : String.valueOf(v);
+    }
+
+    private static double number(Map<String, Object> req, String key, double def) {
+        Object v = req.get(key);
+        if (v == null) return def;
+        if (!(v instanceof Double)) throw new IllegalArgumentException("字段 " + key + " 必须是数字");
+        return (Double) v;
+    }
+
+    /**
+     * 矩阵字段：二维数组，或与界面相同的文本格式（行用分号或换行分隔）
+     */
+    private static double[][] matrixField(Map<String, Object> req, String key) {
+        Object v = req.get(key);
+        if (v instanceof String) return CalculatorEngine.parseMatrixFromString((String) v);
+        if (!(v instanceof List) || ((List<?>) v).isEmpty()) throw new IllegalArgumentException("缺少矩阵 " + key);
+        List<?> rows = (List<?>) v;
+        double[][] m = new double[rows.size()][];
+        for (int i = 0; i < m.length; i++) {
+            if (!(rows.get(i) instanceof List)) throw new IllegalArgumentException("矩阵 " + key + " 的每行必须是数组");
+            List<?> row = (List<?>) rows.get(i);
+            if (i > 0 && row.size() != m[0].length) throw new IllegalArgumentException("矩阵每行列数不一致");
+            m[i] = new double[row.size()];
+            for (int j = 0; j < m[i].length; j++) {
+                if (!(row.get(j) instanceof Double)) throw new IllegalArgumentException("矩阵元素必须是数字");
+                m[i][j] = (Double) row.get(j);
+            }
+        }
+        return m;
+    }
+
+    /* ------------------ 命令行入口 ------------------ */
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        try {
+            int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+            int concurrent = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+            int queue = args.length > 2 ? Integer.parseInt(args[2]) : concurrent * 64;
+            long timeout = args.length > 3 ? Long.parseLong(args[3]) : DEFAULT_TIMEOUT_MILLIS;
+            ComputeServer s = new ComputeServer(port, concurrent, queue, timeout).start();
+            Runtime.getRuntime().addShutdownHook(new Thread(() -> s.stop(1)));
+            System.out.printf("计算服务已启动: http://localhost:%d/ （并发 %d，队列 %d，超时 %d ms）%n",
+                    s.port(), concurrent, queue, timeout);
+        } catch (NumberFormatException e) {
+            System.err.println("用法: ComputeServer [端口] [并发上限] [队列长度] [超时毫秒]");
+            System.exit(2);
+        } catch (IOException e) {
+            System.err.println("启动失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.example;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.factory.DecompositionFactory_DDRM;
+import org.ejml.interfaces.decomposition.CholeskyDecomposition_F64;
+import org.ejml.interfaces.decomposition.QRDecomposition;
+import org.ejml.simple.SimpleEVD;
+import org.ejml.simple.SimpleMatrix;
+import org.ejml.simple.SimpleSVD;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * DecompositionCache - 按矩阵内容缓存分解结果
+ *
+ * 特性：
+ *  - 以矩阵内容（行列数 + 全部元素）为键，内容哈希只计算一次
+ *  - 同一矩阵的 LU、QR、Cholesky、SVD、特征分解各自按需计算，之后直接复用；
+ *    在界面上对同一个 A 连续点击多个运算时不会重复 O(n³) 的分解
+ *  - LRU 淘汰，只保留最近使用的若干个矩阵
+ *  - LU 分解可在计算预算内进行，中途停止时不缓存；其余分解由 EJML 一次完成，无法中途停止
+ */
+public class DecompositionCache {
+
+    /** 最多缓存的矩阵个数 */
+    private static final int MAX_ENTRIES = 16;
+
+    private static final Map<Key, Entry> CACHE = new LinkedHashMap<Key, Entry>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, Entry> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+
+    private DecompositionCache() {}
+
+    /**
+     * 取得（或创建）矩阵对应的缓存项
+     */
+    public static Entry of(double[][] matrix) {
+        Key key = new Key(matrix);
+        synchronized (CACHE) {
+            return CACHE.computeIfAbsent(key, k -> new Entry(k.rows, k.cols, k.data));
+        }
+    }
+
+    public static void clear() {
+        synchronized (CACHE) {
+            CACHE.clear();
+        }
+    }
+
+    /** 缓存键：行列数 + 按行展开的元素，哈希在构造时计算 */
+    private static final class Key {
+        final int rows;
+        final int cols;
+        final double[] data;
+        final int hash;
+
+        Key(double[][] m) {
+            rows = m.length;
+            cols = rows == 0 ? 0 : m[0].length;
+            data = new double[rows * cols];
+            for (int i = 0; i < rows; i++) {
+                if (m[i].length != cols) throw new IllegalArgumentException("矩阵每行列数不一致");
+                System.arraycopy(m[i], 0, data, i * cols, cols);
+            }
+            hash = 31 * (31 * rows + cols) + Arrays.hashCode(data);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key k = (Key) o;
+            return hash == k.hash && rows == k.rows && cols == k.cols && Arrays.equals(data, k.data);
+        }
+    }
+
+    /** 单个矩阵的各种分解，首次访问时计算 */
+    public static final class Entry {
+        private final int rows;
+        private final int cols;
+        private final double[] data;
+
+        private LuFactorization lu;
+        private SimpleSVD<SimpleMatrix> svd;
+        private SimpleEVD<SimpleMatrix> evd;
+        private SimpleMatrix[] qr;
+        private SimpleMatrix cholesky;
+        private boolean choleskyTried;
+
+        Entry(int rows, int cols, double[] data) {
+            this.rows = rows;
+            this.cols = cols;
+            this.data = data;
+        }
+
+        /** 原矩阵（每次返回新副本，分解可能会修改输入） */
+        public DMatrixRMaj matrix() {
+            return new DMatrixRMaj(rows, cols, true, data);
+        }
+
+        public LuFactorization lu() {
+            return lu(ComputeBudget.unlimited());
+        }
+
+        /**
+         * 预算用尽时抛出 ComputeBudget.ExhaustedException，不留下部分结果
+         */
+        public synchronized LuFactorization lu(ComputeBudget budget) {
+            if (rows != cols) throw new IllegalArgumentException("LU 分解仅对方阵定义");
+            if (lu == null) {
+                double[][] m = new double[rows][cols];
+                for (int i = 0; i < rows; i++) System.arraycopy(data, i * cols, m[i], 0, cols);
+                lu = new LuFactorization(m, budget);
+            }
+            return lu;
+        }
+
+        public synchronized SimpleSVD<SimpleMatrix> svd() {
+            if (svd == null) svd = SimpleMatrix.wrap(matrix()).svd(true);
+            return svd;
+        }
+
+        public synchronized SimpleEVD<SimpleMatrix> eig() {
+            if (rows != cols) throw new IllegalArgumentException("特征值仅对方阵定义");
+            if (evd == null) evd = SimpleMatrix.wrap(matrix()).eig();
+            return evd;
+        }
+
+        /**
+         * @return {Q, R}（紧凑形式）
+         */
+        public synchronized SimpleMatrix[] qr() {
+            if (qr == null) {
+                QRDecomposition<DMatrixRMaj> dec = DecompositionFactory_DDRM.qr(rows, cols);
+                if (!dec.decompose(matrix())) throw new ArithmeticException("QR 分解失败");
+                qr = new SimpleMatrix[]{
+                        SimpleMatrix.wrap(dec.getQ(null, true)),
+                        SimpleMatrix.wrap(dec.getR(null, true))
+                };
+            }
+            return qr;
+        }
+
+        /**
+         * @return 下三角矩阵 L（A = L·Lᵀ），矩阵不是对称正定时返回 null
+         */
+        public synchronized SimpleMatrix cholesky() {
+            if (rows != cols) throw new IllegalArgumentException("Cholesky 分解仅对方阵定义");
+            if (!choleskyTried) {
+                choleskyTried = true;
+                DMatrixRMaj m = matrix();
+                if (isSymmetric()) {
+                    CholeskyDecomposition_F64<DMatrixRMaj> dec = DecompositionFactory_DDRM.chol(rows, true);
+                    if (dec.decompose(m)) cholesky = SimpleMatrix.wrap(dec.getT(null));
+                }
+            }
+            return cholesky;
+        }
+
+        private boolean isSymmetric() {
+            double max = 0;
+            for (double v : data) max = Math.max(max, Math.abs(v));
+            double tol = 1e-12 * Math.max(max, 1.0);
+            for (int i = 0; i < rows; i++) {
+                for (int j = i + 1; j < cols; j++) {
+                    if (Math.abs(data[i * cols + j] - data[j * cols + i]) > tol) return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,169 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ExpressionParser - exp4j 语法的递归下降解析器
+ *
+ * 特性：
+ *  - 优先级与 exp4j 一致：^ 右结合且高于一元正负号，一元正负号高于 * / %，
+ *    支持隐式乘法（2x、3(x+1)、2π）与多参数函数调用（pow(x, 2)）
+ *  - 只负责语法；数字、名称、运算与函数调用的含义由 Semantics 给出，结果类型由实现决定
+ *    （IntervalExpression 的求值树、Polynomial、PrecisionEvaluator 的 BigDecimal）
+ *  - 语法错误抛出 IllegalArgumentException；Semantics 可抛出自己的异常表示不支持的结构
+ */
+final class ExpressionParser<T> {
+
+    /** 各语法结构的含义 */
+    interface Semantics<T> {
+        /** 数字字面量，格式已检查（如 12、.5、1.5e-3） */
+        T number(String literal);
+
+        /** 不带括号的名称：变量或常数；π、φ 以单个字符的名称给出 */
+        T name(String name);
+
+        T negate(T operand);
+
+        /** op 为 + - * / % ^ 之一 */
+        T binary(char op, T left, T right);
+
+        /** 函数调用，参数以逗号分隔，至少一个 */
+        T call(String name, List<T> args);
+    }
+
+    private final String s;
+    private final Semantics<T> semantics;
+    private int pos;
+
+    private ExpressionParser(String s, Semantics<T> semantics) {
+        this.s = s;
+        this.semantics = semantics;
+    }
+
+    /**
+     * 解析整个表达式
+     * @throws IllegalArgumentException 语法错误或有无法解析的剩余部分
+     */
+    static <T> T parse(String expression, Semantics<T> semantics) {
+        ExpressionParser<T> p = new ExpressionParser<>(expression, semantics);
+        T result = p.parseExpression();
+        p.skipSpaces();
+        if (p.pos != expression.length()) throw new IllegalArgumentException("无法解析: " + expression.substring(p.pos));
+        return result;
+    }
+
+    private T parseExpression() {
+        T left = parseTerm();
+        while (true) {
+            skipSpaces();
+            if (eat('+')) left = semantics.binary('+', left, parseTerm());
+            else if (eat('-')) left = semantics.binary('-', left, parseTerm());
+            else return left;
+        }
+    }
+
+    private T parseTerm() {
+        T left = parseUnary();
+        while (true) {
+            skipSpaces();
+            if (eat('*')) left = semantics.binary('*', left, parseUnary());
+            else if (eat('/')) left = semantics.binary('/', left, parseUnary());
+            else if (eat('%')) left = semantics.binary('%', left, parseUnary());
+            // 隐式乘法：2x、3(x+1)、x(x-1)、2π
+            else if (pos < s.length() && startsFactor(s.charAt(pos))) left = semantics.binary('*', left, parseUnary());
+            else return left;
+        }
+    }
+
+    private T parseUnary() {
+        skipSpaces();
+        if (eat('+')) return parseUnary();
+        if (eat('-')) return semantics.negate(parseUnary());
+        return parsePower();
+    }
+
+    private T parsePower() {
+        T base = parsePrimary();
+        skipSpaces();
+        if (!eat('^')) return base;
+        return semantics.binary('^', base, parseUnary());
+    }
+
+    private T parsePrimary() {
+        skipSpaces();
+        if (pos >= s.length()) throw new IllegalArgumentException("表达式不完整");
+        char c = s.charAt(pos);
+        if (c == '(') {
+            pos++;
+            T inner = parseExpression();
+            skipSpaces();
+            if (!eat(')')) throw new IllegalArgumentException("缺少右括号");
+            return inner;
+        }
+        if (Character.isDigit(c) || c == '.') return semantics.number(parseNumber());
+        if (c == 'π' || c == 'φ') {
+            pos++;
+            return semantics.name(String.valueOf(c));
+        }
+        if (Character.isLetter(c) || c == '_') {
+            int start = pos;
+            while (pos < s.length() && (Character.isLetterOrDigit(s.charAt(pos)) || s.charAt(pos) == '_')) pos++;
+            String name = s.substring(start, pos);
+            skipSpaces();
+            if (eat('(')) return semantics.call(name, parseArguments());
+            return semantics.name(name);
+        }
+        throw new IllegalArgumentException("无法解析: " + s.substring(pos));
+    }
+
+    /** 左括号之后的参数列表，含右括号 */
+    private List<T> parseArguments() {
+        List<T> args = new ArrayList<>();
+        do {
+            args.add(parseExpression());
+            skipSpaces();
+        } while (eat(','));
+        if (!eat(')')) throw new IllegalArgumentException("缺少右括号");
+        return args;
+    }
+
+    private String parseNumber() {
+        int start = pos;
+        int dots = 0;
+        while (pos < s.length() && (Character.isDigit(s.charAt(pos)) || s.charAt(pos) == '.')) {
+            if (s.charAt(pos) == '.') dots++;
+            pos++;
+        }
+        String mantissa = s.substring(start, pos);
+        if (dots > 1 || mantissa.equals(".")) throw new IllegalArgumentException("无效的数字: " + mantissa);
+        if (pos < s.length() && (s.charAt(pos) == 'e' || s.charAt(pos) == 'E')) {
+            // 科学计数法，注意不要把常数 e 或变量吞掉
+            int save = pos;
+            pos++;
+            if (pos < s.length() && (s.charAt(pos) == '+' || s.charAt(pos) == '-')) pos++;
+            if (pos < s.length() && Character.isDigit(s.charAt(pos))) {
+                while (pos < s.length() && Character.isDigit(s.charAt(pos))) pos++;
+            } else {
+                pos = save;
+            }
+        }
+        return s.substring(start, pos);
+    }
+
+    private static boolean startsFactor(char c) {
+        return Character.isLetterOrDigit(c) || c == '(' || c == '.' || c == 'π' || c == 'φ';
+    }
+
+    private boolean eat(char c) {
+        if (pos < s.length() && s.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (pos < s.length() && Character.isWhitespace(s.charAt(pos))) pos++;
+    }
+}
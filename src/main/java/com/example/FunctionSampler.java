@@ -0,0 +1,188 @@
+package com.example;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * FunctionSampler - 函数采样器（与界面无关）
+ *
+ * 特性：
+ *  - 所有函数共享同一组 x 网格，每个点对每个函数只求值一次
+ *  - 按 “函数 × x 分块” 拆分任务，在公共 ForkJoin 池上并行采样
+ *  - 无效点（NaN、无穷大、求值异常）统一记为 NaN，由调用方决定如何过滤
+ *  - 可传入 ComputeBudget：每个分块开始前计入该块的求值次数，预算用尽后其余分块不再求值，记为 NaN
+ */
+public class FunctionSampler {
+
+    /** 每个并行任务处理的 x 点数 */
+    private static final int CHUNK_SIZE = 4096;
+
+    private FunctionSampler() {}
+
+    /**
+     * 预处理函数字符串，使其兼容 exp4j 语法
+     */
+    public static String preprocess(String func) {
+        if (func == null || func.trim().isEmpty()) {
+            return "x";
+        }
+
+        String processed = func.trim();
+
+        // 替换常见的数学符号
+        processed = processed.replace("×", "*");
+        processed = processed.replace("÷", "/");
+        processed = processed.replace("π", "pi");
+        processed = processed.replace("√", "sqrt");
+        processed = processed.replace("θ", "t");
+
+        // 处理隐式乘法：2x -> 2*x, xsin -> x*sin
+        processed = processed.replaceAll("(\\d)([a-zA-Z])", "$1*$2");
+        processed = processed.replaceAll("([a-zA-Z])(\\d)", "$1*$2");
+        processed = processed.replaceAll("\\)\\(", ")*(");
+        processed = processed.replaceAll("(\\d)\\(", "$1*(");
+        processed = processed.replaceAll("\\)(\\d)", ")*$1");
+
+        // ln 转换为 log (exp4j 中 log 是自然对数)
+        if (processed.contains("ln(")) {
+            processed = processed.replace("ln(", "log(");
+        }
+
+        return processed;
+    }
+
+    /**
+     * 生成 [xMin, xMax] 上步长为 step 的共享 x 网格
+     * 使用 xMin + i * step 计算，避免累加带来的浮点漂移
+     */
+    public static double[] grid(double xMin, double xMax, double step) {
+        if (!(xMin < xMax)) throw new IllegalArgumentException("X 最小值必须小于最大值");
+        if (!(step > 0)) throw new IllegalArgumentException("步长必须大于 0");
+        long count = (long) Math.floor((xMax - xMin) / step + 1e-9) + 1;
+        if (count > Integer.MAX_VALUE - 8) throw new IllegalArgumentException("采样点过多: " + count);
+        double[] xs = new double[(int) count];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = xMin + i * step;
+        }
+        return xs;
+    }
+
+    /**
+     * 构建以 x 为变量的表达式（函数字符串需已预处理为 exp4j 语法）
+     */
+    public static Expression compile(String function) {
+        return compile(function, "x");
+    }
+
+    /**
+     * 构建以 var 为变量的表达式（如参数方程中的 t）
+     */
+    public static Expression compile(String function, String var) {
+        return new ExpressionBuilder(function).variable(var).build();
+    }
+
+    /**
+     * 对多个函数在同一 x 网格上并行采样
+     * @param functions 预处理后的函数字符串
+     * @param xs 共享 x 网格
+     * @return ys[f][i] = functions[f](xs[i])，无效点为 NaN
+     */
+    public static double[][] sampleAll(List<String> functions, double[] xs) {
+        return sampleAll(functions, "x", xs);
+    }
+
+    /**
+     * 对多个以 var 为变量的表达式在同一网格上并行采样
+     */
+    public static double[][] sampleAll(List<String> functions, String var, double[] xs) {
+        return sampleAll(functions, var, xs, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 在计算预算内采样；预算用尽时未求值的点为 NaN，由 budget.status() 判断结果是否完整
+     */
+    public static double[][] sampleAll(List<String> functions, String var, double[] xs, ComputeBudget budget) {
+        int fCount = functions.size();
+        Expression[] compiled = new Expression[fCount];
+        for (int f = 0; f < fCount; f++) {
+            // 先在调用线程中编译一次，语法错误直接抛给调用方
+            compiled[f] = compile(functions.get(f), var);
+        }
+
+        double[][] ys = new double[fCount][xs.length];
+        int chunks = (xs.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+
+        IntStream.range(0, fCount * chunks).parallel().forEach(task -> {
+            int f = task / chunks;
+            int from = (task % chunks) * CHUNK_SIZE;
+            int to = Math.min(from + CHUNK_SIZE, xs.length);
+            if (!budget.spend(to - from)) {
+                Arrays.fill(ys[f], from, to, Double.NaN);
+                return;
+            }
+            // Expression 内部保存变量值，不是线程安全的，每个任务使用自己的副本
+            Expression exp = new Expression(compiled[f]);
+            evaluateRange(exp, var, xs, ys[f], from, to);
+        });
+        return ys;
+    }
+
+    /**
+     * 用区间算术检查相邻采样点之间是否可能有渐近线或极点
+     * @param function 预处理后的函数字符串
+     * @return breaks[i] 为 true 表示 f 在 [xs[i-1], xs[i]] 上的包络无界，绘图时应在此断开；
+     *         表达式不支持区间求值时返回 null
+     */
+    public static boolean[] asymptoteBreaks(String function, double[] xs) {
+        return asymptoteBreaks(function, xs, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 在计算预算内检查渐近线：每块区间包络计入块内点数，预算用尽后其余块不再检查（视为无断点）
+     */
+    public static boolean[] asymptoteBreaks(String function, double[] xs, ComputeBudget budget) {
+        IntervalExpression enclosure = IntervalExpression.compile(function, "x");
+        if (enclosure == null) return null;
+        boolean[] breaks = new boolean[xs.length];
+        int chunks = (xs.length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+        // 求值树无状态，各任务直接共享
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            int from = Math.max(1, c * CHUNK_SIZE);
+            int to = Math.min((c + 1) * CHUNK_SIZE, xs.length);
+            if (from >= to || !budget.spend(to - from)) return;
+            for (int i = from; i < to; i++) {
+                IntervalExpression.Interval r = enclosure.enclose(xs[i - 1], xs[i]);
+                breaks[i] = !r.isEmpty() && !r.isBounded();
+            }
+        });
+        return breaks;
+    }
+
+    /**
+     * 在 [from, to) 区间内逐点求值
+     */
+    static void evaluateRange(Expression exp, String var, double[] xs, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = evaluate(exp, var, xs[i]);
+        }
+    }
+
+    /**
+     * 单点求值，无效结果返回 NaN
+     */
+    static double evaluate(Expression exp, String var, double x) {
+        double y;
+        try {
+            exp.setVariable(var, x);
+            y = exp.evaluate();
+        } catch (Exception e) {
+            // 跳过单个点的计算错误（如 log(0), sqrt(-1) 等）
+            y = Double.NaN;
+        }
+        return Double.isInfinite(y) ? Double.NaN : y;
+    }
+}
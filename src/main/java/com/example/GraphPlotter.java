@@ -3,16 +3,23 @@ package com.example;
 import org.jfree.chart.ChartFactory;
 import org.jfree.chart.ChartPanel;
 import org.jfree.chart.JFreeChart;
+import org.jfree.chart.axis.NumberAxis;
 import org.jfree.chart.plot.XYPlot;
+import org.jfree.chart.renderer.LookupPaintScale;
+import org.jfree.chart.renderer.xy.XYBlockRenderer;
 import org.jfree.chart.renderer.xy.XYLineAndShapeRenderer;
+import org.jfree.chart.title.PaintScaleLegend;
+import org.jfree.chart.ui.RectangleEdge;
+import org.jfree.data.xy.DefaultXYZDataset;
 import org.jfree.data.xy.XYSeries;
 import org.jfree.data.xy.XYSeriesCollection;
-import net.objecthunter.exp4j.Expression;
-import net.objecthunter.exp4j.ExpressionBuilder;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * GraphPlotter - 增强版函数绘图器
@@ -23,55 +30,95 @@ import java.awt.event.ActionEvent;
  * - 自适应 Y 轴范围
  * - 可调整 X 轴范围和采样精度
  * - 更好的异常值处理
+ * - 多函数叠加绘制：共享 x 网格，按 “函数 × x 分块” 并行采样
+ * - 隐函数曲线 F(x,y)=0（四叉树细分 + marching squares）与 f(x,y) 热力图
+ * - 参数方程 x(t), y(t) 与极坐标 r(θ)，按弦长自适应加密 t 采样
  */
 public class GraphPlotter extends JFrame {
     
+    /** 叠加曲线的配色，按函数序号循环使用 */
+    private static final Color[] SERIES_COLORS = {
+        new Color(0, 100, 200),
+        new Color(220, 60, 50),
+        new Color(40, 160, 70),
+        new Color(230, 140, 20),
+        new Color(140, 70, 190),
+        new Color(0, 160, 170)
+    };
+
+    /** 热力图每个方向的最大网格点数 */
+    private static final int HEATMAP_MAX_POINTS = 300;
+
+    /**
+     * 绘图模式
+     */
+    public enum PlotMode {
+        /** 显函数 y = f(x) */
+        FUNCTION,
+        /** 隐函数曲线 F(x,y) = 0，可叠加多条（如方程组） */
+        IMPLICIT,
+        /** 二元函数 f(x,y) 热力图 */
+        HEATMAP,
+        /** 参数方程 x(t), y(t)，函数列表按 (x, y) 成对给出 */
+        PARAMETRIC,
+        /** 极坐标 r(θ)，θ 写作 t 或 θ */
+        POLAR
+    }
+
+    private final PlotMode mode;
     private String function;
+    private final transient List<String> functions = new ArrayList<>();
     private double xMin = -10;
     private double xMax = 10;
+    private double yMin = -10;
+    private double yMax = 10;
     private double step = 0.05;
     private ChartPanel chartPanel;
     
     public GraphPlotter(String function) {
-        this.function = preprocessFunction(function);
-        setTitle("函数图形: " + function);
+        this(Arrays.asList(function));
+    }
+    
+    /**
+     * 在同一图表中叠加绘制多个函数，如函数与其导数、一族曲线
+     */
+    public GraphPlotter(List<String> functionList) {
+        this(PlotMode.FUNCTION, functionList);
+    }
+    
+    /**
+     * 按指定模式绘图
+     * @param mode 绘图模式
+     * @param functionList 显函数、隐函数方程（如 "x^2 + y^2 = 25"）或二元函数
+     */
+    public GraphPlotter(PlotMode mode, List<String> functionList) {
+        this.mode = mode;
+        if (functionList == null || functionList.isEmpty()) {
+            functionList = Arrays.asList("x");
+        }
+        if (mode == PlotMode.PARAMETRIC || mode == PlotMode.POLAR) {
+            // 参数默认取一个周期
+            xMin = 0;
+            xMax = 2 * Math.PI;
+        }
+        for (String f : functionList) {
+            functions.add(preprocessFunction(f));
+        }
+        this.function = String.join(", ", functions);
+        setTitle("函数图形: " + String.join(", ", functionList));
         setSize(900, 700);
         setLocationRelativeTo(null);
         setDefaultCloseOperation(JFrame.DISPOSE_ON_CLOSE);
         
         initUI();
-        plotFunction();
+        plot();
     }
     
     /**
      * 预处理函数字符串，使其兼容 exp4j 语法
      */
-    private String preprocessFunction(String func) {
-        if (func == null || func.trim().isEmpty()) {
-            return "x";
-        }
-        
-        String processed = func.trim();
-        
-        // 替换常见的数学符号
-        processed = processed.replace("×", "*");
-        processed = processed.replace("÷", "/");
-        processed = processed.replace("π", "pi");
-        processed = processed.replace("√", "sqrt");
-        
-        // 处理隐式乘法：2x -> 2*x, xsin -> x*sin
-        processed = processed.replaceAll("(\\d)([a-zA-Z])", "$1*$2");
-        processed = processed.replaceAll("([a-zA-Z])(\\d)", "$1*$2");
-        processed = processed.replaceAll("\\)\\(", ")*(");
-        processed = processed.replaceAll("(\\d)\\(", "$1*(");
-        processed = processed.replaceAll("\\)(\\d)", ")*$1");
-        
-        // ln 转换为 log (exp4j 中 log 是自然对数)
-        if (processed.contains("ln(")) {
-            processed = processed.replace("ln(", "log(");
-        }
-        
-        return processed;
+    static String preprocessFunction(String func) {
+        return FunctionSampler.preprocess(func);
     }
     
     /**
@@ -85,7 +132,9 @@ public class GraphPlotter extends JFrame {
         JPanel controlPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 10, 5));
         controlPanel.setBackground(new Color(240, 240, 240));
         
-        controlPanel.add(new JLabel("X 范围: "));
+        String rangeLabel = mode == PlotMode.PARAMETRIC ? "t 范围: "
+            : mode == PlotMode.POLAR ? "θ 范围: " : "X 范围: ";
+        controlPanel.add(new JLabel(rangeLabel));
         JTextField xMinField = new JTextField(String.valueOf(xMin), 5);
         controlPanel.add(xMinField);
         
@@ -97,6 +146,16 @@ public class GraphPlotter extends JFrame {
         JTextField stepField = new JTextField(String.valueOf(step), 5);
         controlPanel.add(stepField);
         
+        // 二元函数模式需要 Y 范围
+        JTextField yMinField = new JTextField(String.valueOf(yMin), 5);
+        JTextField yMaxField = new JTextField(String.valueOf(yMax), 5);
+        if (usesYRange()) {
+            controlPanel.add(new JLabel("  Y 范围: "));
+            controlPanel.add(yMinField);
+            controlPanel.add(new JLabel(" 到 "));
+            controlPanel.add(yMaxField);
+        }
+        
         JButton refreshBtn = new JButton("刷新图形");
         refreshBtn.setFont(new Font("Microsoft YaHei UI", Font.BOLD, 12));
         refreshBtn.addActionListener((ActionEvent e) -> {
@@ -104,17 +163,23 @@ public class GraphPlotter extends JFrame {
                 xMin = Double.parseDouble(xMinField.getText());
                 xMax = Double.parseDouble(xMaxField.getText());
                 step = Double.parseDouble(stepField.getText());
+                yMin = Double.parseDouble(yMinField.getText());
+                yMax = Double.parseDouble(yMaxField.getText());
                 
                 if (xMin >= xMax) {
                     JOptionPane.showMessageDialog(this, "X 最小值必须小于最大值！");
                     return;
                 }
+                if (yMin >= yMax) {
+                    JOptionPane.showMessageDialog(this, "Y 最小值必须小于最大值！");
+                    return;
+                }
                 if (step <= 0 || step > (xMax - xMin)) {
                     JOptionPane.showMessageDialog(this, "步长必须大于 0 且小于范围！");
                     return;
                 }
                 
-                plotFunction();
+                plot();
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(this, "请输入有效的数字！");
             }
@@ -140,6 +205,10 @@ public class GraphPlotter extends JFrame {
                 xMinField.setText(preset[1]);
                 xMaxField.setText(preset[2]);
                 stepField.setText(preset[3]);
+                if (usesYRange()) {
+                    yMinField.setText(preset[1]);
+                    yMaxField.setText(preset[2]);
+                }
             });
             presetPanel.add(btn);
         }
@@ -157,51 +226,33 @@ public class GraphPlotter extends JFrame {
         setContentPane(mainPanel);
     }
     
+    /**
+     * 按当前模式绘图
+     */
+    private void plot() {
+        switch (mode) {
+            case IMPLICIT:
+                plotImplicit();
+                break;
+            case HEATMAP:
+                plotHeatMap();
+                break;
+            case PARAMETRIC:
+            case POLAR:
+                plotParametric();
+                break;
+            default:
+                plotFunction();
+        }
+    }
+    
     /**
      * 绘制函数图形
      */
     private void plotFunction() {
-        XYSeries series = new XYSeries(function);
-        
-        double yMin = Double.POSITIVE_INFINITY;
-        double yMax = Double.NEGATIVE_INFINITY;
-        int validPoints = 0;
-        
+        JFreeChart chart;
         try {
-            // 构建表达式（支持复合函数）
-            ExpressionBuilder builder = new ExpressionBuilder(function)
-                .variable("x");
-            
-            Expression exp = builder.build();
-            
-            // 采样计算
-            for (double x = xMin; x <= xMax; x += step) {
-                try {
-                    exp.setVariable("x", x);
-                    double y = exp.evaluate();
-                    
-                    // 过滤无效值
-                    if (!Double.isNaN(y) && !Double.isInfinite(y)) {
-                        // 动态调整 Y 轴范围
-                        if (Math.abs(y) < 10000) {  // 防止极端值
-                            series.add(x, y);
-                            yMin = Math.min(yMin, y);
-                            yMax = Math.max(yMax, y);
-                            validPoints++;
-                        }
-                    }
-                } catch (Exception e) {
-                    // 跳过单个点的计算错误（如 log(0), sqrt(-1) 等）
-                }
-            }
-            
-            if (validPoints == 0) {
-                JOptionPane.showMessageDialog(this, 
-                    "无法计算函数值，请检查函数定义或调整 X 范围！\n" +
-                    "函数: " + function);
-                return;
-            }
-            
+            chart = createFunctionChart(functions, xMin, xMax, step);
         } catch (Exception e) {
             JOptionPane.showMessageDialog(this, 
                 "函数解析错误: " + e.getMessage() + "\n\n" +
@@ -214,31 +265,339 @@ public class GraphPlotter extends JFrame {
             return;
         }
         
-        // 创建数据集
-        XYSeriesCollection dataset = new XYSeriesCollection(series);
+        XYSeriesCollection dataset = (XYSeriesCollection) chart.getXYPlot().getDataset();
+        int validPoints = 0;
+        for (int f = 0; f < dataset.getSeriesCount(); f++) {
+            for (int i = 0; i < dataset.getItemCount(f); i++) {
+                // 渐近线处插入的 NaN 断点不计入
+                if (!Double.isNaN(dataset.getYValue(f, i))) validPoints++;
+            }
+        }
+        if (validPoints == 0) {
+            JOptionPane.showMessageDialog(this, 
+                "无法计算函数值，请检查函数定义或调整 X 范围！\n" +
+                "函数: " + function);
+            return;
+        }
+        
+        // 显示统计信息
+        String info = String.format("已绘制 %d 个点 | Y 范围: [%.3f, %.3f]", 
+            validPoints, dataset.getRangeLowerBound(false), dataset.getRangeUpperBound(false));
+        showChart(chart, info);
+    }
+    
+    /**
+     * 序列名称在数据集中须唯一（重复时 addSeries 抛异常）：同一函数输入多次时依次加上 #2、#3 …
+     */
+    static String seriesKey(XYSeriesCollection dataset, String name) {
+        String key = name;
+        for (int n = 2; dataset.getSeriesIndex(key) >= 0; n++) key = name + " #" + n;
+        return key;
+    }
+
+    /**
+     * 采样并构建显函数图表（含统一样式），不依赖窗口，无界面渲染也使用此方法
+     * @param functions 预处理后的函数
+     */
+    static JFreeChart createFunctionChart(List<String> functions, double xMin, double xMax, double step) {
+        return createFunctionChart(functions, xMin, xMax, step, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 在计算预算内采样与检查渐近线；预算用尽后未采样的点为 NaN（不绘制）
+     */
+    static JFreeChart createFunctionChart(List<String> functions, double xMin, double xMax, double step,
+                                          ComputeBudget budget) {
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        
+        // 共享 x 网格，并行采样所有函数（支持复合函数）
+        double[] xs = FunctionSampler.grid(xMin, xMax, step);
+        double[][] ys = FunctionSampler.sampleAll(functions, "x", xs, budget);
+        boolean asymptotes = false;
+        
+        for (int f = 0; f < functions.size(); f++) {
+            XYSeries series = new XYSeries(seriesKey(dataset, functions.get(f)), false, true);
+            double[] row = ys[f];
+            // 区间算术给出的渐近线位置：相邻两点间包络无界时断开折线，而不是按 |y| 阈值丢点
+            boolean[] breaks = FunctionSampler.asymptoteBreaks(functions.get(f), xs, budget);
+            for (int i = 0; i < xs.length; i++) {
+                if (breaks != null && breaks[i]) {
+                    series.add(Double.NaN, Double.NaN, false);
+                    asymptotes = true;
+                }
+                double y = row[i];
+                // 过滤无效值（NaN 已包含无穷大与求值失败的点）
+                if (!Double.isNaN(y)) {
+                    series.add(xs[i], y, false);
+                }
+            }
+            dataset.addSeries(series);
+        }
         
         // 创建图表
         JFreeChart chart = ChartFactory.createXYLineChart(
-            "y = " + function,
+            "y = " + String.join(", ", functions),
             "x",
             "y",
             dataset
         );
         
         // 自定义图表样式
+        XYPlot plot = applyChartStyle(chart);
+        plot.setRenderer(createLineRenderer(functions.size()));
+        if (asymptotes) {
+            // 渐近线附近的采样值可能极大，Y 轴按分位数取范围，避免曲线主体被压扁
+            double[] range = robustRange(ys);
+            if (range != null) ((NumberAxis) plot.getRangeAxis()).setRange(range[0], range[1]);
+        }
+        return chart;
+    }
+    
+    /**
+     * 所有有效采样值的 1%–99% 分位数区间，上下各留 10% 边距；有效点不足时返回 null
+     */
+    private static double[] robustRange(double[][] ys) {
+        int count = 0;
+        for (double[] row : ys) {
+            for (double y : row) {
+                if (!Double.isNaN(y)) count++;
+            }
+        }
+        if (count < 2) return null;
+        double[] values = new double[count];
+        int k = 0;
+        for (double[] row : ys) {
+            for (double y : row) {
+                if (!Double.isNaN(y)) values[k++] = y;
+            }
+        }
+        Arrays.sort(values);
+        double lo = values[(int) (0.01 * (count - 1))];
+        double hi = values[(int) Math.ceil(0.99 * (count - 1))];
+        if (!(hi > lo)) return null;
+        double margin = 0.1 * (hi - lo);
+        return new double[] {lo - margin, hi + margin};
+    }
+    
+    /**
+     * 绘制隐函数曲线 F(x,y) = 0，每个方程一条曲线，便于观察方程组的交点
+     */
+    private void plotImplicit() {
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        int depth = refineDepth();
+        long evaluations = 0;
+        int segments = 0;
+        
+        try {
+            for (String f : functions) {
+                ImplicitSampler.Contour contour = ImplicitSampler.contour(
+                    ImplicitSampler.toImplicit(f), xMin, xMax, yMin, yMax, depth);
+                // 线段之间插入 NaN 断开，整条曲线放在一个序列中
+                XYSeries series = new XYSeries(seriesKey(dataset, f), false, true);
+                for (double[] s : contour.segments) {
+                    series.add(s[0], s[1], false);
+                    series.add(s[2], s[3], false);
+                    series.add(Double.NaN, Double.NaN, false);
+                }
+                dataset.addSeries(series);
+                evaluations += contour.evaluations;
+                segments += contour.segments.size();
+            }
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, 
+                "方程解析错误: " + e.getMessage() + "\n\n" +
+                "隐函数示例：x^2 + y^2 = 25; x*y = 12");
+            return;
+        }
+        
+        if (segments == 0) {
+            JOptionPane.showMessageDialog(this, 
+                "在当前范围内未找到曲线，请调整 X/Y 范围！\n" +
+                "方程: " + function);
+            return;
+        }
+        
+        JFreeChart chart = ChartFactory.createXYLineChart(function, "x", "y", dataset);
+        XYPlot plot = applyChartStyle(chart);
+        plot.setRenderer(createLineRenderer(functions.size()));
+        ((NumberAxis) plot.getDomainAxis()).setRange(xMin, xMax);
+        ((NumberAxis) plot.getRangeAxis()).setRange(yMin, yMax);
+        
+        showChart(chart, String.format("%d 条线段 | 求值 %d 次 | 细分深度 %d", segments, evaluations, depth));
+    }
+    
+    /**
+     * 绘制 f(x,y) 热力图（只取第一个函数）
+     */
+    private void plotHeatMap() {
+        String f = functions.get(0);
+        int nx = Math.max(2, Math.min(HEATMAP_MAX_POINTS, (int) Math.round((xMax - xMin) / step) + 1));
+        int ny = Math.max(2, Math.min(HEATMAP_MAX_POINTS, (int) Math.round((yMax - yMin) / step) + 1));
+        
+        ImplicitSampler.Grid grid;
+        try {
+            grid = ImplicitSampler.sampleGrid(f, xMin, xMax, yMin, yMax, nx, ny);
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, 
+                "函数解析错误: " + e.getMessage() + "\n\n" +
+                "热力图示例：sin(x)*cos(y), x^2 - y^2");
+            return;
+        }
+        
+        // 展开为 XYZ 数据集，无效点不加入
+        double[][] data = new double[3][nx * ny];
+        double zMin = Double.POSITIVE_INFINITY;
+        double zMax = Double.NEGATIVE_INFINITY;
+        int k = 0;
+        for (int j = 0; j < ny; j++) {
+            for (int i = 0; i < nx; i++) {
+                double z = grid.values[j][i];
+                if (Double.isNaN(z)) continue;
+                data[0][k] = grid.xs[i];
+                data[1][k] = grid.ys[j];
+                data[2][k] = z;
+                zMin = Math.min(zMin, z);
+                zMax = Math.max(zMax, z);
+                k++;
+            }
+        }
+        if (k == 0) {
+            JOptionPane.showMessageDialog(this, "无法计算函数值，请检查函数定义或调整范围！\n函数: " + f);
+            return;
+        }
+        if (zMin == zMax) zMax = zMin + 1;
+        for (int d = 0; d < 3; d++) data[d] = Arrays.copyOf(data[d], k);
+        
+        DefaultXYZDataset dataset = new DefaultXYZDataset();
+        dataset.addSeries(f, data);
+        
+        // 蓝 → 红 渐变色阶
+        LookupPaintScale scale = new LookupPaintScale(zMin, zMax, Color.GRAY);
+        int levels = 64;
+        for (int i = 0; i < levels; i++) {
+            float t = i / (float) (levels - 1);
+            scale.add(zMin + (zMax - zMin) * i / levels, new Color(t, 0.2f, 1 - t));
+        }
+        
+        XYBlockRenderer renderer = new XYBlockRenderer();
+        renderer.setBlockWidth(grid.xs[1] - grid.xs[0]);
+        renderer.setBlockHeight(grid.ys[1] - grid.ys[0]);
+        renderer.setPaintScale(scale);
+        
+        NumberAxis xAxis = new NumberAxis("x");
+        NumberAxis yAxis = new NumberAxis("y");
+        xAxis.setRange(xMin, xMax);
+        yAxis.setRange(yMin, yMax);
+        XYPlot plot = new XYPlot(dataset, xAxis, yAxis, renderer);
+        JFreeChart chart = new JFreeChart("f(x, y) = " + f, plot);
+        chart.removeLegend();
+        applyChartStyle(chart);
+        
+        PaintScaleLegend legend = new PaintScaleLegend(scale, new NumberAxis("f"));
+        legend.setPosition(RectangleEdge.RIGHT);
+        legend.setMargin(4, 4, 40, 4);
+        chart.addSubtitle(legend);
+        
+        showChart(chart, String.format("%d×%d 网格 | f 范围: [%.3f, %.3f]", nx, ny, zMin, zMax));
+    }
+    
+    /**
+     * 绘制参数方程或极坐标曲线
+     */
+    private void plotParametric() {
+        boolean polar = mode == PlotMode.POLAR;
+        if (!polar && functions.size() % 2 != 0) {
+            JOptionPane.showMessageDialog(this, "参数方程需要成对输入 x(t); y(t)，如 cos(3*t); sin(2*t)");
+            return;
+        }
+        
+        XYSeriesCollection dataset = new XYSeriesCollection();
+        List<String> labels = new ArrayList<>();
+        int points = 0;
+        int evaluations = 0;
+        
+        try {
+            int perCurve = polar ? 1 : 2;
+            for (int f = 0; f < functions.size(); f += perCurve) {
+                ParametricSampler.Curve curve;
+                String label;
+                if (polar) {
+                    curve = ParametricSampler.samplePolar(functions.get(f), xMin, xMax, step);
+                    label = "r = " + functions.get(f);
+                } else {
+                    curve = ParametricSampler.sampleParametric(functions.get(f), functions.get(f + 1), xMin, xMax, step);
+                    label = "(" + functions.get(f) + ", " + functions.get(f + 1) + ")";
+                }
+                // 曲线可能自交、往返，不能按 x 排序
+                XYSeries series = new XYSeries(seriesKey(dataset, label), false, true);
+                for (int i = 0; i < curve.ts.length; i++) {
+                    series.add(curve.xs[i], curve.ys[i], false);
+                }
+                dataset.addSeries(series);
+                labels.add(label);
+                points += curve.ts.length;
+                evaluations += curve.evaluations;
+            }
+        } catch (Exception e) {
+            JOptionPane.showMessageDialog(this, 
+                "函数解析错误: " + e.getMessage() + "\n\n" +
+                "参数方程示例：cos(3*t); sin(2*t)\n" +
+                "极坐标示例：1 + cos(t)");
+            return;
+        }
+        
+        JFreeChart chart = ChartFactory.createXYLineChart(String.join(", ", labels), "x", "y", dataset);
+        XYPlot plot = applyChartStyle(chart);
+        plot.setRenderer(createLineRenderer(dataset.getSeriesCount()));
+        
+        showChart(chart, String.format("已绘制 %d 个点 | 求值 %d 次", points, evaluations));
+    }
+    
+    /**
+     * 是否需要 Y 范围输入（二元函数模式）
+     */
+    private boolean usesYRange() {
+        return mode == PlotMode.IMPLICIT || mode == PlotMode.HEATMAP;
+    }
+    
+    /**
+     * 根据步长选择隐函数的四叉树细分深度，使叶单元尺寸接近步长
+     */
+    private int refineDepth() {
+        double cells = Math.max(xMax - xMin, yMax - yMin) / step;
+        int depth = (int) Math.ceil(Math.log(cells / ImplicitSampler.COARSE_CELLS) / Math.log(2));
+        return Math.max(0, Math.min(ImplicitSampler.MAX_DEPTH, depth));
+    }
+    
+    /**
+     * 统一的图表样式
+     */
+    private static XYPlot applyChartStyle(JFreeChart chart) {
         chart.setBackgroundPaint(Color.WHITE);
         XYPlot plot = chart.getXYPlot();
         plot.setBackgroundPaint(new Color(250, 250, 250));
         plot.setDomainGridlinePaint(new Color(200, 200, 200));
         plot.setRangeGridlinePaint(new Color(200, 200, 200));
-        
-        // 设置线条样式
+        return plot;
+    }
+    
+    /**
+     * 曲线渲染器（每条曲线一种颜色）
+     */
+    private static XYLineAndShapeRenderer createLineRenderer(int seriesCount) {
         XYLineAndShapeRenderer renderer = new XYLineAndShapeRenderer();
-        renderer.setSeriesPaint(0, new Color(0, 100, 200));
-        renderer.setSeriesStroke(0, new BasicStroke(2.0f));
-        renderer.setSeriesShapesVisible(0, false);
-        plot.setRenderer(renderer);
-        
+        for (int f = 0; f < seriesCount; f++) {
+            renderer.setSeriesPaint(f, SERIES_COLORS[f % SERIES_COLORS.length]);
+            renderer.setSeriesStroke(f, new BasicStroke(2.0f));
+            renderer.setSeriesShapesVisible(f, false);
+        }
+        return renderer;
+    }
+    
+    /**
+     * 显示图表并在标题中附加统计信息
+     */
+    private void showChart(JFreeChart chart, String info) {
         // 更新或创建图表面板
         if (chartPanel != null) {
             getContentPane().remove(chartPanel);
@@ -254,26 +613,14 @@ public class GraphPlotter extends JFrame {
         container.revalidate();
         container.repaint();
         
-        // 显示统计信息
-        String info = String.format("已绘制 %d 个点 | Y 范围: [%.3f, %.3f]", 
-            validPoints, yMin, yMax);
         setTitle("函数图形: " + function + " - " + info);
     }
     
     // 测试主函数
     public static void main(String[] args) {
         SwingUtilities.invokeLater(() -> {
-            // 测试复合函数
-            String[] testFunctions = {
-                "sin(cos(x))",
-                "exp(x^2)",
-                "log(abs(x))",
-                "sqrt(x^2+1)",
-                "sin(x)*cos(x)",
-                "x^3-2*x^2+x-1"
-            };
-            
-            GraphPlotter plotter = new GraphPlotter(testFunctions[0]);
+            // 测试多函数叠加：函数与其导数
+            GraphPlotter plotter = new GraphPlotter(Arrays.asList("sin(x)", "cos(x)"));
             plotter.setVisible(true);
         });
     }
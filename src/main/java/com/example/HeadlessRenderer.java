@@ -0,0 +1,222 @@
+package com.example;
+
+import org.jfree.chart.JFreeChart;
+import org.jfree.svg.SVGGraphics2D;
+import org.jfree.svg.SVGUtils;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * HeadlessRenderer - 无界面批量出图（PNG / SVG）
+ *
+ * 特性：
+ *  - 不创建任何窗口，在 java.awt.headless=true 下运行
+ *  - 图表由 GraphPlotter.createFunctionChart 构建，与界面中的样式一致
+ *  - 多张图表在固定大小的线程池中并行渲染
+ *  - 每个线程复用同一个 BufferedImage 作为 PNG 画布，不为每张图分配新图像
+ *  - 每张图报告采样、绘制、编码三个阶段的耗时
+ *
+ * 命令行：
+ *  java -cp casio-calculator-standalone.jar com.example.HeadlessRenderer 任务文件 [线程数]
+ *  任务文件每行一张图：输出文件 xMin xMax 步长 函数1; 函数2 ...
+ *  输出文件以 .svg 结尾时写 SVG，否则写 PNG；# 开头的行为注释
+ */
+public class HeadlessRenderer {
+
+    public static final int DEFAULT_WIDTH = 880;
+    public static final int DEFAULT_HEIGHT = 580;
+
+    /** 一张图的渲染任务 */
+    public static class Job {
+        public final List<String> functions;
+        public final double xMin;
+        public final double xMax;
+        public final double step;
+        public final Path output;
+
+        public Job(List<String> functions, double xMin, double xMax, double step, Path output) {
+            this.functions = functions;
+            this.xMin = xMin;
+            this.xMax = xMax;
+            this.step = step;
+            this.output = output;
+        }
+    }
+
+    /** 一张图的渲染结果与分阶段耗时（毫秒） */
+    public static class Result {
+        public final Job job;
+        public final double sampleMillis;
+        public final double drawMillis;
+        public final double encodeMillis;
+        public final String error;
+
+        Result(Job job, double sampleMillis, double drawMillis, double encodeMillis, String error) {
+            this.job = job;
+            this.sampleMillis = sampleMillis;
+            this.drawMillis = drawMillis;
+            this.encodeMillis = encodeMillis;
+            this.error = error;
+        }
+
+        public double totalMillis() {
+            return sampleMillis + drawMillis + encodeMillis;
+        }
+
+        @Override
+        public String toString() {
+            if (error != null) return String.format("%s 失败: %s", job.output, error);
+            return String.format(Locale.ROOT, "%s 采样 %.1f ms | 绘制 %.1f ms | 编码 %.1f ms | 合计 %.1f ms",
+                    job.output, sampleMillis, drawMillis, encodeMillis, totalMillis());
+        }
+    }
+
+    private final int width;
+    private final int height;
+    /** 每个渲染线程一个可复用的画布 */
+    private final ThreadLocal<BufferedImage> canvas;
+
+    public HeadlessRenderer(int width, int height) {
+        this.width = width;
+        this.height = height;
+        this.canvas = ThreadLocal.withInitial(() -> new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+    }
+
+    /**
+     * 在线程池中并行渲染所有任务，结果顺序与任务顺序一致
+     */
+    public List<Result> renderAll(List<Job> jobs, int threads) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>();
+            for (Job job : jobs) {
+                futures.add(pool.submit(() -> render(job)));
+            }
+            List<Result> results = new ArrayList<>();
+            for (Future<Result> f : futures) {
+                try {
+                    results.add(f.get());
+                } catch (ExecutionException e) {
+                    // render 自身已捕获异常，这里只会是意外错误
+                    throw new IllegalStateException("渲染线程异常: " + e.getCause().getMessage(), e.getCause());
+                }
+            }
+            return results;
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * 渲染单张图表并写入文件
+     */
+    public Result render(Job job) {
+        long t0 = System.nanoTime();
+        long t1 = t0;
+        long t2 = t0;
+        try {
+            List<String> processed = new ArrayList<>();
+            for (String f : job.functions) processed.add(FunctionSampler.preprocess(f));
+            JFreeChart chart = GraphPlotter.createFunctionChart(processed, job.xMin, job.xMax, job.step);
+            t1 = System.nanoTime();
+
+            if (job.output.toString().toLowerCase(Locale.ROOT).endsWith(".svg")) {
+                SVGGraphics2D g2 = new SVGGraphics2D(width, height);
+                chart.draw(g2, new Rectangle2D.Double(0, 0, width, height));
+                t2 = System.nanoTime();
+                SVGUtils.writeToSVG(job.output.toFile(), g2.getSVGElement());
+            } else {
+                BufferedImage image = canvas.get();
+                Graphics2D g2 = image.createGraphics();
+                try {
+                    g2.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+                    // 图表会先填充背景，无需单独清空复用的画布
+                    chart.draw(g2, new Rectangle2D.Double(0, 0, width, height));
+                } finally {
+                    g2.dispose();
+                }
+                t2 = System.nanoTime();
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(job.output))) {
+                    ImageIO.write(image, "png", out);
+                }
+            }
+            long t3 = System.nanoTime();
+            return new Result(job, (t1 - t0) / 1e6, (t2 - t1) / 1e6, (t3 - t2) / 1e6, null);
+        } catch (Exception e) {
+            return new Result(job, 0, 0, 0, e.getMessage());
+        }
+    }
+
+    /**
+     * 解析任务文件：输出文件 xMin xMax 步长 函数1; 函数2 ...
+     */
+    public static List<Job> parseJobs(List<String> lines) {
+        List<Job> jobs = new ArrayList<>();
+        for (String raw : lines) {
+            String line = raw.trim();
+            if (line.isEmpty() || line.startsWith("#")) continue;
+            String[] parts = line.split("\\s+", 5);
+            if (parts.length != 5) throw new IllegalArgumentException("任务格式错误: " + line);
+            List<String> functions = new ArrayList<>();
+            for (String f : parts[4].split(";")) {
+                if (!f.trim().isEmpty()) functions.add(f.trim());
+            }
+            jobs.add(new Job(functions, Double.parseDouble(parts[1]), Double.parseDouble(parts[2]),
+                    Double.parseDouble(parts[3]), Paths.get(parts[0])));
+        }
+        return jobs;
+    }
+
+    /* ------------------ 命令行入口 ------------------ */
+
+    public static void main(String[] args) {
+        // 必须在任何 AWT 类初始化之前设置
+        System.setProperty("java.awt.headless", "true");
+        if (args.length < 1) {
+            System.err.println("用法: HeadlessRenderer <任务文件> [线程数]");
+            System.err.println("任务文件每行: 输出文件 xMin xMax 步长 函数1; 函数2");
+            System.exit(2);
+        }
+        try {
+            List<Job> jobs = parseJobs(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8));
+            int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+
+            long start = System.nanoTime();
+            List<Result> results = new HeadlessRenderer(DEFAULT_WIDTH, DEFAULT_HEIGHT).renderAll(jobs, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            int failed = 0;
+            for (Result r : results) {
+                System.out.println(r);
+                if (r.error != null) failed++;
+            }
+            System.out.printf(Locale.ROOT, "共 %d 张图，失败 %d 张，用时 %.2f s（%d 线程）%n",
+                    results.size(), failed, seconds, threads);
+            if (failed > 0) System.exit(1);
+        } catch (IOException e) {
+            System.err.println("读取任务文件失败: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("渲染失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
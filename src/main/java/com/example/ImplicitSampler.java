@@ -0,0 +1,245 @@
+package com.example;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.IntStream;
+
+/**
+ * ImplicitSampler - 二元函数采样（隐函数曲线与热力图，与界面无关）
+ *
+ * 特性：
+ *  - 热力图：在规则网格上按行并行计算 f(x,y)
+ *  - 隐函数曲线 F(x,y)=0：先在粗网格上求值，仅对出现变号的单元做四叉树细分，
+ *    到达最大深度后用 marching squares 生成线段；鞍点单元用中心值消歧
+ *  - 细分、求值均按粗网格行并行，结果按行序拼接，输出与线程调度无关
+ *  - 可传入 ComputeBudget：热力图逐行、等值线逐单元计数，预算用尽后未求值的行为 NaN，
+ *    未细分的单元不产生线段
+ */
+public class ImplicitSampler {
+
+    /** 粗网格每个方向的单元数 */
+    public static final int COARSE_CELLS = 48;
+    /** 四叉树最大细分深度 */
+    public static final int MAX_DEPTH = 8;
+
+    private ImplicitSampler() {}
+
+    /** 规则网格采样结果：values[j][i] = f(xs[i], ys[j]) */
+    public static class Grid {
+        public final double[] xs;
+        public final double[] ys;
+        public final double[][] values;
+
+        Grid(double[] xs, double[] ys, double[][] values) {
+            this.xs = xs;
+            this.ys = ys;
+            this.values = values;
+        }
+    }
+
+    /** 等值线结果：每个线段为 {x1, y1, x2, y2} */
+    public static class Contour {
+        public final List<double[]> segments;
+        public final long evaluations;
+
+        Contour(List<double[]> segments, long evaluations) {
+            this.segments = segments;
+            this.evaluations = evaluations;
+        }
+    }
+
+    /**
+     * 把 "lhs = rhs" 转换为 F(x,y) = (lhs)-(rhs)；不含等号时原样返回
+     */
+    public static String toImplicit(String equation) {
+        String[] parts = equation.split("=");
+        if (parts.length == 1) return equation.trim();
+        if (parts.length != 2) throw new IllegalArgumentException("方程格式错误: " + equation);
+        return "(" + parts[0].trim() + ")-(" + parts[1].trim() + ")";
+    }
+
+    /**
+     * 构建以 x、y 为变量的表达式
+     */
+    public static Expression compile(String function) {
+        return new ExpressionBuilder(function).variables("x", "y").build();
+    }
+
+    /**
+     * 在 nx × ny 个点的规则网格上按行并行求值（用于热力图）
+     */
+    public static Grid sampleGrid(String function, double xMin, double xMax,
+                                  double yMin, double yMax, int nx, int ny) {
+        return sampleGrid(function, xMin, xMax, yMin, yMax, nx, ny, ComputeBudget.unlimited());
+    }
+
+    public static Grid sampleGrid(String function, double xMin, double xMax,
+                                  double yMin, double yMax, int nx, int ny, ComputeBudget budget) {
+        if (nx < 2 || ny < 2) throw new IllegalArgumentException("网格至少需要 2×2 个点");
+        Expression compiled = compile(function);
+        double[] xs = linspace(xMin, xMax, nx);
+        double[] ys = linspace(yMin, yMax, ny);
+        double[][] values = new double[ny][];
+
+        IntStream.range(0, ny).parallel().forEach(j -> {
+            // 每行使用独立的表达式副本（exp4j 表达式不是线程安全的）
+            Expression exp = new Expression(compiled);
+            double[] row = new double[nx];
+            if (!budget.spend(nx)) {
+                Arrays.fill(row, Double.NaN);
+            } else {
+                for (int i = 0; i < nx; i++) {
+                    row[i] = evaluate(exp, xs[i], ys[j]);
+                }
+            }
+            values[j] = row;
+        });
+        return new Grid(xs, ys, values);
+    }
+
+    /**
+     * 用四叉树细分 + marching squares 提取 F(x,y)=0 的曲线
+     * @param depth 变号单元的细分深度，0 表示直接在粗网格上做 marching squares
+     */
+    public static Contour contour(String function, double xMin, double xMax,
+                                  double yMin, double yMax, int depth) {
+        return contour(function, xMin, xMax, yMin, yMax, depth, ComputeBudget.unlimited());
+    }
+
+    public static Contour contour(String function, double xMin, double xMax,
+                                  double yMin, double yMax, int depth, ComputeBudget budget) {
+        if (depth < 0 || depth > MAX_DEPTH) throw new IllegalArgumentException("细分深度超出范围: " + depth);
+        Grid coarse = sampleGrid(function, xMin, xMax, yMin, yMax, COARSE_CELLS + 1, COARSE_CELLS + 1, budget);
+        Expression compiled = compile(function);
+        AtomicLong evaluations = new AtomicLong((long) (COARSE_CELLS + 1) * (COARSE_CELLS + 1));
+
+        List<List<double[]>> rows = new ArrayList<>();
+        for (int j = 0; j < COARSE_CELLS; j++) rows.add(null);
+
+        IntStream.range(0, COARSE_CELLS).parallel().forEach(j -> {
+            Expression exp = new Expression(compiled);
+            List<double[]> out = new ArrayList<>();
+            long[] count = {0};
+            double[] v0 = coarse.values[j];
+            double[] v1 = coarse.values[j + 1];
+            for (int i = 0; i < COARSE_CELLS; i++) {
+                long before = count[0];
+                refine(exp, coarse.xs[i], coarse.ys[j], coarse.xs[i + 1], coarse.ys[j + 1],
+                        v0[i], v0[i + 1], v1[i], v1[i + 1], depth, out, count);
+                if (!budget.spend(count[0] - before)) break;
+            }
+            evaluations.addAndGet(count[0]);
+            rows.set(j, out);
+        });
+
+        List<double[]> segments = new ArrayList<>();
+        for (List<double[]> r : rows) segments.addAll(r);
+        return new Contour(segments, evaluations.get());
+    }
+
+    /**
+     * 四叉树细分：只有角点出现变号的单元才继续细分
+     * f00=(x0,y0), f10=(x1,y0), f01=(x0,y1), f11=(x1,y1)
+     */
+    private static void refine(Expression exp, double x0, double y0, double x1, double y1,
+                               double f00, double f10, double f01, double f11,
+                               int depth, List<double[]> out, long[] count) {
+        if (!hasSignChange(f00, f10, f01, f11)) return;
+        if (depth == 0) {
+            marchCell(x0, y0, x1, y1, f00, f10, f01, f11, out);
+            return;
+        }
+
+        double xm = 0.5 * (x0 + x1);
+        double ym = 0.5 * (y0 + y1);
+        double fm0 = evaluate(exp, xm, y0);
+        double fm1 = evaluate(exp, xm, y1);
+        double f0m = evaluate(exp, x0, ym);
+        double f1m = evaluate(exp, x1, ym);
+        double fmm = evaluate(exp, xm, ym);
+        count[0] += 5;
+
+        refine(exp, x0, y0, xm, ym, f00, fm0, f0m, fmm, depth - 1, out, count);
+        refine(exp, xm, y0, x1, ym, fm0, f10, fmm, f1m, depth - 1, out, count);
+        refine(exp, x0, ym, xm, y1, f0m, fmm, f01, fm1, depth - 1, out, count);
+        refine(exp, xm, ym, x1, y1, fmm, f1m, fm1, f11, depth - 1, out, count);
+    }
+
+    private static boolean hasSignChange(double f00, double f10, double f01, double f11) {
+        if (Double.isNaN(f00) || Double.isNaN(f10) || Double.isNaN(f01) || Double.isNaN(f11)) return false;
+        boolean p00 = f00 > 0, p10 = f10 > 0, p01 = f01 > 0, p11 = f11 > 0;
+        return !(p00 == p10 && p10 == p01 && p01 == p11);
+    }
+
+    /**
+     * 单个单元的 marching squares，边上的交点用线性插值
+     */
+    private static void marchCell(double x0, double y0, double x1, double y1,
+                                  double f00, double f10, double f01, double f11,
+                                  List<double[]> out) {
+        boolean p00 = f00 > 0, p10 = f10 > 0, p01 = f01 > 0, p11 = f11 > 0;
+
+        // 四条边：下、右、上、左；null 表示该边无交点
+        double[] bottom = p00 != p10 ? new double[]{lerp(x0, x1, f00, f10), y0} : null;
+        double[] right = p10 != p11 ? new double[]{x1, lerp(y0, y1, f10, f11)} : null;
+        double[] top = p01 != p11 ? new double[]{lerp(x0, x1, f01, f11), y1} : null;
+        double[] left = p00 != p01 ? new double[]{x0, lerp(y0, y1, f00, f01)} : null;
+
+        if (bottom != null && right != null && top != null && left != null) {
+            // 鞍点：用中心值判断对角的连通方式
+            boolean center = 0.25 * (f00 + f10 + f01 + f11) > 0;
+            if (center == p00) {
+                addSegment(out, bottom, right);
+                addSegment(out, top, left);
+            } else {
+                addSegment(out, left, bottom);
+                addSegment(out, right, top);
+            }
+            return;
+        }
+
+        double[] first = null;
+        for (double[] p : new double[][]{bottom, right, top, left}) {
+            if (p == null) continue;
+            if (first == null) {
+                first = p;
+            } else {
+                addSegment(out, first, p);
+                return;
+            }
+        }
+    }
+
+    private static void addSegment(List<double[]> out, double[] a, double[] b) {
+        out.add(new double[]{a[0], a[1], b[0], b[1]});
+    }
+
+    private static double lerp(double a, double b, double fa, double fb) {
+        double t = fa / (fa - fb);
+        return a + t * (b - a);
+    }
+
+    private static double evaluate(Expression exp, double x, double y) {
+        try {
+            exp.setVariable("x", x);
+            exp.setVariable("y", y);
+            double v = exp.evaluate();
+            return Double.isInfinite(v) ? Double.NaN : v;
+        } catch (Exception e) {
+            return Double.NaN;
+        }
+    }
+
+    private static double[] linspace(double min, double max, int n) {
+        if (!(min < max)) throw new IllegalArgumentException("范围最小值必须小于最大值");
+        double[] v = new double[n];
+        double h = (max - min) / (n - 1);
+        for (int i = 0; i < n; i++) v[i] = min + i * h;
+        return v;
+    }
+}
@@ -0,0 +1,442 @@
+package com.example;
+
+import java.util.List;
+
+/**
+ * IntervalExpression - 表达式的区间算术求值
+ *
+ * 特性：
+ *  - 对 exp4j 语法的表达式（与 FunctionSampler / RootFinder 使用的语法相同）解析出一棵求值树，
+ *    对输入区间 [lo, hi] 给出 f 在其上取值的严格包络
+ *  - 四则运算结果向外舍入一个 ulp，库函数（sin、exp、log 等）向外放宽两个 ulp，
+ *    包络对 exp4j 实际计算出的每个点值都成立
+ *  - 除数含 0、tan 跨过极点等情况得到无界包络，调用方据此判断区间内可能有渐近线
+ *  - 求值树不保存状态，可被多个线程同时使用
+ *  - 遇到不认识的函数或语法时 compile 返回 null，调用方回退到逐点求值
+ */
+public final class IntervalExpression {
+
+    private static final double TWO_PI = 2 * Math.PI;
+    private static final double HALF_PI = Math.PI / 2;
+
+    private final Node root;
+
+    private IntervalExpression(Node root) {
+        this.root = root;
+    }
+
+    /** 闭区间 [lo, hi]；lo 为 NaN 表示空集（整个输入区间都不在定义域内） */
+    public static final class Interval {
+        public final double lo;
+        public final double hi;
+        /** 输入区间中有点不在定义域内（如 log 的负半轴、除数为 0） */
+        public final boolean partial;
+
+        static final Interval EMPTY = new Interval(Double.NaN, Double.NaN, true);
+
+        Interval(double lo, double hi, boolean partial) {
+            this.lo = lo;
+            this.hi = hi;
+            this.partial = partial;
+        }
+
+        static Interval of(double lo, double hi, boolean partial) {
+            // ∞ - ∞ 之类的 NaN 端点按无界处理，保证仍是包络
+            if (Double.isNaN(lo)) lo = Double.NEGATIVE_INFINITY;
+            if (Double.isNaN(hi)) hi = Double.POSITIVE_INFINITY;
+            return new Interval(lo, hi, partial);
+        }
+
+        static Interval point(double v) {
+            return new Interval(v, v, false);
+        }
+
+        public boolean isEmpty() {
+            return Double.isNaN(lo);
+        }
+
+        public boolean contains(double v) {
+            return !isEmpty() && lo <= v && v <= hi;
+        }
+
+        /** 非空且上下界都有限 */
+        public boolean isBounded() {
+            return !isEmpty() && lo > Double.NEGATIVE_INFINITY && hi < Double.POSITIVE_INFINITY;
+        }
+
+        @Override
+        public String toString() {
+            return isEmpty() ? "[]" : "[" + lo + ", " + hi + "]" + (partial ? "*" : "");
+        }
+    }
+
+    /**
+     * 编译表达式；含有区间求值不支持的函数或语法时返回 null
+     */
+    public static IntervalExpression compile(String expression, String var) {
+        if (expression == null) return null;
+        try {
+            return new IntervalExpression(ExpressionParser.parse(expression, new Builder(var)));
+        } catch (Unsupported | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** f 在 [lo, hi] 上的包络 */
+    public Interval enclose(double lo, double hi) {
+        return root.eval(new Interval(Math.min(lo, hi), Math.max(lo, hi), false));
+    }
+
+    /**
+     * 能否证明 f 在 [lo, hi] 上没有零点：包络不含 0，且整个区间都在定义域内
+     */
+    public boolean excludesZero(double lo, double hi) {
+        Interval r = enclose(lo, hi);
+        return !r.partial && !r.isEmpty() && (r.lo > 0 || r.hi < 0);
+    }
+
+    /* ------------------ 区间运算 ------------------ */
+
+    private static double down(double v) {
+        return Math.nextDown(v);
+    }
+
+    private static double up(double v) {
+        return Math.nextUp(v);
+    }
+
+    /** 库函数结果向外放宽两个 ulp */
+    private static Interval widened(double lo, double hi, boolean partial) {
+        return Interval.of(down(down(lo)), up(up(hi)), partial);
+    }
+
+    private static Interval neg(Interval a) {
+        if (a.isEmpty()) return a;
+        return new Interval(-a.hi, -a.lo, a.partial);
+    }
+
+    private static Interval add(Interval a, Interval b) {
+        if (a.isEmpty() || b.isEmpty()) return Interval.EMPTY;
+        return Interval.of(down(a.lo + b.lo), up(a.hi + b.hi), a.partial || b.partial);
+    }
+
+    private static Interval sub(Interval a, Interval b) {
+        return add(a, neg(b));
+    }
+
+    /** 端点乘积，0·∞ 按 0 处理 */
+    private static double product(double a, double b) {
+        return (a == 0 || b == 0) ? 0 : a * b;
+    }
+
+    private static Interval mul(Interval a, Interval b) {
+        if (a.isEmpty() || b.isEmpty()) return Interval.EMPTY;
+        double p1 = product(a.lo, b.lo), p2 = product(a.lo, b.hi);
+        double p3 = product(a.hi, b.lo), p4 = product(a.hi, b.hi);
+        double lo = Math.min(Math.min(p1, p2), Math.min(p3, p4));
+        double hi = Math.max(Math.max(p1, p2), Math.max(p3, p4));
+        return Interval.of(lo == 0 ? 0 : down(lo), hi == 0 ? 0 : up(hi), a.partial || b.partial);
+    }
+
+    private static Interval div(Interval a, Interval b) {
+        if (a.isEmpty() || b.isEmpty()) return Interval.EMPTY;
+        boolean partial = a.partial || b.partial;
+        if (b.lo > 0 || b.hi < 0) {
+            return mul(a, Interval.of(down(1 / b.hi), up(1 / b.lo), b.partial));
+        }
+        // 除数含 0：exp4j 在 0 处抛出异常，其余点上商可以任意大
+        if (b.lo == 0 && b.hi == 0) return Interval.EMPTY;
+        if (b.lo == 0) {
+            if (a.lo >= 0) return Interval.of(a.lo == 0 ? 0 : down(a.lo / b.hi), Double.POSITIVE_INFINITY, true);
+            if (a.hi <= 0) return Interval.of(Double.NEGATIVE_INFINITY, a.hi == 0 ? 0 : up(a.hi / b.hi), true);
+        } else if (b.hi == 0) {
+            if (a.lo >= 0) return Interval.of(Double.NEGATIVE_INFINITY, a.lo == 0 ? 0 : up(a.lo / b.lo), true);
+            if (a.hi <= 0) return Interval.of(a.hi == 0 ? 0 : down(a.hi / b.lo), Double.POSITIVE_INFINITY, true);
+        }
+        return new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+    }
+
+    /**
+     * Java 的 % 结果与被除数同号、绝对值小于 |除数|
+     */
+    private static Interval mod(Interval a, Interval b) {
+        if (a.isEmpty() || b.isEmpty()) return Interval.EMPTY;
+        boolean partial = a.partial || b.partial || b.contains(0);
+        double bmin = b.contains(0) ? 0 : Math.min(Math.abs(b.lo), Math.abs(b.hi));
+        double bmax = Math.max(Math.abs(b.lo), Math.abs(b.hi));
+        // 被除数整体落在 (-|b|min, |b|min) 内时结果就是它自己
+        if (a.lo > -bmin && a.hi < bmin) return new Interval(a.lo, a.hi, partial);
+        double lo = a.lo >= 0 ? 0 : Math.max(a.lo, -bmax);
+        double hi = a.hi <= 0 ? 0 : Math.min(a.hi, bmax);
+        return Interval.of(lo, hi, partial);
+    }
+
+    private static Interval pow(Interval base, Interval exponent) {
+        if (base.isEmpty() || exponent.isEmpty()) return Interval.EMPTY;
+        boolean partial = base.partial || exponent.partial;
+        if (exponent.lo == exponent.hi) {
+            double p = exponent.lo;
+            if (p == Math.rint(p) && Math.abs(p) <= Integer.MAX_VALUE) return powInt(base, (int) p, partial);
+            // 非整数次幂只在 x ≥ 0 上有定义
+            if (base.hi < 0) return Interval.EMPTY;
+            double lo = Math.max(base.lo, 0);
+            partial |= base.lo < 0;
+            if (p > 0) return widened(Math.pow(lo, p), Math.pow(base.hi, p), partial);
+            return widened(Math.pow(base.hi, p), Math.pow(lo, p), partial);
+        }
+        if (base.lo > 0) {
+            // x^y = exp(y·ln x)
+            return exp(mul(exponent, log(base)));
+        }
+        return new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+    }
+
+    private static Interval powInt(Interval x, int n, boolean partial) {
+        if (n == 0) return new Interval(1, 1, partial);
+        if (n < 0) {
+            // Math.pow(0, 负数) = ∞，不抛异常
+            Interval r = div(new Interval(1, 1, false), powInt(x, -n, partial));
+            return r.isEmpty() ? Interval.of(Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, partial) : r;
+        }
+        double a = Math.pow(x.lo, n), b = Math.pow(x.hi, n);
+        if ((n & 1) == 1 || x.lo >= 0) return widened(Math.min(a, b), Math.max(a, b), partial);
+        if (x.hi <= 0) return widened(b, a, partial);
+        return Interval.of(0, up(up(Math.max(a, b))), partial);
+    }
+
+    private static Interval exp(Interval x) {
+        if (x.isEmpty()) return x;
+        return Interval.of(Math.max(0, down(down(Math.exp(x.lo)))), up(up(Math.exp(x.hi))), x.partial);
+    }
+
+    private static Interval log(Interval x) {
+        if (x.isEmpty() || x.hi < 0) return Interval.EMPTY;
+        return widened(Math.log(Math.max(x.lo, 0)), Math.log(x.hi), x.partial || x.lo < 0);
+    }
+
+    /** 一元实函数 */
+    private interface Monotone {
+        double apply(double v);
+    }
+
+    /**
+     * 定义域为 [min, max] 的单调函数；increasing 为 false 时单调递减
+     */
+    private static Interval monotone(Interval x, Monotone f, double min, double max, boolean increasing) {
+        if (x.isEmpty() || x.hi < min || x.lo > max) return Interval.EMPTY;
+        double lo = Math.max(x.lo, min), hi = Math.min(x.hi, max);
+        boolean partial = x.partial || x.lo < min || x.hi > max;
+        double a = f.apply(lo), b = f.apply(hi);
+        return increasing ? widened(a, b, partial) : widened(b, a, partial);
+    }
+
+    /**
+     * 区间 [lo, hi] 内是否含有 offset + k·period 形式的点；端点附近放宽，宁多勿漏
+     */
+    private static boolean containsPeriodic(Interval x, double offset, double period) {
+        double slack = 1e-12 * Math.max(1.0, Math.max(Math.abs(x.lo), Math.abs(x.hi)));
+        double k = Math.ceil((x.lo - slack - offset) / period);
+        return offset + k * period <= x.hi + slack;
+    }
+
+    /** sin / cos：在区间内取到极值点时包络取到 ±1 */
+    private static Interval periodic(Interval x, Monotone f, double maxAt, double minAt) {
+        if (x.isEmpty()) return x;
+        if (!(x.hi - x.lo < TWO_PI)) return new Interval(-1, 1, x.partial);
+        double a = f.apply(x.lo), b = f.apply(x.hi);
+        double lo = containsPeriodic(x, minAt, TWO_PI) ? -1 : Math.max(-1, down(down(Math.min(a, b))));
+        double hi = containsPeriodic(x, maxAt, TWO_PI) ? 1 : Math.min(1, up(up(Math.max(a, b))));
+        return new Interval(lo, hi, x.partial);
+    }
+
+    private static Interval tan(Interval x) {
+        if (x.isEmpty()) return x;
+        if (!(x.hi - x.lo < Math.PI) || containsPeriodic(x, HALF_PI, Math.PI)) {
+            return new Interval(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, x.partial);
+        }
+        return widened(Math.tan(x.lo), Math.tan(x.hi), x.partial);
+    }
+
+    private static Interval abs(Interval x) {
+        if (x.isEmpty() || x.lo >= 0) return x;
+        if (x.hi <= 0) return neg(x);
+        return new Interval(0, Math.max(-x.lo, x.hi), x.partial);
+    }
+
+    private static Interval cosh(Interval x) {
+        Interval a = abs(x);
+        if (a.isEmpty()) return a;
+        return widened(Math.max(1, Math.cosh(a.lo)), Math.cosh(a.hi), a.partial);
+    }
+
+    /** 阶跃类函数（floor、ceil、signum）单调不减且结果精确，不需要放宽 */
+    private static Interval step(Interval x, Monotone f) {
+        if (x.isEmpty()) return x;
+        return new Interval(f.apply(x.lo), f.apply(x.hi), x.partial);
+    }
+
+    private static Interval function(String name, Interval x) {
+        switch (name) {
+            case "sin": return periodic(x, Math::sin, HALF_PI, -HALF_PI);
+            case "cos": return periodic(x, Math::cos, 0, Math.PI);
+            case "tan": return tan(x);
+            case "cot": return div(new Interval(1, 1, false), tan(x));
+            case "asin": return monotone(x, Math::asin, -1, 1, true);
+            case "acos": return monotone(x, Math::acos, -1, 1, false);
+            case "atan": return monotone(x, Math::atan, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+            case "sinh": return monotone(x, Math::sinh, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+            case "cosh": return cosh(x);
+            case "tanh": return monotone(x, Math::tanh, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+            case "exp": return exp(x);
+            case "expm1": return monotone(x, Math::expm1, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+            case "log": return log(x);
+            case "log2": return monotone(x, v -> Math.log(v) / Math.log(2), 0, Double.POSITIVE_INFINITY, true);
+            case "log10": return monotone(x, Math::log10, 0, Double.POSITIVE_INFINITY, true);
+            case "log1p": return monotone(x, Math::log1p, -1, Double.POSITIVE_INFINITY, true);
+            case "sqrt": return monotone(x, Math::sqrt, 0, Double.POSITIVE_INFINITY, true);
+            case "cbrt": return monotone(x, Math::cbrt, Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, true);
+            case "abs": return abs(x);
+            case "floor": return step(x, Math::floor);
+            case "ceil": return step(x, Math::ceil);
+            case "signum": return step(x, Math::signum);
+            default: throw new Unsupported();
+        }
+    }
+
+    /**
+     * 常数参数的函数值，与 exp4j 内置函数的实现一致
+     */
+    private static double value(String name, double v) {
+        switch (name) {
+            case "sin": return Math.sin(v);
+            case "cos": return Math.cos(v);
+            case "tan": return Math.tan(v);
+            case "cot": return Math.tan(v) == 0 ? Double.NaN : 1 / Math.tan(v);
+            case "asin": return Math.asin(v);
+            case "acos": return Math.acos(v);
+            case "atan": return Math.atan(v);
+            case "sinh": return Math.sinh(v);
+            case "cosh": return Math.cosh(v);
+            case "tanh": return Math.tanh(v);
+            case "exp": return Math.exp(v);
+            case "expm1": return Math.expm1(v);
+            case "log": return Math.log(v);
+            case "log2": return Math.log(v) / Math.log(2);
+            case "log10": return Math.log10(v);
+            case "log1p": return Math.log1p(v);
+            case "sqrt": return Math.sqrt(v);
+            case "cbrt": return Math.cbrt(v);
+            case "abs": return Math.abs(v);
+            case "floor": return Math.floor(v);
+            case "ceil": return Math.ceil(v);
+            case "signum": return Math.signum(v);
+            default: throw new Unsupported();
+        }
+    }
+
+    /* ------------------ 求值树与解析 ------------------ */
+
+    private interface Node {
+        Interval eval(Interval x);
+    }
+
+    /** 常数结点，解析时折叠 */
+    private static final class Const implements Node {
+        final double value;
+
+        Const(double value) {
+            this.value = value;
+        }
+
+        @Override
+        public Interval eval(Interval x) {
+            return Interval.point(value);
+        }
+    }
+
+    /** 处处无定义的常数（如 1/0） */
+    private static final Node EMPTY_NODE = x -> Interval.EMPTY;
+
+    /** 解析时遇到区间求值不支持的结构 */
+    private static final class Unsupported extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        Unsupported() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** 由 ExpressionParser 的语法结构构造求值树，常数子表达式在构造时折叠 */
+    private static final class Builder implements ExpressionParser.Semantics<Node> {
+        private final String var;
+
+        Builder(String var) {
+            this.var = var;
+        }
+
+        @Override
+        public Node number(String literal) {
+            return new Const(Double.parseDouble(literal));
+        }
+
+        @Override
+        public Node name(String name) {
+            if (name.equals(var)) return x -> x;
+            switch (name) {
+                case "π":
+                case "pi": return new Const(Math.PI);
+                case "φ": return new Const(1.61803398874);
+                case "e": return new Const(Math.E);
+                default: throw new Unsupported();
+            }
+        }
+
+        @Override
+        public Node negate(Node inner) {
+            if (inner instanceof Const) return new Const(-((Const) inner).value);
+            return x -> neg(inner.eval(x));
+        }
+
+        /**
+         * 二元运算；两侧都是常数时按 exp4j 的双精度运算直接折叠，
+         * 这样 x^(1/2)、x^(2*3) 的指数仍是精确的点
+         */
+        @Override
+        public Node binary(char op, Node l, Node r) {
+            if (l instanceof Const && r instanceof Const) {
+                double u = ((Const) l).value, v = ((Const) r).value;
+                switch (op) {
+                    case '+': return fold(u + v);
+                    case '-': return fold(u - v);
+                    case '*': return fold(u * v);
+                    case '/': return v == 0 ? EMPTY_NODE : fold(u / v);
+                    case '%': return v == 0 ? EMPTY_NODE : fold(u % v);
+                    default: return fold(Math.pow(u, v));
+                }
+            }
+            switch (op) {
+                case '+': return x -> add(l.eval(x), r.eval(x));
+                case '-': return x -> sub(l.eval(x), r.eval(x));
+                case '*': return x -> mul(l.eval(x), r.eval(x));
+                case '/': return x -> div(l.eval(x), r.eval(x));
+                case '%': return x -> mod(l.eval(x), r.eval(x));
+                default: return x -> pow(l.eval(x), r.eval(x));
+            }
+        }
+
+        @Override
+        public Node call(String name, List<Node> args) {
+            if (name.equals("pow") && args.size() == 2) return binary('^', args.get(0), args.get(1));
+            if (args.size() != 1) throw new Unsupported();
+            Node arg = args.get(0);
+            // 先用一个点区间试算，函数名不支持时在编译期就失败
+            function(name, Interval.point(1));
+            if (arg instanceof Const) return fold(value(name, ((Const) arg).value));
+            return x -> function(name, arg.eval(x));
+        }
+
+        private static Node fold(double v) {
+            return Double.isNaN(v) ? EMPTY_NODE : new Const(v);
+        }
+    }
+}
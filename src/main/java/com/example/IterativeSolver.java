@@ -0,0 +1,534 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * IterativeSolver - 大型线性方程组的 Krylov 子空间迭代解法
+ *
+ * 特性：
+ *  - CG（对称正定）、GMRES(m)（一般矩阵，重启）、BiCGSTAB（一般矩阵）
+ *  - 预条件：Jacobi（对角）或 ILU(0)（不增加非零元的不完全 LU）
+ *  - 系数矩阵以 CSR 压缩行格式存放，非零元较多时矩阵向量乘按行并行
+ *  - 容差与最大迭代次数可配置，记录每次迭代的相对残差 ‖r‖/‖b‖
+ *  - 可通过 Options.budget 限制墙钟时间或随时取消，提前停止时返回当前迭代值
+ */
+public class IterativeSolver {
+
+    public enum Method { CG, GMRES, BICGSTAB }
+
+    public enum Preconditioner { NONE, JACOBI, ILU0 }
+
+    /** 非零元达到该数量时矩阵向量乘使用并行流 */
+    private static final int PARALLEL_NNZ = 50_000;
+
+    private IterativeSolver() {}
+
+    /** 求解参数 */
+    public static final class Options {
+        double tolerance = 1e-10;
+        int maxIterations = 1000;
+        int restart = 30;
+        Method method;
+        Preconditioner preconditioner = Preconditioner.ILU0;
+        ComputeBudget budget = ComputeBudget.unlimited();
+
+        /** 相对残差 ‖r‖/‖b‖ 的收敛容差 */
+        public Options tolerance(double tolerance) {
+            if (!(tolerance > 0)) throw new IllegalArgumentException("容差必须大于 0");
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        public Options maxIterations(int maxIterations) {
+            if (maxIterations < 1) throw new IllegalArgumentException("最大迭代次数必须大于 0");
+            this.maxIterations = maxIterations;
+            return this;
+        }
+
+        /** GMRES 的重启长度 */
+        public Options restart(int restart) {
+            if (restart < 1) throw new IllegalArgumentException("重启长度必须大于 0");
+            this.restart = restart;
+            return this;
+        }
+
+        /** 不指定时按矩阵性质自动选择 */
+        public Options method(Method method) {
+            this.method = method;
+            return this;
+        }
+
+        public Options preconditioner(Preconditioner preconditioner) {
+            this.preconditioner = preconditioner;
+            return this;
+        }
+
+        /** 计算预算：每次迭代计为一次求值，用尽或被取消时返回当前迭代值（converged 为 false） */
+        public Options budget(ComputeBudget budget) {
+            if (budget == null) throw new IllegalArgumentException("计算预算不能为空");
+            this.budget = budget;
+            return this;
+        }
+    }
+
+    /** 求解结果 */
+    public static final class Result {
+        public final double[] x;
+        public final Method method;
+        public final int iterations;
+        public final boolean converged;
+        /** 第 0 项为初始残差，之后每次迭代一项 */
+        public final double[] residualHistory;
+
+        Result(double[] x, Method method, int iterations, boolean converged, double[] residualHistory) {
+            this.x = x;
+            this.method = method;
+            this.iterations = iterations;
+            this.converged = converged;
+            this.residualHistory = residualHistory;
+        }
+
+        public double finalResidual() {
+            return residualHistory[residualHistory.length - 1];
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s %s，迭代 %d 次，相对残差 %.3e", method, converged ? "收敛" : "未收敛",
+                    iterations, finalResidual());
+        }
+    }
+
+    public static Result solve(double[][] A, double[] b) {
+        return solve(CsrMatrix.fromDense(A), b, new Options());
+    }
+
+    public static Result solve(double[][] A, double[] b, Options options) {
+        return solve(CsrMatrix.fromDense(A), b, options);
+    }
+
+    public static Result solve(CsrMatrix A, double[] b, Options options) {
+        if (b.length != A.n) throw new IllegalArgumentException("A 的行数必须等于 b 的长度");
+        Method method = options.method != null ? options.method : chooseMethod(A);
+        Precond M = createPreconditioner(A, options.preconditioner);
+        switch (method) {
+            case CG:
+                return cg(A, b, M, options);
+            case GMRES:
+                return gmres(A, b, M, options);
+            default:
+                return bicgstab(A, b, M, options);
+        }
+    }
+
+    /**
+     * 对称且对角元全为正时用 CG，否则用 BiCGSTAB
+     */
+    public static Method chooseMethod(CsrMatrix A) {
+        double[] d = A.diagonal();
+        for (double v : d) {
+            if (!(v > 0)) return Method.BICGSTAB;
+        }
+        return A.isSymmetric(1e-12) ? Method.CG : Method.BICGSTAB;
+    }
+
+    /* ------------------ CG ------------------ */
+
+    private static Result cg(CsrMatrix A, double[] b, Precond M, Options opt) {
+        int n = A.n;
+        double[] x = new double[n];
+        double[] r = b.clone();
+        double bnorm = normOrOne(b);
+        History history = new History(r, bnorm);
+        if (history.last() <= opt.tolerance) return history.result(x, Method.CG, 0, true);
+
+        double[] z = new double[n];
+        M.apply(r, z);
+        double[] p = z.clone();
+        double[] Ap = new double[n];
+        double rz = dot(r, z);
+
+        for (int it = 1; it <= opt.maxIterations; it++) {
+            if (!opt.budget.spend(1)) return history.result(x, Method.CG, it - 1, false);
+            A.multiply(p, Ap);
+            double pAp = dot(p, Ap);
+            if (pAp <= 0) return history.result(x, Method.CG, it - 1, false);
+            double alpha = rz / pAp;
+            axpy(alpha, p, x);
+            axpy(-alpha, Ap, r);
+            if (history.add(r) <= opt.tolerance) return history.result(x, Method.CG, it, true);
+
+            M.apply(r, z);
+            double rzNew = dot(r, z);
+            double beta = rzNew / rz;
+            rz = rzNew;
+            for (int i = 0; i < n; i++) p[i] = z[i] + beta * p[i];
+        }
+        return history.result(x, Method.CG, opt.maxIterations, false);
+    }
+
+    /* ------------------ BiCGSTAB（右预条件） ------------------ */
+
+    private static Result bicgstab(CsrMatrix A, double[] b, Precond M, Options opt) {
+        int n = A.n;
+        double[] x = new double[n];
+        double[] r = b.clone();
+        double bnorm = normOrOne(b);
+        History history = new History(r, bnorm);
+        if (history.last() <= opt.tolerance) return history.result(x, Method.BICGSTAB, 0, true);
+
+        double[] rHat = r.clone();
+        double[] p = new double[n];
+        double[] v = new double[n];
+        double[] s = new double[n];
+        double[] t = new double[n];
+        double[] pHat = new double[n];
+        double[] sHat = new double[n];
+        double rho = 1, alpha = 1, omega = 1;
+
+        for (int it = 1; it <= opt.maxIterations; it++) {
+            if (!opt.budget.spend(1)) return history.result(x, Method.BICGSTAB, it - 1, false);
+            double rhoNew = dot(rHat, r);
+            if (rhoNew == 0) return history.result(x, Method.BICGSTAB, it - 1, false);
+            double beta = (rhoNew / rho) * (alpha / omega);
+            rho = rhoNew;
+            for (int i = 0; i < n; i++) p[i] = r[i] + beta * (p[i] - omega * v[i]);
+
+            M.apply(p, pHat);
+            A.multiply(pHat, v);
+            double rv = dot(rHat, v);
+            if (rv == 0) return history.result(x, Method.BICGSTAB, it - 1, false);
+            alpha = rho / rv;
+            for (int i = 0; i < n; i++) s[i] = r[i] - alpha * v[i];
+            if (norm(s) / bnorm <= opt.tolerance) {
+                axpy(alpha, pHat, x);
+                history.add(s);
+                return history.result(x, Method.BICGSTAB, it, true);
+            }
+
+            M.apply(s, sHat);
+            A.multiply(sHat, t);
+            double tt = dot(t, t);
+            if (tt == 0) return history.result(x, Method.BICGSTAB, it - 1, false);
+            omega = dot(t, s) / tt;
+            for (int i = 0; i < n; i++) {
+                x[i] += alpha * pHat[i] + omega * sHat[i];
+                r[i] = s[i] - omega * t[i];
+            }
+            if (history.add(r) <= opt.tolerance) return history.result(x, Method.BICGSTAB, it, true);
+            if (omega == 0) return history.result(x, Method.BICGSTAB, it, false);
+        }
+        return history.result(x, Method.BICGSTAB, opt.maxIterations, false);
+    }
+
+    /* ------------------ GMRES(m)（右预条件） ------------------ */
+
+    private static Result gmres(CsrMatrix A, double[] b, Precond M, Options opt) {
+        int n = A.n;
+        int m = Math.min(opt.restart, n);
+        double[] x = new double[n];
+        double[] r = b.clone();
+        double bnorm = normOrOne(b);
+        History history = new History(r, bnorm);
+        if (history.last() <= opt.tolerance) return history.result(x, Method.GMRES, 0, true);
+
+        double[][] V = new double[m + 1][n];
+        double[][] Z = new double[m][n];
+        double[][] H = new double[m + 1][m];
+        double[] cs = new double[m];
+        double[] sn = new double[m];
+        double[] g = new double[m + 1];
+        double[] w = new double[n];
+        int it = 0;
+
+        while (it < opt.maxIterations) {
+            // r = b - A x
+            A.multiply(x, w);
+            for (int i = 0; i < n; i++) r[i] = b[i] - w[i];
+            double beta = norm(r);
+            if (beta / bnorm <= opt.tolerance) return history.result(x, Method.GMRES, it, true);
+            for (int i = 0; i < n; i++) V[0][i] = r[i] / beta;
+            Arrays.fill(g, 0.0);
+            g[0] = beta;
+
+            int k = 0;
+            boolean done = false;
+            for (; k < m && it < opt.maxIterations; k++) {
+                if (!opt.budget.spend(1)) break;
+                it++;
+                M.apply(V[k], Z[k]);
+                A.multiply(Z[k], w);
+                // 修正 Gram-Schmidt 正交化
+                for (int j = 0; j <= k; j++) {
+                    H[j][k] = dot(w, V[j]);
+                    axpy(-H[j][k], V[j], w);
+                }
+                H[k + 1][k] = norm(w);
+                if (H[k + 1][k] != 0) {
+                    for (int i = 0; i < n; i++) V[k + 1][i] = w[i] / H[k + 1][k];
+                }
+                // 用之前的 Givens 旋转更新新列，再构造本列的旋转
+                for (int j = 0; j < k; j++) {
+                    double tmp = cs[j] * H[j][k] + sn[j] * H[j + 1][k];
+                    H[j + 1][k] = -sn[j] * H[j][k] + cs[j] * H[j + 1][k];
+                    H[j][k] = tmp;
+                }
+                double denom = Math.hypot(H[k][k], H[k + 1][k]);
+                cs[k] = denom == 0 ? 1 : H[k][k] / denom;
+                sn[k] = denom == 0 ? 0 : H[k + 1][k] / denom;
+                H[k][k] = denom;
+                H[k + 1][k] = 0;
+                g[k + 1] = -sn[k] * g[k];
+                g[k] = cs[k] * g[k];
+
+                double rel = Math.abs(g[k + 1]) / bnorm;
+                history.addNorm(rel);
+                if (rel <= opt.tolerance) {
+                    k++;
+                    done = true;
+                    break;
+                }
+            }
+
+            // 回代求 y，更新 x += Z y
+            double[] y = new double[k];
+            for (int i = k - 1; i >= 0; i--) {
+                double s = g[i];
+                for (int j = i + 1; j < k; j++) s -= H[i][j] * y[j];
+                y[i] = H[i][i] == 0 ? 0 : s / H[i][i];
+            }
+            for (int j = 0; j < k; j++) axpy(y[j], Z[j], x);
+            if (done) return history.result(x, Method.GMRES, it, true);
+            if (!opt.budget.isCompleted()) return history.result(x, Method.GMRES, it, false);
+        }
+        return history.result(x, Method.GMRES, it, false);
+    }
+
+    /* ------------------ 预条件 ------------------ */
+
+    /** z = M⁻¹ r */
+    private interface Precond {
+        void apply(double[] r, double[] z);
+    }
+
+    private static Precond createPreconditioner(CsrMatrix A, Preconditioner type) {
+        switch (type) {
+            case JACOBI: {
+                double[] d = A.diagonal();
+                double[] inv = new double[d.length];
+                for (int i = 0; i < d.length; i++) inv[i] = d[i] != 0 ? 1.0 / d[i] : 1.0;
+                return (r, z) -> {
+                    for (int i = 0; i < r.length; i++) z[i] = inv[i] * r[i];
+                };
+            }
+            case ILU0:
+                return new Ilu0(A);
+            default:
+                return (r, z) -> System.arraycopy(r, 0, z, 0, r.length);
+        }
+    }
+
+    /**
+     * ILU(0)：在 A 的非零结构上做不完全 LU，L 为单位下三角
+     */
+    private static final class Ilu0 implements Precond {
+        private final CsrMatrix lu;
+        private final int[] diagPos;
+
+        Ilu0(CsrMatrix A) {
+            int n = A.n;
+            double[] values = A.values.clone();
+            int[] rowPtr = A.rowPtr;
+            int[] colIdx = A.colIdx;
+            diagPos = new int[n];
+            int[] position = new int[n];
+            Arrays.fill(position, -1);
+
+            for (int i = 0; i < n; i++) {
+                diagPos[i] = -1;
+                for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                    position[colIdx[p]] = p;
+                    if (colIdx[p] == i) diagPos[i] = p;
+                }
+                if (diagPos[i] < 0) throw new ArithmeticException("ILU(0) 需要非零对角元（第 " + (i + 1) + " 行）");
+                for (int p = rowPtr[i]; p < rowPtr[i + 1] && colIdx[p] < i; p++) {
+                    int k = colIdx[p];
+                    double pivot = values[diagPos[k]];
+                    if (pivot == 0) throw new ArithmeticException("ILU(0) 主元为零");
+                    double factor = values[p] / pivot;
+                    values[p] = factor;
+                    for (int q = diagPos[k] + 1; q < rowPtr[k + 1]; q++) {
+                        int pos = position[colIdx[q]];
+                        if (pos >= 0) values[pos] -= factor * values[q];
+                    }
+                }
+                for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) position[colIdx[p]] = -1;
+                if (values[diagPos[i]] == 0) throw new ArithmeticException("ILU(0) 主元为零");
+            }
+            lu = new CsrMatrix(n, rowPtr, colIdx, values);
+        }
+
+        @Override
+        public void apply(double[] r, double[] z) {
+            int n = lu.n;
+            // L y = r
+            for (int i = 0; i < n; i++) {
+                double s = r[i];
+                for (int p = lu.rowPtr[i]; p < diagPos[i]; p++) s -= lu.values[p] * z[lu.colIdx[p]];
+                z[i] = s;
+            }
+            // U z = y
+            for (int i = n - 1; i >= 0; i--) {
+                double s = z[i];
+                for (int p = diagPos[i] + 1; p < lu.rowPtr[i + 1]; p++) s -= lu.values[p] * z[lu.colIdx[p]];
+                z[i] = s / lu.values[diagPos[i]];
+            }
+        }
+    }
+
+    /* ------------------ CSR 矩阵 ------------------ */
+
+    /** 压缩行存储的方阵，每行列号升序 */
+    public static final class CsrMatrix {
+        final int n;
+        final int[] rowPtr;
+        final int[] colIdx;
+        final double[] values;
+
+        CsrMatrix(int n, int[] rowPtr, int[] colIdx, double[] values) {
+            this.n = n;
+            this.rowPtr = rowPtr;
+            this.colIdx = colIdx;
+            this.values = values;
+        }
+
+        public static CsrMatrix fromDense(double[][] A) {
+            int n = A.length;
+            if (n == 0) throw new IllegalArgumentException("矩阵为空");
+            int nnz = 0;
+            for (double[] row : A) {
+                if (row.length != n) throw new IllegalArgumentException("矩阵 A 必须是方阵");
+                for (double v : row) if (v != 0) nnz++;
+            }
+            int[] rowPtr = new int[n + 1];
+            int[] colIdx = new int[nnz];
+            double[] values = new double[nnz];
+            int p = 0;
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    if (A[i][j] != 0) {
+                        colIdx[p] = j;
+                        values[p++] = A[i][j];
+                    }
+                }
+                rowPtr[i + 1] = p;
+            }
+            return new CsrMatrix(n, rowPtr, colIdx, values);
+        }
+
+        public int size() {
+            return n;
+        }
+
+        public int nonZeros() {
+            return values.length;
+        }
+
+        /** y = A x，非零元较多时按行并行 */
+        public void multiply(double[] x, double[] y) {
+            if (values.length >= PARALLEL_NNZ) {
+                IntStream.range(0, n).parallel().forEach(i -> y[i] = rowDot(i, x));
+            } else {
+                for (int i = 0; i < n; i++) y[i] = rowDot(i, x);
+            }
+        }
+
+        private double rowDot(int i, double[] x) {
+            double s = 0;
+            for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) s += values[p] * x[colIdx[p]];
+            return s;
+        }
+
+        double[] diagonal() {
+            double[] d = new double[n];
+            for (int i = 0; i < n; i++) {
+                for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                    if (colIdx[p] == i) d[i] = values[p];
+                }
+            }
+            return d;
+        }
+
+        boolean isSymmetric(double relTol) {
+            double max = 0;
+            for (double v : values) max = Math.max(max, Math.abs(v));
+            double tol = relTol * Math.max(max, 1.0);
+            for (int i = 0; i < n; i++) {
+                for (int p = rowPtr[i]; p < rowPtr[i + 1]; p++) {
+                    int j = colIdx[p];
+                    if (j > i && Math.abs(values[p] - get(j, i)) > tol) return false;
+                }
+            }
+            return true;
+        }
+
+        double get(int i, int j) {
+            int idx = Arrays.binarySearch(colIdx, rowPtr[i], rowPtr[i + 1], j);
+            return idx >= 0 ? values[idx] : 0.0;
+        }
+    }
+
+    /* ------------------ 向量运算与残差记录 ------------------ */
+
+    private static final class History {
+        private final List<Double> values = new ArrayList<>();
+        private final double bnorm;
+
+        History(double[] r0, double bnorm) {
+            this.bnorm = bnorm;
+            add(r0);
+        }
+
+        double add(double[] r) {
+            return addNorm(norm(r) / bnorm);
+        }
+
+        double addNorm(double rel) {
+            values.add(rel);
+            return rel;
+        }
+
+        double last() {
+            return values.get(values.size() - 1);
+        }
+
+        Result result(double[] x, Method method, int iterations, boolean converged) {
+            double[] h = new double[values.size()];
+            for (int i = 0; i < h.length; i++) h[i] = values.get(i);
+            return new Result(x, method, iterations, converged, h);
+        }
+    }
+
+    private static double dot(double[] a, double[] b) {
+        double s = 0;
+        for (int i = 0; i < a.length; i++) s += a[i] * b[i];
+        return s;
+    }
+
+    private static double norm(double[] a) {
+        return Math.sqrt(dot(a, a));
+    }
+
+    private static double normOrOne(double[] b) {
+        double n = norm(b);
+        return n == 0 ? 1.0 : n;
+    }
+
+    /** y += alpha x */
+    private static void axpy(double alpha, double[] x, double[] y) {
+        for (int i = 0; i < x.length; i++) y[i] += alpha * x[i];
+    }
+}
@@ -0,0 +1,257 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Json - 计算服务使用的最小 JSON 读写
+ *
+ * 特性：
+ *  - 解析结果：对象 → LinkedHashMap，数组 → ArrayList，数字 → Double，另有 String、Boolean、null
+ *  - 写出时 NaN、无穷大记为 null（JSON 没有对应的数字）
+ *  - 只覆盖服务接口需要的部分，不做流式处理
+ */
+final class Json {
+
+    /** 嵌套层数上限，防止恶意深层嵌套耗尽栈 */
+    private static final int MAX_DEPTH = 64;
+
+    private final String s;
+    private int pos;
+
+    private Json(String s) {
+        this.s = s;
+    }
+
+    /* ------------------ 解析 ------------------ */
+
+    static Object parse(String text) {
+        if (text == null) throw new IllegalArgumentException("JSON 为空");
+        Json p = new Json(text);
+        Object value = p.value(0);
+        p.skipSpaces();
+        if (p.pos != text.length()) throw p.error("多余的内容");
+        return value;
+    }
+
+    /** 解析并要求顶层是对象 */
+    @SuppressWarnings("unchecked")
+    static Map<String, Object> parseObject(String text) {
+        Object v = parse(text);
+        if (!(v instanceof Map)) throw new IllegalArgumentException("请求体必须是 JSON 对象");
+        return (Map<String, Object>) v;
+    }
+
+    private Object value(int depth) {
+        if (depth > MAX_DEPTH) throw error("嵌套过深");
+        skipSpaces();
+        if (pos >= s.length()) throw error("意外的结尾");
+        char c = s.charAt(pos);
+        switch (c) {
+            case '{': return object(depth);
+            case '[': return array(depth);
+            case '"': return string();
+            case 't': return literal("true", Boolean.TRUE);
+            case 'f': return literal("false", Boolean.FALSE);
+            case 'n': return literal("null", null);
+            default:
+                if (c == '-' || (c >= '0' && c <= '9')) return number();
+                throw error("意外的字符 '" + c + "'");
+        }
+    }
+
+    private Map<String, Object> object(int depth) {
+        pos++;
+        Map<String, Object> map = new LinkedHashMap<>();
+        skipSpaces();
+        if (eat('}')) return map;
+        do {
+            skipSpaces();
+            if (pos >= s.length() || s.charAt(pos) != '"') throw error("缺少键名");
+            String key = string();
+            skipSpaces();
+            if (!eat(':')) throw error("缺少 ':'");
+            map.put(key, value(depth + 1));
+            skipSpaces();
+        } while (eat(','));
+        if (!eat('}')) throw error("缺少 '}'");
+        return map;
+    }
+
+    private List<Object> array(int depth) {
+        pos++;
+        List<Object> list = new ArrayList<>();
+        skipSpaces();
+        if (eat(']')) return list;
+        do {
+            list.add(value(depth + 1));
+            skipSpaces();
+        } while (eat(','));
+        if (!eat(']')) throw error("缺少 ']'");
+        return list;
+    }
+
+    private String string() {
+        pos++;
+        StringBuilder sb = new StringBuilder();
+        while (pos < s.length()) {
+            char c = s.charAt(pos++);
+            if (c == '"') return sb.toString();
+            if (c != '\\') {
+                sb.append(c);
+                continue;
+            }
+            if (pos >= s.length()) break;
+            char e = s.charAt(pos++);
+            switch (e) {
+                case '"': sb.append('"'); break;
+                case '\\': sb.append('\\'); break;
+                case '/': sb.append('/'); break;
+                case 'b': sb.append('\b'); break;
+                case 'f': sb.append('\f'); break;
+                case 'n': sb.append('\n'); break;
+                case 'r': sb.append('\r'); break;
+                case 't': sb.append('\t'); break;
+                case 'u':
+                    if (pos + 4 > s.length()) throw error("\\u 转义不完整");
+                    try {
+                        sb.append((char) Integer.parseInt(s.substring(pos, pos + 4), 16));
+                    } catch (NumberFormatException ex) {
+                        throw error("\\u 转义无效");
+                    }
+                    pos += 4;
+                    break;
+                default: throw error("无效的转义 \\" + e);
+            }
+        }
+        throw error("字符串未结束");
+    }
+
+    private Double number() {
+        int start = pos;
+        eat('-');
+        while (pos < s.length() && "0123456789.eE+-".indexOf(s.charAt(pos)) >= 0) pos++;
+        try {
+            return Double.valueOf(s.substring(start, pos));
+        } catch (NumberFormatException e) {
+            throw error("数字格式错误");
+        }
+    }
+
+    private Object literal(String word, Object value) {
+        if (!s.startsWith(word, pos)) throw error("无效的字面量");
+        pos += word.length();
+        return value;
+    }
+
+    private boolean eat(char c) {
+        if (pos < s.length() && s.charAt(pos) == c) {
+            pos++;
+            return true;
+        }
+        return false;
+    }
+
+    private void skipSpaces() {
+        while (pos < s.length()) {
+            char c = s.charAt(pos);
+            if (c != ' ' && c != '\t' && c != '\n' && c != '\r') return;
+            pos++;
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return new IllegalArgumentException("JSON 格式错误（位置 " + pos + "）: " + message);
+    }
+
+    /* ------------------ 写出 ------------------ */
+
+    static String write(Object value) {
+        StringBuilder sb = new StringBuilder();
+        write(sb, value);
+        return sb.toString();
+    }
+
+    static void write(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof String) {
+            writeString(sb, (String) value);
+        } else if (value instanceof Double || value instanceof Float) {
+            writeNumber(sb, ((Number) value).doubleValue());
+        } else if (value instanceof Number || value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof double[]) {
+            writeArray(sb, (double[]) value);
+        } else if (value instanceof double[][]) {
+            double[][] rows = (double[][]) value;
+            sb.append('[');
+            for (int i = 0; i < rows.length; i++) {
+                if (i > 0) sb.append(',');
+                writeArray(sb, rows[i]);
+            }
+            sb.append(']');
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<?, ?> e : ((Map<?, ?>) value).entrySet()) {
+                if (!first) sb.append(',');
+                first = false;
+                writeString(sb, String.valueOf(e.getKey()));
+                sb.append(':');
+                write(sb, e.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Iterable) {
+            sb.append('[');
+            boolean first = true;
+            for (Object o : (Iterable<?>) value) {
+                if (!first) sb.append(',');
+                first = false;
+                write(sb, o);
+            }
+            sb.append(']');
+        } else {
+            writeString(sb, value.toString());
+        }
+    }
+
+    private static void writeArray(StringBuilder sb, double[] values) {
+        sb.append('[');
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) sb.append(',');
+            writeNumber(sb, values[i]);
+        }
+        sb.append(']');
+    }
+
+    private static void writeNumber(StringBuilder sb, double v) {
+        if (!Double.isFinite(v)) {
+            sb.append("null");
+        } else if (v == Math.rint(v) && Math.abs(v) < 1e15) {
+            sb.append((long) v);
+        } else {
+            sb.append(v);
+        }
+    }
+
+    private static void writeString(StringBuilder sb, String str) {
+        sb.append('"');
+        for (int i = 0; i < str.length(); i++) {
+            char c = str.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        sb.append('"');
+    }
+}
@@ -0,0 +1,193 @@
+package com.example;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * LoadGenerator - ComputeServer 的本地压测工具
+ *
+ * 特性：
+ *  - 每个并发客户端一个虚拟线程，闭环发送请求（收到响应后立即发下一个），持续指定秒数
+ *  - 请求按比例混合 calculate / solve / matrix / plot 四类接口，客户端各用自己的会话
+ *  - 统计吞吐量、各状态码数量（503 表示被背压拒绝，504 表示超时）与延迟分位数
+ *  - 不指定地址时在本进程内启动一个临时端口的 ComputeServer，便于直接在本机验证
+ *
+ * 命令行：
+ *  java -cp casio-calculator-standalone.jar com.example.LoadGenerator [并发客户端数] [秒数] [服务地址]
+ */
+public class LoadGenerator {
+
+    /** 请求模板：接口路径与 JSON 请求体（%d 处填客户端编号） */
+    private static final String[][] MIX = {
+            {"/calculate", "{\"session\":\"c%d\",\"expression\":\"sin(pi/6)*2+sqrt(16)/4\"}"},
+            {"/calculate", "{\"session\":\"c%d\",\"expression\":\"ans*3-1\"}"},
+            {"/solve", "{\"session\":\"c%d\",\"equation\":\"x^3 - 6x^2 + 11x - 6 = 0\"}"},
+            {"/solve", "{\"session\":\"c%d\",\"equation\":\"x + y = 3; x - y = 1\"}"},
+            {"/matrix", "{\"operation\":\"A * B\",\"a\":[[1,2,3],[4,5,6],[7,8,10]],\"b\":[[1,0,0],[0,1,0],[0,0,1]]}"},
+            {"/matrix", "{\"operation\":\"det(A)\",\"a\":\"4 3 2; 1 3 1; 2 1 5\"}"},
+            {"/plot", "{\"functions\":[\"sin(x)\",\"x^2/10\"],\"xMin\":-10,\"xMax\":10,\"step\":0.05}"},
+    };
+
+    private LoadGenerator() {}
+
+    /** 压测结果 */
+    public static final class Report {
+        public final long requests;
+        public final double seconds;
+        public final Map<Integer, Long> statusCounts;
+        /** 成功请求（2xx）的延迟，毫秒，已排序 */
+        public final double[] latencies;
+        public final long failures;
+
+        Report(long requests, double seconds, Map<Integer, Long> statusCounts, double[] latencies, long failures) {
+            this.requests = requests;
+            this.seconds = seconds;
+            this.statusCounts = statusCounts;
+            this.latencies = latencies;
+            this.failures = failures;
+        }
+
+        public double throughput() {
+            return requests / seconds;
+        }
+
+        public double percentile(double p) {
+            if (latencies.length == 0) return Double.NaN;
+            int idx = (int) Math.ceil(p / 100.0 * latencies.length) - 1;
+            return latencies[Math.max(0, Math.min(idx, latencies.length - 1))];
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.ROOT,
+                    "请求 %d 个，用时 %.1f s，吞吐 %.0f req/s%n状态码 %s，连接失败 %d%n延迟 p50 %.2f ms | p90 %.2f ms | p99 %.2f ms | 最大 %.2f ms",
+                    requests, seconds, throughput(), statusCounts, failures,
+                    percentile(50), percentile(90), percentile(99),
+                    latencies.length == 0 ? Double.NaN : latencies[latencies.length - 1]);
+        }
+    }
+
+    /**
+     * 以 clients 个并发客户端对 baseUrl 压测 duration
+     */
+    public static Report run(String baseUrl, int clients, Duration duration) throws InterruptedException {
+        HttpClient http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofSeconds(5))
+                .executor(Executors.newVirtualThreadPerTaskExecutor())
+                .build();
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+
+        Map<Integer, AtomicLong> status = new ConcurrentHashMap<>();
+        AtomicLong failures = new AtomicLong();
+        AtomicInteger latencyCount = new AtomicInteger();
+        // 每个客户端各自记录延迟，结束后合并，避免共享数组上的竞争
+        double[][] perClient = new double[clients][];
+        int[] perClientCount = new int[clients];
+
+        long start = System.nanoTime();
+        long end = start + duration.toNanos();
+        ExecutorService clientsPool = Executors.newVirtualThreadPerTaskExecutor();
+        for (int c = 0; c < clients; c++) {
+            final int id = c;
+            clientsPool.submit(() -> {
+                double[] lat = new double[1024];
+                int n = 0;
+                while (System.nanoTime() < end) {
+                    String[] t = MIX[ThreadLocalRandom.current().nextInt(MIX.length)];
+                    HttpRequest req = HttpRequest.newBuilder(URI.create(base + t[0]))
+                            .timeout(Duration.ofSeconds(30))
+                            .header("Content-Type", "application/json")
+                            .POST(HttpRequest.BodyPublishers.ofString(String.format(Locale.ROOT, t[1], id)))
+                            .build();
+                    long t0 = System.nanoTime();
+                    try {
+                        HttpResponse<String> res = http.send(req, HttpResponse.BodyHandlers.ofString());
+                        status.computeIfAbsent(res.statusCode(), k -> new AtomicLong()).incrementAndGet();
+                        if (res.statusCode() / 100 == 2) {
+                            if (n == lat.length) lat = Arrays.copyOf(lat, n * 2);
+                            lat[n++] = (System.nanoTime() - t0) / 1e6;
+                        } else if (res.statusCode() == 503) {
+                            // 被背压拒绝：遵守 Retry-After 的精神，稍作退避
+                            Thread.sleep(ThreadLocalRandom.current().nextInt(5, 50));
+                        }
+                    } catch (IOException e) {
+                        failures.incrementAndGet();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+                perClient[id] = lat;
+                perClientCount[id] = n;
+                latencyCount.addAndGet(n);
+                return null;
+            });
+        }
+        clientsPool.shutdown();
+        clientsPool.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        double[] all = new double[latencyCount.get()];
+        int k = 0;
+        for (int c = 0; c < clients; c++) {
+            if (perClient[c] == null) continue;
+            System.arraycopy(perClient[c], 0, all, k, perClientCount[c]);
+            k += perClientCount[c];
+        }
+        Arrays.sort(all, 0, k);
+        all = Arrays.copyOf(all, k);
+
+        Map<Integer, Long> counts = new TreeMap<>();
+        long total = 0;
+        for (Map.Entry<Integer, AtomicLong> e : status.entrySet()) {
+            counts.put(e.getKey(), e.getValue().get());
+            total += e.getValue().get();
+        }
+        return new Report(total + failures.get(), seconds, counts, all, failures.get());
+    }
+
+    /* ------------------ 命令行入口 ------------------ */
+
+    public static void main(String[] args) {
+        System.setProperty("java.awt.headless", "true");
+        ComputeServer local = null;
+        try {
+            int clients = args.length > 0 ? Integer.parseInt(args[0]) : 64;
+            int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+            String url;
+            if (args.length > 2) {
+                url = args[2];
+            } else {
+                int cpus = Runtime.getRuntime().availableProcessors();
+                local = new ComputeServer(0, cpus, cpus * 64, ComputeServer.DEFAULT_TIMEOUT_MILLIS).start();
+                url = "http://localhost:" + local.port();
+                System.out.println("已在本进程启动计算服务: " + url);
+            }
+            System.out.printf("压测 %s：%d 个并发客户端，%d 秒%n", url, clients, seconds);
+            System.out.println(run(url, clients, Duration.ofSeconds(seconds)));
+        } catch (NumberFormatException e) {
+            System.err.println("用法: LoadGenerator [并发客户端数] [秒数] [服务地址]");
+            System.exit(2);
+        } catch (Exception e) {
+            System.err.println("压测失败: " + e.getMessage());
+            System.exit(1);
+        } finally {
+            if (local != null) local.stop(0);
+        }
+    }
+}
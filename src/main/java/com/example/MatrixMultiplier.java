@@ -0,0 +1,142 @@
+package com.example;
+
+import org.ejml.data.DMatrixRMaj;
+import org.ejml.dense.row.CommonOps_DDRM;
+import org.ejml.dense.row.CommonOps_MT_DDRM;
+import org.ejml.dense.row.RandomMatrices_DDRM;
+import org.ejml.simple.SimpleMatrix;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * MatrixMultiplier - 矩阵乘法引擎
+ *
+ * 特性：
+ *  - 小矩阵使用单线程 CommonOps_DDRM.mult，避免线程调度开销
+ *  - 大矩阵使用 EJML 的并发实现 CommonOps_MT_DDRM.mult
+ *  - 按乘法运算量 m·k·n 自动选择内核，阈值可通过系统属性
+ *    calculator.matrix.parallelThreshold 调整
+ *  - 可传入 ComputeBudget：大乘积按行分块计算，每块之间检查一次，预算用尽时停止
+ *  - main 方法在本机上测量两种内核的交叉点，给出推荐阈值
+ */
+public class MatrixMultiplier {
+
+    /** 乘法内核 */
+    public enum Kernel { SINGLE, PARALLEL }
+
+    /** 默认阈值：约等于两个 96×96 方阵相乘的运算量 */
+    private static final long DEFAULT_PARALLEL_THRESHOLD = 96L * 96 * 96;
+
+    private static final long PARALLEL_THRESHOLD =
+            Long.getLong("calculator.matrix.parallelThreshold", DEFAULT_PARALLEL_THRESHOLD);
+
+    /** 带预算的乘法每个行块的运算量（单线程约十几毫秒），块之间检查预算 */
+    private static final long BLOCK_FLOPS = 1L << 25;
+
+    private MatrixMultiplier() {}
+
+    /**
+     * 根据运算量选择内核
+     */
+    public static Kernel chooseKernel(int m, int k, int n) {
+        long flops = (long) m * k * n;
+        if (flops >= PARALLEL_THRESHOLD && Runtime.getRuntime().availableProcessors() > 1) {
+            return Kernel.PARALLEL;
+        }
+        return Kernel.SINGLE;
+    }
+
+    /**
+     * 计算 A × B，自动选择单线程或并行内核
+     */
+    public static SimpleMatrix multiply(SimpleMatrix A, SimpleMatrix B) {
+        DMatrixRMaj a = A.getDDRM();
+        DMatrixRMaj b = B.getDDRM();
+        if (a.numCols != b.numRows) throw new IllegalArgumentException("矩阵维度不兼容，无法相乘");
+        Kernel kernel = chooseKernel(a.numRows, a.numCols, b.numCols);
+        return SimpleMatrix.wrap(multiply(a, b, kernel));
+    }
+
+    /**
+     * 在计算预算内计算 A × B：运算量超过一个行块时按行块计算，预算用尽时抛出 ComputeBudget.ExhaustedException
+     */
+    public static SimpleMatrix multiply(SimpleMatrix A, SimpleMatrix B, ComputeBudget budget) {
+        DMatrixRMaj a = A.getDDRM();
+        DMatrixRMaj b = B.getDDRM();
+        if (a.numCols != b.numRows) throw new IllegalArgumentException("矩阵维度不兼容，无法相乘");
+        budget.checkpoint();
+        long rowFlops = Math.max(1L, (long) a.numCols * b.numCols);
+        int blockRows = (int) Math.max(1L, Math.min(a.numRows, BLOCK_FLOPS / rowFlops));
+        if (blockRows == a.numRows) return multiply(A, B);
+
+        DMatrixRMaj c = new DMatrixRMaj(a.numRows, b.numCols);
+        for (int r0 = 0; r0 < a.numRows; r0 += blockRows) {
+            int r1 = Math.min(a.numRows, r0 + blockRows);
+            DMatrixRMaj block = CommonOps_DDRM.extract(a, r0, r1, 0, a.numCols);
+            DMatrixRMaj product = multiply(block, b, chooseKernel(r1 - r0, a.numCols, b.numCols));
+            CommonOps_DDRM.insert(product, c, r0, 0);
+            budget.checkpoint();
+        }
+        return SimpleMatrix.wrap(c);
+    }
+
+    /**
+     * 使用指定内核计算 A × B
+     */
+    public static DMatrixRMaj multiply(DMatrixRMaj A, DMatrixRMaj B, Kernel kernel) {
+        DMatrixRMaj C = new DMatrixRMaj(A.numRows, B.numCols);
+        if (kernel == Kernel.PARALLEL) {
+            CommonOps_MT_DDRM.mult(A, B, C);
+        } else {
+            CommonOps_DDRM.mult(A, B, C);
+        }
+        return C;
+    }
+
+    /* ------------------ 交叉点测量 ------------------ */
+
+    /**
+     * 对一组方阵尺寸分别测量两种内核的中位耗时，输出第一个并行更快的尺寸
+     * 用法：java -cp casio-calculator-standalone.jar com.example.MatrixMultiplier [最大尺寸]
+     */
+    public static void main(String[] args) {
+        int maxSize = args.length > 0 ? Integer.parseInt(args[0]) : 512;
+        Random rand = new Random(42);
+        Integer crossover = null;
+
+        System.out.printf(Locale.ROOT, "%6s %14s %14s%n", "n", "single (ms)", "parallel (ms)");
+        for (int n = 16; n <= maxSize; n *= 2) {
+            DMatrixRMaj A = RandomMatrices_DDRM.rectangle(n, n, -1, 1, rand);
+            DMatrixRMaj B = RandomMatrices_DDRM.rectangle(n, n, -1, 1, rand);
+            double single = medianMillis(A, B, Kernel.SINGLE);
+            double parallel = medianMillis(A, B, Kernel.PARALLEL);
+            System.out.printf(Locale.ROOT, "%6d %14.4f %14.4f%n", n, single, parallel);
+            if (crossover == null && parallel < single) crossover = n;
+        }
+
+        if (crossover == null) {
+            System.out.println("在测试范围内并行内核均未更快，建议保持单线程");
+        } else {
+            long flops = (long) crossover * crossover * crossover;
+            System.out.printf(Locale.ROOT, "交叉点约为 n = %d，建议 -Dcalculator.matrix.parallelThreshold=%d%n",
+                    crossover, flops);
+        }
+    }
+
+    private static double medianMillis(DMatrixRMaj A, DMatrixRMaj B, Kernel kernel) {
+        // 预热，让 JIT 完成编译
+        long budget = System.nanoTime() + 200_000_000L;
+        while (System.nanoTime() < budget) multiply(A, B, kernel);
+
+        double[] samples = new double[15];
+        for (int i = 0; i < samples.length; i++) {
+            long t = System.nanoTime();
+            multiply(A, B, kernel);
+            samples[i] = (System.nanoTime() - t) / 1e6;
+        }
+        Arrays.sort(samples);
+        return samples[samples.length / 2];
+    }
+}
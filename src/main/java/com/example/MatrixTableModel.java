@@ -0,0 +1,158 @@
+package com.example;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+
+/**
+ * MatrixTableModel - 矩阵输入表格的数据模型
+ *
+ * 特性：
+ *  - 元素以行主序存放在一个 double[] 中，不为每个单元格创建组件或对象
+ *  - 配合 JTable 使用时只有可见单元格会被渲染，大矩阵也能立即显示
+ *  - 整体读取（toArray）、整体设置（setMatrix）与文本粘贴（paste）直接操作数组
+ */
+public class MatrixTableModel extends AbstractTableModel {
+
+    private static final long serialVersionUID = 1L;
+
+    /** 行数、列数的上限；模型只存 double 数组，较大的矩阵也不会创建大量组件 */
+    public static final int MAX_SIZE = 2000;
+
+    private int rows;
+    private int cols;
+    private double[] data;
+
+    public MatrixTableModel(int rows, int cols) {
+        checkSize(rows, cols);
+        this.rows = rows;
+        this.cols = cols;
+        this.data = new double[rows * cols];
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return cols;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return String.valueOf(column + 1);
+    }
+
+    @Override
+    public Class<?> getColumnClass(int columnIndex) {
+        return Double.class;
+    }
+
+    @Override
+    public boolean isCellEditable(int rowIndex, int columnIndex) {
+        return true;
+    }
+
+    @Override
+    public Object getValueAt(int rowIndex, int columnIndex) {
+        return data[rowIndex * cols + columnIndex];
+    }
+
+    @Override
+    public void setValueAt(Object value, int rowIndex, int columnIndex) {
+        double v;
+        if (value instanceof Number) {
+            v = ((Number) value).doubleValue();
+        } else {
+            String s = value == null ? "" : value.toString().trim();
+            v = s.isEmpty() ? 0.0 : Double.parseDouble(s);
+        }
+        data[rowIndex * cols + columnIndex] = v;
+        fireTableCellUpdated(rowIndex, columnIndex);
+    }
+
+    public double get(int i, int j) {
+        return data[i * cols + j];
+    }
+
+    /**
+     * 调整大小，保留重叠部分的元素，新增部分为 0
+     */
+    public void resize(int newRows, int newCols) {
+        checkSize(newRows, newCols);
+        if (newRows == rows && newCols == cols) return;
+        double[] next = new double[newRows * newCols];
+        int keepRows = Math.min(rows, newRows);
+        int keepCols = Math.min(cols, newCols);
+        for (int i = 0; i < keepRows; i++) System.arraycopy(data, i * cols, next, i * newCols, keepCols);
+        boolean structureChanged = newCols != cols;
+        rows = newRows;
+        cols = newCols;
+        data = next;
+        if (structureChanged) {
+            fireTableStructureChanged();
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * 用二维数组整体替换矩阵内容（行列数随之改变）
+     */
+    public void setMatrix(double[][] m) {
+        if (m.length == 0 || m[0].length == 0) throw new IllegalArgumentException("矩阵为空");
+        int newCols = m[0].length;
+        checkSize(m.length, newCols);
+        double[] next = new double[m.length * newCols];
+        for (int i = 0; i < m.length; i++) {
+            if (m[i].length != newCols) throw new IllegalArgumentException("矩阵每行列数不一致");
+            System.arraycopy(m[i], 0, next, i * newCols, newCols);
+        }
+        boolean structureChanged = newCols != cols;
+        rows = m.length;
+        cols = newCols;
+        data = next;
+        if (structureChanged) {
+            fireTableStructureChanged();
+        } else {
+            fireTableDataChanged();
+        }
+    }
+
+    /**
+     * 复制为二维数组
+     */
+    public double[][] toArray() {
+        double[][] m = new double[rows][];
+        for (int i = 0; i < rows; i++) m[i] = Arrays.copyOfRange(data, i * cols, (i + 1) * cols);
+        return m;
+    }
+
+    /**
+     * 把剪贴板文本粘贴到 (row0, col0) 起始处，格式与矩阵文本框相同（由 MatrixTextParser 解析）：
+     * 行用换行或分号分隔，元素用制表符、逗号或空格分隔，各行元素个数须一致
+     * 超出当前大小时自动扩展矩阵，但行列数不超过 MAX_SIZE
+     */
+    public void paste(String text, int row0, int col0) {
+        if (text == null || text.trim().isEmpty()) return;
+        MatrixTextParser.Result parsed = MatrixTextParser.parseFlat(text);
+        int r0 = Math.max(0, row0);
+        int c0 = Math.max(0, col0);
+        long needRows = Math.max(rows, (long) r0 + parsed.rows);
+        long needCols = Math.max(cols, (long) c0 + parsed.cols);
+        if (needRows > MAX_SIZE || needCols > MAX_SIZE) {
+            throw new IllegalArgumentException("粘贴后矩阵为 " + needRows + "×" + needCols + "，超过上限 " + MAX_SIZE + "×" + MAX_SIZE);
+        }
+        if (needRows != rows || needCols != cols) resize((int) needRows, (int) needCols);
+        for (int i = 0; i < parsed.rows; i++) {
+            System.arraycopy(parsed.data, i * parsed.cols, data, (r0 + i) * cols + c0, parsed.cols);
+        }
+        fireTableDataChanged();
+    }
+
+    private static void checkSize(int rows, int cols) {
+        if (rows < 1 || cols < 1) throw new IllegalArgumentException("矩阵行列数必须大于 0");
+        if (rows > MAX_SIZE || cols > MAX_SIZE) throw new IllegalArgumentException("矩阵行列数不能超过 " + MAX_SIZE);
+    }
+}
@@ -0,0 +1,245 @@
+package com.example;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * MatrixTextParser - 矩阵文本的单遍解析器
+ *
+ * 特性：
+ *  - 逐字符扫描一遍：行以分号或换行分隔，元素以逗号或空白分隔（与原 parseMatrixFromString 一致）
+ *  - 数字直接写入可增长的 double[]，不经过正则拆分、List&lt;Double&gt; 装箱或中间字符串
+ *  - 常见十进制写法（有效数字不超过 15 位、十进制指数不超过 22）走快速路径，结果与
+ *    Double.parseDouble 完全一致；其余写法（NaN、Infinity、十六进制、超长尾数等）回退到 Double.parseDouble
+ *  - 输入可以是 CharSequence（如 JTextArea 文档的 Segment，不复制文本）或 Reader（如文件）
+ */
+public class MatrixTextParser {
+
+    /** 10 的 0..22 次幂都能用 double 精确表示 */
+    private static final double[] POW10 = new double[23];
+    static {
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) POW10[i] = POW10[i - 1] * 10.0;
+    }
+
+    private static final int MAX_FAST_DIGITS = 15;
+    private static final int EOF = -1;
+
+    private MatrixTextParser() {}
+
+    /** 解析结果：行主序展开的元素 */
+    public static final class Result {
+        public final int rows;
+        public final int cols;
+        public final double[] data;
+
+        Result(int rows, int cols, double[] data) {
+            this.rows = rows;
+            this.cols = cols;
+            this.data = data;
+        }
+
+        public double[][] toArray() {
+            double[][] m = new double[rows][];
+            for (int i = 0; i < rows; i++) m[i] = Arrays.copyOfRange(data, i * cols, (i + 1) * cols);
+            return m;
+        }
+    }
+
+    public static double[][] parse(CharSequence text) {
+        return parseFlat(text).toArray();
+    }
+
+    public static double[][] parse(Reader reader) throws IOException {
+        return parseFlat(reader).toArray();
+    }
+
+    public static Result parseFlat(CharSequence text) {
+        if (text == null) throw new IllegalArgumentException("矩阵输入为空");
+        return scan(new Input(text, null));
+    }
+
+    public static Result parseFlat(Reader reader) throws IOException {
+        if (reader == null) throw new IllegalArgumentException("矩阵输入为空");
+        try {
+            return scan(new Input(null, reader));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /* ------------------ 扫描 ------------------ */
+
+    private static Result scan(Input in) {
+        double[] data = new double[16];
+        int size = 0;
+        int rows = 0;
+        int cols = -1;
+        int rowCols = 0;
+        StringBuilder token = new StringBuilder(32);
+
+        int c = in.next();
+        while (true) {
+            if (c == EOF || c == ';' || c == '\n' || c == '\r') {
+                if (rowCols > 0) {
+                    if (cols == -1) cols = rowCols;
+                    else if (rowCols != cols) throw new IllegalArgumentException("矩阵每行列数不一致");
+                    rows++;
+                    rowCols = 0;
+                }
+                if (c == EOF) break;
+                c = in.next();
+                continue;
+            }
+            if (c == ',' || isSpace(c)) {
+                c = in.next();
+                continue;
+            }
+
+            token.setLength(0);
+            while (c != EOF && !isSeparator(c)) {
+                token.append((char) c);
+                c = in.next();
+            }
+            if (size == data.length) data = Arrays.copyOf(data, size * 2);
+            data[size++] = parseDouble(token);
+            rowCols++;
+        }
+
+        if (rows == 0) throw new IllegalArgumentException("矩阵无有效数据");
+        return new Result(rows, cols, size == data.length ? data : Arrays.copyOf(data, size));
+    }
+
+    private static boolean isSpace(int c) {
+        // 与正则 \s 相同：空格、\t、\n、\u000B、\f、\r
+        return c == ' ' || c == '\t' || c == '\n' || c == 0x0B || c == '\f' || c == '\r';
+    }
+
+    private static boolean isSeparator(int c) {
+        return c == ',' || c == ';' || isSpace(c);
+    }
+
+    /* ------------------ 数值解析 ------------------ */
+
+    /**
+     * 解析一个数值；快速路径无法精确处理时回退到 Double.parseDouble
+     */
+    static double parseDouble(CharSequence s) {
+        double fast = parseFast(s);
+        if (!Double.isNaN(fast)) return fast;
+        String str = s.toString();
+        try {
+            return Double.parseDouble(str);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("矩阵元素格式错误: " + str);
+        }
+    }
+
+    /**
+     * 快速路径：[+-]digits[.digits][(e|E)[+-]digits]
+     * 尾数与 10 的幂都能精确表示时一次乘除即为正确舍入结果；否则返回 NaN 表示需要回退
+     */
+    private static double parseFast(CharSequence s) {
+        int len = s.length();
+        int i = 0;
+        boolean negative = false;
+        if (i < len && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+            negative = s.charAt(i) == '-';
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exp10 = 0;
+        boolean anyDigit = false;
+
+        for (; i < len; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) break;
+            anyDigit = true;
+            mantissa = mantissa * 10 + d;
+            if (mantissa != 0 && ++digits > MAX_FAST_DIGITS) return Double.NaN;
+        }
+        if (i < len && s.charAt(i) == '.') {
+            for (i++; i < len; i++) {
+                int d = s.charAt(i) - '0';
+                if (d < 0 || d > 9) break;
+                anyDigit = true;
+                mantissa = mantissa * 10 + d;
+                exp10--;
+                if (mantissa != 0 && ++digits > MAX_FAST_DIGITS) return Double.NaN;
+            }
+        }
+        if (!anyDigit) return Double.NaN;
+
+        if (i < len && (s.charAt(i) == 'e' || s.charAt(i) == 'E')) {
+            i++;
+            boolean expNegative = false;
+            if (i < len && (s.charAt(i) == '+' || s.charAt(i) == '-')) {
+                expNegative = s.charAt(i) == '-';
+                i++;
+            }
+            int exp = 0;
+            int expDigits = 0;
+            for (; i < len; i++) {
+                int d = s.charAt(i) - '0';
+                if (d < 0 || d > 9) break;
+                if (++expDigits > 4) return Double.NaN;
+                exp = exp * 10 + d;
+            }
+            if (expDigits == 0) return Double.NaN;
+            exp10 += expNegative ? -exp : exp;
+        }
+        if (i != len) return Double.NaN;
+
+        double value;
+        if (mantissa == 0) {
+            value = 0.0;
+        } else if (exp10 >= 0 && exp10 < POW10.length) {
+            value = mantissa * POW10[exp10];
+        } else if (exp10 < 0 && -exp10 < POW10.length) {
+            value = mantissa / POW10[-exp10];
+        } else {
+            return Double.NaN;
+        }
+        return negative ? -value : value;
+    }
+
+    /* ------------------ 输入源 ------------------ */
+
+    /** CharSequence 直接按下标读取；Reader 经固定大小缓冲区读取 */
+    private static final class Input {
+        private final CharSequence seq;
+        private final Reader reader;
+        private final char[] buf;
+        private int pos;
+        private int limit;
+
+        Input(CharSequence seq, Reader reader) {
+            this.seq = seq;
+            this.reader = reader;
+            this.buf = reader == null ? null : new char[8192];
+            this.limit = seq == null ? 0 : seq.length();
+        }
+
+        int next() {
+            if (seq != null) return pos < limit ? seq.charAt(pos++) : EOF;
+            if (pos == limit) {
+                try {
+                    int n;
+                    do {
+                        n = reader.read(buf, 0, buf.length);
+                    } while (n == 0);
+                    if (n < 0) return EOF;
+                    pos = 0;
+                    limit = n;
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return buf[pos++];
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package com.example;
+
+import java.util.stream.IntStream;
+
+/**
+ * MixedPrecisionSolver - 单精度分解 + 双精度迭代修正的稠密线性方程组解法
+ *
+ * 特性：
+ *  - LU 分解在 float 上进行，内存带宽减半、向量化宽度加倍
+ *  - 残差 r = b - A·x 用原始的双精度 A、b 计算，修正量用单精度 LU 求解，
+ *    迭代到与双精度直接法相当的后向误差：‖r‖∞ ≤ ‖x‖∞·‖A‖∞·ε·√n
+ *  - 单精度分解出现零主元、修正不再收缩或超过迭代上限时，自动退回双精度高斯消元
+ *  - 可传入 ComputeBudget：分解每消去一列、每轮修正检查一次，预算用尽时抛出 ComputeBudget.ExhaustedException
+ */
+public class MixedPrecisionSolver {
+
+    /** 修正迭代的上限（与 LAPACK dsgesv 相同） */
+    private static final int MAX_REFINEMENTS = 30;
+    /** 阶数达到该值时单精度分解按行并行 */
+    private static final int PARALLEL_SIZE = 256;
+    private static final boolean PARALLEL = Runtime.getRuntime().availableProcessors() > 1;
+
+    private MixedPrecisionSolver() {}
+
+    /** 求解结果 */
+    public static final class Result {
+        public final double[] x;
+        /** 是否由单精度分解 + 修正得到；false 表示已退回双精度高斯消元 */
+        public final boolean mixed;
+        public final int refinements;
+
+        Result(double[] x, boolean mixed, int refinements) {
+            this.x = x;
+            this.mixed = mixed;
+            this.refinements = refinements;
+        }
+    }
+
+    public static Result solve(double[][] A, double[] b) {
+        return solve(A, b, ComputeBudget.unlimited());
+    }
+
+    public static Result solve(double[][] A, double[] b, ComputeBudget budget) {
+        int n = b.length;
+        if (A.length != n) throw new IllegalArgumentException("A 的行数必须等于 b 的长度");
+        for (double[] row : A) {
+            if (row.length != n) throw new IllegalArgumentException("矩阵 A 必须是方阵");
+        }
+
+        FloatLu lu = FloatLu.factor(A, budget);
+        if (lu != null) {
+            Result refined = refine(A, b, lu, budget);
+            if (refined != null) return refined;
+        }
+        // 过于病态：单精度分解无法给出收敛的修正，改用原来的双精度高斯消元
+        return new Result(CalculatorEngine.LinearSolver.solveByGaussian(A, b, budget), false, 0);
+    }
+
+    private static Result refine(double[][] A, double[] b, FloatLu lu, ComputeBudget budget) {
+        int n = b.length;
+        double anorm = 0;
+        for (double[] row : A) {
+            double s = 0;
+            for (double v : row) s += Math.abs(v);
+            anorm = Math.max(anorm, s);
+        }
+        double eps = Math.ulp(1.0) / 2;
+        double cte = anorm * eps * Math.sqrt(n);
+
+        double[] x = lu.solve(b);
+        if (!allFinite(x)) return null;
+        double[] r = new double[n];
+        double previous = Double.POSITIVE_INFINITY;
+
+        for (int it = 0; it <= MAX_REFINEMENTS; it++) {
+            budget.checkpoint();
+            double rnorm = residual(A, b, x, r);
+            double xnorm = normInf(x);
+            if (rnorm <= xnorm * cte) return new Result(x, true, it);
+            if (it == MAX_REFINEMENTS) break;
+
+            double[] d = lu.solve(r);
+            double dnorm = normInf(d);
+            // 修正量不再明显收缩，说明条件数超出了单精度能处理的范围
+            if (!Double.isFinite(dnorm) || dnorm > 0.5 * previous) return null;
+            previous = dnorm;
+            for (int i = 0; i < n; i++) x[i] += d[i];
+        }
+        return null;
+    }
+
+    /**
+     * r = b - A·x（双精度），返回 ‖r‖∞
+     */
+    private static double residual(double[][] A, double[] b, double[] x, double[] r) {
+        double max = 0;
+        for (int i = 0; i < b.length; i++) {
+            double[] row = A[i];
+            double s = b[i];
+            for (int j = 0; j < row.length; j++) s -= row[j] * x[j];
+            r[i] = s;
+            max = Math.max(max, Math.abs(s));
+        }
+        return max;
+    }
+
+    private static double normInf(double[] v) {
+        double max = 0;
+        for (double d : v) max = Math.max(max, Math.abs(d));
+        return max;
+    }
+
+    private static boolean allFinite(double[] v) {
+        for (double d : v) {
+            if (!Double.isFinite(d)) return false;
+        }
+        return true;
+    }
+
+    /* ------------------ 单精度 LU ------------------ */
+
+    /** float 行数组上的部分主元 LU（每行独立数组，消元内循环可被 JIT 向量化） */
+    private static final class FloatLu {
+        private final int n;
+        private final float[][] lu;
+        private final int[] piv;
+
+        private FloatLu(int n, float[][] lu, int[] piv) {
+            this.n = n;
+            this.lu = lu;
+            this.piv = piv;
+        }
+
+        /**
+         * @return 分解结果；单精度下出现零主元或溢出时返回 null
+         */
+        static FloatLu factor(double[][] A, ComputeBudget budget) {
+            int n = A.length;
+            float[][] a = new float[n][n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) {
+                    float v = (float) A[i][j];
+                    if (Float.isInfinite(v)) return null;
+                    a[i][j] = v;
+                }
+            }
+            int[] piv = new int[n];
+            for (int i = 0; i < n; i++) piv[i] = i;
+
+            for (int k = 0; k < n; k++) {
+                budget.checkpoint();
+                int p = k;
+                float max = Math.abs(a[k][k]);
+                for (int i = k + 1; i < n; i++) {
+                    float v = Math.abs(a[i][k]);
+                    if (v > max) { max = v; p = i; }
+                }
+                if (max == 0f || !Float.isFinite(max)) return null;
+                if (p != k) {
+                    float[] tmp = a[k]; a[k] = a[p]; a[p] = tmp;
+                    int t = piv[k]; piv[k] = piv[p]; piv[p] = t;
+                }
+                final int kk = k;
+                final float[] rowK = a[k];
+                if (PARALLEL && n - k > PARALLEL_SIZE) {
+                    IntStream.range(k + 1, n).parallel().forEach(i -> eliminate(a[i], rowK, kk, n));
+                } else {
+                    for (int i = k + 1; i < n; i++) eliminate(a[i], rowK, k, n);
+                }
+            }
+            return new FloatLu(n, a, piv);
+        }
+
+        private static void eliminate(float[] rowI, float[] rowK, int k, int n) {
+            float factor = rowI[k] / rowK[k];
+            rowI[k] = factor;
+            if (factor == 0f) return;
+            for (int j = k + 1; j < n; j++) rowI[j] -= factor * rowK[j];
+        }
+
+        /**
+         * 用单精度因子求解（右端项缩放后转成 float），结果返回为 double
+         */
+        double[] solve(double[] b) {
+            // 先按 ‖b‖∞ 缩放，避免很小的残差在转为 float 时下溢
+            double scale = normInf(b);
+            double[] x = new double[n];
+            if (scale == 0) return x;
+            float[] y = new float[n];
+            for (int i = 0; i < n; i++) y[i] = (float) (b[piv[i]] / scale);
+            for (int i = 1; i < n; i++) {
+                float[] row = lu[i];
+                float s = y[i];
+                for (int j = 0; j < i; j++) s -= row[j] * y[j];
+                y[i] = s;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                float[] row = lu[i];
+                float s = y[i];
+                for (int j = i + 1; j < n; j++) s -= row[j] * y[j];
+                y[i] = s / row[i];
+            }
+            for (int i = 0; i < n; i++) x[i] = y[i] * scale;
+            return x;
+        }
+    }
+}
@@ -0,0 +1,541 @@
+package com.example;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * OffHeapMatrix - 堆外存储的稠密矩阵（java.lang.foreign.MemorySegment）
+ *
+ * 特性：
+ *  - 元素按行主序连续存放在堆外内存或内存映射文件中，不产生每行一个对象的 GC 压力
+ *  - 可直接映射磁盘文件，矩阵大小只受磁盘和地址空间限制，不受 JVM 堆大小限制
+ *  - 加法、转置、乘法、LU 分解均按块流式处理：任一时刻只把少量 BLOCK×BLOCK 的块
+ *    复制到堆上的缓冲区，由操作系统按需换入换出映射页
+ *
+ * 文件格式：16 字节文件头（行数、列数，各一个小端 long），之后是行主序的小端 double
+ */
+public class OffHeapMatrix implements AutoCloseable {
+
+    /** 文件头长度（字节），保证数据区 8 字节对齐 */
+    public static final long HEADER_BYTES = 16;
+
+    /** 分块大小，可通过系统属性 calculator.matrix.blockSize 调整 */
+    public static final int BLOCK = Integer.getInteger("calculator.matrix.blockSize", 128);
+
+    static final ValueLayout.OfDouble ELEMENT = ValueLayout.JAVA_DOUBLE.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong HEADER_FIELD = ValueLayout.JAVA_LONG.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private final long rows;
+    private final long cols;
+    private final Arena arena;
+    /** 只含数据区（不含文件头） */
+    private final MemorySegment data;
+    /** 映射文件时为整个文件的映射，用于 force()；堆外内存时为 null */
+    private final MemorySegment mapping;
+
+    private OffHeapMatrix(long rows, long cols, Arena arena, MemorySegment data, MemorySegment mapping) {
+        this.rows = rows;
+        this.cols = cols;
+        this.arena = arena;
+        this.data = data;
+        this.mapping = mapping;
+    }
+
+    /* ------------------ 创建与映射 ------------------ */
+
+    /**
+     * 分配全零的堆外矩阵
+     */
+    public static OffHeapMatrix allocate(long rows, long cols) {
+        long bytes = byteSize(rows, cols);
+        Arena arena = Arena.ofShared();
+        try {
+            MemorySegment seg = arena.allocate(bytes, ELEMENT.byteAlignment());
+            return new OffHeapMatrix(rows, cols, arena, seg, null);
+        } catch (RuntimeException | OutOfMemoryError e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 创建（或覆盖）矩阵文件并以读写方式映射，初始元素为 0
+     */
+    public static OffHeapMatrix create(Path file, long rows, long cols) throws IOException {
+        long bytes = HEADER_BYTES + byteSize(rows, cols);
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            Arena arena = Arena.ofShared();
+            try {
+                MemorySegment whole = ch.map(FileChannel.MapMode.READ_WRITE, 0, bytes, arena);
+                whole.set(HEADER_FIELD, 0, rows);
+                whole.set(HEADER_FIELD, 8, cols);
+                return new OffHeapMatrix(rows, cols, arena, whole.asSlice(HEADER_BYTES), whole);
+            } catch (IOException | RuntimeException e) {
+                arena.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 映射已有的矩阵文件
+     * @param writable 为 true 时以读写方式映射，修改直接写回文件
+     */
+    public static OffHeapMatrix map(Path file, boolean writable) throws IOException {
+        StandardOpenOption[] options = writable
+                ? new StandardOpenOption[]{StandardOpenOption.READ, StandardOpenOption.WRITE}
+                : new StandardOpenOption[]{StandardOpenOption.READ};
+        try (FileChannel ch = FileChannel.open(file, options)) {
+            long size = ch.size();
+            if (size < HEADER_BYTES) throw new IOException("不是矩阵文件: " + file);
+            Arena arena = Arena.ofShared();
+            try {
+                MemorySegment whole = ch.map(writable ? FileChannel.MapMode.READ_WRITE : FileChannel.MapMode.READ_ONLY,
+                        0, size, arena);
+                long rows = whole.get(HEADER_FIELD, 0);
+                long cols = whole.get(HEADER_FIELD, 8);
+                if (rows <= 0 || cols <= 0 || HEADER_BYTES + byteSize(rows, cols) != size) {
+                    throw new IOException("矩阵文件头与文件大小不符: " + file);
+                }
+                return new OffHeapMatrix(rows, cols, arena, whole.asSlice(HEADER_BYTES), whole);
+            } catch (IOException | RuntimeException e) {
+                arena.close();
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * 由堆上的二维数组创建堆外矩阵
+     */
+    public static OffHeapMatrix fromArray(double[][] a) {
+        if (a.length == 0) throw new IllegalArgumentException("矩阵为空");
+        int cols = a[0].length;
+        OffHeapMatrix m = allocate(a.length, cols);
+        for (int i = 0; i < a.length; i++) {
+            if (a[i].length != cols) {
+                m.close();
+                throw new IllegalArgumentException("矩阵每行列数不一致");
+            }
+            m.writeRow(i, 0, a[i], 0, cols);
+        }
+        return m;
+    }
+
+    /**
+     * 复制到堆上的二维数组（仅适用于能放进堆的矩阵）
+     */
+    public double[][] toArray() {
+        if (rows > Integer.MAX_VALUE || cols > Integer.MAX_VALUE) {
+            throw new IllegalStateException("矩阵过大，无法复制到堆上");
+        }
+        double[][] a = new double[(int) rows][(int) cols];
+        for (int i = 0; i < rows; i++) readRow(i, 0, a[i], 0, (int) cols);
+        return a;
+    }
+
+    private static long byteSize(long rows, long cols) {
+        if (rows <= 0 || cols <= 0) throw new IllegalArgumentException("矩阵行列数必须大于 0");
+        return Math.multiplyExact(Math.multiplyExact(rows, cols), ELEMENT.byteSize());
+    }
+
+    /* ------------------ 基本访问 ------------------ */
+
+    public long rows() {
+        return rows;
+    }
+
+    public long cols() {
+        return cols;
+    }
+
+    public boolean isMapped() {
+        return mapping != null;
+    }
+
+    public double get(long i, long j) {
+        return data.getAtIndex(ELEMENT, i * cols + j);
+    }
+
+    public void set(long i, long j, double v) {
+        data.setAtIndex(ELEMENT, i * cols + j, v);
+    }
+
+    /**
+     * 读取第 row 行从 col 列开始的 count 个元素到 dst[dstIndex...]
+     */
+    public void readRow(long row, long col, double[] dst, int dstIndex, int count) {
+        MemorySegment.copy(data, ELEMENT, (row * cols + col) * ELEMENT.byteSize(), dst, dstIndex, count);
+    }
+
+    /**
+     * 把 src[srcIndex...] 的 count 个元素写到第 row 行从 col 列开始的位置
+     */
+    public void writeRow(long row, long col, double[] src, int srcIndex, int count) {
+        MemorySegment.copy(src, srcIndex, data, ELEMENT, (row * cols + col) * ELEMENT.byteSize(), count);
+    }
+
+    /**
+     * 读取 h×w 的块（左上角为 (row0, col0)）到 buf，块内按行主序、行距为 w
+     */
+    public void readBlock(long row0, long col0, int h, int w, double[] buf) {
+        for (int r = 0; r < h; r++) readRow(row0 + r, col0, buf, r * w, w);
+    }
+
+    /**
+     * 把 buf 中 h×w 的块写回 (row0, col0) 处
+     */
+    public void writeBlock(long row0, long col0, int h, int w, double[] buf) {
+        for (int r = 0; r < h; r++) writeRow(row0 + r, col0, buf, r * w, w);
+    }
+
+    /**
+     * 映射文件时把修改刷回磁盘
+     */
+    public void force() {
+        if (mapping != null && !mapping.isReadOnly()) mapping.force();
+    }
+
+    /**
+     * 释放堆外内存或解除映射；之后不能再访问该矩阵
+     */
+    @Override
+    public void close() {
+        force();
+        arena.close();
+    }
+
+    /* ------------------ 分块流式运算 ------------------ */
+
+    /**
+     * C = A + B，逐行分段流式处理
+     */
+    public static void add(OffHeapMatrix A, OffHeapMatrix B, OffHeapMatrix C) {
+        if (A.rows != B.rows || A.cols != B.cols) throw new IllegalArgumentException("矩阵维度不匹配，无法相加");
+        requireShape(C, A.rows, A.cols);
+        int chunk = BLOCK * BLOCK;
+        double[] a = new double[chunk];
+        double[] b = new double[chunk];
+        long total = A.rows * A.cols;
+        long bytes = ELEMENT.byteSize();
+        // 行主序连续存放，整体可视为一维数组
+        for (long off = 0; off < total; off += chunk) {
+            int len = (int) Math.min(chunk, total - off);
+            MemorySegment.copy(A.data, ELEMENT, off * bytes, a, 0, len);
+            MemorySegment.copy(B.data, ELEMENT, off * bytes, b, 0, len);
+            for (int i = 0; i < len; i++) a[i] += b[i];
+            MemorySegment.copy(a, 0, C.data, ELEMENT, off * bytes, len);
+        }
+    }
+
+    /**
+     * C = Aᵀ，按 BLOCK×BLOCK 块转置，读写都保持在块内局部
+     */
+    public static void transpose(OffHeapMatrix A, OffHeapMatrix C) {
+        requireShape(C, A.cols, A.rows);
+        double[] in = new double[BLOCK * BLOCK];
+        double[] out = new double[BLOCK * BLOCK];
+        for (long i0 = 0; i0 < A.rows; i0 += BLOCK) {
+            int h = (int) Math.min(BLOCK, A.rows - i0);
+            for (long j0 = 0; j0 < A.cols; j0 += BLOCK) {
+                int w = (int) Math.min(BLOCK, A.cols - j0);
+                A.readBlock(i0, j0, h, w, in);
+                transposeBlock(in, h, w, out);
+                C.writeBlock(j0, i0, w, h, out);
+            }
+        }
+    }
+
+    /**
+     * C = A × B，分块乘法：每次只在堆上保留 A、B、C 各一个块
+     */
+    public static void multiply(OffHeapMatrix A, OffHeapMatrix B, OffHeapMatrix C) {
+        if (A.cols != B.rows) throw new IllegalArgumentException("矩阵维度不兼容，无法相乘");
+        requireShape(C, A.rows, B.cols);
+        double[] a = new double[BLOCK * BLOCK];
+        double[] b = new double[BLOCK * BLOCK];
+        double[] c = new double[BLOCK * BLOCK];
+        for (long i0 = 0; i0 < A.rows; i0 += BLOCK) {
+            int h = (int) Math.min(BLOCK, A.rows - i0);
+            for (long j0 = 0; j0 < B.cols; j0 += BLOCK) {
+                int w = (int) Math.min(BLOCK, B.cols - j0);
+                Arrays.fill(c, 0, h * w, 0.0);
+                for (long k0 = 0; k0 < A.cols; k0 += BLOCK) {
+                    int d = (int) Math.min(BLOCK, A.cols - k0);
+                    A.readBlock(i0, k0, h, d, a);
+                    B.readBlock(k0, j0, d, w, b);
+                    multiplyAddBlock(a, b, c, h, d, w, 1.0);
+                }
+                C.writeBlock(i0, j0, h, w, c);
+            }
+        }
+    }
+
+    /**
+     * 原地分块 LU 分解（部分主元，右视算法），结果覆盖本矩阵
+     * 需要保留原矩阵时先复制一份再分解
+     */
+    public Lu luInPlace() {
+        if (rows != cols) throw new IllegalArgumentException("LU 分解仅对方阵定义");
+        if (rows > Integer.MAX_VALUE) throw new IllegalArgumentException("矩阵阶数过大");
+        int n = (int) rows;
+        int[] piv = new int[n];
+        for (int i = 0; i < n; i++) piv[i] = i;
+        int sign = 1;
+        boolean singular = false;
+        double[] rowK = new double[n];
+        double[] rowP = new double[n];
+
+        for (int k0 = 0; k0 < n; k0 += BLOCK) {
+            int kb = Math.min(BLOCK, n - k0);
+            int k1 = k0 + kb;
+
+            // 1. 分解列面板 A[k0:n, k0:k1]，行交换作用于整行
+            for (int k = k0; k < k1; k++) {
+                int p = k;
+                double max = Math.abs(get(k, k));
+                for (int i = k + 1; i < n; i++) {
+                    double v = Math.abs(get(i, k));
+                    if (v > max) { max = v; p = i; }
+                }
+                if (p != k) {
+                    readRow(k, 0, rowK, 0, n);
+                    readRow(p, 0, rowP, 0, n);
+                    writeRow(k, 0, rowP, 0, n);
+                    writeRow(p, 0, rowK, 0, n);
+                    int t = piv[k]; piv[k] = piv[p]; piv[p] = t;
+                    sign = -sign;
+                }
+                if (max == 0.0) {
+                    singular = true;
+                    continue;
+                }
+                int w = k1 - k - 1;
+                readRow(k, k + 1, rowK, 0, w);
+                double pivot = get(k, k);
+                for (int i = k + 1; i < n; i++) {
+                    double factor = get(i, k) / pivot;
+                    set(i, k, factor);
+                    if (factor == 0.0 || w == 0) continue;
+                    readRow(i, k + 1, rowP, 0, w);
+                    for (int j = 0; j < w; j++) rowP[j] -= factor * rowK[j];
+                    writeRow(i, k + 1, rowP, 0, w);
+                }
+            }
+            if (k1 == n) break;
+
+            // 2. U12 = L11⁻¹ · A12（单位下三角前代），按列块处理
+            double[] l11 = new double[kb * kb];
+            readBlock(k0, k0, kb, kb, l11);
+            double[] u12 = new double[kb * BLOCK];
+            for (int j0 = k1; j0 < n; j0 += BLOCK) {
+                int w = Math.min(BLOCK, n - j0);
+                readBlock(k0, j0, kb, w, u12);
+                for (int i = 1; i < kb; i++) {
+                    for (int r = 0; r < i; r++) {
+                        double l = l11[i * kb + r];
+                        if (l == 0.0) continue;
+                        for (int j = 0; j < w; j++) u12[i * w + j] -= l * u12[r * w + j];
+                    }
+                }
+                writeBlock(k0, j0, kb, w, u12);
+            }
+
+            // 3. 尾部更新 A22 -= L21 · U12，逐块进行
+            double[] l21 = new double[BLOCK * kb];
+            double[] c = new double[BLOCK * BLOCK];
+            for (int i0 = k1; i0 < n; i0 += BLOCK) {
+                int h = Math.min(BLOCK, n - i0);
+                readBlock(i0, k0, h, kb, l21);
+                for (int j0 = k1; j0 < n; j0 += BLOCK) {
+                    int w = Math.min(BLOCK, n - j0);
+                    readBlock(k0, j0, kb, w, u12);
+                    readBlock(i0, j0, h, w, c);
+                    multiplyAddBlock(l21, u12, c, h, kb, w, -1.0);
+                    writeBlock(i0, j0, h, w, c);
+                }
+            }
+        }
+        return new Lu(this, piv, sign, singular);
+    }
+
+    /* ------------------ 块内核 ------------------ */
+
+    static void transposeBlock(double[] in, int h, int w, double[] out) {
+        for (int r = 0; r < h; r++) {
+            for (int c = 0; c < w; c++) out[c * h + r] = in[r * w + c];
+        }
+    }
+
+    /**
+     * c(h×w) += alpha · a(h×d) · b(d×w)，i-k-j 顺序以便顺序访问 b 与 c 的行
+     */
+    static void multiplyAddBlock(double[] a, double[] b, double[] c, int h, int d, int w, double alpha) {
+        for (int i = 0; i < h; i++) {
+            int ci = i * w;
+            for (int k = 0; k < d; k++) {
+                double aik = alpha * a[i * d + k];
+                if (aik == 0.0) continue;
+                int bk = k * w;
+                for (int j = 0; j < w; j++) c[ci + j] += aik * b[bk + j];
+            }
+        }
+    }
+
+    private static void requireShape(OffHeapMatrix C, long rows, long cols) {
+        if (C.rows != rows || C.cols != cols) {
+            throw new IllegalArgumentException(String.format("结果矩阵应为 %d×%d", rows, cols));
+        }
+    }
+
+    /* ------------------ LU 结果 ------------------ */
+
+    /** 原地 LU 分解的结果：L（单位下三角）与 U 合并存放在 factors 中 */
+    public static final class Lu {
+        private final OffHeapMatrix factors;
+        private final int[] piv;
+        private final int pivSign;
+        private final boolean singular;
+
+        Lu(OffHeapMatrix factors, int[] piv, int pivSign, boolean singular) {
+            this.factors = factors;
+            this.piv = piv;
+            this.pivSign = pivSign;
+            this.singular = singular;
+        }
+
+        public OffHeapMatrix factors() {
+            return factors;
+        }
+
+        public boolean isSingular() {
+            return singular;
+        }
+
+        public double determinant() {
+            double det = pivSign;
+            for (int i = 0; i < piv.length; i++) det *= factors.get(i, i);
+            return det;
+        }
+
+        /**
+         * 求解 A x = b，逐行读取因子
+         */
+        public double[] solve(double[] b) {
+            int n = piv.length;
+            if (b.length != n) throw new IllegalArgumentException("A 的行数必须等于 b 的长度");
+            if (singular) throw new ArithmeticException("矩阵奇异");
+            double[] x = new double[n];
+            for (int i = 0; i < n; i++) x[i] = b[piv[i]];
+            double[] row = new double[n];
+            for (int i = 1; i < n; i++) {
+                factors.readRow(i, 0, row, 0, i);
+                double s = x[i];
+                for (int j = 0; j < i; j++) s -= row[j] * x[j];
+                x[i] = s;
+            }
+            for (int i = n - 1; i >= 0; i--) {
+                factors.readRow(i, i, row, 0, n - i);
+                double s = x[i];
+                for (int j = 1; j < n - i; j++) s -= row[j] * x[i + j];
+                x[i] = s / row[0];
+            }
+            return x;
+        }
+    }
+
+    /* ------------------ 命令行入口 ------------------ */
+
+    /**
+     * 用法：
+     *  OffHeapMatrix random 输出文件 行数 列数 [种子]
+     *  OffHeapMatrix add A文件 B文件 输出文件
+     *  OffHeapMatrix transpose A文件 输出文件
+     *  OffHeapMatrix multiply A文件 B文件 输出文件
+     *  OffHeapMatrix det A文件 [临时文件]
+     *
+     * det 在临时文件上做原地 LU，不占用堆或物理内存；临时文件默认建在 A 文件所在目录，结束后删除
+     */
+    public static void main(String[] args) {
+        if (args.length < 2) {
+            System.err.println("用法: OffHeapMatrix random|add|transpose|multiply|det 参数...");
+            System.exit(2);
+        }
+        long start = System.nanoTime();
+        try {
+            switch (args[0]) {
+                case "random": {
+                    long r = Long.parseLong(args[2]);
+                    long c = Long.parseLong(args[3]);
+                    Random rand = new Random(args.length > 4 ? Long.parseLong(args[4]) : 42);
+                    try (OffHeapMatrix m = create(Paths.get(args[1]), r, c)) {
+                        double[] row = new double[(int) Math.min(c, BLOCK * BLOCK)];
+                        for (long i = 0; i < r; i++) {
+                            for (long j = 0; j < c; j += row.length) {
+                                int len = (int) Math.min(row.length, c - j);
+                                for (int t = 0; t < len; t++) row[t] = rand.nextDouble() * 2 - 1;
+                                m.writeRow(i, j, row, 0, len);
+                            }
+                        }
+                    }
+                    break;
+                }
+                case "add":
+                case "multiply": {
+                    try (OffHeapMatrix A = map(Paths.get(args[1]), false);
+                         OffHeapMatrix B = map(Paths.get(args[2]), false)) {
+                        boolean add = args[0].equals("add");
+                        try (OffHeapMatrix C = create(Paths.get(args[3]), A.rows, add ? A.cols : B.cols)) {
+                            if (add) add(A, B, C); else multiply(A, B, C);
+                        }
+                    }
+                    break;
+                }
+                case "transpose": {
+                    try (OffHeapMatrix A = map(Paths.get(args[1]), false);
+                         OffHeapMatrix C = create(Paths.get(args[2]), A.cols, A.rows)) {
+                        transpose(A, C);
+                    }
+                    break;
+                }
+                case "det": {
+                    Path input = Paths.get(args[1]).toAbsolutePath();
+                    Path scratch = args.length > 2 ? Paths.get(args[2])
+                            : Files.createTempFile(input.getParent(), input.getFileName() + ".", ".lu");
+                    try {
+                        try (OffHeapMatrix A = map(input, false);
+                             OffHeapMatrix work = create(scratch, A.rows, A.cols)) {
+                            MemorySegment.copy(A.data, 0, work.data, 0, A.data.byteSize());
+                            System.out.println("det = " + work.luInPlace().determinant());
+                        }
+                    } finally {
+                        Files.deleteIfExists(scratch);
+                    }
+                    break;
+                }
+                default:
+                    System.err.println("未知命令: " + args[0]);
+                    System.exit(2);
+            }
+            System.out.printf(Locale.ROOT, "完成，用时 %.2f s%n", (System.nanoTime() - start) / 1e9);
+        } catch (IOException e) {
+            System.err.println("文件错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("运算失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
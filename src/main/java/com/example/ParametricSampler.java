@@ -0,0 +1,193 @@
+package com.example;
+
+import net.objecthunter.exp4j.Expression;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * ParametricSampler - 参数方程 x(t), y(t) 与极坐标 r(θ) 采样（与界面无关）
+ *
+ * 特性：
+ *  - 两个表达式在同一 t 数组上批量并行求值（复用 FunctionSampler 的分块采样）
+ *  - 极坐标只求一次 r(θ)，再换算为 (r·cosθ, r·sinθ)
+ *  - 自适应细分：相邻两点的弦长超过阈值时对该 t 区间二分插点，
+ *    只在曲线“跑得快”的地方加密，而不是整体缩小 t 步长
+ *  - 可传入 ComputeBudget：预算用尽时停止细分（必要时连粗采样也不再求值），返回已得到的点
+ */
+public class ParametricSampler {
+
+    /** 弦长阈值占粗采样包围盒对角线的比例 */
+    private static final double SEGMENT_FRACTION = 1.0 / 400;
+    /** 单个区间的最大二分深度 */
+    private static final int MAX_REFINE_DEPTH = 10;
+
+    private ParametricSampler() {}
+
+    /** 采样结果：按 t 递增排列的点，无效点为 NaN */
+    public static class Curve {
+        public final double[] ts;
+        public final double[] xs;
+        public final double[] ys;
+        public final int evaluations;
+
+        Curve(double[] ts, double[] xs, double[] ys, int evaluations) {
+            this.ts = ts;
+            this.xs = xs;
+            this.ys = ys;
+            this.evaluations = evaluations;
+        }
+    }
+
+    /**
+     * 参数方程采样
+     * @param xExpr x(t)，以 t 为变量
+     * @param yExpr y(t)，以 t 为变量
+     */
+    public static Curve sampleParametric(String xExpr, String yExpr, double tMin, double tMax, double step) {
+        return sampleParametric(xExpr, yExpr, tMin, tMax, step, ComputeBudget.unlimited());
+    }
+
+    public static Curve sampleParametric(String xExpr, String yExpr, double tMin, double tMax, double step,
+                                         ComputeBudget budget) {
+        return sample(Arrays.asList(xExpr, yExpr), false, tMin, tMax, step, budget);
+    }
+
+    /**
+     * 极坐标采样
+     * @param rExpr r(θ)，以 t 为变量
+     */
+    public static Curve samplePolar(String rExpr, double thetaMin, double thetaMax, double step) {
+        return samplePolar(rExpr, thetaMin, thetaMax, step, ComputeBudget.unlimited());
+    }
+
+    public static Curve samplePolar(String rExpr, double thetaMin, double thetaMax, double step,
+                                    ComputeBudget budget) {
+        return sample(Arrays.asList(rExpr), true, thetaMin, thetaMax, step, budget);
+    }
+
+    private static Curve sample(List<String> exprs, boolean polar, double tMin, double tMax, double step,
+                                ComputeBudget budget) {
+        double[] ts = FunctionSampler.grid(tMin, tMax, step);
+        double[][] values = FunctionSampler.sampleAll(exprs, "t", ts, budget);
+        int n = ts.length;
+
+        double[] xs = new double[n];
+        double[] ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            if (polar) {
+                double r = values[0][i];
+                xs[i] = r * Math.cos(ts[i]);
+                ys[i] = r * Math.sin(ts[i]);
+            } else {
+                xs[i] = values[0][i];
+                ys[i] = values[1][i];
+            }
+        }
+        int evaluations = n * exprs.size();
+
+        double maxSegment = boundingDiagonal(xs, ys) * SEGMENT_FRACTION;
+        if (!(maxSegment > 0) || n < 2) {
+            return new Curve(ts, xs, ys, evaluations);
+        }
+
+        // 各区间独立细分，按区间并行；结果按区间顺序拼接
+        Expression[] compiled = new Expression[exprs.size()];
+        for (int e = 0; e < compiled.length; e++) {
+            compiled[e] = FunctionSampler.compile(exprs.get(e), "t");
+        }
+        int chunk = 256;
+        int chunks = (n - 1 + chunk - 1) / chunk;
+        List<List<double[]>> inserted = new ArrayList<>();
+        for (int c = 0; c < chunks; c++) inserted.add(null);
+        int[] extraEvaluations = new int[chunks];
+
+        IntStream.range(0, chunks).parallel().forEach(c -> {
+            Expression[] exps = new Expression[compiled.length];
+            for (int e = 0; e < exps.length; e++) exps[e] = new Expression(compiled[e]);
+            List<double[]> out = new ArrayList<>();
+            int from = c * chunk;
+            int to = Math.min(from + chunk, n - 1);
+            boolean refining = true;
+            for (int i = from; i < to; i++) {
+                out.add(new double[]{ts[i], xs[i], ys[i]});
+                // 预算用尽后只保留粗采样点
+                if (refining) refining = !budget.exhausted();
+                if (!refining) continue;
+                int before = out.size();
+                refine(exps, polar, ts[i], xs[i], ys[i], ts[i + 1], xs[i + 1], ys[i + 1],
+                        maxSegment, MAX_REFINE_DEPTH, out);
+                int added = (out.size() - before) * exps.length;
+                extraEvaluations[c] += added;
+                if (added > 0) refining = budget.spend(added);
+            }
+            inserted.set(c, out);
+        });
+
+        int total = 1;
+        for (List<double[]> l : inserted) total += l.size();
+        double[] rts = new double[total];
+        double[] rxs = new double[total];
+        double[] rys = new double[total];
+        int k = 0;
+        for (List<double[]> l : inserted) {
+            for (double[] p : l) {
+                rts[k] = p[0];
+                rxs[k] = p[1];
+                rys[k] = p[2];
+                k++;
+            }
+        }
+        rts[k] = ts[n - 1];
+        rxs[k] = xs[n - 1];
+        rys[k] = ys[n - 1];
+        for (int e : extraEvaluations) evaluations += e;
+        return new Curve(rts, rxs, rys, evaluations);
+    }
+
+    /**
+     * 对 (t0, t1) 区间二分插点，直到弦长不超过阈值或达到最大深度
+     * 只追加区间内部的点（不含两个端点）
+     */
+    private static void refine(Expression[] exps, boolean polar,
+                               double t0, double x0, double y0,
+                               double t1, double x1, double y1,
+                               double maxSegment, int depth, List<double[]> out) {
+        if (depth == 0) return;
+        if (Double.isNaN(x0) || Double.isNaN(y0) || Double.isNaN(x1) || Double.isNaN(y1)) return;
+        if (Math.hypot(x1 - x0, y1 - y0) <= maxSegment) return;
+
+        double tm = 0.5 * (t0 + t1);
+        double[] p = point(exps, polar, tm);
+        refine(exps, polar, t0, x0, y0, tm, p[0], p[1], maxSegment, depth - 1, out);
+        out.add(new double[]{tm, p[0], p[1]});
+        refine(exps, polar, tm, p[0], p[1], t1, x1, y1, maxSegment, depth - 1, out);
+    }
+
+    private static double[] point(Expression[] exps, boolean polar, double t) {
+        if (polar) {
+            double r = FunctionSampler.evaluate(exps[0], "t", t);
+            return new double[]{r * Math.cos(t), r * Math.sin(t)};
+        }
+        return new double[]{
+                FunctionSampler.evaluate(exps[0], "t", t),
+                FunctionSampler.evaluate(exps[1], "t", t)
+        };
+    }
+
+    private static double boundingDiagonal(double[] xs, double[] ys) {
+        double xMin = Double.POSITIVE_INFINITY, xMax = Double.NEGATIVE_INFINITY;
+        double yMin = Double.POSITIVE_INFINITY, yMax = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < xs.length; i++) {
+            if (Double.isNaN(xs[i]) || Double.isNaN(ys[i])) continue;
+            xMin = Math.min(xMin, xs[i]);
+            xMax = Math.max(xMax, xs[i]);
+            yMin = Math.min(yMin, ys[i]);
+            yMax = Math.max(yMax, ys[i]);
+        }
+        if (xMin > xMax) return 0;
+        return Math.hypot(xMax - xMin, yMax - yMin);
+    }
+}
@@ -0,0 +1,556 @@
+package com.example;
+
+import org.ejml.data.Complex_F64;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Polynomial - 多项式识别与求根
+ *
+ * 特性：
+ *  - parse 直接对表达式文本做递归下降解析，运算规则与 exp4j 一致
+ *    （^ 右结合且优先于一元负号，支持隐式乘法如 2x、3(x+1)）；
+ *    只要出现非多项式结构（变量在分母、非整数次幂、变量出现在函数内等）就返回 null
+ *  - 常数子表达式（如 sqrt(2)、pi）在解析时直接求值
+ *  - roots 用 Aberth–Ehrlich 同时迭代全部 d 个根（每轮 O(d²)），给出所有实根与复根，
+ *    与搜索区间无关；重根按包含圆与簇自身的散布半径识别（不用固定的距离阈值），单根与重根分别做牛顿修正
+ */
+public class Polynomial {
+
+    private static final int ABERTH_MAX_ITER = 500;
+    /** 重根各近似值到重心的距离允许超出理论散布半径的倍数 */
+    private static final double CLUSTER_SPREAD = 3;
+
+    /** 升幂系数：coeffs[i] 为 x^i 的系数，最高次系数非 0（零多项式除外） */
+    private final double[] coeffs;
+
+    public Polynomial(double... coeffs) {
+        int d = coeffs.length - 1;
+        while (d > 0 && coeffs[d] == 0) d--;
+        this.coeffs = Arrays.copyOf(coeffs, Math.max(d + 1, 1));
+    }
+
+    public int degree() {
+        return coeffs.length - 1;
+    }
+
+    /** 升幂系数的副本 */
+    public double[] coefficients() {
+        return coeffs.clone();
+    }
+
+    public double coefficient(int power) {
+        return power < coeffs.length ? coeffs[power] : 0.0;
+    }
+
+    public boolean isZero() {
+        return coeffs.length == 1 && coeffs[0] == 0;
+    }
+
+    public double evaluate(double x) {
+        double r = 0;
+        for (int i = coeffs.length - 1; i >= 0; i--) r = r * x + coeffs[i];
+        return r;
+    }
+
+    /* ------------------ 多项式运算 ------------------ */
+
+    Polynomial add(Polynomial o, double sign) {
+        double[] r = new double[Math.max(coeffs.length, o.coeffs.length)];
+        for (int i = 0; i < r.length; i++) r[i] = coefficient(i) + sign * o.coefficient(i);
+        return new Polynomial(r);
+    }
+
+    Polynomial multiply(Polynomial o) {
+        double[] r = new double[coeffs.length + o.coeffs.length - 1];
+        for (int i = 0; i < coeffs.length; i++) {
+            if (coeffs[i] == 0) continue;
+            for (int j = 0; j < o.coeffs.length; j++) r[i + j] += coeffs[i] * o.coeffs[j];
+        }
+        return new Polynomial(r);
+    }
+
+    Polynomial scale(double c) {
+        double[] r = new double[coeffs.length];
+        for (int i = 0; i < r.length; i++) r[i] = coeffs[i] * c;
+        return new Polynomial(r);
+    }
+
+    Polynomial pow(int k) {
+        Polynomial result = new Polynomial(1.0);
+        Polynomial base = this;
+        while (k > 0) {
+            if ((k & 1) == 1) result = result.multiply(base);
+            k >>= 1;
+            if (k > 0) base = base.multiply(base);
+        }
+        return result;
+    }
+
+    /* ------------------ 求根 ------------------ */
+
+    /**
+     * 全部 d 个根（含重根），实根在前按从小到大排列，复根按实部、虚部排列
+     */
+    public Complex_F64[] roots() {
+        return roots(ComputeBudget.unlimited());
+    }
+
+    /**
+     * 在计算预算内求根：每轮 Aberth 迭代计入 d 次求值，预算用尽时停止迭代，
+     * 返回当前近似值（仍经过牛顿修正），由 budget.status() 判断是否收敛
+     */
+    public Complex_F64[] roots(ComputeBudget budget) {
+        int d = degree();
+        if (d < 1) return new Complex_F64[0];
+
+        // x = 0 的根直接剥离
+        int zeros = 0;
+        while (coeffs[zeros] == 0) zeros++;
+        double[] a = Arrays.copyOfRange(coeffs, zeros, coeffs.length);
+        List<Complex_F64> result = new ArrayList<>();
+        for (int i = 0; i < zeros; i++) result.add(new Complex_F64(0, 0));
+
+        int n = a.length - 1;
+        if (n == 1) {
+            result.add(new Complex_F64(-a[0] / a[1], 0));
+        } else if (n >= 2) {
+            double[] re = new double[n];
+            double[] im = new double[n];
+            aberth(a, re, im, budget);
+            resolveClusters(a, re, im);
+            for (int k = 0; k < n; k++) {
+                double scale = Math.max(1.0, Math.hypot(re[k], im[k]));
+                if (Math.abs(im[k]) <= 1e-9 * scale) {
+                    re[k] = polishReal(a, re[k]);
+                    im[k] = 0;
+                }
+                result.add(new Complex_F64(re[k], im[k]));
+            }
+        }
+
+        result.sort(Comparator.<Complex_F64>comparingInt(c -> c.imaginary == 0 ? 0 : 1)
+                .thenComparingDouble(c -> c.real)
+                .thenComparingDouble(c -> c.imaginary));
+        return result.toArray(new Complex_F64[0]);
+    }
+
+    /**
+     * 只返回实根（去掉重复），从小到大
+     */
+    public List<Double> realRoots() {
+        List<Double> real = new ArrayList<>();
+        for (Complex_F64 c : roots()) {
+            if (c.imaginary != 0) continue;
+            if (!real.isEmpty() && Math.abs(c.real - real.get(real.size() - 1)) <= 1e-7 * Math.max(1.0, Math.abs(c.real))) {
+                continue;
+            }
+            real.add(c.real);
+        }
+        return real;
+    }
+
+    /**
+     * Aberth–Ehrlich 迭代（Gauss–Seidel 式逐个更新）
+     */
+    private static void aberth(double[] a, double[] re, double[] im, ComputeBudget budget) {
+        int n = a.length - 1;
+        // Fujiwara 界：所有根的模不超过 2·max |a_{n-k}/a_n|^{1/k}
+        double bound = 0;
+        for (int k = 1; k <= n; k++) {
+            bound = Math.max(bound, Math.pow(Math.abs(a[n - k] / a[n]), 1.0 / k));
+        }
+        double radius = Math.max(bound, 1e-3);
+        for (int k = 0; k < n; k++) {
+            double theta = 2 * Math.PI * k / n + 0.4;
+            re[k] = radius * Math.cos(theta);
+            im[k] = radius * Math.sin(theta);
+        }
+
+        double[] pv = new double[4];
+        for (int iter = 0; iter < ABERTH_MAX_ITER; iter++) {
+            if (!budget.spend(n)) return;
+            boolean converged = true;
+            for (int k = 0; k < n; k++) {
+                horner(a, re[k], im[k], pv);
+                double pr = pv[0], pi = pv[1], dr = pv[2], di = pv[3];
+                if (pr == 0 && pi == 0) continue;
+                // ratio = p / p'
+                double den = dr * dr + di * di;
+                if (den == 0) continue;
+                double rr = (pr * dr + pi * di) / den;
+                double ri = (pi * dr - pr * di) / den;
+                // sum = Σ 1 / (z_k - z_j)
+                double sr = 0, si = 0;
+                for (int j = 0; j < n; j++) {
+                    if (j == k) continue;
+                    double xr = re[k] - re[j];
+                    double xi = im[k] - im[j];
+                    double m = xr * xr + xi * xi;
+                    if (m == 0) continue;
+                    sr += xr / m;
+                    si -= xi / m;
+                }
+                // w = ratio / (1 - ratio · sum)
+                double cr = 1 - (rr * sr - ri * si);
+                double ci = -(rr * si + ri * sr);
+                double cm = cr * cr + ci * ci;
+                if (cm == 0) continue;
+                double wr = (rr * cr + ri * ci) / cm;
+                double wi = (ri * cr - rr * ci) / cm;
+                re[k] -= wr;
+                im[k] -= wi;
+                if (Math.hypot(wr, wi) > 1e-15 * Math.max(1.0, Math.hypot(re[k], im[k]))) converged = false;
+            }
+            if (converged) break;
+        }
+    }
+
+    /**
+     * m 重根在浮点下会散成一簇：先按包含圆找出候选簇，再用簇自身的散布半径确认重数，
+     * 确认的簇替换为一个 m 重根
+     *
+     *  - 近似根 z_k 的包含圆半径 r_k = n (|p(z_k)| + 舍入误差界) / |a_n Π_{j≠k} (z_k − z_j)|，
+     *    圆不重叠的近似根一定是不同的根，相距再近也不合并（如 (x−1)(x−1.0005)、x² − 1e-8）
+     *  - 圆的估计偏大，重叠的一组还要确认：在重心 c 附近 p(z) ≈ p^(m)(c)/m! · (z − c)^m，
+     *    舍入误差使 m 重根散开的半径约为 ρ = (m! · 误差界 / |p^(m)(c)|)^(1/m)；
+     *    各成员到重心的距离都不超过 CLUSTER_SPREAD · ρ 才算 m 重根，否则按 2-均值一分为二，
+     *    两部分分别再确认（如三重根旁 0.01 处的单根）
+     *  - 确认的簇取重心，再在 p 的 m−1 阶导数上做牛顿修正（重根是 p^(m−1) 的单根），
+     *    修正后 |p| 不超出误差量级时才采用；单根各自做牛顿修正
+     */
+    private static void resolveClusters(double[] a, double[] re, double[] im) {
+        int n = re.length;
+        double[] radius = new double[n];
+        double[] pv = new double[4];
+        for (int k = 0; k < n; k++) {
+            horner(a, re[k], im[k], pv);
+            double residual = Math.hypot(pv[0], pv[1]) + roundingBound(a, Math.hypot(re[k], im[k]));
+            double product = Math.abs(a[n]);
+            for (int j = 0; j < n; j++) {
+                double dist = Math.hypot(re[k] - re[j], im[k] - im[j]);
+                // 重合的近似根距离为 0，必然与 k 的圆重叠，不计入乘积
+                if (j != k && dist > 0) product *= dist;
+            }
+            radius[k] = n * residual / product;
+        }
+
+        // 包含圆重叠关系的连通分量即候选簇
+        int[] parent = new int[n];
+        for (int k = 0; k < n; k++) parent[k] = k;
+        for (int k = 0; k < n; k++) {
+            for (int j = k + 1; j < n; j++) {
+                if (Math.hypot(re[k] - re[j], im[k] - im[j]) <= radius[k] + radius[j]) {
+                    parent[find(parent, k)] = find(parent, j);
+                }
+            }
+        }
+        Deque<List<Integer>> pending = new ArrayDeque<>();
+        boolean[] grouped = new boolean[n];
+        for (int k = 0; k < n; k++) {
+            if (grouped[k]) continue;
+            List<Integer> group = new ArrayList<>();
+            int root = find(parent, k);
+            for (int j = k; j < n; j++) {
+                if (!grouped[j] && find(parent, j) == root) {
+                    group.add(j);
+                    grouped[j] = true;
+                }
+            }
+            pending.push(group);
+        }
+
+        while (!pending.isEmpty()) {
+            List<Integer> group = pending.pop();
+            if (group.size() == 1) {
+                polish(a, re, im, group.get(0));
+                continue;
+            }
+            double[] c = centroid(re, im, group);
+            if (!isMultipleRoot(a, re, im, group, c)) {
+                split(re, im, group, pending);
+                continue;
+            }
+            double[] z = refineMultiple(a, group.size(), c[0], c[1]);
+            for (int k : group) {
+                re[k] = z[0];
+                im[k] = z[1];
+            }
+        }
+    }
+
+    /**
+     * 散布过大的一组按 2-均值分成两组（以相距最远的两个成员为初始中心），分别重新确认
+     */
+    private static void split(double[] re, double[] im, List<Integer> group, Deque<List<Integer>> pending) {
+        int p = group.get(0), q = group.get(1);
+        double widest = -1;
+        for (int i = 0; i < group.size(); i++) {
+            for (int j = i + 1; j < group.size(); j++) {
+                double d = distance(re, im, group.get(i), new double[] {re[group.get(j)], im[group.get(j)]});
+                if (d > widest) {
+                    widest = d;
+                    p = group.get(i);
+                    q = group.get(j);
+                }
+            }
+        }
+        double[] cp = {re[p], im[p]};
+        double[] cq = {re[q], im[q]};
+        List<Integer> left = new ArrayList<>();
+        List<Integer> right = new ArrayList<>();
+        for (int iter = 0; iter < 10; iter++) {
+            List<Integer> nextLeft = new ArrayList<>();
+            List<Integer> nextRight = new ArrayList<>();
+            for (int k : group) {
+                if (distance(re, im, k, cp) <= distance(re, im, k, cq)) nextLeft.add(k);
+                else nextRight.add(k);
+            }
+            if (nextLeft.isEmpty() || nextRight.isEmpty() || nextLeft.equals(left)) break;
+            left = nextLeft;
+            right = nextRight;
+            cp = centroid(re, im, left);
+            cq = centroid(re, im, right);
+        }
+        pending.push(left);
+        pending.push(right);
+    }
+
+    /**
+     * 各成员到重心 c 的距离都在 m 重根的舍入散布半径之内
+     */
+    private static boolean isMultipleRoot(double[] a, double[] re, double[] im, List<Integer> group, double[] c) {
+        int m = group.size();
+        double[] pv = new double[4];
+        horner(derivative(a, m), c[0], c[1], pv);
+        double dm = Math.hypot(pv[0], pv[1]);
+        if (dm == 0) return true;
+        // ρ = (m! · 误差界 / |p^(m)(c)|)^(1/m)，取对数避免 m! 溢出
+        double logFactorial = 0;
+        for (int i = 2; i <= m; i++) logFactorial += Math.log(i);
+        double rho = Math.exp((logFactorial + Math.log(roundingBound(a, Math.hypot(c[0], c[1]))) - Math.log(dm)) / m);
+        for (int k : group) {
+            if (distance(re, im, k, c) > CLUSTER_SPREAD * rho) return false;
+        }
+        return true;
+    }
+
+    private static double[] centroid(double[] re, double[] im, List<Integer> group) {
+        double cr = 0, ci = 0;
+        for (int k : group) {
+            cr += re[k] / group.size();
+            ci += im[k] / group.size();
+        }
+        return new double[] {cr, ci};
+    }
+
+    private static double distance(double[] re, double[] im, int k, double[] c) {
+        return Math.hypot(re[k] - c[0], im[k] - c[1]);
+    }
+
+    /**
+     * 簇中心 (cr, ci) 处在 p^(m−1) 上做牛顿修正；修正后 |p| 超过中心处的 |p| 与舍入误差界时保留中心
+     * （牛顿步落到 p^(m−1) 的其他根上，即不属于这一簇）
+     */
+    private static double[] refineMultiple(double[] a, int m, double cr, double ci) {
+        double[] d = derivative(a, m - 1);
+        double[] centre = {cr, ci};
+        if (d.length < 2) return centre;
+        double[] zr = {cr};
+        double[] zi = {ci};
+        polish(d, zr, zi, 0);
+        double[] pv = new double[4];
+        horner(a, cr, ci, pv);
+        double limit = Math.max(Math.hypot(pv[0], pv[1]), roundingBound(a, Math.hypot(cr, ci)));
+        horner(a, zr[0], zi[0], pv);
+        return Math.hypot(pv[0], pv[1]) <= limit ? new double[] {zr[0], zi[0]} : centre;
+    }
+
+    /** Horner 求值的舍入误差界 2n·ε·Σ|a_i||z|^i */
+    private static double roundingBound(double[] a, double absZ) {
+        double sum = 0;
+        for (int i = a.length - 1; i >= 0; i--) sum = sum * absZ + Math.abs(a[i]);
+        return 2 * a.length * Math.ulp(1.0) * sum;
+    }
+
+    private static int find(int[] parent, int k) {
+        while (parent[k] != k) {
+            parent[k] = parent[parent[k]];
+            k = parent[k];
+        }
+        return k;
+    }
+
+    /** 升幂系数的 order 阶导数 */
+    private static double[] derivative(double[] a, int order) {
+        double[] d = a;
+        for (int o = 0; o < order && d.length > 1; o++) {
+            double[] next = new double[d.length - 1];
+            for (int i = 1; i < d.length; i++) next[i - 1] = d[i] * i;
+            d = next;
+        }
+        return d;
+    }
+
+    /** 复数 z 处的 p(z) 与 p'(z)：out = {Re p, Im p, Re p', Im p'} */
+    private static void horner(double[] a, double zr, double zi, double[] out) {
+        double pr = a[a.length - 1], pi = 0;
+        double dr = 0, di = 0;
+        for (int i = a.length - 2; i >= 0; i--) {
+            double ndr = dr * zr - di * zi + pr;
+            double ndi = dr * zi + di * zr + pi;
+            dr = ndr;
+            di = ndi;
+            double npr = pr * zr - pi * zi + a[i];
+            double npi = pr * zi + pi * zr;
+            pr = npr;
+            pi = npi;
+        }
+        out[0] = pr;
+        out[1] = pi;
+        out[2] = dr;
+        out[3] = di;
+    }
+
+    /** 复牛顿修正几步 */
+    private static void polish(double[] a, double[] re, double[] im, int k) {
+        double[] pv = new double[4];
+        for (int it = 0; it < 3; it++) {
+            horner(a, re[k], im[k], pv);
+            double den = pv[2] * pv[2] + pv[3] * pv[3];
+            if (den == 0) return;
+            double wr = (pv[0] * pv[2] + pv[1] * pv[3]) / den;
+            double wi = (pv[1] * pv[2] - pv[0] * pv[3]) / den;
+            if (!Double.isFinite(wr) || !Double.isFinite(wi)) return;
+            re[k] -= wr;
+            im[k] -= wi;
+        }
+    }
+
+    /** 实牛顿修正，只在残差减小时接受 */
+    private static double polishReal(double[] a, double x) {
+        double[] pv = new double[4];
+        horner(a, x, 0, pv);
+        double best = Math.abs(pv[0]);
+        for (int it = 0; it < 5 && best > 0; it++) {
+            if (pv[2] == 0) break;
+            double next = x - pv[0] / pv[2];
+            horner(a, next, 0, pv);
+            if (!(Math.abs(pv[0]) < best)) break;
+            best = Math.abs(pv[0]);
+            x = next;
+        }
+        return x;
+    }
+
+    /* ------------------ 解析 ------------------ */
+
+    /**
+     * 把表达式解析为关于 var 的多项式；不是多项式时返回 null
+     */
+    public static Polynomial parse(String expression, String var) {
+        if (expression == null) return null;
+        try {
+            return ExpressionParser.parse(expression, new Builder(var));
+        } catch (NotPolynomial | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** 解析过程中遇到非多项式结构 */
+    private static final class NotPolynomial extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        NotPolynomial() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** 由 ExpressionParser 的语法结构构造多项式；% 和作用于变量的函数都不是多项式 */
+    private static final class Builder implements ExpressionParser.Semantics<Polynomial> {
+        private final String var;
+
+        Builder(String var) {
+            this.var = var;
+        }
+
+        @Override
+        public Polynomial number(String literal) {
+            return new Polynomial(Double.parseDouble(literal));
+        }
+
+        @Override
+        public Polynomial name(String name) {
+            if (name.equals(var)) return new Polynomial(0.0, 1.0);
+            switch (name) {
+                case "π":
+                case "pi": return new Polynomial(Math.PI);
+                case "φ": return new Polynomial(1.61803398874);
+                case "e": return new Polynomial(Math.E);
+                default: throw new NotPolynomial();
+            }
+        }
+
+        @Override
+        public Polynomial negate(Polynomial operand) {
+            return operand.scale(-1);
+        }
+
+        @Override
+        public Polynomial binary(char op, Polynomial left, Polynomial right) {
+            switch (op) {
+                case '+': return left.add(right, 1);
+                case '-': return left.add(right, -1);
+                case '*': return left.multiply(right);
+                case '/':
+                    if (right.degree() != 0 || right.coeffs[0] == 0) throw new NotPolynomial();
+                    return left.scale(1.0 / right.coeffs[0]);
+                case '^': return power(left, right);
+                default: throw new NotPolynomial();
+            }
+        }
+
+        private static Polynomial power(Polynomial base, Polynomial exponent) {
+            if (exponent.degree() != 0) throw new NotPolynomial();
+            double e = exponent.coeffs[0];
+            if (base.degree() == 0) return new Polynomial(Math.pow(base.coeffs[0], e));
+            if (e < 0 || e != Math.rint(e) || e > 1000) throw new NotPolynomial();
+            return base.pow((int) e);
+        }
+
+        /**
+         * 函数只允许作用于常数，直接求值
+         */
+        @Override
+        public Polynomial call(String name, List<Polynomial> args) {
+            if (args.size() != 1 || args.get(0).degree() != 0) throw new NotPolynomial();
+            double v = args.get(0).coeffs[0];
+            double r;
+            switch (name) {
+                case "sin": r = Math.sin(v); break;
+                case "cos": r = Math.cos(v); break;
+                case "tan": r = Math.tan(v); break;
+                case "asin": r = Math.asin(v); break;
+                case "acos": r = Math.acos(v); break;
+                case "atan": r = Math.atan(v); break;
+                case "sinh": r = Math.sinh(v); break;
+                case "cosh": r = Math.cosh(v); break;
+                case "tanh": r = Math.tanh(v); break;
+                case "exp": r = Math.exp(v); break;
+                case "log": r = Math.log(v); break;
+                case "log10": r = Math.log10(v); break;
+                case "sqrt": r = Math.sqrt(v); break;
+                case "cbrt": r = Math.cbrt(v); break;
+                case "abs": r = Math.abs(v); break;
+                default: throw new NotPolynomial();
+            }
+            if (!Double.isFinite(r)) throw new NotPolynomial();
+            return new Polynomial(r);
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package com.example;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.MathContext;
+import java.math.RoundingMode;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * PrecisionEvaluator - 任意精度的表达式求值
+ *
+ * 特性：
+ *  - 语法与优先级与 exp4j 相同（^ 右结合且高于一元正负号，支持隐式乘法 2x、3(x+1)），
+ *    另外接受计算器输入的 ×、÷、π 与全角括号
+ *  - 数字按十进制精确读入（0.1 就是 0.1），每步运算按 位数 + 保护位 舍入，结果保留保护位，只在显示时舍入；
+ *    初等函数与常数 π、e、φ 由 BigDecimalMath 计算
+ *  - 变量由调用方以 BigDecimal 给出；不认识的函数或名称直接报错，不回退到双精度
+ *  - 可传入 ComputeBudget，每步运算与 BigDecimalMath 的级数循环都检查一次；floor/ceil 与 % 不展开
+ *    自变量的整数部分，1e10000000 这样的大数也只花与位数无关的时间
+ *  - 只用于显式要求的高精度计算，双精度路径（exp4j）不经过这里
+ */
+public final class PrecisionEvaluator {
+
+    /** 允许的有效位数范围 */
+    public static final int MIN_DIGITS = 1;
+    public static final int MAX_DIGITS = 10_000;
+    /** 中间运算额外保留的位数 */
+    private static final int GUARD = 10;
+
+    private final Map<String, BigDecimal> variables;
+    private final MathContext mc;
+    private final ComputeBudget budget;
+
+    private PrecisionEvaluator(Map<String, BigDecimal> variables, MathContext mc, ComputeBudget budget) {
+        this.variables = variables;
+        this.mc = mc;
+        this.budget = budget;
+    }
+
+    /**
+     * 以 digits 位有效数字求值；返回值仍带 GUARD 位保护位，以便作为 ans 继续参与运算时不累积舍入误差，
+     * 显示时用 format 舍入到 digits 位
+     * @throws IllegalArgumentException 语法错误、未知函数或变量、位数超出范围
+     * @throws ArithmeticException 除以零、超出定义域等
+     */
+    public static BigDecimal evaluate(String expression, Map<String, BigDecimal> variables, int digits) {
+        return evaluate(expression, variables, digits, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 同上，在 budget 内求值
+     * @throws ComputeBudget.ExhaustedException 预算用尽或线程被中断
+     */
+    public static BigDecimal evaluate(String expression, Map<String, BigDecimal> variables, int digits,
+                                      ComputeBudget budget) {
+        checkDigits(digits);
+        if (expression == null || expression.trim().isEmpty()) throw new IllegalArgumentException("表达式不能为空");
+        String text = expression.replace("×", "*").replace("÷", "/")
+                .replace("（", "(").replace("）", ")").replace("(−)", "(-1)");
+        PrecisionEvaluator p = new PrecisionEvaluator(variables, new MathContext(digits + GUARD), budget);
+        return ExpressionParser.parse(text, p.new Arithmetic());
+    }
+
+    public static void checkDigits(int digits) {
+        if (digits < MIN_DIGITS || digits > MAX_DIGITS) {
+            throw new IllegalArgumentException("精度须在 " + MIN_DIGITS + " 到 " + MAX_DIGITS + " 位之间");
+        }
+    }
+
+    /**
+     * 按 digits 位有效数字显示：去掉末尾的 0；数量级在 1e-6 到 1e位数 之间用普通写法，否则用科学计数法
+     */
+    public static String format(BigDecimal value, int digits) {
+        BigDecimal v = value.round(new MathContext(digits)).stripTrailingZeros();
+        if (v.signum() == 0) return "0";
+        int exponent = BigDecimalMath.exponent(v);
+        return exponent >= -6 && exponent < digits ? v.toPlainString() : v.toString();
+    }
+
+    /* ------------------ 求值 ------------------ */
+
+    /** ExpressionParser 的各语法结构按 mc 的精度直接求值 */
+    private final class Arithmetic implements ExpressionParser.Semantics<BigDecimal> {
+        @Override
+        public BigDecimal number(String literal) {
+            return new BigDecimal(literal);
+        }
+
+        @Override
+        public BigDecimal name(String name) {
+            if (name.equals("π")) return BigDecimalMath.pi(mc, budget);
+            if (name.equals("φ")) return golden();
+            BigDecimal v = variables.get(name);
+            if (v != null) return v;
+            if (name.equals("pi")) return BigDecimalMath.pi(mc, budget);
+            if (name.equals("e")) return BigDecimalMath.e(mc, budget);
+            throw new IllegalArgumentException("未知变量: " + name);
+        }
+
+        @Override
+        public BigDecimal negate(BigDecimal operand) {
+            return operand.negate();
+        }
+
+        @Override
+        public BigDecimal binary(char op, BigDecimal left, BigDecimal right) {
+            budget.checkpoint();
+            switch (op) {
+                case '+': return left.add(right, mc);
+                case '-': return left.subtract(right, mc);
+                case '*': return left.multiply(right, mc);
+                case '/': return divide(left, right);
+                case '%': return remainder(left, right);
+                default: return BigDecimalMath.pow(left, right, mc, budget);
+            }
+        }
+
+        @Override
+        public BigDecimal call(String name, List<BigDecimal> args) {
+            budget.checkpoint();
+            if (name.equals("pow")) {
+                if (args.size() != 2) throw new IllegalArgumentException("pow 需要两个参数");
+                return BigDecimalMath.pow(args.get(0), args.get(1), mc, budget);
+            }
+            if (args.size() != 1) throw new IllegalArgumentException("函数 " + name + " 只接受一个参数");
+            return function(name, args.get(0));
+        }
+    }
+
+    private BigDecimal function(String name, BigDecimal x) {
+        switch (name) {
+            case "sin": return BigDecimalMath.sin(x, mc, budget);
+            case "cos": return BigDecimalMath.cos(x, mc, budget);
+            case "tan": return BigDecimalMath.tan(x, mc, budget);
+            case "cot": return divide(BigDecimal.ONE, BigDecimalMath.tan(x, mc, budget));
+            case "sec": return divide(BigDecimal.ONE, BigDecimalMath.cos(x, mc, budget));
+            case "csc": return divide(BigDecimal.ONE, BigDecimalMath.sin(x, mc, budget));
+            case "asin": return BigDecimalMath.asin(x, mc, budget);
+            case "acos": return BigDecimalMath.acos(x, mc, budget);
+            case "atan": return BigDecimalMath.atan(x, mc, budget);
+            case "sinh": return BigDecimalMath.sinh(x, mc, budget);
+            case "cosh": return BigDecimalMath.cosh(x, mc, budget);
+            case "tanh": return BigDecimalMath.tanh(x, mc, budget);
+            case "exp": return BigDecimalMath.exp(x, mc, budget);
+            case "expm1": return expm1(x);
+            case "log": return BigDecimalMath.log(x, mc, budget);
+            case "log1p": return BigDecimalMath.log(BigDecimal.ONE.add(x), mc, budget);
+            case "log2": return divide(BigDecimalMath.log(x, wide(), budget), BigDecimalMath.ln2(wide(), budget));
+            case "log10": return divide(BigDecimalMath.log(x, wide(), budget), BigDecimalMath.ln10(wide(), budget));
+            case "sqrt": return BigDecimalMath.sqrt(x, mc);
+            case "cbrt": return cbrt(x);
+            case "abs": return x.abs();
+            case "floor": return integral(x, RoundingMode.FLOOR);
+            case "ceil": return integral(x, RoundingMode.CEILING);
+            case "signum": return BigDecimal.valueOf(x.signum());
+            case "toradian": return divide(x.multiply(BigDecimalMath.pi(mc, budget), mc), BigDecimal.valueOf(180));
+            case "todegree": return divide(x.multiply(BigDecimal.valueOf(180)), BigDecimalMath.pi(mc, budget));
+            default: throw new IllegalArgumentException("高精度模式不支持函数: " + name);
+        }
+    }
+
+    private BigDecimal divide(BigDecimal a, BigDecimal b) {
+        if (b.signum() == 0) throw new ArithmeticException("除数为零");
+        return a.divide(b, mc);
+    }
+
+    /** scale ≤ 0 的数已是整数，不再用 setScale 把 1e10000000 展开成一千万位 */
+    private static BigDecimal integral(BigDecimal x, RoundingMode mode) {
+        return x.scale() <= 0 ? x : x.setScale(0, mode);
+    }
+
+    /**
+     * 与 exp4j 的 % 相同：余数与被除数同号。两数化到相同的 scale 后对整数取模，
+     * 10 的幂用 modPow 算，被除数的指数再大（1e1000000 % 7）也不会展开商
+     */
+    private BigDecimal remainder(BigDecimal a, BigDecimal b) {
+        if (b.signum() == 0) throw new ArithmeticException("除数为零");
+        if (a.abs().compareTo(b.abs()) < 0) return a.round(mc);
+        int scale = Math.max(a.scale(), b.scale());
+        BigInteger m = b.unscaledValue().abs().multiply(BigInteger.TEN.pow(scale - b.scale()));
+        BigInteger n = a.unscaledValue().abs().mod(m)
+                .multiply(BigInteger.TEN.modPow(BigInteger.valueOf((long) scale - a.scale()), m)).mod(m);
+        BigDecimal r = new BigDecimal(n, scale);
+        return (a.signum() < 0 ? r.negate() : r).round(mc);
+    }
+
+    /** e^x − 1 = 2 sinh(x/2) e^(x/2)，x 接近 0 时没有相消 */
+    private BigDecimal expm1(BigDecimal x) {
+        BigDecimal half = x.divide(BigDecimal.valueOf(2));
+        return BigDecimalMath.sinh(half, wide(), budget).multiply(BigDecimalMath.exp(half, wide(), budget))
+                .multiply(BigDecimal.valueOf(2), mc);
+    }
+
+    private BigDecimal cbrt(BigDecimal x) {
+        if (x.signum() == 0) return BigDecimal.ZERO;
+        BigDecimal third = BigDecimal.ONE.divide(BigDecimal.valueOf(3), wide());
+        BigDecimal r = BigDecimalMath.pow(x.abs(), third, mc, budget);
+        // 整数立方根（如 cbrt(27)）在 1/3 的舍入下会差最后一位，取整后验证；
+        // 整数部分超出精度时舍入已经精确，不必展开
+        if (BigDecimalMath.exponent(r) < mc.getPrecision()) {
+            BigDecimal rounded = r.setScale(0, RoundingMode.HALF_EVEN);
+            if (rounded.pow(3).compareTo(x.abs()) == 0) r = rounded;
+        }
+        return x.signum() < 0 ? r.negate() : r;
+    }
+
+    /** φ = (1 + √5) / 2 */
+    private BigDecimal golden() {
+        return BigDecimal.ONE.add(BigDecimalMath.sqrt(BigDecimal.valueOf(5), wide())).divide(BigDecimal.valueOf(2), mc);
+    }
+
+    private MathContext wide() {
+        return new MathContext(mc.getPrecision() + GUARD);
+    }
+}
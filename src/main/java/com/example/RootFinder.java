@@ -0,0 +1,262 @@
+package com.example;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * RootFinder - 单变量方程在区间上的全部实根
+ *
+ * 特性：
+ *  - 区间切成固定数目的段并行扫描；段数与机器无关，同一输入在任何机器上得到相同的根，核数只影响调度
+ *  - 每段自适应二分：函数偏离弦线较大或不单调（极值、跳跃、极点）的地方继续细分，
+ *    以分开相距很近的根，以及同一小区间内的根与极点
+ *  - 同时检查 f 与 f' 的符号：f 变号给出奇数重根的区间，f' 变号且 |f| 很小给出偶数重根（切点）
+ *  - 每个区间用 Brent 法精确求根；收敛点处 |f| 相对区间端点没有显著减小的变号（极点如 tan(x)、跳跃）被剔除，
+ *    判定是相对的，陡峭函数（如 exp(x) = 1e10）的根不受影响
+ *  - f 恰为 0 的点只有两侧附近不为 0 时才算根，下溢成 0 的整段（如 exp(x) 在 x < -745 处）不产生假根
+ *  - 表达式支持区间算术时做分支定界：IntervalExpression 证明 f 在子区间上不含 0 的整段跳过，
+ *    不再求值也不再细分
+ *  - 结果去重后按从小到大返回
+ *  - 可传入 ComputeBudget：各段按批计入求值次数，预算用尽或被取消时立即停止，返回已找到的根
+ */
+public class RootFinder {
+
+    /** 并行扫描的段数，固定不变以保证结果与处理器核数无关 */
+    private static final int SEGMENTS = 256;
+    /** 每段的最小、最大细分深度 */
+    private static final int MIN_DEPTH = 3;
+    private static final int MAX_DEPTH = 8;
+    /** 被接受为根时 |f| 的上限 */
+    private static final double F_TOL = 1e-10;
+    /** 极点判定：Brent 收敛点处 |f| 超过端点处 max(|f(a)|, |f(b)|) 的这一比例时视为间断而非根 */
+    private static final double POLE_RATIO = 1e-6;
+    private static final int BRENT_MAX_ITER = 100;
+    /** 每累计这么多次求值向预算计数一次，减少共享计数器上的竞争 */
+    private static final int CHARGE_BATCH = 64;
+
+    private RootFinder() {}
+
+    /**
+     * 在 [min, max] 上求 f(var) = 0 的全部实根
+     * @param expression 表达式（如 "(x^2)-(4)"）
+     */
+    public static List<Double> findAllRoots(String expression, String var, double min, double max) {
+        return findAllRoots(expression, var, min, max, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 在计算预算内求根；预算用尽时返回已找到的根（可能不完整），由 budget.status() 判断
+     */
+    public static List<Double> findAllRoots(String expression, String var, double min, double max,
+                                            ComputeBudget budget) {
+        if (!(min < max)) throw new IllegalArgumentException("搜索区间无效");
+        Expression compiled;
+        try {
+            compiled = new ExpressionBuilder(expression).variable(var).build();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("函数解析错误: " + e.getMessage());
+        }
+
+        // 求值树无状态，所有线程共享；不支持区间求值时为 null，退回逐点扫描
+        IntervalExpression enclosure = IntervalExpression.compile(expression, var);
+        if (enclosure != null && enclosure.excludesZero(min, max)) return new ArrayList<>();
+
+        double width = (max - min) / SEGMENTS;
+        List<Double> raw = IntStream.range(0, SEGMENTS).parallel()
+                .mapToObj(i -> {
+                    double a = min + i * width;
+                    double b = (i == SEGMENTS - 1) ? max : min + (i + 1) * width;
+                    if (budget.exhausted()) return new ArrayList<Double>();
+                    return new Scanner(new Expression(compiled), var, enclosure, budget).scan(a, b);
+                })
+                .flatMap(List::stream)
+                .sorted()
+                .collect(Collectors.toList());
+        return deduplicate(raw);
+    }
+
+    private static List<Double> deduplicate(List<Double> sorted) {
+        List<Double> roots = new ArrayList<>();
+        for (double r : sorted) {
+            if (roots.isEmpty()) {
+                roots.add(r);
+                continue;
+            }
+            double last = roots.get(roots.size() - 1);
+            if (Math.abs(r - last) > 1e-8 * Math.max(1.0, Math.abs(r))) roots.add(r);
+        }
+        return roots;
+    }
+
+    /** 单段扫描，持有自己的表达式副本 */
+    private static final class Scanner {
+        private final Expression exp;
+        private final String var;
+        private final IntervalExpression enclosure;
+        private final ComputeBudget budget;
+        private final List<Double> roots = new ArrayList<>();
+        private int pending;
+
+        Scanner(Expression exp, String var, IntervalExpression enclosure, ComputeBudget budget) {
+            this.exp = exp;
+            this.var = var;
+            this.enclosure = enclosure;
+            this.budget = budget;
+        }
+
+        /**
+         * 扫描 [a, b]；预算用尽时放弃本段其余部分，只返回已确认的根
+         */
+        List<Double> scan(double a, double b) {
+            if (rootFree(a, b)) return roots;
+            try {
+                double fa = f(a);
+                double fb = f(b);
+                if (fa == 0 && isolatedZero(a, 0.5 * (b - a))) roots.add(a);
+                subdivide(a, fa, b, fb, 0);
+                if (pending > 0) budget.spend(pending);
+            } catch (ComputeBudget.ExhaustedException e) {
+                // 已加入的根都经过完整的 Brent 迭代，保留
+            }
+            return roots;
+        }
+
+        private void subdivide(double a, double fa, double b, double fb, int depth) {
+            if (depth > 0 && rootFree(a, b)) return;
+            double m = 0.5 * (a + b);
+            double fm = f(m);
+            if (depth < MAX_DEPTH && (depth < MIN_DEPTH || needsRefinement(fa, fm, fb))) {
+                subdivide(a, fa, m, fm, depth + 1);
+                subdivide(m, fm, b, fb, depth + 1);
+                return;
+            }
+            examine(a, fa, m, fm);
+            examine(m, fm, b, fb);
+        }
+
+        /**
+         * 中点偏离弦线较多、三点不单调（区间内有极值、跳跃或极点），或端点无定义时继续细分
+         */
+        private boolean needsRefinement(double fa, double fm, double fb) {
+            if (!Double.isFinite(fa) || !Double.isFinite(fm) || !Double.isFinite(fb)) return true;
+            if ((fm - fa) * (fb - fm) < 0) return true;
+            double chordError = Math.abs(fm - 0.5 * (fa + fb));
+            double scale = Math.abs(fa) + Math.abs(fm) + Math.abs(fb);
+            return chordError > 0.1 * scale + 1e-300;
+        }
+
+        /**
+         * 叶区间 [a, b]：检查 f 变号（奇数重根）与 f' 变号（可能的偶数重根）
+         */
+        private void examine(double a, double fa, double b, double fb) {
+            if (!Double.isFinite(fa) || !Double.isFinite(fb)) return;
+            if (rootFree(a, b)) return;
+            if (fb == 0) {
+                if (isolatedZero(b, 0.5 * (b - a))) roots.add(b);
+                return;
+            }
+            if (fa == 0) return;
+            if (fa * fb < 0) {
+                double r = brent(a, fa, b, fb, false);
+                if (!Double.isNaN(r) && Math.abs(f(r)) <= POLE_RATIO * Math.max(Math.abs(fa), Math.abs(fb))) {
+                    roots.add(r);
+                }
+                return;
+            }
+            // 同号：若 |f| 在区间内有极小值且接近 0，则为切点（偶数重根）
+            double da = df(a);
+            double db = df(b);
+            if (!Double.isFinite(da) || !Double.isFinite(db) || da * db >= 0) return;
+            // 只关心 |f| 的极小值：f > 0 时 f' 由负变正，f < 0 时由正变负
+            if ((fa > 0 && da > 0) || (fa < 0 && da < 0)) return;
+            double x = brent(a, da, b, db, true);
+            if (!Double.isNaN(x) && Math.abs(f(x)) <= F_TOL) roots.add(x);
+        }
+
+        /**
+         * Brent 法求 g 在 [a, b] 上的根，g 为 f（derivative = false）或 f'
+         */
+        private double brent(double a, double ga, double b, double gb, boolean derivative) {
+            double c = a, gc = ga, d = b - a, e = d;
+            for (int iter = 0; iter < BRENT_MAX_ITER; iter++) {
+                if (gb * gc > 0) {
+                    c = a; gc = ga; d = b - a; e = d;
+                }
+                if (Math.abs(gc) < Math.abs(gb)) {
+                    a = b; b = c; c = a;
+                    ga = gb; gb = gc; gc = ga;
+                }
+                double tol = 2 * Math.ulp(b) + 1e-15 * Math.abs(b);
+                double half = 0.5 * (c - b);
+                if (Math.abs(half) <= tol || gb == 0) return b;
+
+                if (Math.abs(e) >= tol && Math.abs(ga) > Math.abs(gb)) {
+                    // 反二次插值或割线
+                    double s = gb / ga, p, q;
+                    if (a == c) {
+                        p = 2 * half * s;
+                        q = 1 - s;
+                    } else {
+                        double qq = ga / gc, r = gb / gc;
+                        p = s * (2 * half * qq * (qq - r) - (b - a) * (r - 1));
+                        q = (qq - 1) * (r - 1) * (s - 1);
+                    }
+                    if (p > 0) q = -q; else p = -p;
+                    if (2 * p < Math.min(3 * half * q - Math.abs(tol * q), Math.abs(e * q))) {
+                        e = d;
+                        d = p / q;
+                    } else {
+                        d = half;
+                        e = d;
+                    }
+                } else {
+                    d = half;
+                    e = d;
+                }
+                a = b;
+                ga = gb;
+                b += Math.abs(d) > tol ? d : Math.copySign(tol, half);
+                gb = derivative ? df(b) : f(b);
+                if (!Double.isFinite(gb)) return Double.NaN;
+            }
+            return b;
+        }
+
+        /**
+         * f(x) = 0 且 x ± h 处 f 不为 0：排除 f 下溢成 0 的整段
+         */
+        private boolean isolatedZero(double x, double h) {
+            return f(x - h) != 0 && f(x + h) != 0;
+        }
+
+        /**
+         * 区间包络不含 0 时 [a, b] 上必然无根
+         */
+        private boolean rootFree(double a, double b) {
+            return enclosure != null && enclosure.excludesZero(a, b);
+        }
+
+        private double f(double x) {
+            if (++pending == CHARGE_BATCH) {
+                pending = 0;
+                budget.charge(CHARGE_BATCH);
+            }
+            try {
+                return exp.setVariable(var, x).evaluate();
+            } catch (ArithmeticException e) {
+                return Double.NaN;
+            }
+        }
+
+        /** 中心差分 f'(x) */
+        private double df(double x) {
+            double h = 1e-6 * Math.max(1.0, Math.abs(x));
+            return (f(x + h) - f(x - h)) / (2 * h);
+        }
+    }
+}
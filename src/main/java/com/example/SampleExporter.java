@@ -0,0 +1,216 @@
+package com.example;
+
+import net.objecthunter.exp4j.Expression;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * SampleExporter - 函数采样数据导出（无界面、流式写文件）
+ *
+ * 特性：
+ *  - 不构建 JFreeChart 图表，直接把 (x, y) 采样流式写入文件
+ *  - 每个写线程只持有一个固定大小的缓冲区，内存占用与采样点数无关
+ *  - CSV：顺序写出紧凑文本；BINARY：每点 16 字节（x、y 各一个小端 double，无文件头）
+ *  - 并行模式按点号切分为若干区间，各区间写入文件中互不重叠的位置；
+ *    CSV 并行时改用定宽记录，以便直接计算每个区间的文件偏移
+ *
+ * 命令行：
+ *  java -cp casio-calculator-standalone.jar com.example.SampleExporter
+ *       函数 xMin xMax 步长 输出文件 [csv|bin] [线程数]
+ */
+public class SampleExporter {
+
+    public enum Format { CSV, BINARY }
+
+    /** 每个写线程的缓冲区大小 */
+    private static final int BUFFER_SIZE = 1 << 20;
+    /** 并行模式下每个任务负责的点数 */
+    private static final long POINTS_PER_TASK = 1L << 20;
+    /** Double.toString 的最大长度，如 -1.2345678901234567E-308 */
+    private static final int FIELD_WIDTH = 24;
+    /** 定宽 CSV 每行字节数：两个字段 + 逗号 + 换行 */
+    private static final int CSV_RECORD = FIELD_WIDTH * 2 + 2;
+    private static final int BINARY_RECORD = 16;
+    private static final byte[] CSV_HEADER = "x,y\n".getBytes(StandardCharsets.US_ASCII);
+
+    private SampleExporter() {}
+
+    /**
+     * 计算 [xMin, xMax] 上步长为 step 的采样点数
+     */
+    public static long pointCount(double xMin, double xMax, double step) {
+        if (!(xMin < xMax)) throw new IllegalArgumentException("X 最小值必须小于最大值");
+        if (!(step > 0)) throw new IllegalArgumentException("步长必须大于 0");
+        return (long) Math.floor((xMax - xMin) / step + 1e-9) + 1;
+    }
+
+    /**
+     * 采样并写入文件
+     * @param function 函数（未预处理的用户输入）
+     * @param threads 写线程数，1 表示顺序写出
+     * @return 写出的采样点数
+     */
+    public static long export(String function, double xMin, double xMax, double step,
+                              Path output, Format format, int threads) throws IOException {
+        if (threads < 1) throw new IllegalArgumentException("线程数必须大于 0");
+        Expression compiled = FunctionSampler.compile(FunctionSampler.preprocess(function));
+        long count = pointCount(xMin, xMax, step);
+
+        try (FileChannel channel = FileChannel.open(output, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            if (threads == 1) {
+                writeSequential(channel, compiled, xMin, step, count, format);
+            } else {
+                writeParallel(channel, compiled, xMin, step, count, format, threads);
+            }
+        }
+        return count;
+    }
+
+    private static void writeSequential(FileChannel channel, Expression exp, double xMin, double step,
+                                        long count, Format format) throws IOException {
+        ByteBuffer buf = newBuffer();
+        if (format == Format.CSV) buf.put(CSV_HEADER);
+        for (long i = 0; i < count; i++) {
+            if (buf.remaining() < CSV_RECORD) flush(channel, buf, -1);
+            double x = xMin + i * step;
+            double y = FunctionSampler.evaluate(exp, "x", x);
+            if (format == Format.BINARY) {
+                buf.putDouble(x).putDouble(y);
+            } else {
+                putAscii(buf, Double.toString(x));
+                buf.put((byte) ',');
+                putAscii(buf, Double.toString(y));
+                buf.put((byte) '\n');
+            }
+        }
+        flush(channel, buf, -1);
+    }
+
+    private static void writeParallel(FileChannel channel, Expression compiled, double xMin, double step,
+                                      long count, Format format, int threads) throws IOException {
+        int record = format == Format.BINARY ? BINARY_RECORD : CSV_RECORD;
+        long base = 0;
+        if (format == Format.CSV) {
+            channel.write(ByteBuffer.wrap(CSV_HEADER), 0);
+            base = CSV_HEADER.length;
+        }
+        final long dataStart = base;
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long from = 0; from < count; from += POINTS_PER_TASK) {
+                long start = from;
+                long end = Math.min(from + POINTS_PER_TASK, count);
+                futures.add(pool.submit(() -> {
+                    // 每个任务使用自己的表达式副本与缓冲区，按绝对偏移写入，互不干扰
+                    Expression exp = new Expression(compiled);
+                    ByteBuffer buf = newBuffer();
+                    long position = dataStart + start * record;
+                    for (long i = start; i < end; i++) {
+                        if (buf.remaining() < record) position = flush(channel, buf, position);
+                        double x = xMin + i * step;
+                        double y = FunctionSampler.evaluate(exp, "x", x);
+                        if (format == Format.BINARY) {
+                            buf.putDouble(x).putDouble(y);
+                        } else {
+                            putFixed(buf, Double.toString(x));
+                            buf.put((byte) ',');
+                            putFixed(buf, Double.toString(y));
+                            buf.put((byte) '\n');
+                        }
+                    }
+                    flush(channel, buf, position);
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("导出被中断", e);
+        } catch (ExecutionException e) {
+            throw new IOException("导出失败: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private static ByteBuffer newBuffer() {
+        return ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * 写出缓冲区内容；position 为 -1 时按通道当前位置顺序写，否则写到指定偏移
+     * @return 写完后的下一个偏移
+     */
+    private static long flush(FileChannel channel, ByteBuffer buf, long position) throws IOException {
+        buf.flip();
+        while (buf.hasRemaining()) {
+            if (position < 0) {
+                channel.write(buf);
+            } else {
+                position += channel.write(buf, position);
+            }
+        }
+        buf.clear();
+        return position;
+    }
+
+    private static void putAscii(ByteBuffer buf, String s) {
+        for (int i = 0; i < s.length(); i++) buf.put((byte) s.charAt(i));
+    }
+
+    /**
+     * 右对齐写出定宽字段（左侧补空格）
+     */
+    private static void putFixed(ByteBuffer buf, String s) {
+        for (int i = s.length(); i < FIELD_WIDTH; i++) buf.put((byte) ' ');
+        putAscii(buf, s);
+    }
+
+    /* ------------------ 命令行入口 ------------------ */
+
+    public static void main(String[] args) {
+        if (args.length < 5) {
+            System.err.println("用法: SampleExporter <函数> <xMin> <xMax> <步长> <输出文件> [csv|bin] [线程数]");
+            System.err.println("示例: SampleExporter \"sin(x)*x\" -10 10 0.001 out.csv csv 4");
+            System.exit(2);
+        }
+        try {
+            String function = args[0];
+            double xMin = Double.parseDouble(args[1]);
+            double xMax = Double.parseDouble(args[2]);
+            double step = Double.parseDouble(args[3]);
+            Path output = Paths.get(args[4]);
+            Format format = args.length > 5 && args[5].toLowerCase(Locale.ROOT).startsWith("bin")
+                    ? Format.BINARY : Format.CSV;
+            int threads = args.length > 6 ? Integer.parseInt(args[6]) : 1;
+
+            long start = System.nanoTime();
+            long count = export(function, xMin, xMax, step, output, format, threads);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.printf(Locale.ROOT, "已写出 %d 个点 -> %s (%.2f s, %.0f 点/秒)%n",
+                    count, output, seconds, count / Math.max(seconds, 1e-9));
+        } catch (Exception e) {
+            System.err.println("导出失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
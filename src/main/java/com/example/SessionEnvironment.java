@@ -0,0 +1,387 @@
+package com.example;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import net.objecthunter.exp4j.function.Function;
+import net.objecthunter.exp4j.function.Functions;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * SessionEnvironment - 会话的变量、用户函数与编译缓存
+ *
+ * 特性：
+ *  - 用户函数 f(x, y) = 体 编译为 exp4j 自定义 Function，只编译一次；引用它的表达式在编译时
+ *    直接嵌入该函数记号，求值时不再解析函数体
+ *  - 变量的当前值在编译时写入表达式模板（函数体同样如此），求值时无需逐个绑定；只有 ans 每次绑定
+ *  - 编译过的表达式按文本缓存；依赖图记录 “名称 → 直接依赖它的函数与缓存表达式”，
+ *    重新定义变量或函数时沿依赖图只失效受影响的编译结果，其余缓存保持不变
+ *  - 定义函数时检查未定义的名称与函数间的循环引用
+ *  - 读多写少：求值只读 ConcurrentHashMap 与不再修改的模板；定义、失效与写缓存在同一把锁内完成，
+ *    并用代数号防止与定义并发的编译把过期结果写回缓存
+ */
+final class SessionEnvironment {
+
+    /** 每个会话缓存的编译表达式条数 */
+    private static final int CACHE_LIMIT = 256;
+    private static final Pattern IDENTIFIER = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+    private static final Pattern EXPONENT = Pattern.compile("[eE][0-9]*");
+
+    private final Map<String, Double> variables = new ConcurrentHashMap<>();
+    private final Map<String, UserFunction> functions = new ConcurrentHashMap<>();
+    private final Map<String, Compiled> cache = new ConcurrentHashMap<>();
+
+    private final Object lock = new Object();
+    /** 名称 → 函数体中直接引用它的函数名（按定义维护，与是否已编译无关） */
+    private final Map<String, Set<String>> functionDependents = new HashMap<>();
+    /** 名称 → 直接引用它的缓存表达式 */
+    private final Map<String, Set<String>> expressionDependents = new HashMap<>();
+    /** 每次定义或删除加 1；编译开始后代数号变化则结果不写回 */
+    private long generation;
+
+    /** 编译好的表达式模板；除 ans 外的变量值都已写入，模板本身不再修改，可被多个线程同时求值 */
+    private static final class Compiled {
+        final Expression template;
+        final boolean usesAns;
+        /** 直接引用的变量名与函数名 */
+        final Set<String> dependencies;
+
+        Compiled(Expression template, boolean usesAns, Set<String> dependencies) {
+            this.template = template;
+            this.usesAns = usesAns;
+            this.dependencies = dependencies;
+        }
+    }
+
+    /** 一个用户函数的定义与（惰性）编译结果 */
+    private static final class UserFunction {
+        final String name;
+        final String[] params;
+        /** 原始函数体，用于显示 */
+        final String source;
+        /** 预处理后的函数体 */
+        final String body;
+        /** 函数体引用的变量名与函数名（不含参数） */
+        final Set<String> references;
+        /** 依赖的名称被重新定义后置为 null，下次使用时重新编译 */
+        volatile CompiledFunction compiled;
+
+        UserFunction(String name, String[] params, String source, String body, Set<String> references) {
+            this.name = name;
+            this.params = params;
+            this.source = source;
+            this.body = body;
+            this.references = references;
+        }
+
+        @Override
+        public String toString() {
+            return name + "(" + String.join(", ", params) + ") = " + source;
+        }
+    }
+
+    /**
+     * 用户函数的 exp4j 形式：函数体模板已写入变量值，参数在调用时绑定；
+     * 每个线程使用自己的模板副本（禁止递归定义，同一线程上不会重入）
+     */
+    private static final class CompiledFunction extends Function {
+        private final String[] params;
+        private final ThreadLocal<Expression> body;
+
+        CompiledFunction(String name, String[] params, Expression template) {
+            super(name, params.length);
+            this.params = params;
+            this.body = ThreadLocal.withInitial(() -> new Expression(template));
+        }
+
+        @Override
+        public double apply(double... args) {
+            Expression e = body.get();
+            for (int i = 0; i < params.length; i++) e.setVariable(params[i], args[i]);
+            return e.evaluate();
+        }
+    }
+
+    /* ------------------ 求值 ------------------ */
+
+    /**
+     * 在当前环境中求值（表达式需已预处理）
+     */
+    double evaluate(String expression, double ans) {
+        Compiled c = cache.get(expression);
+        if (c == null) c = compileAndCache(expression);
+        if (!c.usesAns) return c.template.evaluate();
+        return new Expression(c.template).setVariable(CalculatorSession.ANS, ans).evaluate();
+    }
+
+    private Compiled compileAndCache(String expression) {
+        long g;
+        synchronized (lock) {
+            g = generation;
+        }
+        Compiled c = compile(expression, new String[0], true);
+        synchronized (lock) {
+            if (g == generation && !cache.containsKey(expression)) {
+                if (cache.size() >= CACHE_LIMIT) {
+                    Iterator<String> it = cache.keySet().iterator();
+                    if (it.hasNext()) uncache(it.next());
+                }
+                cache.put(expression, c);
+                for (String d : c.dependencies) {
+                    expressionDependents.computeIfAbsent(d, k -> new HashSet<>()).add(expression);
+                }
+            }
+        }
+        return c;
+    }
+
+    /**
+     * 编译 text：params 为函数参数（不写入值），其余标识符按变量、用户函数、ans 解析
+     */
+    private Compiled compile(String text, String[] params, boolean allowAns) {
+        Set<String> paramSet = new HashSet<>(Arrays.asList(params));
+        Set<String> declared = new HashSet<>(paramSet);
+        Set<String> dependencies = new LinkedHashSet<>();
+        Map<String, Double> values = new HashMap<>();
+        List<Function> used = new ArrayList<>();
+        boolean usesAns = false;
+
+        for (String id : identifiers(text)) {
+            if (paramSet.contains(id)) continue;
+            Double v = variables.get(id);
+            if (v != null) {
+                declared.add(id);
+                values.put(id, v);
+                dependencies.add(id);
+                continue;
+            }
+            UserFunction f = functions.get(id);
+            if (f != null) {
+                used.add(resolve(f));
+                dependencies.add(id);
+            } else if (allowAns && id.equals(CalculatorSession.ANS)) {
+                declared.add(id);
+                usesAns = true;
+            }
+        }
+
+        Expression template = new ExpressionBuilder(text).variables(declared).functions(used).build();
+        template.setVariables(values);
+        return new Compiled(template, usesAns, dependencies);
+    }
+
+    private CompiledFunction resolve(UserFunction f) {
+        CompiledFunction cf = f.compiled;
+        if (cf != null) return cf;
+        long g;
+        synchronized (lock) {
+            g = generation;
+        }
+        cf = new CompiledFunction(f.name, f.params, compile(f.body, f.params, false).template);
+        synchronized (lock) {
+            if (g == generation && functions.get(f.name) == f) f.compiled = cf;
+        }
+        return cf;
+    }
+
+    /* ------------------ 定义 ------------------ */
+
+    void setVariable(String name, double value) {
+        synchronized (lock) {
+            if (functions.containsKey(name)) throw new IllegalArgumentException("名称已被函数使用: " + name);
+            Double old = variables.put(name, value);
+            // 值没变时编译结果仍然有效
+            if (old == null || !old.equals(value)) invalidate(name);
+        }
+    }
+
+    Double getVariable(String name) {
+        return variables.get(name);
+    }
+
+    boolean removeVariable(String name) {
+        synchronized (lock) {
+            if (variables.remove(name) == null) return false;
+            invalidate(name);
+            return true;
+        }
+    }
+
+    /** 变量表快照（按名称排序） */
+    Map<String, Double> variables() {
+        return Collections.unmodifiableMap(new TreeMap<>(variables));
+    }
+
+    /**
+     * 定义或重新定义函数；函数体只能引用参数、已定义的变量与函数、内置函数与常数
+     * @param body 原始函数体
+     * @param preprocessed 预处理后的函数体
+     */
+    void defineFunction(String name, List<String> params, String body, String preprocessed) {
+        if (Functions.getBuiltinFunction(name) != null) {
+            throw new IllegalArgumentException("函数名与内置函数冲突: " + name);
+        }
+        Set<String> paramSet = new HashSet<>();
+        for (String p : params) {
+            if (!IDENTIFIER.matcher(p).matches() || Functions.getBuiltinFunction(p) != null) {
+                throw new IllegalArgumentException("参数名无效: " + p);
+            }
+            if (!paramSet.add(p)) throw new IllegalArgumentException("参数重复: " + p);
+        }
+        Set<String> references = new LinkedHashSet<>();
+        for (String id : identifiers(preprocessed)) {
+            if (!paramSet.contains(id) && !isBuiltinName(id)) references.add(id);
+        }
+
+        synchronized (lock) {
+            if (variables.containsKey(name)) throw new IllegalArgumentException("名称已被变量使用: " + name);
+            for (String r : references) {
+                if (r.equals(name)) throw new IllegalArgumentException("不支持递归定义: " + name);
+                if (r.equals(CalculatorSession.ANS)) throw new IllegalArgumentException("函数体中不能引用 ans");
+                if (!variables.containsKey(r) && !functions.containsKey(r)) {
+                    throw new IllegalArgumentException("函数体引用了未定义的名称: " + r);
+                }
+                if (functions.containsKey(r) && reaches(r, name)) {
+                    throw new IllegalArgumentException("函数之间循环引用: " + name + " ↔ " + r);
+                }
+            }
+
+            String[] paramArray = params.toArray(new String[0]);
+            // 先编译：语法错误、参数个数不符等在定义时报告，环境保持不变
+            CompiledFunction cf = new CompiledFunction(name, paramArray, compile(preprocessed, paramArray, false).template);
+
+            UserFunction f = new UserFunction(name, paramArray, body.trim(), preprocessed, references);
+            UserFunction old = functions.put(name, f);
+            if (old != null) unlinkReferences(old);
+            for (String r : references) functionDependents.computeIfAbsent(r, k -> new HashSet<>()).add(name);
+            // 失效只向依赖 name 的一侧传播，f 自身的编译结果不受影响
+            invalidate(name);
+            f.compiled = cf;
+        }
+    }
+
+    boolean removeFunction(String name) {
+        synchronized (lock) {
+            UserFunction old = functions.remove(name);
+            if (old == null) return false;
+            unlinkReferences(old);
+            invalidate(name);
+            return true;
+        }
+    }
+
+    /** 函数定义快照：函数名 → "f(x) = 体"，按名称排序 */
+    Map<String, String> functions() {
+        Map<String, String> all = new TreeMap<>();
+        for (UserFunction f : functions.values()) all.put(f.name, f.toString());
+        return Collections.unmodifiableMap(all);
+    }
+
+    boolean isFunction(String name) {
+        return functions.containsKey(name);
+    }
+
+    /** 当前缓存的编译表达式条数 */
+    int cachedExpressions() {
+        return cache.size();
+    }
+
+    /* ------------------ 依赖图（调用方持有 lock） ------------------ */
+
+    /**
+     * 沿依赖图失效：直接依赖 name 的缓存表达式移除，依赖它的函数置为未编译并继续向上传播
+     */
+    private void invalidate(String name) {
+        generation++;
+        Deque<String> work = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        work.add(name);
+        seen.add(name);
+        while (!work.isEmpty()) {
+            String n = work.poll();
+            Set<String> expressions = expressionDependents.remove(n);
+            if (expressions != null) {
+                for (String e : new ArrayList<>(expressions)) uncache(e);
+            }
+            Set<String> dependents = functionDependents.get(n);
+            if (dependents == null) continue;
+            for (String fn : dependents) {
+                UserFunction f = functions.get(fn);
+                if (f != null) f.compiled = null;
+                if (seen.add(fn)) work.add(fn);
+            }
+        }
+    }
+
+    private void uncache(String expression) {
+        Compiled c = cache.remove(expression);
+        if (c == null) return;
+        for (String d : c.dependencies) {
+            Set<String> s = expressionDependents.get(d);
+            if (s == null) continue;
+            s.remove(expression);
+            if (s.isEmpty()) expressionDependents.remove(d);
+        }
+    }
+
+    private void unlinkReferences(UserFunction f) {
+        for (String r : f.references) {
+            Set<String> s = functionDependents.get(r);
+            if (s == null) continue;
+            s.remove(f.name);
+            if (s.isEmpty()) functionDependents.remove(r);
+        }
+    }
+
+    /** 从函数 from 出发沿函数体引用能否到达 target */
+    private boolean reaches(String from, String target) {
+        Deque<String> work = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        work.add(from);
+        while (!work.isEmpty()) {
+            String n = work.poll();
+            if (n.equals(target)) return true;
+            if (!seen.add(n)) continue;
+            UserFunction f = functions.get(n);
+            if (f != null) work.addAll(f.references);
+        }
+        return false;
+    }
+
+    /* ------------------ 工具 ------------------ */
+
+    static Set<String> identifiers(String text) {
+        Set<String> ids = new LinkedHashSet<>();
+        Matcher m = IDENTIFIER.matcher(text);
+        while (m.find()) {
+            // 数字中的指数记号（如 1e5、2.5E-3）不是标识符；2x 这样的隐式乘法仍是
+            int s = m.start();
+            if (s > 0 && (Character.isDigit(text.charAt(s - 1)) || text.charAt(s - 1) == '.')
+                    && EXPONENT.matcher(m.group()).matches()) {
+                continue;
+            }
+            ids.add(m.group());
+        }
+        return ids;
+    }
+
+    static boolean isBuiltinName(String id) {
+        return Functions.getBuiltinFunction(id) != null
+                || id.equals("pi") || id.equals("e") || id.equals("φ");
+    }
+}
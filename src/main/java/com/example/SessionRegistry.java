@@ -0,0 +1,72 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * SessionRegistry - 多会话的引擎表
+ *
+ * 特性：
+ *  - 会话 ID → CalculatorEngine（引擎只持有自己的 CalculatorSession，可被该会话的多个请求线程共享）
+ *  - 查找走 ConcurrentHashMap.get，已存在的会话无锁命中；只有首次创建时才进入 computeIfAbsent
+ *  - 按空闲时间淘汰会话，单个 JVM 可容纳成千上万个并发会话
+ */
+public final class SessionRegistry {
+
+    private final ConcurrentHashMap<String, CalculatorEngine> engines = new ConcurrentHashMap<>();
+    private final int historyLimit;
+
+    public SessionRegistry() {
+        this(CalculatorSession.DEFAULT_HISTORY_LIMIT);
+    }
+
+    public SessionRegistry(int historyLimit) {
+        this.historyLimit = historyLimit;
+    }
+
+    /**
+     * 取得会话对应的引擎，不存在时创建
+     */
+    public CalculatorEngine engine(String sessionId) {
+        if (sessionId == null) throw new IllegalArgumentException("会话 ID 不能为空");
+        CalculatorEngine engine = engines.get(sessionId);
+        if (engine == null) {
+            engine = engines.computeIfAbsent(sessionId,
+                    id -> new CalculatorEngine(new CalculatorSession(id, historyLimit)));
+        }
+        engine.getSession().touch();
+        return engine;
+    }
+
+    public CalculatorSession session(String sessionId) {
+        return engine(sessionId).getSession();
+    }
+
+    /** 会话是否存在（不更新访问时间） */
+    public boolean contains(String sessionId) {
+        return engines.containsKey(sessionId);
+    }
+
+    /**
+     * 结束会话
+     * @return 会话是否存在
+     */
+    public boolean close(String sessionId) {
+        return engines.remove(sessionId) != null;
+    }
+
+    public int size() {
+        return engines.size();
+    }
+
+    /**
+     * 移除空闲超过 maxIdle 的会话
+     * @return 移除的会话数
+     */
+    public int evictIdle(Duration maxIdle) {
+        long limit = maxIdle.toNanos();
+        int before = engines.size();
+        engines.values().removeIf(e -> e.getSession().idleNanos() > limit);
+        return before - engines.size();
+    }
+}
@@ -0,0 +1,323 @@
+package com.example;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * TiledMatrixEngine - 外存分块矩阵运算
+ *
+ * 特性：
+ *  - 操作数与结果都是 OffHeapMatrix（通常映射自磁盘文件），按 BLOCK×BLOCK 的块读写
+ *  - 结果矩阵的每个块是一个独立任务，由固定大小的线程池处理，各任务写入互不重叠的区域
+ *  - 乘法内层按 k 方向遍历块，下一对 A、B 块由预取线程提前读入，与当前块的计算重叠
+ *  - 转置按块进行；方阵可原地转置（成对交换对称位置的块）
+ *  - 对堆上的 double[][] 也提供分块转置，供界面的 "A^T" 使用
+ */
+public class TiledMatrixEngine {
+
+    private static final int BLOCK = OffHeapMatrix.BLOCK;
+
+    private final int threads;
+
+    public TiledMatrixEngine(int threads) {
+        if (threads < 1) throw new IllegalArgumentException("线程数必须大于 0");
+        this.threads = threads;
+    }
+
+    /* ------------------ 乘法 ------------------ */
+
+    /**
+     * C = A × B，C 的每个块一个任务，k 方向双缓冲预取
+     */
+    public void multiply(OffHeapMatrix A, OffHeapMatrix B, OffHeapMatrix C) throws InterruptedException {
+        if (A.cols() != B.rows()) throw new IllegalArgumentException("矩阵维度不兼容，无法相乘");
+        requireShape(C, A.rows(), B.cols());
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        // 预取只做内存复制（触发映射页换入），与计算线程数相同即可
+        ExecutorService prefetch = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long i0 = 0; i0 < A.rows(); i0 += BLOCK) {
+                for (long j0 = 0; j0 < B.cols(); j0 += BLOCK) {
+                    long ti = i0;
+                    long tj = j0;
+                    futures.add(workers.submit(() -> multiplyTile(A, B, C, ti, tj, prefetch)));
+                }
+            }
+            await(futures);
+        } finally {
+            workers.shutdownNow();
+            prefetch.shutdownNow();
+        }
+    }
+
+    /** 一对 A、B 块 */
+    private static final class TilePair {
+        final double[] a = new double[BLOCK * BLOCK];
+        final double[] b = new double[BLOCK * BLOCK];
+        int depth;
+    }
+
+    private static void multiplyTile(OffHeapMatrix A, OffHeapMatrix B, OffHeapMatrix C,
+                                     long i0, long j0, ExecutorService prefetch) {
+        int h = (int) Math.min(BLOCK, A.rows() - i0);
+        int w = (int) Math.min(BLOCK, B.cols() - j0);
+        long K = A.cols();
+        double[] c = new double[h * w];
+
+        TilePair current = new TilePair();
+        TilePair spare = new TilePair();
+        readPair(A, B, i0, j0, 0, h, w, current);
+        for (long k0 = 0; k0 < K; k0 += BLOCK) {
+            long next = k0 + BLOCK;
+            CompletableFuture<TilePair> pending = null;
+            if (next < K) {
+                TilePair target = spare;
+                pending = CompletableFuture.supplyAsync(() -> readPair(A, B, i0, j0, next, h, w, target), prefetch);
+            }
+            OffHeapMatrix.multiplyAddBlock(current.a, current.b, c, h, current.depth, w, 1.0);
+            if (pending != null) {
+                spare = current;
+                current = pending.join();
+            }
+        }
+        C.writeBlock(i0, j0, h, w, c);
+    }
+
+    private static TilePair readPair(OffHeapMatrix A, OffHeapMatrix B, long i0, long j0, long k0,
+                                     int h, int w, TilePair pair) {
+        int d = (int) Math.min(BLOCK, A.cols() - k0);
+        A.readBlock(i0, k0, h, d, pair.a);
+        B.readBlock(k0, j0, d, w, pair.b);
+        pair.depth = d;
+        return pair;
+    }
+
+    /* ------------------ 加法 ------------------ */
+
+    /**
+     * C = A + B，按行块并行
+     */
+    public void add(OffHeapMatrix A, OffHeapMatrix B, OffHeapMatrix C) throws InterruptedException {
+        if (A.rows() != B.rows() || A.cols() != B.cols()) throw new IllegalArgumentException("矩阵维度不匹配，无法相加");
+        requireShape(C, A.rows(), A.cols());
+        int width = (int) Math.min(A.cols(), BLOCK * BLOCK);
+
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long r0 = 0; r0 < A.rows(); r0 += BLOCK) {
+                long from = r0;
+                long to = Math.min(r0 + BLOCK, A.rows());
+                futures.add(workers.submit(() -> {
+                    double[] a = new double[width];
+                    double[] b = new double[width];
+                    for (long r = from; r < to; r++) {
+                        for (long c0 = 0; c0 < A.cols(); c0 += width) {
+                            int len = (int) Math.min(width, A.cols() - c0);
+                            A.readRow(r, c0, a, 0, len);
+                            B.readRow(r, c0, b, 0, len);
+                            for (int j = 0; j < len; j++) a[j] += b[j];
+                            C.writeRow(r, c0, a, 0, len);
+                        }
+                    }
+                }));
+            }
+            await(futures);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /* ------------------ 转置 ------------------ */
+
+    /**
+     * C = Aᵀ（异地），每个块一个任务
+     */
+    public void transpose(OffHeapMatrix A, OffHeapMatrix C) throws InterruptedException {
+        requireShape(C, A.cols(), A.rows());
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long i0 = 0; i0 < A.rows(); i0 += BLOCK) {
+                for (long j0 = 0; j0 < A.cols(); j0 += BLOCK) {
+                    long ti = i0;
+                    long tj = j0;
+                    futures.add(workers.submit(() -> {
+                        int h = (int) Math.min(BLOCK, A.rows() - ti);
+                        int w = (int) Math.min(BLOCK, A.cols() - tj);
+                        double[] in = new double[h * w];
+                        double[] out = new double[h * w];
+                        A.readBlock(ti, tj, h, w, in);
+                        OffHeapMatrix.transposeBlock(in, h, w, out);
+                        C.writeBlock(tj, ti, w, h, out);
+                    }));
+                }
+            }
+            await(futures);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 方阵原地转置：对角块自身转置，非对角块 (I, J) 与 (J, I) 成对交换
+     */
+    public void transposeInPlace(OffHeapMatrix A) throws InterruptedException {
+        if (A.rows() != A.cols()) throw new IllegalArgumentException("原地转置仅适用于方阵");
+        long n = A.rows();
+        ExecutorService workers = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (long i0 = 0; i0 < n; i0 += BLOCK) {
+                for (long j0 = i0; j0 < n; j0 += BLOCK) {
+                    long ti = i0;
+                    long tj = j0;
+                    futures.add(workers.submit(() -> {
+                        int h = (int) Math.min(BLOCK, n - ti);
+                        int w = (int) Math.min(BLOCK, n - tj);
+                        double[] upper = new double[h * w];
+                        double[] upperT = new double[h * w];
+                        A.readBlock(ti, tj, h, w, upper);
+                        OffHeapMatrix.transposeBlock(upper, h, w, upperT);
+                        if (ti == tj) {
+                            A.writeBlock(ti, tj, h, w, upperT);
+                            return;
+                        }
+                        double[] lower = new double[w * h];
+                        double[] lowerT = new double[w * h];
+                        A.readBlock(tj, ti, w, h, lower);
+                        OffHeapMatrix.transposeBlock(lower, w, h, lowerT);
+                        A.writeBlock(tj, ti, w, h, upperT);
+                        A.writeBlock(ti, tj, h, w, lowerT);
+                    }));
+                }
+            }
+            await(futures);
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /**
+     * 堆上矩阵的分块转置，块内读写都落在缓存中
+     */
+    public static double[][] transpose(double[][] a) {
+        int rows = a.length;
+        int cols = rows == 0 ? 0 : a[0].length;
+        double[][] t = new double[cols][rows];
+        int b = 32;
+        for (int i0 = 0; i0 < rows; i0 += b) {
+            int i1 = Math.min(i0 + b, rows);
+            for (int j0 = 0; j0 < cols; j0 += b) {
+                int j1 = Math.min(j0 + b, cols);
+                for (int i = i0; i < i1; i++) {
+                    double[] row = a[i];
+                    for (int j = j0; j < j1; j++) t[j][i] = row[j];
+                }
+            }
+        }
+        return t;
+    }
+
+    /* ------------------ 文件级运算 ------------------ */
+
+    /**
+     * 对矩阵文件执行运算，结果写入映射的输出文件
+     * @param operation "A + B"、"A * B" 或 "A^T"
+     * @param b 不需要 B 时可为 null
+     * @return 运算摘要
+     */
+    public String perform(String operation, Path a, Path b, Path out) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        try (OffHeapMatrix A = OffHeapMatrix.map(a, false)) {
+            long rows;
+            long cols;
+            switch (operation) {
+                case "A + B":
+                case "A * B": {
+                    if (b == null) throw new IllegalArgumentException("需要矩阵 B");
+                    try (OffHeapMatrix B = OffHeapMatrix.map(b, false)) {
+                        boolean add = operation.equals("A + B");
+                        rows = A.rows();
+                        cols = add ? A.cols() : B.cols();
+                        try (OffHeapMatrix C = OffHeapMatrix.create(out, rows, cols)) {
+                            if (add) add(A, B, C); else multiply(A, B, C);
+                        }
+                    }
+                    break;
+                }
+                case "A^T":
+                case "Aᵀ": {
+                    rows = A.cols();
+                    cols = A.rows();
+                    try (OffHeapMatrix C = OffHeapMatrix.create(out, rows, cols)) {
+                        transpose(A, C);
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalArgumentException("不支持的外存矩阵操作: " + operation);
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return String.format(Locale.ROOT, "%s 完成：结果 %d×%d -> %s（%.2f s，%d 线程）",
+                    operation, rows, cols, out, seconds, threads);
+        }
+    }
+
+    private static void requireShape(OffHeapMatrix C, long rows, long cols) {
+        if (C.rows() != rows || C.cols() != cols) {
+            throw new IllegalArgumentException(String.format("结果矩阵应为 %d×%d", rows, cols));
+        }
+    }
+
+    private static void await(List<Future<?>> futures) throws InterruptedException {
+        for (Future<?> f : futures) {
+            try {
+                f.get();
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+                throw new IllegalStateException("分块运算失败: " + cause.getMessage(), cause);
+            }
+        }
+    }
+
+    /* ------------------ 命令行入口 ------------------ */
+
+    /**
+     * 用法：TiledMatrixEngine "A * B"|"A + B"|"A^T" A文件 [B文件] 输出文件 [线程数]
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.err.println("用法: TiledMatrixEngine \"A * B\"|\"A + B\"|\"A^T\" A文件 [B文件] 输出文件 [线程数]");
+            System.exit(2);
+        }
+        try {
+            String op = args[0];
+            boolean needsB = !op.startsWith("A^") && !op.equals("Aᵀ");
+            int i = 1;
+            Path a = Paths.get(args[i++]);
+            Path b = needsB ? Paths.get(args[i++]) : null;
+            Path out = Paths.get(args[i++]);
+            int threads = args.length > i ? Integer.parseInt(args[i]) : Runtime.getRuntime().availableProcessors();
+            System.out.println(new TiledMatrixEngine(threads).perform(op, a, b, out));
+        } catch (IOException e) {
+            System.err.println("文件错误: " + e.getMessage());
+            System.exit(1);
+        } catch (Exception e) {
+            System.err.println("运算失败: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,499 @@
+package com.example;
+
+import net.objecthunter.exp4j.Expression;
+import net.objecthunter.exp4j.ExpressionBuilder;
+import net.objecthunter.exp4j.ValidationResult;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Worksheet - 工作表：命名单元格的响应式重算
+ *
+ * 特性：
+ *  - 单元格为 “名称 = 公式”，公式是普通表达式，可按名称引用其他单元格（如 total = price * qty）
+ *  - 修改单元格后只重算受影响的部分：沿依赖边找出所有下游单元格，按拓扑顺序逐个求值；
+ *    某个单元格的值没有变化时，它的下游不再重算（提前截断）
+ *  - 受影响的单元格较多时并行重算：每个单元格记录尚未算完的上游个数，归零即可提交，
+ *    互不依赖的子图在 ForkJoin 池上同时推进，不按层同步等待
+ *  - 引用尚未定义的单元格时该单元格处于错误状态，之后定义被引用的单元格会自动重算；错误沿依赖向下传递
+ *  - 修改时检测循环引用并整体回滚；编辑与读取都在同一把锁上串行，读取会等待正在进行的重算结束，
+ *    因此总是看到某次编辑完成后的完整状态，不会读到算了一半的值
+ *  - 编辑可在 ComputeBudget 内进行：重算中预算用尽时公式与已算出的值一并回滚，工作表保持编辑前的状态
+ */
+public final class Worksheet {
+
+    /** 受影响的单元格达到该数量时并行重算 */
+    private static final int PARALLEL_THRESHOLD = 256;
+    /** 并行重算时每个任务连续处理的单元格数 */
+    private static final int BATCH = 32;
+    private static final Pattern NAME = Pattern.compile("[a-zA-Z_][a-zA-Z0-9_]*");
+
+    private final Map<String, Cell> cells = new HashMap<>();
+    /** 名称 → 公式中引用它的单元格（被引用的单元格可能尚未定义） */
+    private final Map<String, Set<Cell>> dependents = new HashMap<>();
+    /** 每次重算加 1，用于标记本轮受影响的单元格 */
+    private int epoch;
+    /** 并行重算使用的线程池 */
+    private final ForkJoinPool pool;
+
+    public Worksheet() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /** 指定并行重算的线程池（测试中用于在单核机器上覆盖并行路径） */
+    Worksheet(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    private static final class Cell {
+        final String name;
+        String formula;
+        Expression expression;
+        String[] references;
+        double value = Double.NaN;
+        String error;
+
+        // 重算时的临时状态
+        int mark;
+        boolean root;
+        volatile boolean inputChanged;
+        boolean changed;
+        final AtomicInteger pending = new AtomicInteger();
+
+        Cell(String name) {
+            this.name = name;
+        }
+    }
+
+    /** 一次重算的统计 */
+    public static final class Recalculation {
+        /** 受影响（下游可达）的单元格数 */
+        public final int affected;
+        /** 实际求值的单元格数（输入未变的被跳过） */
+        public final int evaluated;
+        /** 值或错误状态发生变化的单元格，按名称排序 */
+        public final List<String> changed;
+        public final boolean parallel;
+
+        Recalculation(int affected, int evaluated, List<String> changed, boolean parallel) {
+            this.affected = affected;
+            this.evaluated = evaluated;
+            this.changed = changed;
+            this.parallel = parallel;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("受影响 %d 个单元格，求值 %d 个，变化 %d 个%s",
+                    affected, evaluated, changed.size(), parallel ? "（并行）" : "");
+        }
+    }
+
+    /* ------------------ 编辑 ------------------ */
+
+    /** 设置单个单元格的公式（数字即输入值） */
+    public Recalculation set(String name, String formula) {
+        Map<String, String> edit = new LinkedHashMap<>();
+        edit.put(name, formula);
+        return setAll(edit);
+    }
+
+    public Recalculation setValue(String name, double value) {
+        return set(name, Double.toString(value));
+    }
+
+    /**
+     * 同时设置多个单元格，只重算一次；任一公式有语法错误或造成循环引用时全部不生效
+     */
+    public Recalculation setAll(Map<String, String> formulas) {
+        return setAll(formulas, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 同上，重算在 budget 内进行
+     * @throws ComputeBudget.ExhaustedException 重算中预算用尽，编辑全部不生效
+     */
+    public synchronized Recalculation setAll(Map<String, String> formulas, ComputeBudget budget) {
+        // 1. 先全部编译，语法错误直接抛出，工作表不变
+        Map<String, Object[]> compiled = new LinkedHashMap<>();
+        for (Map.Entry<String, String> e : formulas.entrySet()) {
+            checkName(e.getKey());
+            compiled.put(e.getKey(), compile(e.getKey(), e.getValue()));
+        }
+
+        // 2. 应用到单元格，记下旧状态以便回滚
+        Map<Cell, Object[]> previous = new LinkedHashMap<>();
+        List<Cell> edited = new ArrayList<>();
+        for (Map.Entry<String, Object[]> e : compiled.entrySet()) {
+            Cell c = cells.get(e.getKey());
+            boolean created = c == null;
+            if (created) {
+                c = new Cell(e.getKey());
+                cells.put(c.name, c);
+            }
+            previous.put(c, created ? null : new Object[]{c.formula, c.expression, c.references});
+            unlink(c);
+            Object[] v = e.getValue();
+            c.formula = (String) v[0];
+            c.expression = (Expression) v[1];
+            c.references = (String[]) v[2];
+            link(c);
+            edited.add(c);
+        }
+
+        // 3. 循环引用检查，失败则回滚
+        for (Cell c : edited) {
+            for (String r : c.references) {
+                if (reaches(r, c.name)) {
+                    rollback(previous);
+                    throw new IllegalArgumentException("循环引用: " + c.name + " → " + r + " → … → " + c.name);
+                }
+            }
+        }
+        try {
+            return recalculate(edited, budget);
+        } catch (ComputeBudget.ExhaustedException e) {
+            rollback(previous);
+            throw e;
+        }
+    }
+
+    /**
+     * 删除单元格；引用它的单元格变为错误状态
+     * @return 重算统计，单元格不存在时为 null
+     */
+    public Recalculation remove(String name) {
+        return remove(name, ComputeBudget.unlimited());
+    }
+
+    /**
+     * 同上，重算在 budget 内进行
+     * @throws ComputeBudget.ExhaustedException 重算中预算用尽，单元格不删除
+     */
+    public synchronized Recalculation remove(String name, ComputeBudget budget) {
+        Cell c = cells.remove(name);
+        if (c == null) return null;
+        unlink(c);
+        Set<Cell> users = dependents.get(name);
+        try {
+            return recalculate(users == null ? Collections.<Cell>emptyList() : new ArrayList<>(users), budget);
+        } catch (ComputeBudget.ExhaustedException e) {
+            cells.put(name, c);
+            link(c);
+            throw e;
+        }
+    }
+
+    private Object[] compile(String name, String formula) {
+        if (formula == null || formula.trim().isEmpty()) throw new IllegalArgumentException("单元格 " + name + " 的公式为空");
+        String text = CalculatorEngine.preprocessExpression(formula);
+        Set<String> refs = new HashSet<>();
+        for (String id : SessionEnvironment.identifiers(text)) {
+            if (!SessionEnvironment.isBuiltinName(id)) refs.add(id);
+        }
+        if (refs.contains(name)) throw new IllegalArgumentException("单元格 " + name + " 引用了自身");
+        Expression exp;
+        try {
+            exp = new ExpressionBuilder(text).variables(refs).build();
+            ValidationResult check = exp.validate(false);
+            if (!check.isValid()) throw new IllegalArgumentException(String.join("; ", check.getErrors()));
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("单元格 " + name + " 的公式错误: " + e.getMessage());
+        }
+        return new Object[]{formula.trim(), exp, refs.toArray(new String[0])};
+    }
+
+    private static void checkName(String name) {
+        if (name == null || !NAME.matcher(name).matches()) throw new IllegalArgumentException("单元格名称无效: " + name);
+        if (SessionEnvironment.isBuiltinName(name) || name.equals(CalculatorSession.ANS)) {
+            throw new IllegalArgumentException("单元格名称与保留名称冲突: " + name);
+        }
+    }
+
+    private void link(Cell c) {
+        for (String r : c.references) dependents.computeIfAbsent(r, k -> new HashSet<>()).add(c);
+    }
+
+    private void unlink(Cell c) {
+        if (c.references == null) return;
+        for (String r : c.references) {
+            Set<Cell> s = dependents.get(r);
+            if (s == null) continue;
+            s.remove(c);
+            if (s.isEmpty()) dependents.remove(r);
+        }
+    }
+
+    private void rollback(Map<Cell, Object[]> previous) {
+        for (Map.Entry<Cell, Object[]> e : previous.entrySet()) {
+            Cell c = e.getKey();
+            unlink(c);
+            Object[] old = e.getValue();
+            if (old == null) {
+                cells.remove(c.name);
+                c.references = null;
+                continue;
+            }
+            c.formula = (String) old[0];
+            c.expression = (Expression) old[1];
+            c.references = (String[]) old[2];
+            link(c);
+        }
+    }
+
+    /** 从单元格 from 出发沿引用能否到达 target */
+    private boolean reaches(String from, String target) {
+        ArrayDeque<String> work = new ArrayDeque<>();
+        Set<String> seen = new HashSet<>();
+        work.add(from);
+        while (!work.isEmpty()) {
+            String n = work.poll();
+            if (n.equals(target)) return true;
+            if (!seen.add(n)) continue;
+            Cell c = cells.get(n);
+            if (c != null) Collections.addAll(work, c.references);
+        }
+        return false;
+    }
+
+    /* ------------------ 增量重算 ------------------ */
+
+    /**
+     * 预算在每个单元格（并行时每批）之前检查；用尽时恢复受影响单元格的旧值并抛出 ExhaustedException，
+     * 由调用方回滚公式
+     */
+    private Recalculation recalculate(List<Cell> roots, ComputeBudget budget) {
+        int mark = ++epoch;
+        // 受影响的单元格：roots 及其全部下游
+        List<Cell> affected = new ArrayList<>();
+        ArrayDeque<Cell> work = new ArrayDeque<>();
+        for (Cell r : roots) {
+            if (r.mark == mark) continue;
+            r.mark = mark;
+            r.root = true;
+            work.add(r);
+        }
+        while (!work.isEmpty()) {
+            Cell c = work.poll();
+            affected.add(c);
+            Set<Cell> ds = dependents.get(c.name);
+            if (ds == null) continue;
+            for (Cell d : ds) {
+                if (d.mark == mark) continue;
+                d.mark = mark;
+                d.root = false;
+                work.add(d);
+            }
+        }
+
+        // 每个单元格等待的上游个数（只算本轮受影响的）；同时记下旧值，预算用尽时恢复
+        double[] oldValues = new double[affected.size()];
+        String[] oldErrors = new String[affected.size()];
+        List<Cell> ready = new ArrayList<>();
+        for (int i = 0; i < affected.size(); i++) {
+            Cell c = affected.get(i);
+            oldValues[i] = c.value;
+            oldErrors[i] = c.error;
+            int n = 0;
+            for (String r : c.references) {
+                Cell rc = cells.get(r);
+                if (rc != null && rc.mark == mark) n++;
+            }
+            c.pending.set(n);
+            c.inputChanged = false;
+            c.changed = false;
+            if (n == 0) ready.add(c);
+        }
+
+        AtomicInteger evaluated = new AtomicInteger();
+        AtomicInteger processed = new AtomicInteger();
+        boolean parallel = affected.size() >= PARALLEL_THRESHOLD && pool.getParallelism() > 1;
+        if (parallel) {
+            List<Propagate> tasks = new ArrayList<>();
+            for (int i = 0; i < ready.size(); i += BATCH) {
+                tasks.add(new Propagate(new ArrayList<>(ready.subList(i, Math.min(i + BATCH, ready.size()))),
+                        mark, evaluated, processed, budget));
+            }
+            pool.invoke(new RecursiveAction() {
+                @Override
+                protected void compute() {
+                    invokeAll(tasks);
+                }
+            });
+        } else {
+            ArrayDeque<Cell> queue = new ArrayDeque<>(ready);
+            List<Cell> next = new ArrayList<>();
+            while (!queue.isEmpty() && !budget.exhausted()) {
+                process(queue.poll(), mark, evaluated, next);
+                processed.incrementAndGet();
+                queue.addAll(next);
+                next.clear();
+            }
+        }
+        // 每个受影响的单元格都会被处理一次（值未变的也要递减下游的计数），少于此数说明中途停止
+        if (processed.get() < affected.size()) {
+            for (int i = 0; i < affected.size(); i++) {
+                affected.get(i).value = oldValues[i];
+                affected.get(i).error = oldErrors[i];
+            }
+            throw new ComputeBudget.ExhaustedException(budget.status());
+        }
+
+        List<String> changed = new ArrayList<>();
+        for (Cell c : affected) if (c.changed) changed.add(c.name);
+        Collections.sort(changed);
+        return new Recalculation(affected.size(), evaluated.get(), changed, parallel);
+    }
+
+    /**
+     * 求值一个就绪的单元格，并把因此就绪的下游单元格加入 ready
+     */
+    private void process(Cell c, int mark, AtomicInteger evaluated, List<Cell> ready) {
+        if (c.root || c.inputChanged) {
+            evaluated.incrementAndGet();
+            c.changed = evaluate(c);
+        }
+        Set<Cell> ds = dependents.get(c.name);
+        if (ds == null) return;
+        for (Cell d : ds) {
+            if (d.mark != mark) continue;
+            if (c.changed) d.inputChanged = true;
+            // 原子递减同时保证 d 读取 c.value 时能看到本线程写入的结果
+            if (d.pending.decrementAndGet() == 0) ready.add(d);
+        }
+    }
+
+    /** @return 值或错误状态是否变化 */
+    private boolean evaluate(Cell c) {
+        double old = c.value;
+        String oldError = c.error;
+        try {
+            for (String r : c.references) {
+                Cell rc = cells.get(r);
+                if (rc == null) throw new IllegalArgumentException("未定义的单元格 " + r);
+                if (rc.error != null) throw new IllegalArgumentException("引用的单元格 " + r + " 有错误");
+                c.expression.setVariable(r, rc.value);
+            }
+            double v = c.expression.evaluate();
+            if (Double.isNaN(v)) throw new ArithmeticException("结果未定义");
+            if (Double.isInfinite(v)) throw new ArithmeticException("结果为无穷大");
+            c.value = v;
+            c.error = null;
+        } catch (RuntimeException e) {
+            c.value = Double.NaN;
+            c.error = e.getMessage();
+        }
+        return Double.compare(old, c.value) != 0 || !Objects.equals(oldError, c.error);
+    }
+
+    /**
+     * 并行传播：处理一批就绪单元格；新就绪的单元格超过一批时分出子任务，其余留在本任务继续。
+     * 预算用尽时不再处理新的批次，正常结束以便 join 返回
+     */
+    private final class Propagate extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private transient List<Cell> batch;
+        private final int mark;
+        private final AtomicInteger evaluated;
+        private final AtomicInteger processed;
+        private final transient ComputeBudget budget;
+
+        Propagate(List<Cell> batch, int mark, AtomicInteger evaluated, AtomicInteger processed, ComputeBudget budget) {
+            this.batch = batch;
+            this.mark = mark;
+            this.evaluated = evaluated;
+            this.processed = processed;
+            this.budget = budget;
+        }
+
+        @Override
+        protected void compute() {
+            List<Propagate> forked = new ArrayList<>();
+            while (!batch.isEmpty() && !budget.exhausted()) {
+                List<Cell> next = new ArrayList<>();
+                for (Cell c : batch) process(c, mark, evaluated, next);
+                processed.addAndGet(batch.size());
+                while (next.size() > BATCH) {
+                    List<Cell> split = new ArrayList<>(next.subList(next.size() - BATCH, next.size()));
+                    next.subList(next.size() - BATCH, next.size()).clear();
+                    Propagate t = new Propagate(split, mark, evaluated, processed, budget);
+                    t.fork();
+                    forked.add(t);
+                }
+                batch = next;
+            }
+            for (Propagate t : forked) t.join();
+        }
+    }
+
+    /* ------------------ 读取 ------------------ */
+
+    public synchronized boolean contains(String name) {
+        return cells.containsKey(name);
+    }
+
+    /** 单元格的值；处于错误状态时为 NaN */
+    public synchronized double value(String name) {
+        return require(name).value;
+    }
+
+    /** 单元格的错误信息，正常时为 null */
+    public synchronized String error(String name) {
+        return require(name).error;
+    }
+
+    public synchronized String formula(String name) {
+        return require(name).formula;
+    }
+
+    public synchronized int size() {
+        return cells.size();
+    }
+
+    /** 全部单元格的值（按名称排序），错误状态为 NaN */
+    public synchronized Map<String, Double> values() {
+        Map<String, Double> all = new TreeMap<>();
+        for (Cell c : cells.values()) all.put(c.name, c.value);
+        return all;
+    }
+
+    /** 处于错误状态的单元格：名称 → 错误信息 */
+    public synchronized Map<String, String> errors() {
+        Map<String, String> all = new TreeMap<>();
+        for (Cell c : cells.values()) if (c.error != null) all.put(c.name, c.error);
+        return all;
+    }
+
+    private Cell require(String name) {
+        Cell c = cells.get(name);
+        if (c == null) throw new IllegalArgumentException("单元格不存在: " + name);
+        return c;
+    }
+
+    @Override
+    public synchronized String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (String name : new TreeMap<>(cells).keySet()) {
+            Cell c = cells.get(name);
+            sb.append(name).append(" = ").append(c.formula).append("  →  ")
+              .append(c.error != null ? "错误: " + c.error : CalculatorEngine.formatResult(c.value))
+              .append('\n');
+        }
+        return sb.toString();
+    }
+}
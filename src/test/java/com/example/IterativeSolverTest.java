@@ -0,0 +1,155 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * IterativeSolver：对称正定、非对称、病态方程组的收敛，以及不收敛、breakdown 等失败路径
+ */
+class IterativeSolverTest {
+
+    /** ‖b - A x‖₂ / ‖b‖₂，独立于求解器自身的残差记录 */
+    static double relativeResidual(double[][] A, double[] b, double[] x) {
+        double rr = 0, bb = 0;
+        for (int i = 0; i < b.length; i++) {
+            double s = b[i];
+            for (int j = 0; j < x.length; j++) s -= A[i][j] * x[j];
+            rr += s * s;
+            bb += b[i] * b[i];
+        }
+        return Math.sqrt(rr / bb);
+    }
+
+    /** 一维 Laplace 三对角矩阵（对称正定） */
+    static double[][] laplacian(int n) {
+        double[][] A = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            A[i][i] = 2;
+            if (i > 0) A[i][i - 1] = -1;
+            if (i + 1 < n) A[i][i + 1] = -1;
+        }
+        return A;
+    }
+
+    /** 对流扩散三对角矩阵（非对称、对角占优） */
+    static double[][] convectionDiffusion(int n) {
+        double[][] A = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            A[i][i] = 2.5;
+            if (i > 0) A[i][i - 1] = -1.6;
+            if (i + 1 < n) A[i][i + 1] = -0.4;
+        }
+        return A;
+    }
+
+    static double[] ones(int n) {
+        double[] b = new double[n];
+        Arrays.fill(b, 1.0);
+        return b;
+    }
+
+    @Test
+    void spdSystemUsesCgAndConverges() {
+        double[][] A = laplacian(60);
+        double[] b = ones(60);
+        for (IterativeSolver.Preconditioner p : IterativeSolver.Preconditioner.values()) {
+            IterativeSolver.Result r = IterativeSolver.solve(A, b, new IterativeSolver.Options().preconditioner(p));
+            assertEquals(IterativeSolver.Method.CG, r.method, p.name());
+            assertTrue(r.converged, p.name());
+            assertTrue(relativeResidual(A, b, r.x) <= 1e-9, p.name());
+            assertEquals(r.iterations + 1, r.residualHistory.length, p.name());
+        }
+    }
+
+    @Test
+    void nonsymmetricSystemConvergesWithBicgstabAndGmres() {
+        double[][] A = convectionDiffusion(80);
+        double[] b = ones(80);
+        IterativeSolver.Result auto = IterativeSolver.solve(A, b, new IterativeSolver.Options().preconditioner(IterativeSolver.Preconditioner.NONE));
+        assertEquals(IterativeSolver.Method.BICGSTAB, auto.method);
+        assertTrue(auto.converged);
+        assertTrue(relativeResidual(A, b, auto.x) <= 1e-9);
+
+        for (IterativeSolver.Preconditioner p : IterativeSolver.Preconditioner.values()) {
+            IterativeSolver.Result r = IterativeSolver.solve(A, b, new IterativeSolver.Options()
+                    .method(IterativeSolver.Method.GMRES).restart(10).tolerance(1e-12).preconditioner(p));
+            assertTrue(r.converged, p.name());
+            assertTrue(relativeResidual(A, b, r.x) <= 1e-11, p.name());
+        }
+    }
+
+    @Test
+    void badlyScaledSystemNeedsJacobi() {
+        // 对角元跨 10 个数量级，条件数约 1e10；Jacobi 预条件后几乎是单位阵
+        int n = 40;
+        double[][] A = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            A[i][i] = Math.pow(10, 10.0 * i / (n - 1));
+            if (i > 0) A[i][i - 1] = A[i - 1][i] = 1e-3;
+        }
+        double[] b = ones(n);
+        IterativeSolver.Result plain = IterativeSolver.solve(A, b, new IterativeSolver.Options()
+                .preconditioner(IterativeSolver.Preconditioner.NONE).maxIterations(20));
+        assertFalse(plain.converged);
+        IterativeSolver.Result jacobi = IterativeSolver.solve(A, b, new IterativeSolver.Options()
+                .preconditioner(IterativeSolver.Preconditioner.JACOBI).maxIterations(20));
+        assertTrue(jacobi.converged);
+        assertTrue(relativeResidual(A, b, jacobi.x) <= 1e-9);
+    }
+
+    @Test
+    void iterationLimitReportsNotConverged() {
+        double[][] A = laplacian(100);
+        double[] b = ones(100);
+        IterativeSolver.Result r = IterativeSolver.solve(A, b, new IterativeSolver.Options()
+                .preconditioner(IterativeSolver.Preconditioner.NONE).maxIterations(3));
+        assertFalse(r.converged);
+        assertEquals(3, r.iterations);
+        assertEquals(4, r.residualHistory.length);
+        assertTrue(r.finalResidual() > 1e-10);
+    }
+
+    @Test
+    void breakdownStopsWithoutConverging() {
+        // 不定矩阵上 CG 的 pᵀAp ≤ 0
+        double[][] indefinite = {{1, 0}, {0, -1}};
+        IterativeSolver.Result cg = IterativeSolver.solve(indefinite, new double[]{0, 1}, new IterativeSolver.Options()
+                .method(IterativeSolver.Method.CG).preconditioner(IterativeSolver.Preconditioner.NONE));
+        assertFalse(cg.converged);
+        assertEquals(0, cg.iterations);
+
+        // BiCGSTAB 的 r̂ᵀv = 0
+        double[][] swap = {{0, 1}, {1, 0}};
+        IterativeSolver.Result bicg = IterativeSolver.solve(swap, new double[]{1, 0}, new IterativeSolver.Options()
+                .method(IterativeSolver.Method.BICGSTAB).preconditioner(IterativeSolver.Preconditioner.NONE));
+        assertFalse(bicg.converged);
+        for (double v : bicg.x) assertTrue(Double.isFinite(v));
+
+        // ILU(0) 需要非零对角元
+        assertThrows(ArithmeticException.class, () -> IterativeSolver.solve(swap, new double[]{1, 0},
+                new IterativeSolver.Options().preconditioner(IterativeSolver.Preconditioner.ILU0)));
+    }
+
+    @Test
+    void cancelledBudgetReturnsCurrentIterate() {
+        ComputeBudget budget = ComputeBudget.unlimited();
+        budget.cancel();
+        IterativeSolver.Result r = IterativeSolver.solve(laplacian(20), ones(20), new IterativeSolver.Options().budget(budget));
+        assertFalse(r.converged);
+        assertEquals(0, r.iterations);
+    }
+
+    @Test
+    void invalidInputIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> IterativeSolver.solve(laplacian(3), ones(4)));
+        assertThrows(IllegalArgumentException.class, () -> IterativeSolver.solve(new double[][]{{1, 2}}, ones(1)));
+        assertThrows(IllegalArgumentException.class, () -> new IterativeSolver.Options().tolerance(0));
+        assertThrows(IllegalArgumentException.class, () -> new IterativeSolver.Options().maxIterations(0));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * MatrixTextParser 的数值快速路径必须与 Double.parseDouble 逐位一致
+ */
+class MatrixTextParserTest {
+
+    private static void assertSameBits(String text) {
+        long expected = Double.doubleToRawLongBits(Double.parseDouble(text));
+        long actual = Double.doubleToRawLongBits(MatrixTextParser.parseDouble(text));
+        assertEquals(expected, actual, text);
+    }
+
+    @Test
+    void mantissaLengthsAroundTheFastPathLimit() {
+        String[] cases = {
+            "123456789012345", "999999999999999", "1.23456789012345", "0.123456789012345",
+            "1234567890123456", "9007199254740993", "1.234567890123456",
+            "12345678901234567", "0.12345678901234567", "9.9999999999999999",
+            "123456789012345e7", "1234567890123456e-7", "12345678901234567e-10",
+        };
+        for (String s : cases) assertSameBits(s);
+    }
+
+    @Test
+    void exponentsAroundTheExactPowersOfTen() {
+        String[] cases = {
+            "1e22", "1e-22", "1e23", "1e-23", "1E+22", "1E-023",
+            "9.5e22", "9.5e-22", "3e23", "3e-23",
+            "123456789012345e22", "123456789012345e-22", "123456789012345e23", "123456789012345e-23",
+            "0.1e23", "10e22", "0.001e-20",
+        };
+        for (String s : cases) assertSameBits(s);
+    }
+
+    @Test
+    void signsAndZeros() {
+        String[] cases = {
+            "0", "-0", "+0", "0.0", "-0.0", "-0e5", "-0.000e-400", "+1.5", "-1.5", "+.5", "-.5", "5.",
+            "000123", "-000.00123", "1.500000", "1.50000000000000000000", "0000000000000000001", "100000000000000000000",
+        };
+        for (String s : cases) assertSameBits(s);
+    }
+
+    @Test
+    void valuesNearTheSubnormalRange() {
+        String[] cases = {
+            "2.2250738585072014e-308", "2.2250738585072009e-308", "4.9e-324", "2.5e-324", "1e-320",
+            "-4.9e-324", "1.7976931348623157e308", "1e-400", "1e400",
+        };
+        for (String s : cases) assertSameBits(s);
+    }
+
+    @Test
+    void randomDecimalsMatchDoubleParseDouble() {
+        Random random = new Random(42);
+        for (int n = 0; n < 200_000; n++) {
+            StringBuilder sb = new StringBuilder();
+            if (random.nextInt(4) == 0) sb.append(random.nextBoolean() ? '-' : '+');
+            int intDigits = random.nextInt(10);
+            int fracDigits = random.nextInt(10);
+            for (int i = 0; i < intDigits; i++) sb.append((char) ('0' + random.nextInt(10)));
+            if (fracDigits > 0 || intDigits == 0) {
+                sb.append('.');
+                for (int i = 0; i < Math.max(fracDigits, intDigits == 0 ? 1 : 0); i++) sb.append((char) ('0' + random.nextInt(10)));
+            }
+            if (random.nextBoolean()) sb.append('e').append(random.nextInt(61) - 30);
+            assertSameBits(sb.toString());
+        }
+    }
+
+    @Test
+    void parsesRowsAndRejectsBadElements() {
+        MatrixTextParser.Result r = MatrixTextParser.parseFlat("1, 2.5; -3e2 4\n+0.5 -0");
+        assertEquals(3, r.rows);
+        assertEquals(2, r.cols);
+        assertArrayEquals(new double[]{1, 2.5, -300, 4, 0.5, -0.0}, r.data, 0.0);
+        assertThrows(IllegalArgumentException.class, () -> MatrixTextParser.parse("1 2; 3 x"));
+    }
+}
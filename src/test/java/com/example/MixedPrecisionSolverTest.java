@@ -0,0 +1,132 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * MixedPrecisionSolver：条件数适中时单精度分解 + 修正达到双精度的后向误差，
+ * 超出单精度能处理的范围时退回双精度高斯消元
+ */
+class MixedPrecisionSolverTest {
+
+    /** ‖r‖∞ ≤ ‖x‖∞·‖A‖∞·ε·√n，与求解器的停止条件相同 */
+    private static void assertBackwardStable(double[][] A, double[] b, double[] x) {
+        int n = b.length;
+        double anorm = 0, rnorm = 0, xnorm = 0;
+        for (int i = 0; i < n; i++) {
+            double s = b[i], row = 0;
+            for (int j = 0; j < n; j++) {
+                s -= A[i][j] * x[j];
+                row += Math.abs(A[i][j]);
+            }
+            anorm = Math.max(anorm, row);
+            rnorm = Math.max(rnorm, Math.abs(s));
+            xnorm = Math.max(xnorm, Math.abs(x[i]));
+        }
+        assertTrue(rnorm <= xnorm * anorm * Math.ulp(1.0) / 2 * Math.sqrt(n), "残差 " + rnorm);
+    }
+
+    /** A = Q·diag(σ)·Qᵀ，σ 从 1 到 1/cond 按几何级数分布，Q 为 Householder 反射 */
+    private static double[][] withCondition(int n, double cond, long seed) {
+        Random random = new Random(seed);
+        double[] v = new double[n];
+        double vv = 0;
+        for (int i = 0; i < n; i++) {
+            v[i] = random.nextGaussian();
+            vv += v[i] * v[i];
+        }
+        double[][] Q = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) Q[i][j] = (i == j ? 1 : 0) - 2 * v[i] * v[j] / vv;
+        }
+        double[][] A = new double[n][n];
+        for (int k = 0; k < n; k++) {
+            double sigma = Math.pow(cond, -(double) k / (n - 1));
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j < n; j++) A[i][j] += Q[i][k] * sigma * Q[j][k];
+            }
+        }
+        return A;
+    }
+
+    private static double[] randomVector(int n, long seed) {
+        Random random = new Random(seed);
+        double[] b = new double[n];
+        for (int i = 0; i < n; i++) b[i] = random.nextDouble() - 0.5;
+        return b;
+    }
+
+    @Test
+    void spdSystemIsRefinedToDoublePrecision() {
+        int n = 50;
+        double[][] A = IterativeSolverTest.laplacian(n);
+        double[] b = randomVector(n, 1);
+        MixedPrecisionSolver.Result r = MixedPrecisionSolver.solve(A, b);
+        assertTrue(r.mixed);
+        assertTrue(r.refinements > 0);
+        assertBackwardStable(A, b, r.x);
+    }
+
+    @Test
+    void nonsymmetricSystemIsRefinedToDoublePrecision() {
+        int n = 120;
+        Random random = new Random(7);
+        double[][] A = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) A[i][j] = random.nextDouble() - 0.5;
+        }
+        double[] b = randomVector(n, 2);
+        MixedPrecisionSolver.Result r = MixedPrecisionSolver.solve(A, b);
+        assertTrue(r.mixed);
+        assertBackwardStable(A, b, r.x);
+    }
+
+    @Test
+    void moderateConditionStillUsesSinglePrecision() {
+        double[][] A = withCondition(30, 1e4, 3);
+        double[] b = randomVector(30, 4);
+        MixedPrecisionSolver.Result r = MixedPrecisionSolver.solve(A, b);
+        assertTrue(r.mixed);
+        assertBackwardStable(A, b, r.x);
+    }
+
+    @Test
+    void conditionBeyondSinglePrecisionFallsBackToDouble() {
+        // 条件数 1e10 远超 1/ε_float ≈ 1.7e7，修正不收缩
+        double[][] A = withCondition(30, 1e10, 5);
+        double[] b = randomVector(30, 6);
+        MixedPrecisionSolver.Result r = MixedPrecisionSolver.solve(A, b);
+        assertFalse(r.mixed);
+        assertArrayEquals(CalculatorEngine.LinearSolver.solveByGaussian(A, b), r.x, 0.0);
+    }
+
+    @Test
+    void valuesOutsideFloatRangeFallBackToDouble() {
+        double[][] A = {{1e300, 1}, {1, 1e300}};
+        double[] b = {1e300, 1e300};
+        MixedPrecisionSolver.Result r = MixedPrecisionSolver.solve(A, b);
+        assertFalse(r.mixed);
+        assertArrayEquals(new double[]{1, 1}, r.x, 1e-12);
+    }
+
+    @Test
+    void singularAndMalformedSystemsAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> MixedPrecisionSolver.solve(new double[][]{{1, 2}, {2, 4}}, new double[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> MixedPrecisionSolver.solve(new double[][]{{1, 2}}, new double[]{1, 2}));
+        assertThrows(IllegalArgumentException.class, () -> MixedPrecisionSolver.solve(new double[][]{{1, 2}, {3}}, new double[]{1, 2}));
+    }
+
+    @Test
+    void exhaustedBudgetStopsTheFactorization() {
+        ComputeBudget budget = ComputeBudget.unlimited();
+        budget.cancel();
+        assertThrows(ComputeBudget.ExhaustedException.class,
+                () -> MixedPrecisionSolver.solve(IterativeSolverTest.laplacian(10), randomVector(10, 8), budget));
+    }
+}
@@ -0,0 +1,78 @@
+package com.example;
+
+import org.ejml.data.Complex_F64;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Polynomial 求根：相距很近的不同根不能被合并成重根，重根要合并且保持共轭对称
+ */
+class PolynomialTest {
+
+    private static Complex_F64[] roots(String expression) {
+        Polynomial p = Polynomial.parse(expression, "x");
+        assertNotNull(p, expression);
+        return p.roots();
+    }
+
+    private static void assertRealRoots(String expression, double tol, double... expected) {
+        Complex_F64[] r = roots(expression);
+        assertEquals(expected.length, r.length, expression);
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(0.0, r[i].imaginary, 0.0, expression);
+            assertEquals(expected[i], r[i].real, tol, expression);
+        }
+    }
+
+    @Test
+    void closeDistinctRootsStayDistinct() {
+        assertRealRoots("(x-1)*(x-1.0005)", 1e-9, 1.0, 1.0005);
+        assertRealRoots("x^2-1e-8", 1e-15, -1e-4, 1e-4);
+        assertRealRoots("(x-0.001)*(x-0.0015)", 1e-12, 0.001, 0.0015);
+        assertRealRoots("(x-3)*(x-3.01)*(x-3.02)", 1e-8, 3.0, 3.01, 3.02);
+    }
+
+    @Test
+    void multipleRootsAreMerged() {
+        assertRealRoots("(x-2)^2", 1e-12, 2, 2);
+        assertRealRoots("(x-2)^4", 1e-12, 2, 2, 2, 2);
+        assertRealRoots("(x-3)^5", 1e-10, 3, 3, 3, 3, 3);
+        assertRealRoots("(x-1)^3*(x+1)^2", 1e-10, -1, -1, 1, 1, 1);
+        assertRealRoots("(x-1e-5)^2", 1e-15, 1e-5, 1e-5);
+    }
+
+    @Test
+    void multipleRootNextToSimpleRoot() {
+        assertRealRoots("(x-1)^3*(x-1.01)", 1e-6, 1, 1, 1, 1.01);
+        assertRealRoots("(x-2)^2*(x-2.05)*(x+1)", 1e-6, -1, 2, 2, 2.05);
+    }
+
+    @Test
+    void multipleComplexRootsStayConjugate() {
+        Complex_F64[] r = roots("(x^2+1)^2");
+        assertEquals(4, r.length);
+        assertEquals(-1.0, r[0].imaginary, 1e-10);
+        assertEquals(-1.0, r[1].imaginary, 1e-10);
+        assertEquals(1.0, r[2].imaginary, 1e-10);
+        assertEquals(1.0, r[3].imaginary, 1e-10);
+        for (Complex_F64 c : r) assertEquals(0.0, c.real, 1e-10);
+    }
+
+    @Test
+    void realRootsAreDeduplicated() {
+        assertEquals(List.of(2.0), Polynomial.parse("(x-2)^4", "x").realRoots());
+        assertEquals(2, Polynomial.parse("(x-1)*(x-1.0005)", "x").realRoots().size());
+    }
+
+    @Test
+    void nonPolynomialIsRejected() {
+        assertNull(Polynomial.parse("sin(x)", "x"));
+        assertNull(Polynomial.parse("1/x", "x"));
+        assertNull(Polynomial.parse("x^0.5", "x"));
+    }
+}
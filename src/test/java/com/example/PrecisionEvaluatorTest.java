@@ -0,0 +1,73 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.time.Duration;
+import java.util.Collections;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+
+/**
+ * PrecisionEvaluator：大数的取整与取模不展开整数部分、三角函数的自变量上限、计算预算
+ */
+class PrecisionEvaluatorTest {
+
+    private static String eval(String expression, int digits) {
+        return PrecisionEvaluator.format(PrecisionEvaluator.evaluate(expression, Collections.emptyMap(), digits), digits);
+    }
+
+    @Test
+    void remainderMatchesDefinition() {
+        assertEquals("1", eval("7 % 3", 20));
+        assertEquals("-1.5", eval("-7.5 % 2", 20));
+        assertEquals("1", eval("7 % -2", 20));
+        assertEquals("0.1", eval("10 % 0.3", 20));
+        assertEquals("0.25", eval("0.25 % 1", 20));
+        assertEquals("0", eval("1.5e-3 % 1e-4", 20));
+        assertThrows(ArithmeticException.class, () -> eval("1 % 0", 20));
+    }
+
+    @Test
+    void hugeOperandsStayCheap() {
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+            // 10^1000000 ≡ 10^(1000000 mod 6) = 10^4 ≡ 4 (mod 7)
+            assertEquals("4", eval("1e1000000 % 7", 20));
+            assertEquals("1E+10000000", eval("floor(1e10000000)", 20));
+            assertEquals("-1E+10000000", eval("ceil(-1e10000000)", 20));
+            assertEquals("1E+1000", eval("cbrt(1e3000)", 20));
+        });
+        assertEquals("-3", eval("floor(-2.5)", 20));
+        assertEquals("-2", eval("ceil(-2.5)", 20));
+        assertEquals("3", eval("cbrt(27)", 20));
+    }
+
+    @Test
+    void trigonometricArgumentIsBounded() {
+        assertThrows(ArithmeticException.class, () -> eval("sin(1e100000)", 20));
+        assertThrows(ArithmeticException.class, () -> eval("cos(-1e10001)", 20));
+        assertThrows(ArithmeticException.class, () -> eval("tan(1e20000)", 20));
+        // 10^22 = 3183098861837906715377675 π + r，sin(10^22) = -0.8522008497671888017727…
+        assertEquals("-0.85220084976718880177", eval("sin(1e22)", 20));
+    }
+
+    @Test
+    void budgetStopsEvaluation() {
+        ComputeBudget cancelled = ComputeBudget.unlimited();
+        cancelled.cancel();
+        ComputeBudget.ExhaustedException e = assertThrows(ComputeBudget.ExhaustedException.class,
+                () -> PrecisionEvaluator.evaluate("exp(2) + 1", Collections.emptyMap(), 50, cancelled));
+        assertEquals(ComputeBudget.Status.CANCELLED, e.status);
+
+        ComputeBudget budget = ComputeBudget.of(Duration.ofMillis(50), 0);
+        assertTimeoutPreemptively(Duration.ofSeconds(5), () -> assertThrows(ComputeBudget.ExhaustedException.class,
+                () -> PrecisionEvaluator.evaluate("exp(123456.789) * atan(7) * log(3)", Collections.emptyMap(),
+                        PrecisionEvaluator.MAX_DIGITS, budget)));
+
+        BigDecimal sum = PrecisionEvaluator.evaluate("1/3 + 2/3", Collections.emptyMap(), 30, ComputeBudget.of(Duration.ofSeconds(10), 0));
+        assertEquals(0, BigDecimal.ONE.compareTo(sum.round(new MathContext(30))));
+    }
+}
@@ -0,0 +1,172 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Worksheet 增量重算：只算下游、值不变时截断、并行传播、循环引用与预算用尽时回滚、错误沿依赖传递
+ */
+class WorksheetTest {
+
+    @Test
+    void onlyDownstreamCellsAreRecalculated() {
+        Worksheet w = new Worksheet();
+        w.set("a", "1");
+        w.set("b", "a * 2");
+        w.set("c", "b + 1");
+        w.set("d", "5");
+
+        Worksheet.Recalculation r = w.set("a", "2");
+        assertEquals(3, r.affected);
+        assertEquals(3, r.evaluated);
+        assertEquals(Arrays.asList("a", "b", "c"), r.changed);
+        assertEquals(4.0, w.value("b"), 0.0);
+        assertEquals(5.0, w.value("c"), 0.0);
+        assertEquals(5.0, w.value("d"), 0.0);
+    }
+
+    @Test
+    void unchangedValueStopsPropagation() {
+        Worksheet w = new Worksheet();
+        w.set("a", "1");
+        w.set("s", "a * 0");
+        w.set("t", "s + 1");
+
+        Worksheet.Recalculation r = w.set("a", "2");
+        assertEquals(3, r.affected);
+        // s 的值仍为 0，t 不再求值
+        assertEquals(2, r.evaluated);
+        assertEquals(Collections.singletonList("a"), r.changed);
+        assertEquals(1.0, w.value("t"), 0.0);
+    }
+
+    @Test
+    void parallelPropagationMatchesSequential() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ForkJoinPool single = new ForkJoinPool(1);
+        try {
+            Worksheet parallel = new Worksheet(pool);
+            Worksheet sequential = new Worksheet(single);
+            Map<String, String> formulas = new LinkedHashMap<>();
+            formulas.put("x", "1");
+            int n = 400;
+            for (int i = 0; i < n; i++) formulas.put("c" + i, "x * " + i);
+            // 每个 d 依赖两个相邻的 c，形成菱形依赖；e 串成一条链
+            for (int i = 0; i + 1 < n; i++) formulas.put("d" + i, "c" + i + " + c" + (i + 1));
+            formulas.put("e0", "d0");
+            for (int i = 1; i + 1 < n; i++) formulas.put("e" + i, "e" + (i - 1) + " + d" + i);
+            parallel.setAll(formulas);
+            sequential.setAll(formulas);
+
+            Worksheet.Recalculation r = parallel.set("x", "3");
+            Worksheet.Recalculation s = sequential.set("x", "3");
+            assertTrue(r.parallel);
+            assertFalse(s.parallel);
+            assertEquals(1 + n + 2 * (n - 1), r.affected);
+            assertEquals(r.affected, r.evaluated);
+            assertEquals(s.changed, r.changed);
+            assertEquals(sequential.values(), parallel.values());
+            // e_k = Σ d_i = 3 * Σ (2i + 1) = 3 (k + 1)^2
+            assertEquals(3.0 * (n - 1) * (n - 1), parallel.value("e" + (n - 2)), 0.0);
+        } finally {
+            pool.shutdown();
+            single.shutdown();
+        }
+    }
+
+    @Test
+    void cycleRollsBackTheWholeEdit() {
+        Worksheet w = new Worksheet();
+        w.set("a", "1");
+        w.set("b", "a + 1");
+
+        assertThrows(IllegalArgumentException.class, () -> w.set("a", "b * 2"));
+        assertEquals("1", w.formula("a"));
+        assertEquals(2.0, w.value("b"), 0.0);
+
+        Map<String, String> edit = new LinkedHashMap<>();
+        edit.put("n", "7");
+        edit.put("a", "b + n");
+        assertThrows(IllegalArgumentException.class, () -> w.setAll(edit));
+        assertFalse(w.contains("n"));
+        assertEquals("1", w.formula("a"));
+
+        // 回滚后依赖关系仍然正确
+        w.set("a", "10");
+        assertEquals(11.0, w.value("b"), 0.0);
+    }
+
+    @Test
+    void exhaustedBudgetRollsBackTheEdit() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            for (Worksheet w : Arrays.asList(new Worksheet(), new Worksheet(pool))) {
+                Map<String, String> formulas = new LinkedHashMap<>();
+                formulas.put("x", "1");
+                for (int i = 0; i < 400; i++) formulas.put("c" + i, "x + " + i);
+                w.setAll(formulas);
+                Map<String, Double> before = w.values();
+
+                ComputeBudget cancelled = ComputeBudget.unlimited();
+                cancelled.cancel();
+                Map<String, String> edit = new LinkedHashMap<>();
+                edit.put("x", "5");
+                edit.put("y", "x * 2");
+                ComputeBudget.ExhaustedException e = assertThrows(ComputeBudget.ExhaustedException.class,
+                        () -> w.setAll(edit, cancelled));
+                assertEquals(ComputeBudget.Status.CANCELLED, e.status);
+                assertEquals("1", w.formula("x"));
+                assertFalse(w.contains("y"));
+                assertEquals(before, w.values());
+
+                assertThrows(ComputeBudget.ExhaustedException.class, () -> w.remove("x", cancelled));
+                assertTrue(w.contains("x"));
+                assertEquals(before, w.values());
+
+                // 回滚后依赖关系仍然正确
+                w.set("x", "2");
+                assertEquals(401.0, w.value("c399"), 0.0);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    void errorsPropagateToDependents() {
+        Worksheet w = new Worksheet();
+        w.set("b", "a + 1");
+        w.set("c", "b * 2");
+        assertNotNull(w.error("b"));
+        assertNotNull(w.error("c"));
+        assertTrue(Double.isNaN(w.value("c")));
+
+        // 定义被引用的单元格后自动恢复
+        w.set("a", "3");
+        assertNull(w.error("b"));
+        assertNull(w.error("c"));
+        assertEquals(8.0, w.value("c"), 0.0);
+
+        w.set("a", "log(-1)");
+        assertNotNull(w.error("a"));
+        assertNotNull(w.error("c"));
+        assertEquals(3, w.errors().size());
+
+        w.remove("a");
+        assertNotNull(w.error("b"));
+        w.set("a", "0");
+        assertEquals(2.0, w.value("c"), 0.0);
+    }
+}